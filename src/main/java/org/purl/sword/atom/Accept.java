@@ -48,11 +48,11 @@ public class Accept extends BasicStringContentElement
      * The XmlName representation for this element. 
      */
     private static final XmlName XML_NAME =
-            new XmlName(Namespaces.PREFIX_APP, "accept", Namespaces.NS_APP);
+            XmlName.intern(Namespaces.PREFIX_APP, "accept", Namespaces.NS_APP);
 
     public Accept()
     {
-        super(XML_NAME.getPrefix(), XML_NAME.getLocalName(), XML_NAME.getNamespace());
+        super(XML_NAME);
     }
 
     public Accept(String version)
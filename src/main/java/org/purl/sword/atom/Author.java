@@ -108,7 +108,7 @@ public class Author extends XmlElement implements SwordElementInterface
     *
     */
    private static final XmlName XML_NAME =
-           new XmlName(Namespaces.PREFIX_ATOM, "author", Namespaces.NS_ATOM);
+           XmlName.intern(Namespaces.PREFIX_ATOM, "author", Namespaces.NS_ATOM);
 
    /**
     * Create a new instance and set the prefix to 
@@ -199,8 +199,8 @@ public class Author extends XmlElement implements SwordElementInterface
          handleIncorrectElement(author, validationProperties);
       }
 
-      ArrayList<SwordValidationInfo> validationItems = new ArrayList<SwordValidationInfo>();
-      ArrayList<SwordValidationInfo> attributeItems = new ArrayList<SwordValidationInfo>();
+      ArrayList<SwordValidationInfo> validationItems = createValidationList(validationProperties);
+      ArrayList<SwordValidationInfo> attributeItems = createValidationList(validationProperties);
 
       processUnexpectedAttributes(author, attributeItems);
       
@@ -216,18 +216,18 @@ public class Author extends XmlElement implements SwordElementInterface
          if( isInstanceOf(element, Name.elementName() ))
          {
             name = new Name();
-            validationItems.add(name.unmarshall(element, validationProperties));
+            addValidationItem(validationItems, name.unmarshall(element, validationProperties));
          }
          else if( isInstanceOf(element, Uri.elementName()))
          {
             uri = new Uri();
-            validationItems.add(uri.unmarshall(element, validationProperties));
+            addValidationItem(validationItems, uri.unmarshall(element, validationProperties));
             
          }
          else if( isInstanceOf(element, Email.elementName() ))
          {
             email = new Email();
-            validationItems.add(email.unmarshall(element, validationProperties));
+            addValidationItem(validationItems, email.unmarshall(element, validationProperties));
          }
          else if( validationProperties != null )
          {
@@ -235,7 +235,7 @@ public class Author extends XmlElement implements SwordElementInterface
                     SwordValidationInfo.UNKNOWN_ELEMENT,
                     SwordValidationInfoType.INFO);
             info.setContentDescription(element.getValue());
-            validationItems.add(info);
+            addValidationItem(validationItems, info);
          }
 
       } // for
@@ -45,7 +45,7 @@ import org.purl.sword.base.*;
 public class Category extends BasicStringContentElement
 {
     private static final XmlName XML_NAME =
-            new XmlName(Namespaces.PREFIX_ATOM, "category", Namespaces.NS_ATOM);
+            XmlName.intern(Namespaces.PREFIX_ATOM, "category", Namespaces.NS_ATOM);
 
     public Category()
     {
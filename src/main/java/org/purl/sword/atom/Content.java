@@ -88,7 +88,15 @@ public class Content extends XmlElement implements SwordElementInterface
     * 
     */
    private static final XmlName XML_NAME =
-           new XmlName(Namespaces.PREFIX_ATOM, "content", Namespaces.NS_ATOM);
+           XmlName.intern(Namespaces.PREFIX_ATOM, "content", Namespaces.NS_ATOM);
+
+   /** The name of the src attribute. */
+   private static final XmlName ATTRIBUTE_SRC_NAME = 
+           XmlName.intern(XML_NAME.getPrefix(), ATTRIBUTE_SRC, XML_NAME.getNamespace());
+
+   /** The name of the type attribute. */
+   private static final XmlName ATTRIBUTE_TYPE_NAME = 
+           XmlName.intern(XML_NAME.getPrefix(), ATTRIBUTE_TYPE, XML_NAME.getNamespace());
 
    /**
     * Create a new instance and set the prefix to 
@@ -148,7 +156,7 @@ public class Content extends XmlElement implements SwordElementInterface
    public void setType(String type)
    throws InvalidMediaTypeException
    {
-      if( type == null || ! type.matches(".*/.*") )
+      if( ! isMediaType(type) )
       {
          throw new InvalidMediaTypeException("Type: '" + type + "' does not match .*/.*");
       }
@@ -156,6 +164,37 @@ public class Content extends XmlElement implements SwordElementInterface
       this.type = type;
    }
 
+   /**
+    * Check the type against the pattern <code>.*&#47;.*</code>, without 
+    * compiling a regular expression on each call. The type must contain a 
+    * '/' and no line terminators. 
+    * 
+    * @param type The type. 
+    * @return True if the type matches the pattern. 
+    */
+   private static boolean isMediaType(String type)
+   {
+      if( type == null )
+      {
+         return false;
+      }
+      boolean slash = false;
+      for( int i = 0; i < type.length(); i++ )
+      {
+         char c = type.charAt(i);
+         if( c == '/' )
+         {
+            slash = true;
+         }
+         else if( c == '\n' || c == '\r' || c == '\u0085' || 
+                  c == '\u2028' || c == '\u2029' )
+         {
+            return false;
+         }
+      }
+      return slash;
+   }
+
    /**
     * Marshall the data in this object to an Element object.
     * 
@@ -202,8 +241,8 @@ public class Content extends XmlElement implements SwordElementInterface
          return handleIncorrectElement(content, validationProperties);
       }
 
-      ArrayList<SwordValidationInfo> elements = new ArrayList<SwordValidationInfo>();
-      ArrayList<SwordValidationInfo> attributes = new ArrayList<SwordValidationInfo>();
+      ArrayList<SwordValidationInfo> elements = createValidationList(validationProperties);
+      ArrayList<SwordValidationInfo> attributes = createValidationList(validationProperties);
       
       try
       {
@@ -219,7 +258,7 @@ public class Content extends XmlElement implements SwordElementInterface
                 type = attribute.getValue();
                 if( validationProperties != null )
                 {
-                   attributes.add(createValidAttributeInfo(ATTRIBUTE_TYPE, type));
+                   addValidationItem(attributes, createValidAttributeInfo(ATTRIBUTE_TYPE_NAME, type));
                 }
             }
             else if( ATTRIBUTE_SRC.equals(name) )
@@ -227,25 +266,25 @@ public class Content extends XmlElement implements SwordElementInterface
                source = attribute.getValue();
                if( validationProperties != null )
                {
-                  attributes.add(createValidAttributeInfo(ATTRIBUTE_SRC, source));
+                  addValidationItem(attributes, createValidAttributeInfo(ATTRIBUTE_SRC_NAME, source));
                }
             }
-            else
+            else if( validationProperties != null )
             {
                SwordValidationInfo info = new SwordValidationInfo(xmlName,
                        new XmlName(attribute),
                        SwordValidationInfo.UNKNOWN_ATTRIBUTE,
                        SwordValidationInfoType.INFO );
                 info.setContentDescription(attribute.getValue());
-                attributes.add(info);
+                addValidationItem(attributes, info);
             }
          }
 
          // check if there is any content. If there is, add a simple message to
          // say that there are sub elements that are not used in this profile
-         if( content.getChildCount() > 0 )
+         if( content.getChildCount() > 0 && validationProperties != null )
          {
-            elements.add(new SwordValidationInfo(xmlName,
+            addValidationItem(elements, new SwordValidationInfo(xmlName,
                     "This element has child elements. These are not expected as part of the SWORD profile",
                     SwordValidationInfoType.INFO));
          }
@@ -284,11 +323,7 @@ public class Content extends XmlElement implements SwordElementInterface
 
        if( source == null )
        {
-           XmlName attributeName = new XmlName(xmlName.getPrefix(),
-                       ATTRIBUTE_SRC,
-                       xmlName.getNamespace());
-
-          SwordValidationInfo item = new SwordValidationInfo(xmlName, attributeName,
+          SwordValidationInfo item = new SwordValidationInfo(xmlName, ATTRIBUTE_SRC_NAME,
                   SwordValidationInfo.MISSING_ATTRIBUTE_WARNING,
                   SwordValidationInfoType.ERROR);
           info.addValidationInfo(item);
@@ -47,7 +47,7 @@ import org.purl.sword.base.XmlName;
 public class Contributor extends Author
 {
    private static final XmlName XML_NAME =
-           new XmlName(Namespaces.PREFIX_ATOM, "contributor", Namespaces.NS_ATOM);
+           XmlName.intern(Namespaces.PREFIX_ATOM, "contributor", Namespaces.NS_ATOM);
    
    /**
     * Create a new instance and set the prefix to 
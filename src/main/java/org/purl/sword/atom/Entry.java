@@ -37,14 +37,19 @@
 package org.purl.sword.atom;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 
 import java.util.Properties;
 import nu.xom.Element;
 import nu.xom.Elements;
+import nu.xom.Node;
 
 import org.apache.log4j.Logger;
+import org.purl.sword.base.ElementDispatcher;
+import org.purl.sword.base.ElementHandler;
 import org.purl.sword.base.HttpHeaders;
 import org.purl.sword.base.Namespaces;
 import org.purl.sword.base.SwordElementInterface;
@@ -172,6 +177,12 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    private Updated updated;
 
+   /**
+    * The child elements that have not been unmarshalled yet, if the entry 
+    * was unmarshalled with unmarshallLazily. 
+    */
+   private DeferredElements deferred;
+
    /**
     * The log. 
     */
@@ -181,7 +192,225 @@ public class Entry extends XmlElement implements SwordElementInterface
     * The prefix, local name and namespace used for this element.
     */
    private static final XmlName XML_NAME =
-           new XmlName(Namespaces.PREFIX_ATOM, "entry", Namespaces.NS_ATOM);
+           XmlName.intern(Namespaces.PREFIX_ATOM, "entry", Namespaces.NS_ATOM);
+
+   /**
+    * The handlers for the child elements of the entry element. 
+    */
+   private static final ElementDispatcher<Entry> DISPATCHER = 
+           new ElementDispatcher<Entry>();
+
+   /**
+    * The child elements that can be unmarshalled on first access. The 
+    * position in this array is the kind recorded in DeferredElements. 
+    */
+   private static final XmlName[] DEFERRED_NAMES = {
+      Author.elementName(), Category.elementName(), Content.elementName(),
+      Generator.elementName(), Contributor.elementName(), Id.elementName(),
+      Link.elementName(), Published.elementName(), Rights.elementName(),
+      Source.elementName(), Summary.elementName(), Title.elementName(),
+      Updated.elementName()
+   };
+
+   static
+   {
+      DISPATCHER.register(Author.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            Author author = new Author();
+            SwordValidationInfo info = author.unmarshall(element, validationProperties);
+            entry.authors.add(author);
+            return info;
+         }
+      });
+
+      DISPATCHER.register(Category.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            Category category = new Category();
+            SwordValidationInfo info = category.unmarshall(element, validationProperties);
+            entry.categories.add(category);
+            return info;
+         }
+      });
+
+      DISPATCHER.register(Content.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.content != null )
+            {
+               return createDuplicateInfo(Content.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.content = new Content();
+            return entry.content.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(Generator.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.generator != null )
+            {
+               return createDuplicateInfo(Generator.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.generator = new Generator();
+            return entry.generator.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(Contributor.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            Contributor contributor = new Contributor();
+            SwordValidationInfo info = contributor.unmarshall(element, validationProperties);
+            entry.contributors.add(contributor);
+            return info;
+         }
+      });
+
+      DISPATCHER.register(Id.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.id != null )
+            {
+               return createDuplicateInfo(Id.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.id = new Id();
+            return entry.id.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(Link.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            Link link = new Link();
+            SwordValidationInfo info = link.unmarshall(element, validationProperties);
+            entry.links.add(link);
+            return info;
+         }
+      });
+
+      DISPATCHER.register(Published.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.published != null )
+            {
+               return createDuplicateInfo(Published.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.published = new Published();
+            return entry.published.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(Rights.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.rights != null )
+            {
+               return createDuplicateInfo(Rights.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.rights = new Rights();
+            return entry.rights.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(Summary.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.summary != null )
+            {
+               return createDuplicateInfo(Summary.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.summary = new Summary();
+            return entry.summary.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(Title.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.title != null )
+            {
+               return createDuplicateInfo(Title.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.title = new Title();
+            return entry.title.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(Updated.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.updated != null )
+            {
+               return createDuplicateInfo(Updated.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.updated = new Updated();
+            return entry.updated.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(Source.elementName(), new ElementHandler<Entry>() 
+      {
+         public SwordValidationInfo unmarshall(Entry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.source != null )
+            {
+               return createDuplicateInfo(Source.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.source = new Source();
+            return entry.source.unmarshall(element, validationProperties);
+         }
+      });
+   }
+
+   /**
+    * Register a handler for a child element of the entry element. This 
+    * can be used to unmarshall extension elements, or to replace the default
+    * handling of an element. Elements that do not have a handler are 
+    * reported as unknown elements when the entry is validated. 
+    * 
+    * @param name    The name of the child element. 
+    * @param handler The handler. 
+    */
+   public static void registerElementHandler(XmlName name, ElementHandler<Entry> handler)
+   {
+      DISPATCHER.register(name, handler);
+   }
 
    /**
     * Create a new instance of the class and initialise it. 
@@ -279,6 +508,8 @@ public class Entry extends XmlElement implements SwordElementInterface
    
    protected void marshallElements(Element entry)
    {
+	      loadAllDeferred();
+
 	      if (id != null)
 	      {
              entry.appendChild(id.marshall());
@@ -369,12 +600,18 @@ public class Entry extends XmlElement implements SwordElementInterface
          return handleIncorrectElement(entry, validationProperties);
       }
 
-      // used to hold the element and attribute unmarshall info results
-      SwordValidationInfo result = new SwordValidationInfo(xmlName);
+      // used to hold the element and attribute unmarshall info results. This
+      // is not created if the entry is not being validated. 
+      SwordValidationInfo result = null;
+      if( validationProperties != null )
+      {
+         result = new SwordValidationInfo(xmlName);
+      }
 
       try
       {
          initialise();
+         deferred = null;
 
          // FIXME - attributes? 
 
@@ -387,177 +624,8 @@ public class Entry extends XmlElement implements SwordElementInterface
          {
             element = elements.get(i);
 
-            if (isInstanceOf(element, Author.elementName()))
-            {
-               Author author = new Author(); 
-               result.addUnmarshallElementInfo(author.unmarshall(element, validationProperties));
-               authors.add(author);
-            }
-            else if (isInstanceOf(element, Category.elementName()))
-            {
-               Category category = new Category();
-               result.addUnmarshallElementInfo(category.unmarshall(element, validationProperties));
-               categories.add(category); 
-            }
-            else if (isInstanceOf(element, Content.elementName()))
-            {
-               if( content == null )
-               {
-                  content = new Content();
-                  result.addUnmarshallElementInfo(content.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                   SwordValidationInfo info = new SwordValidationInfo(Content.elementName(),
-                          SwordValidationInfo.DUPLICATE_ELEMENT,
-                          SwordValidationInfoType.WARNING);
-                  info.setContentDescription(element.getValue());
-                  result.addUnmarshallElementInfo(info);
-               }
-
-            }
-            else if (isInstanceOf(element, Generator.elementName()))
-            {
-               if( generator == null )
-               {
-                  generator = new Generator();
-                  result.addUnmarshallElementInfo(generator.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                  SwordValidationInfo info = new SwordValidationInfo(Generator.elementName(),
-                          SwordValidationInfo.DUPLICATE_ELEMENT,
-                          SwordValidationInfoType.WARNING);
-                  info.setContentDescription(element.getValue());
-                  result.addUnmarshallElementInfo(info);
-               }
-            }
-            else if (isInstanceOf(element, Contributor.elementName()))
-            {
-               Contributor contributor = new Contributor(); 
-               result.addUnmarshallElementInfo(contributor.unmarshall(element, validationProperties));
-               contributors.add(contributor);
-            }
-            else if (isInstanceOf(element, Id.elementName()))
-            {
-               if( id == null )
-               {
-                 id = new Id();
-                 result.addUnmarshallElementInfo(id.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                  SwordValidationInfo info = new SwordValidationInfo(Id.elementName(),
-                          SwordValidationInfo.DUPLICATE_ELEMENT,
-                          SwordValidationInfoType.WARNING);
-                  info.setContentDescription(element.getValue());
-                  result.addUnmarshallElementInfo(info);
-               }
-
-            }
-            else if (isInstanceOf(element, Link.elementName()))
-            {
-               Link link = new Link(); 
-               result.addUnmarshallElementInfo(link.unmarshall(element, validationProperties));
-               links.add(link);
-            }
-            else if (isInstanceOf(element, Published.elementName()))
-            {
-               if( published == null )
-               {
-                  published = new Published();
-                  result.addUnmarshallElementInfo(published.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                  SwordValidationInfo info = new SwordValidationInfo(Published.elementName(),
-                          SwordValidationInfo.DUPLICATE_ELEMENT,
-                          SwordValidationInfoType.WARNING);
-                  info.setContentDescription(element.getValue());
-                  result.addUnmarshallElementInfo(info);
-               }
-            }
-            else if (isInstanceOf(element, Rights.elementName()))
-            {
-               if( rights == null )
-               {
-                  rights = new Rights();
-                  result.addUnmarshallElementInfo(rights.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                  SwordValidationInfo info = new SwordValidationInfo(Rights.elementName(),
-                          SwordValidationInfo.DUPLICATE_ELEMENT,
-                          SwordValidationInfoType.WARNING);
-                  info.setContentDescription(element.getValue());
-                  result.addUnmarshallElementInfo(info);
-               }
-            }
-            else if (isInstanceOf(element, Summary.elementName()))
-            {
-               if( summary == null )
-               {
-                  summary = new Summary();
-                  result.addUnmarshallElementInfo(summary.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                  SwordValidationInfo info = new SwordValidationInfo(Summary.elementName(),
-                          SwordValidationInfo.DUPLICATE_ELEMENT,
-                          SwordValidationInfoType.WARNING);
-                  info.setContentDescription(element.getValue());
-                  result.addUnmarshallElementInfo(info);
-               }
-            }
-            else if (isInstanceOf(element, Title.elementName()))
-            {
-               if( title == null )
-               {
-                  title = new Title();
-                  result.addUnmarshallElementInfo(title.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                  SwordValidationInfo info = new SwordValidationInfo(Title.elementName(),
-                          SwordValidationInfo.DUPLICATE_ELEMENT,
-                          SwordValidationInfoType.WARNING);
-                  info.setContentDescription(element.getValue());
-                  result.addUnmarshallElementInfo(info);
-               }
-            }
-            else if (isInstanceOf(element, Updated.elementName()))
-            {
-               if( updated == null )
-               {
-                  updated = new Updated();
-                  result.addUnmarshallElementInfo(updated.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                  SwordValidationInfo info = new SwordValidationInfo(Updated.elementName(),
-                          SwordValidationInfo.DUPLICATE_ELEMENT,
-                          SwordValidationInfoType.WARNING);
-                  info.setContentDescription(element.getValue());
-                  result.addUnmarshallElementInfo(info);
-               }
-            }
-            else if (isInstanceOf(element, Source.elementName()))
-            {
-               if( source == null )
-               {
-                  source = new Source();
-                  result.addUnmarshallElementInfo(source.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                  SwordValidationInfo info = new SwordValidationInfo(Source.elementName(),
-                          SwordValidationInfo.DUPLICATE_ELEMENT,
-                          SwordValidationInfoType.WARNING);
-                  info.setContentDescription(element.getValue());
-                  result.addUnmarshallElementInfo(info);
-               }
-            }
-            else if( validationProperties != null )
+            if( ! unmarshallElement(element, result, validationProperties) && 
+                validationProperties != null )
             {
                 XmlName name = new XmlName(element);
                 if( ! isElementChecked(name) )
@@ -566,7 +634,7 @@ public class Entry extends XmlElement implements SwordElementInterface
                           SwordValidationInfo.UNKNOWN_ELEMENT,
                           SwordValidationInfoType.INFO);
                    info.setContentDescription(element.getValue());
-                   result.addUnmarshallElementInfo(info);
+                   addUnmarshallInfo(result, info);
                 }
             }
 
@@ -582,6 +650,344 @@ public class Entry extends XmlElement implements SwordElementInterface
       return result; 
    }
 
+   /**
+    * Unmarshall a child element of the entry, using the handler that has 
+    * been registered for the element. Subclasses that support additional
+    * elements should override this method and call it for any element that
+    * they do not handle, so that all of the elements are processed in a 
+    * single pass. 
+    * 
+    * @param element The child element. 
+    * @param result  The unmarshall information for the entry, or 
+    *                <code>null</code> if the entry is not being validated. 
+    * @param validationProperties The validation properties, or <code>null</code>. 
+    * @return True if the element was handled, otherwise false. 
+    * @throws UnmarshallException If there was an error unmarshalling the element. 
+    */
+   protected boolean unmarshallElement(Element element, SwordValidationInfo result, 
+                                       Properties validationProperties)
+   throws UnmarshallException
+   {
+      ElementHandler<Entry> handler = DISPATCHER.getHandler(element);
+      if( handler == null )
+      {
+         return false;
+      }
+
+      addUnmarshallInfo(result, handler.unmarshall(this, element, validationProperties));
+      return true;
+   }
+
+   /**
+    * Unmarshall the entry without validation, and defer the creation of 
+    * the atom child elements until they are first accessed. Only the 
+    * position and kind of each of those elements is recorded. Elements 
+    * that are handled by a subclass, such as the sword elements in 
+    * SWORDEntry, are unmarshalled immediately. 
+    * 
+    * This is intended for clients that read a few fields from a large 
+    * number of entries. Nothing is copied: a reference to each deferred 
+    * child element is kept until its field has been built, so the document
+    * stays in memory until then, and the child elements must not be changed
+    * before their fields have been read. Removing them from the entry 
+    * element does not affect this entry. Building a deferred field changes the 
+    * entry, so an entry that was unmarshalled by this method must not be 
+    * shared between threads until {@link #validate(Properties)} or 
+    * {@link #marshall()} has been called. 
+    * 
+    * @param entry The entry element. 
+    * @throws UnmarshallException If the element is not an entry, or if 
+    *         there is a problem processing one of the sword elements. 
+    */
+   public void unmarshallLazily(Element entry)
+   throws UnmarshallException
+   {
+      if (! isInstanceOf(entry, xmlName) )
+      {
+         handleIncorrectElement(entry, null);
+         return;
+      }
+
+      initialise();
+      deferred = null;
+
+      DeferredElements elements = null;
+      int count = entry.getChildCount();
+      for( int i = 0; i < count; i++ )
+      {
+         Node node = entry.getChild(i);
+         if( ! (node instanceof Element) )
+         {
+            continue;
+         }
+
+         Element element = (Element) node;
+         int kind = getDeferredKind(element);
+         if( kind >= 0 && isDeferrable(element) )
+         {
+            if( elements == null )
+            {
+               elements = new DeferredElements(count - i);
+            }
+            elements.add(element, kind);
+         }
+         else
+         {
+            unmarshallElement(element, null, null);
+         }
+      }
+
+      if( elements != null )
+      {
+         elements.trim();
+      }
+      deferred = elements;
+   }
+
+   /**
+    * Determine if the child element can be unmarshalled on first access. 
+    * Subclasses that handle some of the atom elements themselves should 
+    * override this method and return false for those elements. 
+    * 
+    * @param element The child element. 
+    * @return True if the element is handled by the handlers registered 
+    *         for Entry. 
+    */
+   protected boolean isDeferrable(Element element)
+   {
+      return DISPATCHER.getHandler(element) != null;
+   }
+
+   /**
+    * Unmarshall any deferred elements with the specified name. 
+    * 
+    * @param name The name of the element. 
+    */
+   private void loadDeferred(XmlName name)
+   {
+      if( deferred == null )
+      {
+         return;
+      }
+
+      int kind = getDeferredKind(name);
+      if( deferred.remove(kind) )
+      {
+         DeferredElements elements = deferred;
+         if( deferred.isEmpty() )
+         {
+            deferred = null;
+         }
+
+         for( int i = 0; i < elements.kinds.length; i++ )
+         {
+            if( elements.kinds[i] == kind )
+            {
+               unmarshallDeferred(elements.take(i));
+            }
+         }
+      }
+   }
+
+   /**
+    * Unmarshall all of the deferred elements, in document order. 
+    */
+   private void loadAllDeferred()
+   {
+      if( deferred == null )
+      {
+         return;
+      }
+
+      DeferredElements elements = deferred;
+      deferred = null;
+      for( int i = 0; i < elements.kinds.length; i++ )
+      {
+         if( elements.isPending(elements.kinds[i]) )
+         {
+            unmarshallDeferred(elements.take(i));
+         }
+      }
+   }
+
+   /**
+    * Discard any deferred elements with the specified name. This is called 
+    * when the field is replaced, so that a later access does not overwrite 
+    * the new value. 
+    * 
+    * @param name The name of the element. 
+    */
+   private void discardDeferred(XmlName name)
+   {
+      int kind = getDeferredKind(name);
+      if( deferred != null && deferred.remove(kind) )
+      {
+         if( deferred.isEmpty() )
+         {
+            deferred = null;
+         }
+         else
+         {
+            deferred.release(kind);
+         }
+      }
+   }
+
+   /**
+    * Unmarshall a deferred element. The getters cannot report an error, 
+    * so a failure is logged and the element is ignored. 
+    * 
+    * @param element The element. 
+    */
+   private void unmarshallDeferred(Element element)
+   {
+      ElementHandler<Entry> handler = DISPATCHER.getHandler(element);
+      if( handler == null )
+      {
+         return;
+      }
+
+      try
+      {
+         handler.unmarshall(this, element, null);
+      }
+      catch( UnmarshallException ex )
+      {
+         log.error("Unable to unmarshall " + element.getQualifiedName() + 
+                   " in Entry: " + ex.getMessage());
+      }
+   }
+
+   /**
+    * Get the kind of deferred element for the name. 
+    * 
+    * @param name The canonical name. 
+    * @return The position in DEFERRED_NAMES, or -1. 
+    */
+   private static int getDeferredKind(XmlName name)
+   {
+      for( int i = 0; i < DEFERRED_NAMES.length; i++ )
+      {
+         if( DEFERRED_NAMES[i] == name )
+         {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Get the kind of deferred element for the element. 
+    * 
+    * @param element The element. 
+    * @return The position in DEFERRED_NAMES, or -1. 
+    */
+   private static int getDeferredKind(Element element)
+   {
+      for( int i = 0; i < DEFERRED_NAMES.length; i++ )
+      {
+         if( DEFERRED_NAMES[i].matches(element) )
+         {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * The child elements that have not been unmarshalled. A reference to 
+    * each element is held in document order, with one byte that records 
+    * its kind, and a bit mask records the kinds that are still to be 
+    * unmarshalled. Each reference is released once its field is built. 
+    */
+   private static final class DeferredElements
+   {
+      Element[] elements;
+
+      byte[] kinds;
+
+      private int size;
+
+      private int pending;
+
+      DeferredElements(int capacity)
+      {
+         this.elements = new Element[capacity];
+         this.kinds = new byte[capacity];
+      }
+
+      void add(Element element, int kind)
+      {
+         elements[size] = element;
+         kinds[size] = (byte) kind;
+         size++;
+         pending |= (1 << kind);
+      }
+
+      /**
+       * Reduce the arrays to the number of elements that were added. 
+       */
+      void trim()
+      {
+         elements = Arrays.copyOf(elements, size);
+         kinds = Arrays.copyOf(kinds, size);
+      }
+
+      /**
+       * Get the element at the position, and release it. 
+       * 
+       * @param position The position. 
+       * @return The element. 
+       */
+      Element take(int position)
+      {
+         Element element = elements[position];
+         elements[position] = null;
+         return element;
+      }
+
+      /**
+       * Release the elements of the specified kind. 
+       * 
+       * @param kind The kind. 
+       */
+      void release(int kind)
+      {
+         for( int i = 0; i < kinds.length; i++ )
+         {
+            if( kinds[i] == kind )
+            {
+               elements[i] = null;
+            }
+         }
+      }
+
+      boolean isPending(int kind)
+      {
+         return (pending & (1 << kind)) != 0;
+      }
+
+      /**
+       * Mark the kind as no longer pending. 
+       * 
+       * @return True if the kind was pending. 
+       */
+      boolean remove(int kind)
+      {
+         if( kind < 0 || ! isPending(kind) )
+         {
+            return false;
+         }
+         pending &= ~(1 << kind);
+         return true;
+      }
+
+      boolean isEmpty()
+      {
+         return pending == 0;
+      }
+   }
+
    public SwordValidationInfo unmarshall(Element entry, Properties validationProperties)
    throws UnmarshallException
    {
@@ -611,6 +1017,8 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    protected SwordValidationInfo validate(SwordValidationInfo info, Properties validationContext)
    {
+       loadAllDeferred();
+
        // determine if a full validation is required 
        boolean validateAll = (info == null);
 
@@ -744,6 +1152,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public Iterator<Author> getAuthors()
    {
+      loadDeferred(Author.elementName());
       return authors.iterator();
    }
 
@@ -754,6 +1163,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public void addAuthors(Author author)
    {
+      loadDeferred(Author.elementName());
       this.authors.add(author);
    }
 
@@ -762,6 +1172,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public void clearAuthors()
    {
+      discardDeferred(Author.elementName());
       this.authors.clear();
    }
 
@@ -771,6 +1182,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     * @return An iterator. 
     */
    public Iterator<String> getCategories() {
+      loadDeferred(Category.elementName());
       ArrayList<String> items = new ArrayList<String>();
       for( int i = 0; i < categories.size(); i++ )
       {
@@ -786,6 +1198,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     * @param category the category to add. 
     */
    public void addCategory(String category) {
+      loadDeferred(Category.elementName());
       this.categories.add(new Category(category));
    }
 
@@ -794,6 +1207,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public void clearCategories()
    {
+      discardDeferred(Category.elementName());
       this.categories.clear();
    }
 
@@ -804,6 +1218,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public Content getContent() 
    {
+      loadDeferred(Content.elementName());
       return content;
    }
 
@@ -813,6 +1228,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public void setContent(Content content) 
    {
+      discardDeferred(Content.elementName());
       this.content = content;
    } 
 
@@ -823,6 +1239,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public Generator getGenerator() 
    {
+      loadDeferred(Generator.elementName());
       return generator;
    }
 
@@ -832,6 +1249,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public void setGenerator(Generator generator) 
    {
+      discardDeferred(Generator.elementName());
       this.generator = generator;
    } 
 
@@ -841,6 +1259,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     * @return An iterator. 
     */
    public Iterator<Contributor> getContributors() {
+      loadDeferred(Contributor.elementName());
       return contributors.iterator();
    }
 
@@ -851,6 +1270,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public void addContributor(Contributor contributor) 
    {
+      loadDeferred(Contributor.elementName());
       this.contributors.add(contributor);
    }
 
@@ -859,6 +1279,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public void clearContributors()
    {
+      discardDeferred(Contributor.elementName());
       this.contributors.clear();
    }
 
@@ -869,6 +1290,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public String getId() 
    {
+      loadDeferred(Id.elementName());
       if( id == null )
       {
           return null;
@@ -883,6 +1305,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public void setId(String id) 
    {
+      discardDeferred(Id.elementName());
       this.id = new Id(id);
    }
 
@@ -893,6 +1316,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public Iterator<Link> getLinks() 
    {
+      loadDeferred(Link.elementName());
       return links.iterator();
    }
 
@@ -903,6 +1327,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public void addLink(Link link) 
    {
+      loadDeferred(Link.elementName());
       this.links.add(link);
    }
 
@@ -911,6 +1336,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public void clearLinks()
    {
+      discardDeferred(Link.elementName());
       this.links.clear();
    }
 
@@ -921,6 +1347,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public String getPublished() 
    {
+      loadDeferred(Published.elementName());
       if( published == null )
       {
           return null;
@@ -934,11 +1361,39 @@ public class Entry extends XmlElement implements SwordElementInterface
     * is in the correct format. 
     * 
     * @param published The string. 
-    * @see org.purl.sword.base.XmlElement#stringToDate(String) stringToDate
+    * @see org.purl.sword.base.DateCodec#parse(String) parse
     * @see Entry#setPublished(Date) setPublished
     */
    public void setPublished(String published) 
    {
+      discardDeferred(Published.elementName());
+      this.published = new Published(published);
+   }
+
+   /**
+    * Get the published date. 
+    * 
+    * @return The date, or <code>null</code> if the date is not set or is 
+    *         not in a supported format. 
+    */
+   public Date getPublishedDate() 
+   {
+      loadDeferred(Published.elementName());
+      if( published == null )
+      {
+          return null;
+      }
+      return published.getDate();
+   }
+
+   /**
+    * Set the published date. The date is stored in UTC. 
+    * 
+    * @param published The date. 
+    */
+   public void setPublished(Date published) 
+   {
+      discardDeferred(Published.elementName());
       this.published = new Published(published);
    }
 
@@ -947,6 +1402,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     * @return The rights. 
     */
    public Rights getRights() {
+      loadDeferred(Rights.elementName());
       return rights;
    }
 
@@ -956,6 +1412,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     * @param rights The rights. 
     */
    public void setRights(Rights rights) {
+      discardDeferred(Rights.elementName());
       this.rights = rights;
    }
 
@@ -966,6 +1423,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    @Deprecated
    public Source getSource() {
+      loadDeferred(Source.elementName());
       return source;
    }
 
@@ -978,6 +1436,7 @@ public class Entry extends XmlElement implements SwordElementInterface
    @Deprecated
    public void setSource(Source source) 
    {
+      discardDeferred(Source.elementName());
       this.source = source;
    }
 
@@ -988,6 +1447,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public Summary getSummary() 
    {
+      loadDeferred(Summary.elementName());
       return summary;
    }
 
@@ -998,6 +1458,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public void setSummary(Summary summary) 
    {
+      discardDeferred(Summary.elementName());
       this.summary = summary;
    }
 
@@ -1008,6 +1469,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public Title getTitle() 
    {
+      loadDeferred(Title.elementName());
       return title;
    }
 
@@ -1018,12 +1480,13 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public void setTitle(Title title) 
    {
+      discardDeferred(Title.elementName());
       this.title = title;
    }
 
    /**
     * Get the updated date, expressed as a String. See
-    * org.purl.sword.XmlElement.stringToDate for the 
+    * org.purl.sword.base.DateCodec.parse for the 
     * list of supported formats. This particular method 
     * will not check if the date is formatted correctly. 
     * 
@@ -1031,6 +1494,7 @@ public class Entry extends XmlElement implements SwordElementInterface
     */
    public String getUpdated() 
    {
+      loadDeferred(Updated.elementName());
       if( updated == null )
       {
           return null;
@@ -1044,11 +1508,40 @@ public class Entry extends XmlElement implements SwordElementInterface
     * string. 
     * 
     * @param updated The string. 
-    * @see org.purl.sword.base.XmlElement#stringToDate(String) stringToDate
+    * @see org.purl.sword.base.DateCodec#parse(String) parse
     * @see Entry#setPublished(Date) setPublished
     */ 
    public void setUpdated(String updated) 
    {
+      discardDeferred(Updated.elementName());
       this.updated = new Updated(updated);
    }     
+
+   /**
+    * Get the updated date. 
+    * 
+    * @return The date, or <code>null</code> if the date is not set or is 
+    *         not in a supported format. 
+    */
+   public Date getUpdatedDate() 
+   {
+      loadDeferred(Updated.elementName());
+      if( updated == null )
+      {
+          return null;
+      }
+      return updated.getDate();
+   }
+
+   /**
+    * Set the updated date. The date is stored in UTC. 
+    * 
+    * @param updated The date. 
+    * @see Entry#setPublished(Date) setPublished
+    */ 
+   public void setUpdated(Date updated) 
+   {
+      discardDeferred(Updated.elementName());
+      this.updated = new Updated(updated);
+   }
 }
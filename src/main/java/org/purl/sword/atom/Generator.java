@@ -97,9 +97,17 @@ public class Generator extends XmlElement implements SwordElementInterface
    /**
     * The Xml name details for the element. 
     */
-   private static final XmlName XML_NAME = new XmlName(
+   private static final XmlName XML_NAME = XmlName.intern(
            Namespaces.PREFIX_ATOM, "generator", Namespaces.NS_ATOM);
 
+   /** The name of the uri attribute. */
+   private static final XmlName ATTRIBUTE_URI_NAME = 
+           XmlName.intern(XML_NAME.getPrefix(), ATTRIBUTE_URI, XML_NAME.getNamespace());
+
+   /** The name of the version attribute. */
+   private static final XmlName ATTRIBUTE_VERSION_NAME = 
+           XmlName.intern(XML_NAME.getPrefix(), ATTRIBUTE_VERSION, XML_NAME.getNamespace());
+
    /** 
     * Create a new instance and set the prefix to 
     * 'atom' and the local name to 'generator'.  
@@ -174,8 +182,8 @@ public class Generator extends XmlElement implements SwordElementInterface
          return handleIncorrectElement(generator, validationProperties);
       }
 
-      ArrayList<SwordValidationInfo> validationItems = new ArrayList<SwordValidationInfo>();
-      ArrayList<SwordValidationInfo> attributeValidationItems = new ArrayList<SwordValidationInfo>();
+      ArrayList<SwordValidationInfo> validationItems = createValidationList(validationProperties);
+      ArrayList<SwordValidationInfo> attributeValidationItems = createValidationList(validationProperties);
 
       try
       {
@@ -191,21 +199,25 @@ public class Generator extends XmlElement implements SwordElementInterface
             {
                uri = attribute.getValue();
 
-               XmlName uriName = new XmlName(Namespaces.PREFIX_ATOM, ATTRIBUTE_URI, Namespaces.NS_ATOM);
-               SwordValidationInfo info = new SwordValidationInfo(xmlName, uriName);
-               info.setContentDescription(uri);
-               attributeValidationItems.add(info); 
+               if( validationProperties != null )
+               {
+                  SwordValidationInfo info = new SwordValidationInfo(xmlName, ATTRIBUTE_URI_NAME);
+                  info.setContentDescription(uri);
+                  addValidationItem(attributeValidationItems, info); 
+               }
 
             }
             else if( ATTRIBUTE_VERSION.equals(attribute.getQualifiedName()))
             {
                version = attribute.getValue();
-               XmlName versionName = new XmlName(Namespaces.PREFIX_ATOM, ATTRIBUTE_VERSION, Namespaces.NS_ATOM);
-               SwordValidationInfo info = new SwordValidationInfo(xmlName, versionName);
-               info.setContentDescription(version);
-               attributeValidationItems.add(info);
+               if( validationProperties != null )
+               {
+                  SwordValidationInfo info = new SwordValidationInfo(xmlName, ATTRIBUTE_VERSION_NAME);
+                  info.setContentDescription(version);
+                  addValidationItem(attributeValidationItems, info);
+               }
             }
-            else
+            else if( validationProperties != null )
             {
                XmlName attributeName = new XmlName(attribute.getNamespacePrefix(),
                        attribute.getLocalName(),
@@ -215,7 +227,7 @@ public class Generator extends XmlElement implements SwordElementInterface
                        SwordValidationInfo.UNKNOWN_ATTRIBUTE,
                        SwordValidationInfoType.INFO);
                info.setContentDescription(attribute.getValue());
-               validationItems.add(info);
+               addValidationItem(validationItems, info);
             }
 
          }
@@ -264,8 +276,6 @@ public class Generator extends XmlElement implements SwordElementInterface
        SwordValidationInfo result = new SwordValidationInfo(xmlName);
        result.setContentDescription(content);
 
-       XmlName attributeName;
-
        if( content == null )
        {
            result.addValidationInfo(
@@ -277,34 +287,26 @@ public class Generator extends XmlElement implements SwordElementInterface
 
        if( uri == null )
        {
-           attributeName = new XmlName(Namespaces.PREFIX_ATOM, 
-                                       ATTRIBUTE_URI, 
-                                       Namespaces.NS_ATOM);
-           
            result.addAttributeValidationInfo(
-                   new SwordValidationInfo(xmlName, attributeName,
+                   new SwordValidationInfo(xmlName, ATTRIBUTE_URI_NAME,
                                            SwordValidationInfo.MISSING_ATTRIBUTE_WARNING,
                                            SwordValidationInfoType.WARNING));
        }
        else if( validateAll && uri != null )
        {
-           result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_URI, uri));
+           result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_URI_NAME, uri));
        }
 
        if( version == null )
        {
-           attributeName = new XmlName(Namespaces.PREFIX_ATOM,
-                                       ATTRIBUTE_VERSION,
-                                       Namespaces.NS_ATOM);
-
            result.addAttributeValidationInfo(
-                   new SwordValidationInfo(xmlName, attributeName,
+                   new SwordValidationInfo(xmlName, ATTRIBUTE_VERSION_NAME,
                                            SwordValidationInfo.MISSING_ATTRIBUTE_WARNING,
                                            SwordValidationInfoType.WARNING));
        }
        else if( validateAll && version != null )
        {
-           result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_VERSION, version));
+           result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_VERSION_NAME, version));
        }
 
        result.addUnmarshallValidationInfo(existing, attributeItems);
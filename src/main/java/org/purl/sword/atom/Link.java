@@ -133,9 +133,33 @@ public class Link extends XmlElement implements SwordElementInterface
     */
    private static Logger log = Logger.getLogger(Link.class);
 
-   private static final XmlName XML_NAME = new XmlName(
+   private static final XmlName XML_NAME = XmlName.intern(
            Namespaces.PREFIX_ATOM, "link", Namespaces.NS_ATOM);
 
+   /** The name of the href attribute. */
+   private static final XmlName ATTRIBUTE_HREF_NAME = 
+           XmlName.intern(XML_NAME.getPrefix(), ATTRIBUTE_HREF, XML_NAME.getNamespace());
+
+   /** The name of the rel attribute. */
+   private static final XmlName ATTRIBUTE_REL_NAME = 
+           XmlName.intern(XML_NAME.getPrefix(), ATTRIBUTE_REL, XML_NAME.getNamespace());
+
+   /** The name of the type attribute. */
+   private static final XmlName ATTRIBUTE_TYPE_NAME = 
+           XmlName.intern(XML_NAME.getPrefix(), ATTRIBUTE_TYPE, XML_NAME.getNamespace());
+
+   /** The name of the hreflang attribute. */
+   private static final XmlName ATTRIBUTE_HREF_LANG_NAME = 
+           XmlName.intern(XML_NAME.getPrefix(), ATTRIBUTE_HREF_LANG, XML_NAME.getNamespace());
+
+   /** The name of the title attribute. */
+   private static final XmlName ATTRIBUTE_TITLE_NAME = 
+           XmlName.intern(XML_NAME.getPrefix(), ATTRIBUTE_TITLE, XML_NAME.getNamespace());
+
+   /** The name of the length attribute. */
+   private static final XmlName ATTRIBUTE_LENGTH_NAME = 
+           XmlName.intern(XML_NAME.getPrefix(), ATTRIBUTE_LENGTH, XML_NAME.getNamespace());
+
    /**
     * Create a new instance and set prefix and local name to 'atom' and 'link', 
     * respectively. 
@@ -228,8 +252,8 @@ public class Link extends XmlElement implements SwordElementInterface
          return handleIncorrectElement(link, validationProperties);
       }
 
-      ArrayList<SwordValidationInfo> validationItems = new ArrayList<SwordValidationInfo>();
-      ArrayList<SwordValidationInfo> attributeItems = new ArrayList<SwordValidationInfo>();
+      ArrayList<SwordValidationInfo> validationItems = createValidationList(validationProperties);
+      ArrayList<SwordValidationInfo> attributeItems = createValidationList(validationProperties);
 
       try
       {
@@ -244,7 +268,7 @@ public class Link extends XmlElement implements SwordElementInterface
                href = attribute.getValue();
                if( validationProperties != null)
                {
-                   attributeItems.add(createValidAttributeInfo(ATTRIBUTE_HREF, href));
+                   addValidationItem(attributeItems, createValidAttributeInfo(ATTRIBUTE_HREF_NAME, href));
                }
             }
             else if( ATTRIBUTE_REL.equals(attribute.getQualifiedName()))
@@ -252,7 +276,7 @@ public class Link extends XmlElement implements SwordElementInterface
                rel = attribute.getValue();
                if( validationProperties != null)
                {
-                   attributeItems.add(createValidAttributeInfo(ATTRIBUTE_REL, rel));
+                   addValidationItem(attributeItems, createValidAttributeInfo(ATTRIBUTE_REL_NAME, rel));
                }
             }
             else if( ATTRIBUTE_TYPE.equals(attribute.getQualifiedName()))
@@ -260,7 +284,7 @@ public class Link extends XmlElement implements SwordElementInterface
                type = attribute.getValue();
                if( validationProperties != null)
                {
-                   attributeItems.add(createValidAttributeInfo(ATTRIBUTE_TYPE, type));
+                   addValidationItem(attributeItems, createValidAttributeInfo(ATTRIBUTE_TYPE_NAME, type));
                }
             }
             else if( ATTRIBUTE_HREF_LANG.equals(attribute.getQualifiedName()))
@@ -268,7 +292,7 @@ public class Link extends XmlElement implements SwordElementInterface
                hreflang = attribute.getValue();
                if( validationProperties != null)
                {
-                   attributeItems.add(createValidAttributeInfo(ATTRIBUTE_HREF_LANG, hreflang));
+                   addValidationItem(attributeItems, createValidAttributeInfo(ATTRIBUTE_HREF_LANG_NAME, hreflang));
                }
             }
             else if( ATTRIBUTE_TITLE.equals(attribute.getQualifiedName()))
@@ -276,7 +300,7 @@ public class Link extends XmlElement implements SwordElementInterface
                title = attribute.getValue();
                if( validationProperties != null)
                {
-                   attributeItems.add(createValidAttributeInfo(ATTRIBUTE_TITLE, title));
+                   addValidationItem(attributeItems, createValidAttributeInfo(ATTRIBUTE_TITLE_NAME, title));
                }
             }
             else if( ATTRIBUTE_LENGTH.equals(attribute.getQualifiedName()))
@@ -284,10 +308,10 @@ public class Link extends XmlElement implements SwordElementInterface
                length = attribute.getValue();
                if( validationProperties != null)
                {
-                   attributeItems.add(createValidAttributeInfo(ATTRIBUTE_LENGTH, length));
+                   addValidationItem(attributeItems, createValidAttributeInfo(ATTRIBUTE_LENGTH_NAME, length));
                }
             }
-            else
+            else if( validationProperties != null )
             {
                XmlName attributeName = new XmlName(attribute);
 
@@ -296,16 +320,16 @@ public class Link extends XmlElement implements SwordElementInterface
                        SwordValidationInfo.UNKNOWN_ATTRIBUTE, 
                        SwordValidationInfoType.INFO);
                unknown.setContentDescription(attribute.getValue());
-               attributeItems.add(unknown);
+               addValidationItem(attributeItems, unknown);
             }
          }
 
-         if( link.getChildCount() > 0 )
+         if( link.getChildCount() > 0 && validationProperties != null )
          {
              SwordValidationInfo content = new SwordValidationInfo(xmlName,
                      "This element has content, but it is not used by SWORD",
                      SwordValidationInfoType.INFO);
-             validationItems.add(content);
+             addValidationItem(validationItems, content);
          }
 
       }
@@ -338,11 +362,7 @@ public class Link extends XmlElement implements SwordElementInterface
 
        if( href == null )
        {
-          XmlName attributeName = new XmlName(xmlName.getPrefix(),
-                       ATTRIBUTE_HREF,
-                       xmlName.getNamespace());
-
-          SwordValidationInfo item = new SwordValidationInfo(xmlName, attributeName,
+          SwordValidationInfo item = new SwordValidationInfo(xmlName, ATTRIBUTE_HREF_NAME,
                   SwordValidationInfo.MISSING_ATTRIBUTE_WARNING,
                   SwordValidationInfoType.ERROR);
           result.addAttributeValidationInfo(item);
@@ -352,32 +372,32 @@ public class Link extends XmlElement implements SwordElementInterface
        {
           if( href != null )
           {
-              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_HREF, href));
+              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_HREF_NAME, href));
           }
 
           if( rel != null )
           {
-              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_REL, rel));
+              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_REL_NAME, rel));
           }
 
           if( type != null )
           {
-              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_TYPE, type));
+              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_TYPE_NAME, type));
           }
 
           if( hreflang != null )
           {
-              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_HREF_LANG, hreflang));
+              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_HREF_LANG_NAME, hreflang));
           }
 
           if( title != null )
           {
-              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_TITLE, title));
+              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_TITLE_NAME, title));
           }
 
           if( length != null )
           {
-              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_LENGTH, length));
+              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_LENGTH_NAME, length));
           }
           
        }
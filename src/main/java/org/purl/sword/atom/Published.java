@@ -36,16 +36,18 @@
  */
 package org.purl.sword.atom;
 
+import java.util.Date;
+
 import org.purl.sword.base.*;
 
 /**
  *
  * @author Neil Taylor (nst@aber.ac.uk)
  */
-public class Published extends BasicStringContentElement
+public class Published extends BasicDateContentElement
 {
     private static final XmlName XML_NAME =
-            new XmlName(Namespaces.PREFIX_ATOM, "published", Namespaces.NS_ATOM);
+            XmlName.intern(Namespaces.PREFIX_ATOM, "published", Namespaces.NS_ATOM);
 
     public Published()
     {
@@ -58,6 +60,12 @@ public class Published extends BasicStringContentElement
         setContent(uri);
     }
 
+    public Published(Date date)
+    {
+        this();
+        setDate(date);
+    }
+
     public static XmlName elementName()
     {
         return XML_NAME; 
@@ -50,7 +50,7 @@ public class Rights extends TextConstruct
    /**
 	* Local name for the element. 
 	*/
-   private static final XmlName XML_NAME = new XmlName(
+   private static final XmlName XML_NAME = XmlName.intern(
            Namespaces.PREFIX_ATOM, "rights", Namespaces.NS_ATOM);
 
 
@@ -60,7 +60,7 @@ public class Source extends XmlElement implements SwordElementInterface
 	/**
 	 * Local name for the element. 
 	 */
-   private static final XmlName XML_NAME = new XmlName(
+   private static final XmlName XML_NAME = XmlName.intern(
            Namespaces.PREFIX_ATOM, "source", Namespaces.NS_ATOM);
    
    /**
@@ -136,8 +136,8 @@ public class Source extends XmlElement implements SwordElementInterface
           return handleIncorrectElement(source, validationProperties);
       }
 
-      ArrayList<SwordValidationInfo> validationItems = new ArrayList<SwordValidationInfo>();
-      ArrayList<SwordValidationInfo> attributeItems = new ArrayList<SwordValidationInfo>();
+      ArrayList<SwordValidationInfo> validationItems = createValidationList(validationProperties);
+      ArrayList<SwordValidationInfo> attributeItems = createValidationList(validationProperties);
 
       try
       {
@@ -156,13 +156,13 @@ public class Source extends XmlElement implements SwordElementInterface
                generator = new Generator(); 
                generator.unmarshall(element);
             }
-            else
+            else if( validationProperties != null )
             {
                SwordValidationInfo info = new SwordValidationInfo(new XmlName(element),
                        SwordValidationInfo.UNKNOWN_ELEMENT,
                        SwordValidationInfoType.INFO);
                info.setContentDescription(element.getValue());
-               validationItems.add(info);
+               addValidationItem(validationItems, info);
             }
          }
       }
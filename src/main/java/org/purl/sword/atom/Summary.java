@@ -48,7 +48,7 @@ import org.purl.sword.base.XmlName;
 public class Summary extends TextConstruct
 {
    private static final XmlName XML_NAME =
-      new XmlName(Namespaces.PREFIX_ATOM, "summary", Namespaces.NS_ATOM);
+      XmlName.intern(Namespaces.PREFIX_ATOM, "summary", Namespaces.NS_ATOM);
 
    /** 
     * Create a new instance and set the prefix to 
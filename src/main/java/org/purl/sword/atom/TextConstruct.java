@@ -79,6 +79,12 @@ implements SwordElementInterface
 	 * label for the type attribute. 
 	 */
 	public static final String ATTRIBUTE_TYPE = "type";
+
+	/**
+	 * The name of the type attribute on an Atom element. 
+	 */
+	private static final XmlName ATOM_TYPE_NAME = 
+	        XmlName.intern(Namespaces.PREFIX_ATOM, ATTRIBUTE_TYPE, Namespaces.NS_ATOM);
 	
 	/**
 	 * Create a new instance, specifying the prefix and local name. 
@@ -108,7 +114,8 @@ implements SwordElementInterface
      */
     public TextConstruct(XmlName name)
     {
-       this(name.getPrefix(), name.getLocalName(), name.getNamespace());
+       super(name);
+       initialise();
     }
     /**
      * 
@@ -122,6 +129,22 @@ implements SwordElementInterface
         initialise();
     }
 
+    /**
+     * Get the name of the type attribute, which has the same prefix and 
+     * namespace as the element. 
+     * 
+     * @return The name. 
+     */
+    private XmlName getTypeAttributeName()
+    {
+       if( Namespaces.PREFIX_ATOM.equals(xmlName.getPrefix()) && 
+           Namespaces.NS_ATOM.equals(xmlName.getNamespace()) )
+       {
+          return ATOM_TYPE_NAME;
+       }
+       return new XmlName(xmlName.getPrefix(), ATTRIBUTE_TYPE, xmlName.getNamespace());
+    }
+
     /**
      * 
      */
@@ -187,8 +210,8 @@ implements SwordElementInterface
 		   return handleIncorrectElement(text, validationProperties);
 	   }
 
-       ArrayList<SwordValidationInfo> validationItems = new ArrayList<SwordValidationInfo>();
-       ArrayList<SwordValidationInfo> attributeItems = new ArrayList<SwordValidationInfo>();
+       ArrayList<SwordValidationInfo> validationItems = createValidationList(validationProperties);
+       ArrayList<SwordValidationInfo> attributeItems = createValidationList(validationProperties);
 
 	   try
 	   {
@@ -219,30 +242,33 @@ implements SwordElementInterface
 				   else
 				   {
 					   log.error("Unable to parse extract type in " + getQualifiedName() );
-                       SwordValidationInfo info = new SwordValidationInfo(xmlName,
-                                  new XmlName(attribute),
-                                  "Invalid content type has been specified",
-                                  SwordValidationInfoType.ERROR);
-                       info.setContentDescription(value);
-                       attributeItems.add(info);
+                       if( validationProperties != null )
+                       {
+                          SwordValidationInfo info = new SwordValidationInfo(xmlName,
+                                     new XmlName(attribute),
+                                     "Invalid content type has been specified",
+                                     SwordValidationInfoType.ERROR);
+                          info.setContentDescription(value);
+                          addValidationItem(attributeItems, info);
+                       }
                        success = false;
 				   }
 
-                   if( success )
+                   if( success && validationProperties != null )
                    {
                        SwordValidationInfo info = new SwordValidationInfo(xmlName, new XmlName(attribute));
                        info.setContentDescription(type.toString());
-                       attributeItems.add(info);
+                       addValidationItem(attributeItems, info);
                    }
 			   }
-               else
+               else if( validationProperties != null )
                {
                    SwordValidationInfo info = new SwordValidationInfo(xmlName,
                               new XmlName(attribute),
                               SwordValidationInfo.UNKNOWN_ATTRIBUTE,
                               SwordValidationInfoType.INFO);
                    info.setContentDescription(attribute.getValue());
-                   attributeItems.add(info);
+                   addValidationItem(attributeItems, info);
                }
 		   }
 
@@ -323,8 +349,7 @@ implements SwordElementInterface
 
       if( validateAll )
       {
-          SwordValidationInfo info = new SwordValidationInfo(xmlName,
-                     new XmlName(xmlName.getPrefix(), ATTRIBUTE_TYPE, xmlName.getNamespace()));
+          SwordValidationInfo info = new SwordValidationInfo(xmlName, getTypeAttributeName());
           info.setContentDescription(type.toString());
           result.addAttributeValidationInfo(info);
       }
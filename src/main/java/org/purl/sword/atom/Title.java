@@ -57,7 +57,7 @@ public class Title extends TextConstruct
     /**
      * XML Name representation. 
      */
-    private static final XmlName XML_NAME = new XmlName(Namespaces.PREFIX_ATOM,
+    private static final XmlName XML_NAME = XmlName.intern(Namespaces.PREFIX_ATOM,
             "title", Namespaces.NS_ATOM);
 
 	/** 
@@ -36,16 +36,18 @@
  */
 package org.purl.sword.atom;
 
+import java.util.Date;
+
 import org.purl.sword.base.*;
 
 /**
  *
  * @author Neil Taylor (nst@aber.ac.uk)
  */
-public class Updated extends BasicStringContentElement
+public class Updated extends BasicDateContentElement
 {
     private static final XmlName XML_NAME =
-            new XmlName(Namespaces.PREFIX_ATOM, "updated", Namespaces.NS_ATOM);
+            XmlName.intern(Namespaces.PREFIX_ATOM, "updated", Namespaces.NS_ATOM);
 
     public Updated()
     {
@@ -58,6 +60,12 @@ public class Updated extends BasicStringContentElement
         setContent(uri);
     }
 
+    public Updated(Date date)
+    {
+        this();
+        setDate(date);
+    }
+
     public static XmlName elementName()
     {
         return XML_NAME; 
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable list of accept packaging formats and their quality values, 
+ * shared between the snapshots of collections that accept the same 
+ * formats. 
+ */
+final class AcceptPackagingTable
+{
+   /** The formats, in document order. */
+   private final String[] formats;
+
+   /** The quality value of each format. */
+   private final float[] qualityValues;
+
+   /** The formats, in decreasing order of quality value. */
+   private final List<String> sorted;
+
+   private final int hash;
+
+   /**
+    * Create a table from the packaging elements. 
+    * 
+    * @param packaging The packaging elements. 
+    * @param pool      The pool used to share the format strings. 
+    */
+   AcceptPackagingTable(List<SwordAcceptPackaging> packaging, ValuePool pool)
+   {
+      int size = packaging.size();
+      formats = new String[size];
+      qualityValues = new float[size];
+      for( int i = 0; i < size; i++ )
+      {
+         SwordAcceptPackaging item = packaging.get(i);
+         formats[i] = pool.intern(item.getContent());
+         qualityValues[i] = item.getQualityValue().getQualityValue();
+      }
+
+      sorted = Collections.unmodifiableList(Arrays.asList(sortByQuality()));
+      hash = 31 * Arrays.hashCode(formats) + Arrays.hashCode(qualityValues);
+   }
+
+   /**
+    * Sort the formats by decreasing quality value. Formats with the same 
+    * quality value are kept in document order. 
+    * 
+    * @return The sorted formats. 
+    */
+   private String[] sortByQuality()
+   {
+      Integer[] order = new Integer[formats.length];
+      for( int i = 0; i < order.length; i++ )
+      {
+         order[i] = Integer.valueOf(i);
+      }
+
+      Arrays.sort(order, new Comparator<Integer>()
+      {
+         public int compare(Integer first, Integer second)
+         {
+            return Float.compare(qualityValues[second.intValue()], 
+                                 qualityValues[first.intValue()]);
+         }
+      });
+
+      String[] result = new String[order.length];
+      for( int i = 0; i < order.length; i++ )
+      {
+         result[i] = formats[order[i].intValue()];
+      }
+      return result;
+   }
+
+   int size()
+   {
+      return formats.length;
+   }
+
+   String getFormat(int index)
+   {
+      return formats[index];
+   }
+
+   float getQualityValue(int index)
+   {
+      return qualityValues[index];
+   }
+
+   List<String> getSorted()
+   {
+      return sorted;
+   }
+
+   @Override
+   public boolean equals(Object other)
+   {
+      if( this == other )
+      {
+         return true;
+      }
+      if( ! (other instanceof AcceptPackagingTable) )
+      {
+         return false;
+      }
+      AcceptPackagingTable table = (AcceptPackagingTable) other;
+      return hash == table.hash && 
+             Arrays.equals(formats, table.formats) &&
+             Arrays.equals(qualityValues, table.qualityValues);
+   }
+
+   @Override
+   public int hashCode()
+   {
+      return hash;
+   }
+}
@@ -104,8 +104,8 @@ implements SwordElementInterface
            return handleIncorrectElement(element, validationProperties);
 	   }
 
-       ArrayList<SwordValidationInfo> validationItems = new ArrayList<SwordValidationInfo>();
-       ArrayList<SwordValidationInfo> attributeItems = new ArrayList<SwordValidationInfo>();
+       ArrayList<SwordValidationInfo> validationItems = createValidationList(validationProperties);
+       ArrayList<SwordValidationInfo> attributeItems = createValidationList(validationProperties);
 
        try
 	   {
@@ -130,7 +130,7 @@ implements SwordElementInterface
                       SwordValidationInfo info = new SwordValidationInfo(xmlName,
                               SwordValidationInfo.ERROR_WITH_CONTENT, SwordValidationInfoType.ERROR);
                       info.setContentDescription(element.getValue());
-                      validationItems.add(info);
+                      addValidationItem(validationItems, info);
                   }
                }
 		   }
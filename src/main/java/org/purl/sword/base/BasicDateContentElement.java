@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.text.ParseException;
+import java.util.Date;
+
+/**
+ * An element that contains an RFC 3339 date. The content is held as the 
+ * string that was read or set, so that it is written back unchanged, and 
+ * the typed accessors convert it with {@link DateCodec}. 
+ */
+public class BasicDateContentElement extends BasicStringContentElement
+{
+    public BasicDateContentElement(String prefix, String localName, String namespaceUri)
+    {
+        super(prefix, localName, namespaceUri);
+    }
+
+    public BasicDateContentElement(XmlName name)
+    {
+        super(name);
+    }
+
+    /**
+     * Get the date. 
+     * 
+     * @return The date, or <code>null</code> if there is no content or the 
+     *         content is not a valid date. 
+     */
+    public Date getDate()
+    {
+        return DateCodec.parseDate(content);
+    }
+
+    /**
+     * Get the date as the number of milliseconds since the epoch. 
+     * 
+     * @return The time. 
+     * @throws ParseException If there is no content or the content is not 
+     *                        a valid date. 
+     */
+    public long getTime()
+    throws ParseException
+    {
+        return DateCodec.parse(content);
+    }
+
+    /**
+     * Set the content to the date, formatted in UTC. 
+     * 
+     * @param date The date. 
+     */
+    public void setDate(Date date)
+    {
+        setTime(date.getTime());
+    }
+
+    /**
+     * Set the content to the time, formatted in UTC. Milliseconds are 
+     * included if the time is not a whole second. 
+     * 
+     * @param time The number of milliseconds since the epoch. 
+     */
+    public void setTime(long time)
+    {
+        if( time % 1000 == 0 )
+        {
+            setContent(DateCodec.format(time));
+        }
+        else
+        {
+            setContent(DateCodec.formatMillis(time));
+        }
+    }
+}
@@ -114,7 +114,152 @@ public class Collection extends XmlElement implements SwordElementInterface
    public static final String ELEMENT_NAME = "collection";
 
    private static final XmlName XML_NAME =
-           new XmlName(Namespaces.PREFIX_APP, "collection", Namespaces.NS_APP);
+           XmlName.intern(Namespaces.PREFIX_APP, "collection", Namespaces.NS_APP);
+
+   /** The name of the href attribute. */
+   private static final XmlName ATTRIBUTE_HREF_NAME = 
+           XmlName.intern(XML_NAME.getPrefix(), ATTRIBUTE_HREF, XML_NAME.getNamespace());
+
+   /** The name that is reported when the href attribute is missing. */
+   private static final XmlName MISSING_HREF_NAME = 
+           XmlName.intern(Namespaces.PREFIX_ATOM, ATTRIBUTE_HREF, Namespaces.NS_ATOM);
+
+   /**
+    * The handlers for the child elements of the collection element. 
+    */
+   private static final ElementDispatcher<Collection> DISPATCHER = 
+           new ElementDispatcher<Collection>();
+
+   static
+   {
+      DISPATCHER.register(Title.elementName(), new ElementHandler<Collection>() 
+      {
+         public SwordValidationInfo unmarshall(Collection collection, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( collection.title != null )
+            {
+               return createDuplicateInfo(Title.elementName(), element,
+                       SwordValidationInfoType.INFO, validationProperties);
+            }
+            collection.title = new Title();
+            return collection.title.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(Accept.elementName(), new ElementHandler<Collection>() 
+      {
+         public SwordValidationInfo unmarshall(Collection collection, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            Accept accept = new Accept();
+            SwordValidationInfo info = accept.unmarshall(element, validationProperties);
+            collection.accepts.add(accept);
+            return info;
+         }
+      });
+
+      DISPATCHER.register(SwordAcceptPackaging.elementName(), new ElementHandler<Collection>() 
+      {
+         public SwordValidationInfo unmarshall(Collection collection, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            SwordAcceptPackaging packaging = new SwordAcceptPackaging();
+            SwordValidationInfo info = packaging.unmarshall(element, validationProperties);
+            collection.acceptPackaging.add(packaging);
+            return info;
+         }
+      });
+
+      DISPATCHER.register(SwordCollectionPolicy.elementName(), new ElementHandler<Collection>() 
+      {
+         public SwordValidationInfo unmarshall(Collection collection, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( collection.swordCollectionPolicy != null )
+            {
+               return createDuplicateInfo(SwordCollectionPolicy.elementName(), element,
+                       SwordValidationInfoType.INFO, validationProperties);
+            }
+            collection.swordCollectionPolicy = new SwordCollectionPolicy();
+            return collection.swordCollectionPolicy.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(DcAbstract.elementName(), new ElementHandler<Collection>() 
+      {
+         public SwordValidationInfo unmarshall(Collection collection, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( collection.dcTermsAbstract != null )
+            {
+               return createDuplicateInfo(DcAbstract.elementName(), element,
+                       SwordValidationInfoType.INFO, validationProperties);
+            }
+            collection.dcTermsAbstract = new DcAbstract();
+            return collection.dcTermsAbstract.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(SwordService.elementName(), new ElementHandler<Collection>() 
+      {
+         public SwordValidationInfo unmarshall(Collection collection, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( collection.swordService != null )
+            {
+               return createDuplicateInfo(SwordService.elementName(), element,
+                       SwordValidationInfoType.INFO, validationProperties);
+            }
+            collection.swordService = new SwordService();
+            return collection.swordService.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(SwordMediation.elementName(), new ElementHandler<Collection>() 
+      {
+         public SwordValidationInfo unmarshall(Collection collection, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( collection.swordMediation != null )
+            {
+               return createDuplicateInfo(SwordMediation.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            collection.swordMediation = new SwordMediation();
+            return collection.swordMediation.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(SwordTreatment.elementName(), new ElementHandler<Collection>() 
+      {
+         public SwordValidationInfo unmarshall(Collection collection, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( collection.swordTreatment != null )
+            {
+               return createDuplicateInfo(SwordTreatment.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            collection.swordTreatment = new SwordTreatment();
+            return collection.swordTreatment.unmarshall(element, validationProperties);
+         }
+      });
+   }
+
+   /**
+    * Register a handler for a child element of the collection element. This 
+    * can be used to unmarshall extension elements, or to replace the default
+    * handling of an element. Elements that do not have a handler are 
+    * reported as unknown elements when the collection is validated. 
+    * 
+    * @param name    The name of the child element. 
+    * @param handler The handler. 
+    */
+   public static void registerElementHandler(XmlName name, ElementHandler<Collection> handler)
+   {
+      DISPATCHER.register(name, handler);
+   }
 
    /**
     * Create a new instance.
@@ -454,6 +599,30 @@ public class Collection extends XmlElement implements SwordElementInterface
       swordTreatment = new SwordTreatment(treatment);
    }  
 
+   /**
+    * Create an immutable copy of this collection, which can be shared 
+    * between threads. Later changes to this collection do not affect 
+    * the snapshot. 
+    * 
+    * @return The snapshot. 
+    */
+   public CollectionSnapshot snapshot()
+   {
+      return snapshot(new ValuePool());
+   }
+
+   /**
+    * Create an immutable copy of this collection, sharing repeated values 
+    * through the specified pool. 
+    * 
+    * @param pool The pool. 
+    * @return The snapshot. 
+    */
+   public CollectionSnapshot snapshot(ValuePool pool)
+   {
+      return new CollectionSnapshot(this, pool);
+   }
+
    /**
     * Get a string representation of this object. This is 
     * equivalent to calling marshall().toString().
@@ -541,8 +710,8 @@ public class Collection extends XmlElement implements SwordElementInterface
          return handleIncorrectElement(collection, validationProperties);
       }
 
-      ArrayList<SwordValidationInfo> validationItems = new ArrayList<SwordValidationInfo>();
-      ArrayList<SwordValidationInfo> attributeValidationItems = new ArrayList<SwordValidationInfo>();
+      ArrayList<SwordValidationInfo> validationItems = createValidationList(validationProperties);
+      ArrayList<SwordValidationInfo> attributeValidationItems = createValidationList(validationProperties);
 
       try
       {
@@ -557,17 +726,20 @@ public class Collection extends XmlElement implements SwordElementInterface
             if (ATTRIBUTE_HREF.equals(a.getQualifiedName()))
             {
                location = a.getValue();
-               SwordValidationInfo info = new SwordValidationInfo(xmlName, new XmlName(a));
-               info.setContentDescription(location);
-               attributeValidationItems.add(info);
+               if( validationProperties != null )
+               {
+                  SwordValidationInfo info = new SwordValidationInfo(xmlName, new XmlName(a));
+                  info.setContentDescription(location);
+                  addValidationItem(attributeValidationItems, info);
+               }
             }
-            else
+            else if( validationProperties != null )
             {
                 SwordValidationInfo info = new SwordValidationInfo(xmlName, new XmlName(a),
                        SwordValidationInfo.UNKNOWN_ATTRIBUTE,
                        SwordValidationInfoType.INFO );
                 info.setContentDescription(a.getValue());
-                attributeValidationItems.add(info);
+                addValidationItem(attributeValidationItems, info);
             }
          }
 
@@ -579,115 +751,11 @@ public class Collection extends XmlElement implements SwordElementInterface
          for (int i = 0; i < length; i++)
          {
             element = elements.get(i);
-            if (isInstanceOf(element, Title.elementName()))
+            ElementHandler<Collection> handler = DISPATCHER.getHandler(element);
+            if( handler != null )
             {
-               if( title == null )
-               {
-                  title = new Title();
-                  validationItems.add(title.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                  SwordValidationInfo info = new SwordValidationInfo(
-                            Title.elementName(),
-                            SwordValidationInfo.DUPLICATE_ELEMENT,
-                            SwordValidationInfoType.INFO);
-                    info.setContentDescription(element.getValue());
-                    validationItems.add(info);
-               }
-            }
-            else if (isInstanceOf(element, Accept.elementName()) )
-            {
-               Accept accept = new Accept();
-               SwordValidationInfo info = accept.unmarshall(element, validationProperties);
-               accepts.add(accept);
-               validationItems.add(info);
-            }
-            else if (isInstanceOf(element, SwordAcceptPackaging.elementName()))
-            {
-                SwordAcceptPackaging packaging = new SwordAcceptPackaging();
-                validationItems.add(packaging.unmarshall(element, validationProperties));
-                acceptPackaging.add(packaging);
-            }
-            else if (isInstanceOf(element, SwordCollectionPolicy.elementName()))
-            {
-                if (swordCollectionPolicy == null) {
-                    swordCollectionPolicy = new SwordCollectionPolicy();
-                    validationItems.add(swordCollectionPolicy.unmarshall(element, validationProperties));
-                } 
-                else if( validationProperties != null )
-                {
-                    SwordValidationInfo info = new SwordValidationInfo(
-                            SwordCollectionPolicy.elementName(),
-                            SwordValidationInfo.DUPLICATE_ELEMENT,
-                            SwordValidationInfoType.INFO);
-                    info.setContentDescription(element.getValue());
-                    validationItems.add(info);
-                }
-               
-            }
-            else if (isInstanceOf(element, DcAbstract.elementName()))
-            {
-               if( dcTermsAbstract == null )
-               {
-                  dcTermsAbstract = new DcAbstract();
-                  validationItems.add(dcTermsAbstract.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                   SwordValidationInfo info = new SwordValidationInfo(DcAbstract.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT, SwordValidationInfoType.INFO);
-                   info.setContentDescription(element.getValue());
-                   validationItems.add(info);
-               }
-            }
-            else if (isInstanceOf(element, SwordService.elementName()))
-            {
-               if( swordService == null )
-               {
-                  swordService = new SwordService();
-                  validationItems.add(swordService.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                   SwordValidationInfo info = new SwordValidationInfo(SwordService.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.INFO);
-                   info.setContentDescription(element.getValue());
-                   validationItems.add(info);
-               }
-            }
-            else if (isInstanceOf(element, SwordMediation.elementName()))
-            {
-               if( swordMediation == null )
-               {
-                   swordMediation = new SwordMediation();
-                   validationItems.add(swordMediation.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                   SwordValidationInfo info = new SwordValidationInfo(SwordMediation.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.WARNING);
-                   info.setContentDescription(element.getValue());
-                   validationItems.add(info);
-               }
-            }
-            else if (isInstanceOf(element, SwordTreatment.elementName()))
-            {
-               if( swordTreatment == null )
-               {
-                   swordTreatment = new SwordTreatment();
-                   validationItems.add(swordTreatment.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                   SwordValidationInfo info = new SwordValidationInfo(SwordTreatment.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.WARNING);
-                   info.setContentDescription(element.getValue());
-                   validationItems.add(info);
-               }
+               addValidationItem(validationItems, 
+                       handler.unmarshall(this, element, validationProperties));
             }
             else if( validationProperties != null )
             {
@@ -695,7 +763,7 @@ public class Collection extends XmlElement implements SwordElementInterface
                         SwordValidationInfo.UNKNOWN_ELEMENT,
                         SwordValidationInfoType.INFO);
                 info.setContentDescription(element.getValue());
-                validationItems.add(info);
+                addValidationItem(validationItems, info);
             }
          }
       }
@@ -746,12 +814,8 @@ public class Collection extends XmlElement implements SwordElementInterface
 
       if( location == null )
       {
-          XmlName attribute = new XmlName(Namespaces.PREFIX_ATOM, 
-                                          ATTRIBUTE_HREF, 
-                                          Namespaces.NS_ATOM);
-
           result.addAttributeValidationInfo(new SwordValidationInfo(xmlName,
-                  attribute, SwordValidationInfo.MISSING_ATTRIBUTE_WARNING,
+                  MISSING_HREF_NAME, SwordValidationInfo.MISSING_ATTRIBUTE_WARNING,
                   SwordValidationInfoType.WARNING ));
       }
 
@@ -784,7 +848,7 @@ public class Collection extends XmlElement implements SwordElementInterface
 
           if( location != null )
           {
-              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_HREF, location));
+              result.addAttributeValidationInfo(createValidAttributeInfo(ATTRIBUTE_HREF_NAME, location));
           }
 
           if( title != null )
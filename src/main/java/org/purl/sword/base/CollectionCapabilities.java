@@ -0,0 +1,300 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The accepts and acceptPackaging values of a collection, compiled into 
+ * lookup tables. This answers whether a deposit with a given media type 
+ * and packaging format is acceptable, and which packaging format the 
+ * collection prefers, without searching the lists. 
+ * 
+ * Media types are compared on the type and subtype only, ignoring case and
+ * any parameters. An accepts value of <code>type/*</code> matches any 
+ * subtype, and <code>*&#47;*</code> matches everything. A collection that 
+ * does not list any accepts values is treated as accepting every media 
+ * type, and one that does not list any packaging formats is treated as 
+ * accepting every format. 
+ * 
+ * Instances are immutable and can be shared between threads. They are 
+ * created with {@link #compile(Collection)}, or are available from 
+ * {@link CollectionSnapshot#getCapabilities()}. 
+ */
+public final class CollectionCapabilities
+{
+   /** The accepts values that were compiled. */
+   private final List<String> accepts;
+
+   /** The packaging formats that were compiled. */
+   private final AcceptPackagingTable packaging;
+
+   /** Media types, in the form type/subtype, in lower case. */
+   private final Set<String> mediaTypes = new HashSet<String>();
+
+   /** Main types that are accepted with any subtype, in lower case. */
+   private final Set<String> wildcardTypes = new HashSet<String>();
+
+   /** True if any media type is accepted. */
+   private final boolean anyMediaType;
+
+   /** The quality value for each packaging format. */
+   private final Map<String, Float> qualityValues = new HashMap<String, Float>();
+
+   /** The packaging format with the highest quality value, or null. */
+   private final String preferredPackaging;
+
+   private final int hash;
+
+   /**
+    * Compile the values. 
+    * 
+    * @param accepts   The accepts values. 
+    * @param packaging The accept packaging formats. 
+    */
+   CollectionCapabilities(List<String> accepts, AcceptPackagingTable packaging)
+   {
+      this.accepts = accepts;
+      this.packaging = packaging;
+
+      boolean any = accepts.isEmpty();
+      for( String value : accepts )
+      {
+         String mediaType = normalise(value);
+         if( mediaType == null )
+         {
+            continue;
+         }
+         if( mediaType.equals("*/*") )
+         {
+            any = true;
+         }
+         else if( mediaType.endsWith("/*") )
+         {
+            wildcardTypes.add(mediaType.substring(0, mediaType.length() - 2));
+         }
+         else
+         {
+            mediaTypes.add(mediaType);
+         }
+      }
+      anyMediaType = any;
+
+      for( int i = 0; i < packaging.size(); i++ )
+      {
+         String format = packaging.getFormat(i);
+         if( format != null && ! qualityValues.containsKey(format) )
+         {
+            qualityValues.put(format, Float.valueOf(packaging.getQualityValue(i)));
+         }
+      }
+      List<String> sorted = packaging.getSorted();
+      preferredPackaging = sorted.isEmpty() ? null : sorted.get(0);
+
+      hash = 31 * accepts.hashCode() + packaging.hashCode();
+   }
+
+   /**
+    * Compile the accepts and packaging values of the collection. Later 
+    * changes to the collection are not reflected in the result. 
+    * 
+    * @param collection The collection. 
+    * @return The compiled values. 
+    */
+   public static CollectionCapabilities compile(Collection collection)
+   {
+      ValuePool pool = new ValuePool();
+      return new CollectionCapabilities(
+              Arrays.asList(collection.getAccepts()),
+              new AcceptPackagingTable(collection.getAcceptPackaging(), pool));
+   }
+
+   /**
+    * Get the type and subtype of a media type, in lower case and without 
+    * parameters. 
+    * 
+    * @param mediaType The media type, e.g. <code>text/xml; charset=UTF-8</code>. 
+    * @return The type and subtype, e.g. <code>text/xml</code>, or 
+    *         <code>null</code> if the value is not a media type. 
+    */
+   public static String normalise(String mediaType)
+   {
+      if( mediaType == null )
+      {
+         return null;
+      }
+      int end = mediaType.indexOf(';');
+      String value = (end == -1) ? mediaType : mediaType.substring(0, end);
+      value = value.trim().toLowerCase(Locale.ENGLISH);
+      int slash = value.indexOf('/');
+      if( slash <= 0 || slash == value.length() - 1 )
+      {
+         return null;
+      }
+      return value;
+   }
+
+   /**
+    * Determine if the media type is accepted. 
+    * 
+    * @param contentType The media type, which can include parameters. 
+    * @return True if the media type is accepted. 
+    */
+   public boolean acceptsMediaType(String contentType)
+   {
+      if( anyMediaType )
+      {
+         return true;
+      }
+      String mediaType = normalise(contentType);
+      if( mediaType == null )
+      {
+         return false;
+      }
+      if( mediaTypes.contains(mediaType) )
+      {
+         return true;
+      }
+      return wildcardTypes.contains(mediaType.substring(0, mediaType.indexOf('/')));
+   }
+
+   /**
+    * Get the quality value of a packaging format. 
+    * 
+    * @param format The packaging format. 
+    * @return The quality value, or 0 if the format is not listed. 
+    */
+   public float getQualityValue(String format)
+   {
+      Float value = qualityValues.get(format);
+      return (value == null) ? 0 : value.floatValue();
+   }
+
+   /**
+    * Determine if the packaging format is accepted. A deposit that does 
+    * not specify a format is always accepted. 
+    * 
+    * @param format The packaging format, or <code>null</code>. 
+    * @return True if the format is accepted. 
+    */
+   public boolean acceptsPackaging(String format)
+   {
+      if( format == null || qualityValues.isEmpty() )
+      {
+         return true;
+      }
+      return getQualityValue(format) > 0;
+   }
+
+   /**
+    * Determine if a deposit is acceptable. 
+    * 
+    * @param contentType The media type of the deposit. 
+    * @param format      The packaging format, or <code>null</code>. 
+    * @return True if both the media type and the format are accepted. 
+    */
+   public boolean isAcceptable(String contentType, String format)
+   {
+      return acceptsMediaType(contentType) && acceptsPackaging(format);
+   }
+
+   /**
+    * Get the packaging format that the collection prefers. 
+    * 
+    * @return The format with the highest quality value, or 
+    *         <code>null</code> if no formats are listed. 
+    */
+   public String getPreferredPackaging()
+   {
+      return preferredPackaging;
+   }
+
+   /**
+    * Choose the packaging format to use from the formats that a client 
+    * can produce. 
+    * 
+    * @param offered The formats that the client can produce, in the 
+    *                client's order of preference. 
+    * @return The offered format with the highest quality value, the first 
+    *         of these if several have the same value, or <code>null</code> 
+    *         if none of the formats are accepted. 
+    */
+   public String choosePackaging(List<String> offered)
+   {
+      String best = null;
+      float bestValue = 0;
+      for( String format : offered )
+      {
+         float value = getQualityValue(format);
+         if( value > bestValue )
+         {
+            best = format;
+            bestValue = value;
+         }
+      }
+      return best;
+   }
+
+   @Override
+   public boolean equals(Object other)
+   {
+      if( this == other )
+      {
+         return true;
+      }
+      if( ! (other instanceof CollectionCapabilities) )
+      {
+         return false;
+      }
+      CollectionCapabilities capabilities = (CollectionCapabilities) other;
+      return hash == capabilities.hash && 
+             accepts.equals(capabilities.accepts) && 
+             packaging.equals(capabilities.packaging);
+   }
+
+   @Override
+   public int hashCode()
+   {
+      return hash;
+   }
+}
@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.List;
+
+/**
+ * An immutable copy of a {@link Collection}. Instances are created by 
+ * {@link Collection#snapshot()}. 
+ * 
+ * All of the values are copied when the snapshot is created, and the lists
+ * that are returned cannot be modified, so a snapshot can be shared between 
+ * threads and held in caches without any locking or further copying. The 
+ * accept packaging formats are sorted by quality value when the snapshot 
+ * is created. 
+ * 
+ * Values that are usually repeated between collections, such as the 
+ * accepts list, the packaging formats, policy and treatment, are taken 
+ * from a {@link ValuePool}, so collections with the same values share a 
+ * single copy. The location and title are held directly. 
+ */
+public final class CollectionSnapshot
+{
+   private final String location;
+
+   private final String title;
+
+   /** The accepts values, in document order. Shared through the pool. */
+   private final List<String> accepts;
+
+   /** The accept packaging formats. Shared through the pool. */
+   private final AcceptPackagingTable acceptPackaging;
+
+   /** The compiled accepts and packaging. Shared through the pool. */
+   private final CollectionCapabilities capabilities;
+
+   private final String collectionPolicy;
+
+   private final String treatment;
+
+   private final boolean mediation;
+
+   private final boolean mediationSet;
+
+   private final String dcAbstract;
+
+   private final String service;
+
+   /**
+    * Create a snapshot of the collection. 
+    * 
+    * @param collection The collection. 
+    * @param pool       The pool used to share repeated values. 
+    */
+   CollectionSnapshot(Collection collection, ValuePool pool)
+   {
+      location = collection.getLocation();
+      title = collection.getTitle();
+      accepts = pool.internList(collection.getAccepts());
+      acceptPackaging = pool.share(
+              new AcceptPackagingTable(collection.getAcceptPackaging(), pool));
+      capabilities = pool.share(new CollectionCapabilities(accepts, acceptPackaging));
+      collectionPolicy = pool.intern(collection.getCollectionPolicy());
+      treatment = pool.intern(collection.getTreatment());
+      mediation = collection.getMediation();
+      mediationSet = collection.isMediationSet();
+      dcAbstract = pool.intern(collection.getAbstract());
+      service = pool.intern(collection.getService());
+   }
+
+   /**
+    * Get the location. 
+    * 
+    * @return The location. 
+    */
+   public String getLocation()
+   {
+      return location;
+   }
+
+   /**
+    * Get the title. 
+    * 
+    * @return The title, or <code>null</code> if no title was set. 
+    */
+   public String getTitle()
+   {
+      return title;
+   }
+
+   /**
+    * Get the accepts values. 
+    * 
+    * @return An unmodifiable list, in document order. 
+    */
+   public List<String> getAccepts()
+   {
+      return accepts;
+   }
+
+   /**
+    * Get the accept packaging formats. 
+    * 
+    * @return An unmodifiable list, in decreasing order of quality value. 
+    */
+   public List<String> getAcceptPackaging()
+   {
+      return acceptPackaging.getSorted();
+   }
+
+   /**
+    * Get the quality value for the packaging format. 
+    * 
+    * @param packaging The packaging format. 
+    * @return The quality value, or 0 if the format is not listed. 
+    */
+   public float getQualityValue(String packaging)
+   {
+      return capabilities.getQualityValue(packaging);
+   }
+
+   /**
+    * Get the compiled accepts and packaging values, which can be used to 
+    * check a deposit against this collection. 
+    * 
+    * @return The capabilities. 
+    */
+   public CollectionCapabilities getCapabilities()
+   {
+      return capabilities;
+   }
+
+   /**
+    * Get the collection policy. 
+    * 
+    * @return The collection policy. 
+    */
+   public String getCollectionPolicy()
+   {
+      return collectionPolicy;
+   }
+
+   /**
+    * Get the treatment. 
+    * 
+    * @return The treatment. 
+    */
+   public String getTreatment()
+   {
+      return treatment;
+   }
+
+   /**
+    * Get the mediation value. 
+    * 
+    * @return The mediation value. 
+    */
+   public boolean getMediation()
+   {
+      return mediation;
+   }
+
+   /**
+    * Determine if the mediation value was set. 
+    * 
+    * @return True if the value was set. 
+    */
+   public boolean isMediationSet()
+   {
+      return mediationSet;
+   }
+
+   /**
+    * Get the DC Terms abstract. 
+    * 
+    * @return The abstract. 
+    */
+   public String getAbstract()
+   {
+      return dcAbstract;
+   }
+
+   /**
+    * Get the sword service. 
+    * 
+    * @return The service. 
+    */
+   public String getService()
+   {
+      return service;
+   }
+
+   /**
+    * Create a new, modifiable Collection that holds the values in this 
+    * snapshot. 
+    * 
+    * @return The collection. 
+    */
+   public Collection toCollection()
+   {
+      Collection collection = new Collection(location);
+      collection.setTitle(title);
+      for( String accept : accepts )
+      {
+         collection.addAccepts(accept);
+      }
+      for( int i = 0; i < acceptPackaging.size(); i++ )
+      {
+         collection.addAcceptPackaging(acceptPackaging.getFormat(i), 
+                                       acceptPackaging.getQualityValue(i));
+      }
+      collection.setCollectionPolicy(collectionPolicy);
+      collection.setTreatment(treatment);
+      if( mediationSet )
+      {
+         collection.setMediation(mediation);
+      }
+      collection.setAbstract(dcAbstract);
+      collection.setService(service);
+      return collection;
+   }
+}
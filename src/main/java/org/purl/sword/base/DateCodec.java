@@ -0,0 +1,502 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.text.ParseException;
+import java.util.Date;
+
+/**
+ * Parses and formats the RFC 3339 dates used in the Atom date elements. 
+ * 
+ * The parser accepts the full RFC 3339 date-time form and the reduced 
+ * ISO 8601 forms that were previously listed in XmlElement.DATE_FORMATS, 
+ * i.e. yyyy, yyyy-MM, yyyy-MM-dd and a date with the time truncated to the 
+ * hour or minute. The fraction of a second can have any number of digits, 
+ * and is read to millisecond precision. A time without an offset is taken 
+ * to be in UTC. 
+ * 
+ * Dates are always formatted in UTC, in the form yyyy-MM-dd'T'HH:mm:ss'Z', 
+ * optionally with milliseconds. The text for the most recently formatted 
+ * second is cached, so repeated calls for the current time do not repeat 
+ * the calendar calculation. 
+ * 
+ * The calculation is done without Calendar or SimpleDateFormat objects, so 
+ * all methods are thread safe. 
+ */
+public final class DateCodec
+{
+   /** The length of the text yyyy-MM-dd'T'HH:mm:ss */
+   private static final int SECONDS_LENGTH = 19;
+
+   /** The text for the most recently formatted second. */
+   private static volatile FormattedSecond lastSecond = new FormattedSecond(0, "1970-01-01T00:00:00");
+
+   /**
+    * Utility class. 
+    */
+   private DateCodec()
+   {
+      // no instances
+   }
+
+   /**
+    * Parse the date. 
+    * 
+    * @param text The date. 
+    * @return The number of milliseconds since the epoch. 
+    * @throws ParseException If the text is not a valid date. 
+    */
+   public static long parse(String text)
+   throws ParseException
+   {
+      if( text == null )
+      {
+         throw new ParseException("No date specified", 0);
+      }
+
+      Parser parser = new Parser(text.trim());
+      return parser.parse();
+   }
+
+   /**
+    * Parse the date. 
+    * 
+    * @param text The date. 
+    * @return The date, or <code>null</code> if the text is 
+    *         <code>null</code> or is not a valid date. 
+    */
+   public static Date parseDate(String text)
+   {
+      if( text == null )
+      {
+         return null;
+      }
+
+      try
+      {
+         return new Date(parse(text));
+      }
+      catch( ParseException ex )
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Format the time, to the nearest second, in UTC. 
+    * 
+    * @param time The number of milliseconds since the epoch. 
+    * @return The date, in the form yyyy-MM-dd'T'HH:mm:ss'Z'. 
+    */
+   public static String format(long time)
+   {
+      return formatSeconds(time) + "Z";
+   }
+
+   /**
+    * Format the date, to the nearest second, in UTC. 
+    * 
+    * @param date The date. 
+    * @return The date, in the form yyyy-MM-dd'T'HH:mm:ss'Z'. 
+    */
+   public static String format(Date date)
+   {
+      return format(date.getTime());
+   }
+
+   /**
+    * Format the time, including the milliseconds, in UTC. 
+    * 
+    * @param time The number of milliseconds since the epoch. 
+    * @return The date, in the form yyyy-MM-dd'T'HH:mm:ss.SSS'Z'. 
+    */
+   public static String formatMillis(long time)
+   {
+      int millis = (int) floorMod(time, 1000);
+      StringBuilder buffer = new StringBuilder(SECONDS_LENGTH + 5);
+      buffer.append(formatSeconds(time)).append('.');
+      appendDigits(buffer, millis, 3);
+      return buffer.append('Z').toString();
+   }
+
+   /**
+    * Format the current time, to the nearest second, in UTC. 
+    * 
+    * @return The date, in the form yyyy-MM-dd'T'HH:mm:ss'Z'. 
+    */
+   public static String now()
+   {
+      return format(System.currentTimeMillis());
+   }
+
+   /**
+    * Get the text for the second that contains the specified time, using 
+    * the cached value if it is for the same second. 
+    * 
+    * @param time The number of milliseconds since the epoch. 
+    * @return The date, in the form yyyy-MM-dd'T'HH:mm:ss. 
+    */
+   private static String formatSeconds(long time)
+   {
+      long second = floorDiv(time, 1000);
+      FormattedSecond cached = lastSecond;
+      if( cached.second == second )
+      {
+         return cached.text;
+      }
+
+      long days = floorDiv(second, 86400);
+      int secondOfDay = (int) floorMod(second, 86400);
+
+      // convert the day count to a civil date 
+      long z = days + 719468;
+      long era = floorDiv(z, 146097);
+      long dayOfEra = z - era * 146097;
+      long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+      long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+      long mp = (5 * dayOfYear + 2) / 153;
+      int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+      int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+      long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+      if( year < 0 || year > 9999 )
+      {
+         throw new IllegalArgumentException("Year " + year + " cannot be formatted");
+      }
+
+      StringBuilder buffer = new StringBuilder(SECONDS_LENGTH);
+      appendDigits(buffer, (int) year, 4);
+      buffer.append('-');
+      appendDigits(buffer, month, 2);
+      buffer.append('-');
+      appendDigits(buffer, day, 2);
+      buffer.append('T');
+      appendDigits(buffer, secondOfDay / 3600, 2);
+      buffer.append(':');
+      appendDigits(buffer, (secondOfDay / 60) % 60, 2);
+      buffer.append(':');
+      appendDigits(buffer, secondOfDay % 60, 2);
+
+      String text = buffer.toString();
+      lastSecond = new FormattedSecond(second, text);
+      return text;
+   }
+
+   /**
+    * Append the value, padded with leading zeros to the specified width. 
+    * 
+    * @param buffer The buffer. 
+    * @param value  The value, which must not be negative. 
+    * @param width  The number of digits. 
+    */
+   private static void appendDigits(StringBuilder buffer, int value, int width)
+   {
+      int divisor = 1;
+      for( int i = 1; i < width; i++ )
+      {
+         divisor *= 10;
+      }
+
+      for( ; divisor > 0; divisor /= 10 )
+      {
+         buffer.append((char) ('0' + (value / divisor) % 10));
+      }
+   }
+
+   /**
+    * Get the number of days since the epoch for the date. 
+    * 
+    * @param year  The year. 
+    * @param month The month, 1 to 12. 
+    * @param day   The day of the month. 
+    * @return The number of days. 
+    */
+   static long daysFromCivil(int year, int month, int day)
+   {
+      long y = (month <= 2) ? year - 1 : year;
+      long era = floorDiv(y, 400);
+      long yearOfEra = y - era * 400;
+      long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+      long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+      return era * 146097 + dayOfEra - 719468;
+   }
+
+   /**
+    * Get the number of days in the month. 
+    * 
+    * @param year  The year. 
+    * @param month The month, 1 to 12. 
+    * @return The number of days. 
+    */
+   static int daysInMonth(int year, int month)
+   {
+      switch( month )
+      {
+         case 2:
+            boolean leap = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+            return leap ? 29 : 28;
+         case 4:
+         case 6:
+         case 9:
+         case 11:
+            return 30;
+         default:
+            return 31;
+      }
+   }
+
+   private static long floorDiv(long value, long divisor)
+   {
+      long result = value / divisor;
+      if( (value % divisor != 0) && ((value < 0) != (divisor < 0)) )
+      {
+         result--;
+      }
+      return result;
+   }
+
+   private static long floorMod(long value, long divisor)
+   {
+      return value - floorDiv(value, divisor) * divisor;
+   }
+
+   /**
+    * The text for a single second. 
+    */
+   private static final class FormattedSecond
+   {
+      final long second;
+
+      final String text;
+
+      FormattedSecond(long second, String text)
+      {
+         this.second = second;
+         this.text = text;
+      }
+   }
+
+   /**
+    * Reads the fields from a single date string. 
+    */
+   private static final class Parser
+   {
+      private final String text;
+
+      private int position = 0;
+
+      Parser(String text)
+      {
+         this.text = text;
+      }
+
+      long parse()
+      throws ParseException
+      {
+         int year = number(4);
+         int month = 1;
+         int day = 1;
+         int hour = 0;
+         int minute = 0;
+         int second = 0;
+         int millis = 0;
+         int offset = 0;
+
+         if( next('-') )
+         {
+            month = number(2);
+            if( next('-') )
+            {
+               day = number(2);
+               if( next('T') || next('t') || next(' ') )
+               {
+                  hour = number(2);
+                  if( next(':') )
+                  {
+                     minute = number(2);
+                     if( next(':') )
+                     {
+                        second = number(2);
+                        if( next('.') || next(',') )
+                        {
+                           millis = fraction();
+                        }
+                     }
+                  }
+                  offset = offset();
+               }
+            }
+         }
+
+         if( position != text.length() )
+         {
+            throw error("Unexpected text in date");
+         }
+
+         if( month < 1 || month > 12 )
+         {
+            throw error("Invalid month in date");
+         }
+         if( day < 1 || day > daysInMonth(year, month) )
+         {
+            throw error("Invalid day in date");
+         }
+         if( hour > 23 || minute > 59 || second > 60 )
+         {
+            throw error("Invalid time in date");
+         }
+
+         long days = daysFromCivil(year, month, day);
+         long seconds = days * 86400 + hour * 3600 + minute * 60 + second - offset;
+         return seconds * 1000 + millis;
+      }
+
+      /**
+       * Read the offset from UTC. 
+       * 
+       * @return The offset, in seconds. 
+       */
+      private int offset()
+      throws ParseException
+      {
+         if( position == text.length() || next('Z') || next('z') )
+         {
+            return 0;
+         }
+
+         int sign;
+         if( next('+') )
+         {
+            sign = 1;
+         }
+         else if( next('-') )
+         {
+            sign = -1;
+         }
+         else
+         {
+            throw error("Invalid offset in date");
+         }
+
+         int hours = number(2);
+         int minutes = 0;
+         if( next(':') || position < text.length() )
+         {
+            minutes = number(2);
+         }
+
+         if( hours > 23 || minutes > 59 )
+         {
+            throw error("Invalid offset in date");
+         }
+         return sign * (hours * 3600 + minutes * 60);
+      }
+
+      /**
+       * Read the fraction of a second. Digits after the milliseconds 
+       * are ignored. 
+       * 
+       * @return The number of milliseconds. 
+       */
+      private int fraction()
+      throws ParseException
+      {
+         int start = position;
+         int millis = 0;
+         while( position < text.length() && isDigit(text.charAt(position)) )
+         {
+            if( position - start < 3 )
+            {
+               millis = millis * 10 + (text.charAt(position) - '0');
+            }
+            position++;
+         }
+
+         int digits = position - start;
+         if( digits == 0 )
+         {
+            throw error("Missing fraction in date");
+         }
+         for( ; digits < 3; digits++ )
+         {
+            millis *= 10;
+         }
+         return millis;
+      }
+
+      private int number(int digits)
+      throws ParseException
+      {
+         if( position + digits > text.length() )
+         {
+            throw error("Incomplete date");
+         }
+
+         int value = 0;
+         for( int i = 0; i < digits; i++ )
+         {
+            char c = text.charAt(position++);
+            if( ! isDigit(c) )
+            {
+               throw error("Expected a digit in date");
+            }
+            value = value * 10 + (c - '0');
+         }
+         return value;
+      }
+
+      private boolean next(char c)
+      {
+         if( position < text.length() && text.charAt(position) == c )
+         {
+            position++;
+            return true;
+         }
+         return false;
+      }
+
+      private boolean isDigit(char c)
+      {
+         return c >= '0' && c <= '9';
+      }
+
+      private ParseException error(String message)
+      {
+         return new ParseException(message + ": " + text, position);
+      }
+   }
+}
@@ -43,7 +43,7 @@ package org.purl.sword.base;
 public class DcAbstract extends BasicStringContentElement
 {
     private static final XmlName XML_NAME =
-            new XmlName(Namespaces.PREFIX_DC_TERMS, "abstract", Namespaces.NS_DC_TERMS);
+            XmlName.intern(Namespaces.PREFIX_DC_TERMS, "abstract", Namespaces.NS_DC_TERMS);
 
     public DcAbstract()
     {
@@ -38,6 +38,7 @@ package org.purl.sword.base;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import java.util.Properties;
 import org.apache.log4j.Logger;
@@ -166,8 +167,7 @@ public class DepositResponse
       try 
       {
          ByteArrayOutputStream stream = new ByteArrayOutputStream();
-         Serializer serializer = new Serializer(stream, "UTF-8");
-         serializer.setIndent(3);
+         Serializer serializer = XmlParserPool.getSerializer(stream);
 
          if( entry != null ) 
          {
@@ -201,8 +201,8 @@ public class DepositResponse
    {
       try
       {  
-         Builder builder = new Builder(); 
-         Document doc = builder.build(xml, Namespaces.NS_ATOM);
+         Builder builder = XmlParserPool.getBuilder(); 
+         Document doc = XmlParserPool.build(builder, xml, Namespaces.NS_ATOM);
          Element root = doc.getRootElement(); 
 
          entry = new SWORDEntry( );
@@ -210,14 +210,59 @@ public class DepositResponse
       }
       catch( ParsingException ex )
       {
-         throw new UnmarshallException("Unable to parse the XML", ex );
+         throw XmlParserPool.parseFailure("Unable to parse the XML", ex );
       }
       catch( IOException ex )
       {
-         throw new UnmarshallException("Error acessing the file?", ex);
+         throw XmlParserPool.parseFailure("Error acessing the file?", ex);
       }	   
    }
 
+   /**
+    * Unmarshall the specified XML data into a SWORD Entry, without 
+    * validation. The atom elements are only unmarshalled when they are 
+    * first accessed. 
+    * 
+    * @param xml The XML data as a string. 
+    * @throws UnmarshallException If there was an error unmarshalling the data. 
+    * @see org.purl.sword.atom.Entry#unmarshallLazily(Element)
+    */
+   public void unmarshallLazily(String xml)
+   throws UnmarshallException
+   {
+      try
+      {  
+         Builder builder = XmlParserPool.getBuilder(); 
+         Document doc = XmlParserPool.build(builder, xml, Namespaces.NS_ATOM);
+
+         entry = new SWORDEntry( );
+         entry.unmarshallLazily(doc.getRootElement());
+      }
+      catch( ParsingException ex )
+      {
+         throw XmlParserPool.parseFailure("Unable to parse the XML", ex );
+      }
+      catch( IOException ex )
+      {
+         throw XmlParserPool.parseFailure("Error acessing the file?", ex);
+      }	   
+   }
+
+   /**
+    * Unmarshall the XML data that is read from the stream into a SWORD Entry. 
+    * 
+    * @param stream The stream that contains the XML. 
+    * @param validationContext The validation properties, or <code>null</code>.
+    * @return The validation information, or <code>null</code> if the 
+    *         validationContext is <code>null</code>. 
+    * @throws UnmarshallException If there was an error unmarshalling the data. 
+    */
+   public SwordValidationInfo unmarshall(InputStream stream, Properties validationContext)
+   throws UnmarshallException
+   {
+      return new StreamingUnmarshaller().unmarshall(stream, this, validationContext);
+   }
+
    public void unmarshallErrorDocument(String xml)
    throws UnmarshallException
    {
@@ -236,8 +281,8 @@ public class DepositResponse
    {
       try
       {  
-         Builder builder = new Builder(); 
-         Document doc = builder.build(xml, Namespaces.NS_SWORD);
+         Builder builder = XmlParserPool.getBuilder(); 
+         Document doc = XmlParserPool.build(builder, xml, Namespaces.NS_SWORD);
          Element root = doc.getRootElement(); 
 
          SWORDErrorDocument sed = new SWORDErrorDocument();
@@ -247,11 +292,11 @@ public class DepositResponse
       }
       catch( ParsingException ex )
       {
-         throw new UnmarshallException("Unable to parse the XML", ex );
+         throw XmlParserPool.parseFailure("Unable to parse the XML", ex );
       }
       catch( IOException ex )
       {
-         throw new UnmarshallException("Error acessing the file?", ex);
+         throw XmlParserPool.parseFailure("Error acessing the file?", ex);
       }	   
    }
 
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import nu.xom.Element;
+
+/**
+ * A registry that maps the namespace and local name of a child element to 
+ * the ElementHandler that unmarshalls it. Each class that unmarshalls child 
+ * elements holds one registry, which replaces a chain of name comparisons 
+ * with two hash lookups. 
+ * 
+ * Additional handlers can be registered for extension elements, or to 
+ * replace the default handling of an element, without subclassing. Lookups
+ * are not synchronized. Registration copies the table, so it is safe to 
+ * register a handler while other threads are unmarshalling, although 
+ * handlers would normally be registered during application startup. 
+ * 
+ * @param <T> The class that represents the parent element. 
+ */
+public class ElementDispatcher<T>
+{
+   /**
+    * The handlers, indexed by namespace and then by local name. The maps 
+    * are not modified after they have been published. 
+    */
+   private volatile Map<String, Map<String, ElementHandler<T>>> handlers =
+           new HashMap<String, Map<String, ElementHandler<T>>>();
+
+   /**
+    * Register the handler for the specified element. This replaces any 
+    * handler that was previously registered for the element. 
+    * 
+    * @param name    The name of the child element. 
+    * @param handler The handler. 
+    */
+   public synchronized void register(XmlName name, ElementHandler<T> handler)
+   {
+      if( name == null || handler == null )
+      {
+         throw new IllegalArgumentException("The name and handler must be specified");
+      }
+
+      Map<String, Map<String, ElementHandler<T>>> copy =
+              new HashMap<String, Map<String, ElementHandler<T>>>(handlers);
+
+      Map<String, ElementHandler<T>> localNames = copy.get(name.getNamespace());
+      localNames = (localNames == null) ?
+              new HashMap<String, ElementHandler<T>>() :
+              new HashMap<String, ElementHandler<T>>(localNames);
+      localNames.put(name.getLocalName(), handler);
+      copy.put(name.getNamespace(), localNames);
+
+      handlers = copy;
+   }
+
+   /**
+    * Remove the handler for the specified element. 
+    * 
+    * @param name The name of the child element. 
+    */
+   public synchronized void unregister(XmlName name)
+   {
+      Map<String, ElementHandler<T>> localNames = handlers.get(name.getNamespace());
+      if( localNames == null || ! localNames.containsKey(name.getLocalName()) )
+      {
+         return;
+      }
+
+      Map<String, Map<String, ElementHandler<T>>> copy =
+              new HashMap<String, Map<String, ElementHandler<T>>>(handlers);
+      localNames = new HashMap<String, ElementHandler<T>>(localNames);
+      localNames.remove(name.getLocalName());
+      copy.put(name.getNamespace(), localNames);
+
+      handlers = copy;
+   }
+
+   /**
+    * Get the handler for the element. 
+    * 
+    * @param element The child element. 
+    * @return The handler, or <code>null</code> if no handler has been 
+    *         registered for the element. 
+    */
+   public ElementHandler<T> getHandler(Element element)
+   {
+      return getHandler(element.getNamespaceURI(), element.getLocalName());
+   }
+
+   /**
+    * Get the handler for the specified namespace and local name. 
+    * 
+    * @param namespace The namespace of the child element. 
+    * @param localName The local name of the child element. 
+    * @return The handler, or <code>null</code> if no handler has been 
+    *         registered for the element. 
+    */
+   public ElementHandler<T> getHandler(String namespace, String localName)
+   {
+      Map<String, ElementHandler<T>> localNames = handlers.get(namespace);
+      if( localNames == null )
+      {
+         return null;
+      }
+      return localNames.get(localName);
+   }
+}
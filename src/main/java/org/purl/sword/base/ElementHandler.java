@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.Properties;
+
+import nu.xom.Element;
+
+/**
+ * Unmarshalls a child element into the object that represents its parent. 
+ * Handlers are registered with an ElementDispatcher for the namespace and
+ * local name of the child element. 
+ * 
+ * @param <T> The class that represents the parent element. 
+ */
+public interface ElementHandler<T>
+{
+   /**
+    * Unmarshall the child element and store the data in the target. 
+    * 
+    * @param target  The object that represents the parent element. 
+    * @param element The child element. 
+    * @param validationProperties The validation properties, or 
+    *                             <code>null</code> if the element is not 
+    *                             being validated. 
+    * @return The validation information for the child element, or 
+    *         <code>null</code> if the validationProperties are 
+    *         <code>null</code>. 
+    * @throws UnmarshallException If there was an error unmarshalling the 
+    *                             element. 
+    */
+   public SwordValidationInfo unmarshall(T target, Element element, 
+                                         Properties validationProperties)
+   throws UnmarshallException;
+}
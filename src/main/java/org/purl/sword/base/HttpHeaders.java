@@ -98,6 +98,32 @@ public interface HttpHeaders
      * The Slug header.
      */
     public static final String SLUG = "Slug";
+
+    /**
+     * The Retry-After header.
+     */
+    public static final String RETRY_AFTER = "Retry-After";
+
+    /**
+     * The ETag header, which identifies a version of a resource.
+     */
+    public static final String ETAG = "ETag";
+
+    /**
+     * The Last-Modified header.
+     */
+    public static final String LAST_MODIFIED = "Last-Modified";
+
+    /**
+     * The If-None-Match header, used to ask for a resource only if its
+     * ETag has changed.
+     */
+    public static final String IF_NONE_MATCH = "If-None-Match";
+
+    /**
+     * The If-Modified-Since header.
+     */
+    public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
     
     /**
      * Submission created
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+/**
+ * Thrown when a document exceeds one of the ParserLimits. Parsing stops 
+ * as soon as the limit is reached. 
+ */
+public class LimitExceededException extends UnmarshallException
+{
+   /** The name of the limit that was exceeded. */
+   private final String limitName;
+
+   /** The value of the limit. */
+   private final long limit;
+
+   /**
+    * Create a new instance. 
+    * 
+    * @param limitName The name of the limit, e.g. ParserLimits.MAX_DEPTH. 
+    * @param limit     The value of the limit. 
+    */
+   public LimitExceededException(String limitName, long limit)
+   {
+      super("The document exceeds the " + limitName + " limit of " + limit);
+      this.limitName = limitName;
+      this.limit = limit;
+   }
+
+   /**
+    * Create a new instance for a limit that has no value, such as the 
+    * refusal of document type declarations. 
+    * 
+    * @param limitName The name of the limit. 
+    * @param message   The message. 
+    */
+   public LimitExceededException(String limitName, String message)
+   {
+      super(message);
+      this.limitName = limitName;
+      this.limit = ParserLimits.UNLIMITED;
+   }
+
+   /**
+    * Get the name of the limit that was exceeded. 
+    * 
+    * @return The name. 
+    */
+   public String getLimitName()
+   {
+      return limitName;
+   }
+
+   /**
+    * Get the value of the limit that was exceeded. 
+    * 
+    * @return The value. 
+    */
+   public long getLimit()
+   {
+      return limit;
+   }
+}
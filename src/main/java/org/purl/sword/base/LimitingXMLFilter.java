@@ -0,0 +1,353 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * SAX filter that applies the ParserLimits to each document as it is 
+ * parsed. The limits are read from the XmlParserPool at the start of each 
+ * parse. A limit that is exceeded stops the parse with a SAXException 
+ * that wraps a LimitExceededException. 
+ */
+class LimitingXMLFilter extends XMLFilterImpl
+{
+   /** The SAX property for the lexical handler. */
+   private static final String LEXICAL_HANDLER = 
+           "http://xml.org/sax/properties/lexical-handler";
+
+   /** The limits for the current document. */
+   private ParserLimits limits = ParserLimits.NONE;
+
+   /** The current depth. */
+   private int depth;
+
+   /** The number of elements so far. */
+   private int elements;
+
+   /** The length of the current text node. */
+   private int textLength;
+
+   /**
+    * Create a new filter. 
+    * 
+    * @param parent The reader that parses the document. 
+    */
+   LimitingXMLFilter(XMLReader parent)
+   {
+      super(parent);
+   }
+
+   @Override
+   public void parse(InputSource input) throws SAXException, IOException
+   {
+      reset();
+      super.parse(input);
+   }
+
+   @Override
+   public void parse(String systemId) throws SAXException, IOException
+   {
+      reset();
+      super.parse(systemId);
+   }
+
+   /**
+    * Reset the counters and read the current limits. 
+    */
+   private void reset()
+   {
+      limits = XmlParserPool.getLimits();
+      depth = 0;
+      elements = 0;
+      textLength = 0;
+   }
+
+   /**
+    * The lexical handler is wrapped so that a document type declaration 
+    * is refused before any entities are declared. 
+    */
+   @Override
+   public void setProperty(String name, Object value)
+   throws SAXNotRecognizedException, SAXNotSupportedException
+   {
+      if( LEXICAL_HANDLER.equals(name) && value instanceof LexicalHandler )
+      {
+         value = new DoctypeGuard((LexicalHandler) value);
+      }
+      super.setProperty(name, value);
+   }
+
+   @Override
+   public void startElement(String uri, String localName, String qName, 
+                            Attributes atts) throws SAXException
+   {
+      elements++;
+      if( ParserLimits.exceeds(elements, limits.getMaxElements()) )
+      {
+         fail(ParserLimits.MAX_ELEMENTS, limits.getMaxElements());
+      }
+
+      depth++;
+      if( ParserLimits.exceeds(depth, limits.getMaxDepth()) )
+      {
+         fail(ParserLimits.MAX_DEPTH, limits.getMaxDepth());
+      }
+
+      if( ParserLimits.exceeds(atts.getLength(), limits.getMaxAttributes()) )
+      {
+         fail(ParserLimits.MAX_ATTRIBUTES, limits.getMaxAttributes());
+      }
+
+      textLength = 0;
+      super.startElement(uri, localName, qName, atts);
+   }
+
+   @Override
+   public void endElement(String uri, String localName, String qName) 
+   throws SAXException
+   {
+      depth--;
+      textLength = 0;
+      super.endElement(uri, localName, qName);
+   }
+
+   @Override
+   public void characters(char[] ch, int start, int length) throws SAXException
+   {
+      addText(length);
+      super.characters(ch, start, length);
+   }
+
+   @Override
+   public void ignorableWhitespace(char[] ch, int start, int length) 
+   throws SAXException
+   {
+      addText(length);
+      super.ignorableWhitespace(ch, start, length);
+   }
+
+   /**
+    * Add to the length of the current text node. 
+    * 
+    * @param length The number of characters. 
+    * @throws SAXException If the text is too long. 
+    */
+   private void addText(int length) throws SAXException
+   {
+      textLength += length;
+      if( ParserLimits.exceeds(textLength, limits.getMaxTextLength()) )
+      {
+         fail(ParserLimits.MAX_TEXT_LENGTH, limits.getMaxTextLength());
+      }
+   }
+
+   /**
+    * Stop the parse. 
+    * 
+    * @param limitName The name of the limit. 
+    * @param limit     The value of the limit. 
+    * @throws SAXException Always. 
+    */
+   private static void fail(String limitName, long limit) throws SAXException
+   {
+      throw new SAXException(new LimitExceededException(limitName, limit));
+   }
+
+   /**
+    * Find the LimitExceededException that caused an exception. 
+    * 
+    * @param ex The exception. 
+    * @return The LimitExceededException, or <code>null</code> if the 
+    *         exception was not caused by a limit. 
+    */
+   static LimitExceededException findLimit(Throwable ex)
+   {
+      Throwable cause = ex;
+      for( int i = 0; cause != null && i < 10; i++ )
+      {
+         if( cause instanceof LimitExceededException )
+         {
+            return (LimitExceededException) cause;
+         }
+         if( cause instanceof SAXException && 
+             ((SAXException) cause).getException() != null )
+         {
+            cause = ((SAXException) cause).getException();
+         }
+         else
+         {
+            cause = cause.getCause();
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Stream that fails when more than the maximum number of bytes have 
+    * been read. 
+    */
+   static class LimitedInputStream extends FilterInputStream
+   {
+      /** The maximum number of bytes. */
+      private final long maxBytes;
+
+      /** The number of bytes read so far. */
+      private long count;
+
+      /**
+       * Create a new stream. 
+       * 
+       * @param in       The stream to read from. 
+       * @param maxBytes The maximum number of bytes. 
+       */
+      LimitedInputStream(InputStream in, long maxBytes)
+      {
+         super(in);
+         this.maxBytes = maxBytes;
+      }
+
+      @Override
+      public int read() throws IOException
+      {
+         int b = super.read();
+         if( b != -1 )
+         {
+            count(1);
+         }
+         return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException
+      {
+         int n = super.read(b, off, len);
+         if( n > 0 )
+         {
+            count(n);
+         }
+         return n;
+      }
+
+      @Override
+      public long skip(long n) throws IOException
+      {
+         long skipped = super.skip(n);
+         count(skipped);
+         return skipped;
+      }
+
+      /**
+       * Add to the count of bytes. 
+       * 
+       * @param n The number of bytes. 
+       * @throws IOException If the limit has been exceeded. 
+       */
+      private void count(long n) throws IOException
+      {
+         count += n;
+         if( ParserLimits.exceeds(count, maxBytes) )
+         {
+            IOException ex = new IOException("The document exceeds the " + 
+                    ParserLimits.MAX_BYTES + " limit of " + maxBytes);
+            ex.initCause(new LimitExceededException(ParserLimits.MAX_BYTES, maxBytes));
+            throw ex;
+         }
+      }
+   }
+
+   /**
+    * Lexical handler that refuses document type declarations. 
+    */
+   private static class DoctypeGuard implements LexicalHandler
+   {
+      private final LexicalHandler handler;
+
+      DoctypeGuard(LexicalHandler handler)
+      {
+         this.handler = handler;
+      }
+
+      public void startDTD(String name, String publicId, String systemId) 
+      throws SAXException
+      {
+         throw new SAXException(new LimitExceededException(ParserLimits.DOCTYPE, 
+                 "Document type declarations are not allowed"));
+      }
+
+      public void endDTD() throws SAXException
+      {
+         handler.endDTD();
+      }
+
+      public void startEntity(String name) throws SAXException
+      {
+         handler.startEntity(name);
+      }
+
+      public void endEntity(String name) throws SAXException
+      {
+         handler.endEntity(name);
+      }
+
+      public void startCDATA() throws SAXException
+      {
+         handler.startCDATA();
+      }
+
+      public void endCDATA() throws SAXException
+      {
+         handler.endCDATA();
+      }
+
+      public void comment(char[] ch, int start, int length) throws SAXException
+      {
+         handler.comment(ch, start, length);
+      }
+   }
+}
@@ -0,0 +1,461 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import nu.xom.Attribute;
+import nu.xom.Element;
+import nu.xom.Elements;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Unmarshalls and validates large services on several threads. 
+ * 
+ * The collections in each workspace are split into batches, and each 
+ * batch is processed as a separate task by the executor. The results are 
+ * merged in document order, so the services and the validation 
+ * information are the same as those created by the sequential methods, 
+ * whatever order the tasks complete in. Services with fewer collections 
+ * than the threshold are processed on the calling thread. 
+ * 
+ * The executor is supplied and shut down by the caller. The methods must 
+ * not be called from a task that is running in the same executor, because 
+ * the calling thread waits for the batches to complete. 
+ */
+public final class ParallelServiceProcessor
+{
+   /**
+    * The default number of collections below which a service is processed 
+    * on the calling thread. 
+    */
+   public static final int DEFAULT_THRESHOLD = 1000;
+
+   /**
+    * The default number of collections in each task. 
+    */
+   public static final int DEFAULT_BATCH_SIZE = 250;
+
+   /** Logger */
+   private static Logger log = Logger.getLogger(ParallelServiceProcessor.class);
+
+   /**
+    * The executor that runs the batches. 
+    */
+   private final ExecutorService executor;
+
+   /**
+    * The number of collections below which processing is sequential. 
+    */
+   private final int threshold;
+
+   /**
+    * The number of collections in each task. 
+    */
+   private final int batchSize;
+
+   /**
+    * Create a new instance with the default threshold and batch size. 
+    * 
+    * @param executor The executor that runs the batches. 
+    */
+   public ParallelServiceProcessor(ExecutorService executor)
+   {
+      this(executor, DEFAULT_THRESHOLD, DEFAULT_BATCH_SIZE);
+   }
+
+   /**
+    * Create a new instance. 
+    * 
+    * @param executor  The executor that runs the batches. 
+    * @param threshold The number of collections below which a service is
+    *                  processed on the calling thread. 
+    * @param batchSize The number of collections in each task. 
+    * @throws IllegalArgumentException If the batch size is less than 1. 
+    */
+   public ParallelServiceProcessor(ExecutorService executor, int threshold, int batchSize)
+   {
+      if( executor == null )
+      {
+         throw new IllegalArgumentException("An executor is required");
+      }
+      if( batchSize < 1 )
+      {
+         throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+      }
+      this.executor = executor;
+      this.threshold = threshold;
+      this.batchSize = batchSize;
+   }
+
+   /**
+    * Unmarshall the service element into the service. 
+    * 
+    * @param service The service that will hold the data. 
+    * @param element The service element. This is not modified. 
+    * @param validationProperties The validation properties, or 
+    *                             <code>null</code>. 
+    * @return The validation information, or <code>null</code> if the 
+    *         validationProperties are <code>null</code>. 
+    * @throws UnmarshallException If there was a problem accessing the data, 
+    *                             or the thread was interrupted. 
+    */
+   public SwordValidationInfo unmarshall(Service service, Element element, 
+                                         Properties validationProperties)
+   throws UnmarshallException
+   {
+      if( ! Service.elementName().matches(element) || 
+          countCollections(element) < threshold )
+      {
+         return service.unmarshall(element, validationProperties);
+      }
+
+      // Start the collections in every workspace before waiting for any
+      // of them, so that all of the threads are kept busy. 
+      Element serviceShell = shallowCopy(element);
+      List<Element> workspaceShells = new ArrayList<Element>();
+      List<List<Future<UnmarshallBatch>>> workspaceBatches = 
+              new ArrayList<List<Future<UnmarshallBatch>>>();
+      List<Future<?>> started = new ArrayList<Future<?>>();
+
+      try
+      {
+         Elements elements = element.getChildElements();
+         for( int i = 0; i < elements.size(); i++ )
+         {
+            Element child = elements.get(i);
+            if( ! Workspace.elementName().matches(child) )
+            {
+               serviceShell.appendChild(child.copy());
+               continue;
+            }
+
+            Element workspaceShell = shallowCopy(child);
+            List<Element> collections = new ArrayList<Element>();
+            Elements workspaceChildren = child.getChildElements();
+            for( int j = 0; j < workspaceChildren.size(); j++ )
+            {
+               Element item = workspaceChildren.get(j);
+               if( Collection.elementName().matches(item) )
+               {
+                  collections.add(item);
+               }
+               else
+               {
+                  workspaceShell.appendChild(item.copy());
+               }
+            }
+
+            List<Future<UnmarshallBatch>> batches = new ArrayList<Future<UnmarshallBatch>>();
+            for( int start = 0; start < collections.size(); start += batchSize )
+            {
+               int end = Math.min(start + batchSize, collections.size());
+               Future<UnmarshallBatch> future = executor.submit(
+                     new UnmarshallTask(collections.subList(start, end), validationProperties));
+               batches.add(future);
+               started.add(future);
+            }
+            workspaceShells.add(workspaceShell);
+            workspaceBatches.add(batches);
+         }
+
+         List<Workspace> workspaces = new ArrayList<Workspace>();
+         List<SwordValidationInfo> workspaceInfo = 
+                 (validationProperties == null) ? null : new ArrayList<SwordValidationInfo>();
+         for( int w = 0; w < workspaceShells.size(); w++ )
+         {
+            List<Collection> collections = new ArrayList<Collection>();
+            List<SwordValidationInfo> collectionInfo = 
+                 (validationProperties == null) ? null : new ArrayList<SwordValidationInfo>();
+            for( Future<UnmarshallBatch> future : workspaceBatches.get(w) )
+            {
+               UnmarshallBatch batch = future.get();
+               collections.addAll(batch.collections);
+               if( collectionInfo != null )
+               {
+                  collectionInfo.addAll(batch.info);
+               }
+            }
+
+            Workspace workspace = new Workspace();
+            SwordValidationInfo info = workspace.unmarshall(workspaceShells.get(w), 
+                    collections, collectionInfo, validationProperties);
+            workspaces.add(workspace);
+            if( workspaceInfo != null )
+            {
+               workspaceInfo.add(info);
+            }
+         }
+
+         return service.unmarshall(serviceShell, workspaces, workspaceInfo, 
+                                   validationProperties);
+      }
+      catch( InterruptedException ex )
+      {
+         Thread.currentThread().interrupt();
+         throw new UnmarshallException("Interrupted while unmarshalling the service", ex);
+      }
+      catch( ExecutionException ex )
+      {
+         Throwable cause = ex.getCause();
+         if( cause instanceof UnmarshallException )
+         {
+            throw (UnmarshallException) cause;
+         }
+         throw new UnmarshallException("Unable to parse element in Service", ex);
+      }
+      finally
+      {
+         cancel(started);
+      }
+   }
+
+   /**
+    * Validate the service. 
+    * 
+    * @param service The service. 
+    * @param validationContext The validation properties. 
+    * @return The validation information. 
+    * @throws IllegalStateException If the thread was interrupted. 
+    */
+   public SwordValidationInfo validate(Service service, Properties validationContext)
+   {
+      List<Workspace> workspaces = service.getWorkspacesList();
+      int total = 0;
+      for( Workspace workspace : workspaces )
+      {
+         total += workspace.getCollections().size();
+      }
+      if( total < threshold )
+      {
+         return service.validate(validationContext);
+      }
+
+      List<List<Future<List<SwordValidationInfo>>>> workspaceBatches = 
+              new ArrayList<List<Future<List<SwordValidationInfo>>>>();
+      List<Future<?>> started = new ArrayList<Future<?>>();
+      try
+      {
+         for( Workspace workspace : workspaces )
+         {
+            List<Collection> collections = workspace.getCollections();
+            List<Future<List<SwordValidationInfo>>> batches = 
+                    new ArrayList<Future<List<SwordValidationInfo>>>();
+            for( int start = 0; start < collections.size(); start += batchSize )
+            {
+               int end = Math.min(start + batchSize, collections.size());
+               Future<List<SwordValidationInfo>> future = executor.submit(
+                       new ValidateTask(collections.subList(start, end), validationContext));
+               batches.add(future);
+               started.add(future);
+            }
+            workspaceBatches.add(batches);
+         }
+
+         List<SwordValidationInfo> workspaceInfo = new ArrayList<SwordValidationInfo>();
+         for( int w = 0; w < workspaces.size(); w++ )
+         {
+            List<SwordValidationInfo> collectionInfo = new ArrayList<SwordValidationInfo>();
+            for( Future<List<SwordValidationInfo>> future : workspaceBatches.get(w) )
+            {
+               collectionInfo.addAll(future.get());
+            }
+            workspaceInfo.add(workspaces.get(w).validate(validationContext, collectionInfo));
+         }
+         return service.validate(validationContext, workspaceInfo);
+      }
+      catch( InterruptedException ex )
+      {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while validating the service", ex);
+      }
+      catch( ExecutionException ex )
+      {
+         Throwable cause = ex.getCause();
+         if( cause instanceof RuntimeException )
+         {
+            throw (RuntimeException) cause;
+         }
+         if( cause instanceof Error )
+         {
+            throw (Error) cause;
+         }
+         throw new IllegalStateException("Unable to validate the service", cause);
+      }
+      finally
+      {
+         cancel(started);
+      }
+   }
+
+   /**
+    * Count the collection elements in the service element. 
+    * 
+    * @param service The service element. 
+    * @return The number of collections. 
+    */
+   private static int countCollections(Element service)
+   {
+      int count = 0;
+      Elements workspaces = service.getChildElements();
+      for( int i = 0; i < workspaces.size(); i++ )
+      {
+         Element workspace = workspaces.get(i);
+         if( Workspace.elementName().matches(workspace) )
+         {
+            Elements items = workspace.getChildElements();
+            for( int j = 0; j < items.size(); j++ )
+            {
+               if( Collection.elementName().matches(items.get(j)) )
+               {
+                  count++;
+               }
+            }
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Copy an element and its attributes, without any of its children. 
+    * 
+    * @param element The element to copy. 
+    * @return The copy. 
+    */
+   private static Element shallowCopy(Element element)
+   {
+      Element copy = new Element(element.getQualifiedName(), element.getNamespaceURI());
+      for( int i = 0; i < element.getAttributeCount(); i++ )
+      {
+         copy.addAttribute((Attribute) element.getAttribute(i).copy());
+      }
+      return copy;
+   }
+
+   /**
+    * Cancel any tasks that have not completed. This has no effect once all
+    * of the tasks have completed. 
+    * 
+    * @param futures The tasks. 
+    */
+   private static void cancel(List<Future<?>> futures)
+   {
+      for( Future<?> future : futures )
+      {
+         if( ! future.isDone() )
+         {
+            log.debug("Cancelling an unfinished batch");
+            future.cancel(true);
+         }
+      }
+   }
+
+   /**
+    * The collections and validation information from one batch. 
+    */
+   private static final class UnmarshallBatch
+   {
+      final List<Collection> collections = new ArrayList<Collection>();
+
+      final List<SwordValidationInfo> info = new ArrayList<SwordValidationInfo>();
+   }
+
+   /**
+    * Unmarshalls a batch of collection elements. 
+    */
+   private static final class UnmarshallTask implements Callable<UnmarshallBatch>
+   {
+      private final List<Element> elements;
+
+      private final Properties validationProperties;
+
+      UnmarshallTask(List<Element> elements, Properties validationProperties)
+      {
+         this.elements = elements;
+         this.validationProperties = validationProperties;
+      }
+
+      public UnmarshallBatch call() throws UnmarshallException
+      {
+         UnmarshallBatch batch = new UnmarshallBatch();
+         for( Element element : elements )
+         {
+            Collection collection = new Collection();
+            SwordValidationInfo info = collection.unmarshall(element, validationProperties);
+            batch.collections.add(collection);
+            if( validationProperties != null )
+            {
+               batch.info.add(info);
+            }
+         }
+         return batch;
+      }
+   }
+
+   /**
+    * Validates a batch of collections. 
+    */
+   private static final class ValidateTask implements Callable<List<SwordValidationInfo>>
+   {
+      private final List<Collection> collections;
+
+      private final Properties validationContext;
+
+      ValidateTask(List<Collection> collections, Properties validationContext)
+      {
+         this.collections = collections;
+         this.validationContext = validationContext;
+      }
+
+      public List<SwordValidationInfo> call()
+      {
+         List<SwordValidationInfo> result = new ArrayList<SwordValidationInfo>(collections.size());
+         for( Collection collection : collections )
+         {
+            result.add(collection.validate(validationContext));
+         }
+         return result;
+      }
+   }
+}
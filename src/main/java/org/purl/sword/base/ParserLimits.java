@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+/**
+ * Limits that are applied when a document is parsed, so that a very large 
+ * or hostile document fails quickly rather than using all of the 
+ * available memory. Each limit can be set to UNLIMITED. 
+ * 
+ * Document type declarations are always refused, so entities cannot be 
+ * declared or expanded. 
+ * 
+ * The limits used by the parsers are set with 
+ * {@link XmlParserPool#setLimits(ParserLimits)}. 
+ */
+public final class ParserLimits
+{
+   /** Value for a limit that is not checked. */
+   public static final int UNLIMITED = -1;
+
+   /** Name of the limit on the size of the document. */
+   public static final String MAX_BYTES = "maxBytes";
+
+   /** Name of the limit on the depth of nested elements. */
+   public static final String MAX_DEPTH = "maxDepth";
+
+   /** Name of the limit on the number of elements. */
+   public static final String MAX_ELEMENTS = "maxElements";
+
+   /** Name of the limit on the number of attributes on one element. */
+   public static final String MAX_ATTRIBUTES = "maxAttributes";
+
+   /** Name of the limit on the length of a single text node. */
+   public static final String MAX_TEXT_LENGTH = "maxTextLength";
+
+   /** Name used when a document type declaration is refused. */
+   public static final String DOCTYPE = "doctype";
+
+   /**
+    * The default limits. These allow service documents with several 
+    * hundred thousand collections. 
+    */
+   public static final ParserLimits DEFAULT = 
+           new ParserLimits(64L * 1024 * 1024, 64, 2000000, 64, 4 * 1024 * 1024);
+
+   /**
+    * No limits, other than the refusal of document type declarations. 
+    */
+   public static final ParserLimits NONE = 
+           new ParserLimits(UNLIMITED, UNLIMITED, UNLIMITED, UNLIMITED, UNLIMITED);
+
+   /** The maximum size of the document. */
+   private final long maxBytes;
+
+   /** The maximum depth of nested elements. */
+   private final int maxDepth;
+
+   /** The maximum number of elements. */
+   private final int maxElements;
+
+   /** The maximum number of attributes on one element. */
+   private final int maxAttributes;
+
+   /** The maximum length of a single text node. */
+   private final int maxTextLength;
+
+   /**
+    * Create a new set of limits. 
+    * 
+    * @param maxBytes      The maximum size of the document in bytes. For a 
+    *                      document that is passed as a String, this is 
+    *                      the number of characters. 
+    * @param maxDepth      The maximum depth of nested elements. 
+    * @param maxElements   The maximum number of elements. 
+    * @param maxAttributes The maximum number of attributes on one element. 
+    * @param maxTextLength The maximum number of characters in a single 
+    *                      text node. 
+    */
+   public ParserLimits(long maxBytes, int maxDepth, int maxElements, 
+                       int maxAttributes, int maxTextLength)
+   {
+      this.maxBytes = maxBytes;
+      this.maxDepth = maxDepth;
+      this.maxElements = maxElements;
+      this.maxAttributes = maxAttributes;
+      this.maxTextLength = maxTextLength;
+   }
+
+   /**
+    * Get the maximum size of the document. 
+    * 
+    * @return The size in bytes, or UNLIMITED. 
+    */
+   public long getMaxBytes()
+   {
+      return maxBytes;
+   }
+
+   /**
+    * Get the maximum depth of nested elements. 
+    * 
+    * @return The depth, or UNLIMITED. 
+    */
+   public int getMaxDepth()
+   {
+      return maxDepth;
+   }
+
+   /**
+    * Get the maximum number of elements. 
+    * 
+    * @return The number of elements, or UNLIMITED. 
+    */
+   public int getMaxElements()
+   {
+      return maxElements;
+   }
+
+   /**
+    * Get the maximum number of attributes on one element. 
+    * 
+    * @return The number of attributes, or UNLIMITED. 
+    */
+   public int getMaxAttributes()
+   {
+      return maxAttributes;
+   }
+
+   /**
+    * Get the maximum length of a single text node. 
+    * 
+    * @return The number of characters, or UNLIMITED. 
+    */
+   public int getMaxTextLength()
+   {
+      return maxTextLength;
+   }
+
+   /**
+    * Determine if a value exceeds a limit. 
+    * 
+    * @param value The value. 
+    * @param limit The limit, or UNLIMITED. 
+    * @return True if the limit is set and the value is greater than it. 
+    */
+   static boolean exceeds(long value, long limit)
+   {
+      return limit != UNLIMITED && value > limit;
+   }
+
+   @Override
+   public String toString()
+   {
+      return MAX_BYTES + "=" + maxBytes + ", " + 
+             MAX_DEPTH + "=" + maxDepth + ", " + 
+             MAX_ELEMENTS + "=" + maxElements + ", " + 
+             MAX_ATTRIBUTES + "=" + maxAttributes + ", " + 
+             MAX_TEXT_LENGTH + "=" + maxTextLength;
+   }
+}
@@ -39,7 +39,6 @@ package org.purl.sword.base;
 import java.util.ArrayList;
 import java.util.Properties;
 import nu.xom.Element;
-import nu.xom.Elements;
 
 import org.apache.log4j.Logger;
 import org.purl.sword.atom.Entry;
@@ -91,6 +90,105 @@ public class SWORDEntry extends Entry
    private static Logger log = Logger.getLogger(SWORDEntry.class);
 
    
+   /**
+    * The handlers for the child elements of the SWORD child elements of the entry element. 
+    */
+   private static final ElementDispatcher<SWORDEntry> DISPATCHER = 
+           new ElementDispatcher<SWORDEntry>();
+
+   static
+   {
+      DISPATCHER.register(SwordTreatment.elementName(), new ElementHandler<SWORDEntry>() 
+      {
+         public SwordValidationInfo unmarshall(SWORDEntry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.swordTreatment != null )
+            {
+               return createDuplicateInfo(SwordTreatment.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.swordTreatment = new SwordTreatment();
+            return entry.swordTreatment.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(SwordNoOp.elementName(), new ElementHandler<SWORDEntry>() 
+      {
+         public SwordValidationInfo unmarshall(SWORDEntry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.swordNoOp != null )
+            {
+               return createDuplicateInfo(SwordNoOp.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.swordNoOp = new SwordNoOp();
+            return entry.swordNoOp.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(SwordVerboseDescription.elementName(), new ElementHandler<SWORDEntry>() 
+      {
+         public SwordValidationInfo unmarshall(SWORDEntry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.swordVerboseDescription != null )
+            {
+               return createDuplicateInfo(SwordVerboseDescription.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.swordVerboseDescription = new SwordVerboseDescription();
+            return entry.swordVerboseDescription.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(SwordUserAgent.elementName(), new ElementHandler<SWORDEntry>() 
+      {
+         public SwordValidationInfo unmarshall(SWORDEntry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.swordUserAgent != null )
+            {
+               return createDuplicateInfo(SwordUserAgent.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.swordUserAgent = new SwordUserAgent();
+            return entry.swordUserAgent.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(SwordPackaging.elementName(), new ElementHandler<SWORDEntry>() 
+      {
+         public SwordValidationInfo unmarshall(SWORDEntry entry, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( entry.swordPackaging != null )
+            {
+               return createDuplicateInfo(SwordPackaging.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            entry.swordPackaging = new SwordPackaging();
+            return entry.swordPackaging.unmarshall(element, validationProperties);
+         }
+      });
+   }
+
+   /**
+    * Register a handler for a child element of a SWORD entry. Handlers 
+    * registered here are checked before those registered with 
+    * Entry.registerElementHandler, and only apply to SWORDEntry and its 
+    * subclasses. Elements that do not have a handler are reported as 
+    * unknown elements when the entry is validated. 
+    * 
+    * @param name    The name of the child element. 
+    * @param handler The handler. 
+    */
+   public static void registerSWORDElementHandler(XmlName name, ElementHandler<SWORDEntry> handler)
+   {
+      DISPATCHER.register(name, handler);
+   }
+
    /**
     * Create a new SWORDEntry with the given namespace and element. This method is
     * not normally used, instead the default constructor should be used as this will
@@ -325,113 +423,48 @@ public class SWORDEntry extends Entry
       SwordValidationInfo result = super.unmarshallWithoutValidate(entry, validationProperties);
 
       processUnexpectedAttributes(entry, result);
+      return result;
+   }
 
-      // retrieve all of the sub-elements
-      Elements elements = entry.getChildElements();
-      Element element = null; 
-      int length = elements.size();
-
-      for(int i = 0; i < length; i++ )
+   /**
+    * Unmarshall a child element of the entry. The SWORD elements are 
+    * handled here and all other elements are passed to Entry. 
+    * 
+    * @param element The child element. 
+    * @param result  The unmarshall information for the entry, or 
+    *                <code>null</code> if the entry is not being validated. 
+    * @param validationProperties The validation properties, or <code>null</code>. 
+    * @return True if the element was handled, otherwise false. 
+    * @throws UnmarshallException If there was an error unmarshalling the element. 
+    */
+   @Override
+   protected boolean unmarshallElement(Element element, SwordValidationInfo result,
+                                       Properties validationProperties)
+   throws UnmarshallException
+   {
+      ElementHandler<SWORDEntry> handler = DISPATCHER.getHandler(element);
+      if( handler == null )
       {
-    	  element = elements.get(i);
-
-    	  if (isInstanceOf(element, SwordTreatment.elementName()))
-    	  {
-             if( swordTreatment == null )
-             {
-                 swordTreatment = new SwordTreatment();
-                 result.addUnmarshallElementInfo(
-                         swordTreatment.unmarshall(element, validationProperties));
-             }
-             else if( validationProperties != null )
-             {
-                 SwordValidationInfo info = new SwordValidationInfo(SwordTreatment.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.WARNING);
-                 info.setContentDescription(element.getValue());
-                 result.addUnmarshallElementInfo(info);
-             }
-    	  }
-    	  else if (isInstanceOf(element, SwordNoOp.elementName()))
-    	  {
-    		 if( swordNoOp == null )
-             {
-                 swordNoOp = new SwordNoOp();
-                 result.addUnmarshallElementInfo(swordNoOp.unmarshall(element, validationProperties));
-             }
-             else if( validationProperties != null )
-             {
-                 SwordValidationInfo info = new SwordValidationInfo(SwordNoOp.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.WARNING);
-                 info.setContentDescription(element.getValue());
-                 result.addUnmarshallElementInfo(info);
-             }
-    	  }
-    	  else if (isInstanceOf(element, SwordVerboseDescription.elementName()))
-    	  {
-    		 if( swordVerboseDescription == null )
-             {
-                 swordVerboseDescription = new SwordVerboseDescription();
-                 result.addUnmarshallElementInfo(swordVerboseDescription.unmarshall(element, validationProperties));
-             }
-             else if( validationProperties != null )
-             {
-                 SwordValidationInfo info = new SwordValidationInfo(SwordVerboseDescription.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.WARNING);
-                 info.setContentDescription(element.getValue());
-                 result.addUnmarshallElementInfo(info);
-             }
-    	  }
-    	  else if (isInstanceOf(element, SwordUserAgent.elementName()))
-    	  {
-    		 if( swordUserAgent == null )
-             {
-                 swordUserAgent = new SwordUserAgent();
-                 result.addUnmarshallElementInfo(swordUserAgent.unmarshall(element, validationProperties));
-             }
-             else if( validationProperties != null )
-             {
-                 SwordValidationInfo info = new SwordValidationInfo(SwordUserAgent.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.WARNING);
-                 info.setContentDescription(element.getValue());
-                 result.addUnmarshallElementInfo(info);
-             }
-    	  }
-    	  else if (isInstanceOf(element, SwordPackaging.elementName()))
-    	  {
-    		  if( swordPackaging == null )
-             {
-                 swordPackaging = new SwordPackaging();
-                 result.addUnmarshallElementInfo(swordPackaging.unmarshall(element, validationProperties));
-             }
-             else if( validationProperties != null )
-             {
-                 SwordValidationInfo info = new SwordValidationInfo(SwordPackaging.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.WARNING);
-                 info.setContentDescription(element.getValue());
-                 result.addUnmarshallElementInfo(info);
-             }
-    	  }
-          else if (validationProperties != null )
-          {
-              XmlName name = new XmlName(element);
-              if( ! isElementChecked(name) )
-              {
-                 SwordValidationInfo info = new SwordValidationInfo(name,
-                           SwordValidationInfo.UNKNOWN_ELEMENT,
-                           SwordValidationInfoType.INFO);
-                 info.setContentDescription(element.getValue());
-                 result.addUnmarshallElementInfo(info);
-              }
-          }
+         return super.unmarshallElement(element, result, validationProperties);
+      }
 
-      } // for
-      return result;
+      addUnmarshallInfo(result, handler.unmarshall(this, element, validationProperties));
+      return true;
    }
+
+   /**
+    * Elements that have a handler registered for SWORDEntry are always 
+    * unmarshalled immediately. 
+    * 
+    * @param element The child element. 
+    * @return True if the element can be unmarshalled on first access. 
+    */
+   @Override
+   protected boolean isDeferrable(Element element)
+   {
+      return DISPATCHER.getHandler(element) == null && super.isDeferrable(element);
+   }
+
    
    public SwordValidationInfo unmarshall(Element entry, Properties validationProperties)
    throws UnmarshallException
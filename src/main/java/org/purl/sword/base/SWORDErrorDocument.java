@@ -65,10 +65,10 @@ public class SWORDErrorDocument extends SWORDEntry
    private static Logger log = Logger.getLogger(SWORDErrorDocument.class);
 
    private static final XmlName XML_NAME =
-           new XmlName(Namespaces.PREFIX_SWORD, "error", Namespaces.NS_SWORD);
+           XmlName.intern(Namespaces.PREFIX_SWORD, "error", Namespaces.NS_SWORD);
 
    private static final XmlName ATTRIBUTE_HREF_NAME =
-           new XmlName(Namespaces.PREFIX_SWORD, "href", Namespaces.NS_SWORD);
+           XmlName.intern(Namespaces.PREFIX_SWORD, "href", Namespaces.NS_SWORD);
 
    /**
     * The Error URI
@@ -156,12 +156,12 @@ public class SWORDErrorDocument extends SWORDEntry
    throws UnmarshallException
    {
       SwordValidationInfo result = super.unmarshall(entry, validationProperties);
-      result.clearValidationItems();
 
       errorURI = entry.getAttributeValue(ATTRIBUTE_HREF_NAME.getLocalName());
       
       if( validationProperties != null )
       {
+         result.clearValidationItems();
          result = validate(result, validationProperties);
       }
       
@@ -93,10 +93,120 @@ public class Service extends XmlElement implements SwordElementInterface
    /**
     * The XML NAME (prefix, local name and namespace) for this element.
     */
-   private static XmlName XML_NAME =
-           new XmlName(Namespaces.PREFIX_APP, "service", Namespaces.NS_APP);
+   private static final XmlName XML_NAME =
+           XmlName.intern(Namespaces.PREFIX_APP, "service", Namespaces.NS_APP);
 
 
+   /**
+    * The handlers for the child elements of the service element. 
+    */
+   private static final ElementDispatcher<Service> DISPATCHER = 
+           new ElementDispatcher<Service>();
+
+   static
+   {
+      DISPATCHER.register(SwordVersion.elementName(), new ElementHandler<Service>() 
+      {
+         public SwordValidationInfo unmarshall(Service service, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( service.swordVersion != null )
+            {
+               return createDuplicateInfo(SwordVersion.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            service.swordVersion = new SwordVersion();
+            return service.swordVersion.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(SwordVerbose.elementName(), new ElementHandler<Service>() 
+      {
+         public SwordValidationInfo unmarshall(Service service, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( service.swordVerbose != null )
+            {
+               return createDuplicateInfo(SwordVerbose.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            service.swordVerbose = new SwordVerbose();
+            return service.swordVerbose.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(SwordNoOp.elementName(), new ElementHandler<Service>() 
+      {
+         public SwordValidationInfo unmarshall(Service service, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( service.swordNoOp != null )
+            {
+               return createDuplicateInfo(SwordNoOp.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            service.swordNoOp = new SwordNoOp();
+            return service.swordNoOp.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(SwordMaxUploadSize.elementName(), new ElementHandler<Service>() 
+      {
+         public SwordValidationInfo unmarshall(Service service, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( service.swordMaxUploadSize != null )
+            {
+               return createDuplicateInfo(SwordMaxUploadSize.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            service.swordMaxUploadSize = new SwordMaxUploadSize();
+            return service.swordMaxUploadSize.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(Generator.elementName(), new ElementHandler<Service>() 
+      {
+         public SwordValidationInfo unmarshall(Service service, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            if( service.generator != null )
+            {
+               return createDuplicateInfo(Generator.elementName(), element,
+                       SwordValidationInfoType.WARNING, validationProperties);
+            }
+            service.generator = new Generator();
+            return service.generator.unmarshall(element, validationProperties);
+         }
+      });
+
+      DISPATCHER.register(Workspace.elementName(), new ElementHandler<Service>() 
+      {
+         public SwordValidationInfo unmarshall(Service service, Element element, 
+                 Properties validationProperties) throws UnmarshallException
+         {
+            Workspace workspace = new Workspace();
+            SwordValidationInfo info = workspace.unmarshall(element, validationProperties);
+            service.workspaces.add(workspace);
+            return info;
+         }
+      });
+   }
+
+   /**
+    * Register a handler for a child element of the service element. This 
+    * can be used to unmarshall extension elements, or to replace the default
+    * handling of an element. Elements that do not have a handler are 
+    * reported as unknown elements when the service is validated. 
+    * 
+    * @param name    The name of the child element. 
+    * @param handler The handler. 
+    */
+   public static void registerElementHandler(XmlName name, ElementHandler<Service> handler)
+   {
+      DISPATCHER.register(name, handler);
+   }
+
    /**
     * Create a new instance. 
     */
@@ -348,6 +458,30 @@ public class Service extends XmlElement implements SwordElementInterface
    {
 	   this.workspaces.clear();
    }
+
+   /**
+    * Create an immutable copy of this service, its workspaces and 
+    * collections, which can be shared between threads. 
+    * 
+    * @return The snapshot. 
+    */
+   public ServiceSnapshot snapshot()
+   {
+      return snapshot(new ValuePool());
+   }
+
+   /**
+    * Create an immutable copy of this service, sharing repeated values 
+    * through the specified pool. A pool can be shared between snapshots of 
+    * services that are expected to hold the same values. 
+    * 
+    * @param pool The pool. 
+    * @return The snapshot. 
+    */
+   public ServiceSnapshot snapshot(ValuePool pool)
+   {
+      return new ServiceSnapshot(this, pool);
+   }
    
    /**
     * Marshall the data in this object to an Element object. 
@@ -416,14 +550,38 @@ public class Service extends XmlElement implements SwordElementInterface
     */
    public SwordValidationInfo unmarshall( Element service, Properties validationProperties)
    throws UnmarshallException
+   {
+      return unmarshall(service, null, null, validationProperties);
+   }
+
+   /**
+    * Unmarshall the service element, adding a set of workspaces that have 
+    * already been unmarshalled. This is used by the StreamingUnmarshaller, 
+    * which processes each workspace as soon as it has been read and removes
+    * it from the service element.
+    * 
+    * @param service       The service element. 
+    * @param workspaceList Workspaces that have already been unmarshalled, 
+    *                      or <code>null</code>. 
+    * @param workspaceInfo The validation information for those workspaces, 
+    *                      or <code>null</code>. 
+    * @param validationProperties The validation properties, or <code>null</code>.
+    * @return The validation information, or <code>null</code> if the 
+    *         validationProperties are <code>null</code>. 
+    * @throws UnmarshallException If there was a problem accessing the data. 
+    */
+   SwordValidationInfo unmarshall( Element service, 
+                                   List<Workspace> workspaceList,
+                                   List<SwordValidationInfo> workspaceInfo,
+                                   Properties validationProperties)
+   throws UnmarshallException
    {
       if (!isInstanceOf(service, xmlName))
       {
          return handleIncorrectElement(service, validationProperties);
       }
 
-      ArrayList<SwordValidationInfo> validationItems =
-              new ArrayList<SwordValidationInfo>(); 
+      ArrayList<SwordValidationInfo> validationItems = createValidationList(validationProperties);
 
       try
       {
@@ -438,92 +596,11 @@ public class Service extends XmlElement implements SwordElementInterface
          {
             element = elements.get(i);
 
-            if (isInstanceOf(element, SwordVersion.elementName() ) )
-            {
-                //validationItems.add(unmarshallVersion(element, validate));
-                if( swordVersion == null )
-                {
-                   swordVersion = new SwordVersion();
-                   validationItems.add(swordVersion.unmarshall(element, validationProperties));
-                }
-                else if( validationProperties != null )
-                {
-                   SwordValidationInfo info = new SwordValidationInfo(SwordVersion.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.WARNING);
-                   info.setContentDescription(element.getValue());
-                   validationItems.add(info);
-                }
-            }
-            else if (isInstanceOf(element, SwordVerbose.elementName()))
-            {
-                if( swordVerbose == null )
-                {
-                   swordVerbose = new SwordVerbose();
-                   validationItems.add(swordVerbose.unmarshall(element, validationProperties));
-                }
-                else if( validationProperties != null )
-                {
-                   SwordValidationInfo info = new SwordValidationInfo(SwordVerbose.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.WARNING);
-                   info.setContentDescription(element.getValue());
-                   validationItems.add(info);
-                }
-            }
-            else if (isInstanceOf(element, SwordNoOp.elementName()) )
-            {
-               if( swordNoOp == null )
-               {
-                   swordNoOp = new SwordNoOp();
-                   validationItems.add(swordNoOp.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                   SwordValidationInfo info = new SwordValidationInfo(SwordNoOp.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.WARNING);
-                   info.setContentDescription(element.getValue());
-                   validationItems.add(info);
-               }
-            }
-            else if (isInstanceOf(element, SwordMaxUploadSize.elementName()))
-            {
-               if( swordMaxUploadSize == null )
-               {
-                  swordMaxUploadSize = new SwordMaxUploadSize();
-                  validationItems.add(swordMaxUploadSize.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null )
-               {
-                   SwordValidationInfo info = new SwordValidationInfo(SwordNoOp.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.WARNING);
-                   info.setContentDescription(element.getValue());
-                   validationItems.add(info);
-               }
-            }
-            else if (isInstanceOf(element, Generator.elementName()))
+            ElementHandler<Service> handler = DISPATCHER.getHandler(element);
+            if( handler != null )
             {
-               if( generator == null ) 
-               {
-                  generator = new Generator();
-                  validationItems.add(generator.unmarshall(element, validationProperties));
-               }
-               else if( validationProperties != null ) 
-               {
-                   SwordValidationInfo info = new SwordValidationInfo(Generator.elementName(),
-                           SwordValidationInfo.DUPLICATE_ELEMENT,
-                           SwordValidationInfoType.WARNING);
-                   info.setContentDescription(element.getValue());
-                   validationItems.add(info);
-               }
-            }
-            else if (isInstanceOf(element, Workspace.elementName() ))
-            {
-               Workspace workspace = new Workspace( );
-               validationItems.add(workspace.unmarshall(element, validationProperties));
-               workspaces.add(workspace);
+               addValidationItem(validationItems, 
+                       handler.unmarshall(this, element, validationProperties));
             }
             else if( validationProperties != null )
             {
@@ -533,11 +610,21 @@ public class Service extends XmlElement implements SwordElementInterface
                                            element.getLocalName(), 
                                            element.getNamespaceURI());
                 
-                validationItems.add(new SwordValidationInfo(name,
+                addValidationItem(validationItems, new SwordValidationInfo(name,
                            SwordValidationInfo.UNKNOWN_ELEMENT,
                            SwordValidationInfoType.INFO));
             }
          }
+
+         if( workspaceList != null )
+         {
+            workspaces.addAll(workspaceList);
+         }
+
+         if( workspaceInfo != null && validationItems != null )
+         {
+            validationItems.addAll(workspaceInfo);
+         }
       }
       catch( Exception ex )
       {
@@ -570,6 +657,40 @@ public class Service extends XmlElement implements SwordElementInterface
    protected SwordValidationInfo validate(ArrayList<SwordValidationInfo> existing,
            Properties validationContext)
    {
+      return validate(existing, null, validationContext);
+   }
+
+   /**
+    * Validate the service, using validation information for the workspaces
+    * that has already been generated. This is used by the 
+    * ParallelServiceProcessor, which validates the workspaces on several 
+    * threads. 
+    * 
+    * @param validationContext The validation properties. 
+    * @param workspaceInfo     The validation information for each workspace,
+    *                          in the same order as the workspaces. 
+    * @return The validation information. 
+    */
+   SwordValidationInfo validate(Properties validationContext, 
+                                List<SwordValidationInfo> workspaceInfo)
+   {
+      return validate(null, workspaceInfo, validationContext);
+   }
+
+   /**
+    * Validate the service. 
+    * 
+    * @param existing          Validation information from the unmarshall 
+    *                          step, or <code>null</code> to validate all. 
+    * @param workspaceInfo     Validation information for the workspaces, or
+    *                          <code>null</code> to validate each workspace. 
+    * @param validationContext The validation properties. 
+    * @return The validation information. 
+    */
+   private SwordValidationInfo validate(ArrayList<SwordValidationInfo> existing,
+           List<SwordValidationInfo> workspaceInfo,
+           Properties validationContext)
+   {
 
       boolean validateAll = (existing == null);
       
@@ -628,10 +749,20 @@ public class Service extends XmlElement implements SwordElementInterface
             result.addValidationInfo(generator.validate(validationContext));
          }
 
-         Iterator<Workspace> iterator = workspaces.iterator();
-         while( iterator.hasNext() )
+         if( workspaceInfo != null )
          {
-            result.addValidationInfo(iterator.next().validate(validationContext));
+            for( SwordValidationInfo info : workspaceInfo )
+            {
+               result.addValidationInfo(info);
+            }
+         }
+         else
+         {
+            Iterator<Workspace> iterator = workspaces.iterator();
+            while( iterator.hasNext() )
+            {
+               result.addValidationInfo(iterator.next().validate(validationContext));
+            }
          }
       }
 
@@ -38,6 +38,7 @@ package org.purl.sword.base;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import java.util.Properties;
 import nu.xom.Builder;
@@ -106,6 +107,19 @@ public class ServiceDocument {
 		return service;
 	}
 
+	/**
+	 * Create an immutable copy of the Service object associated with this
+	 * document. The copy can be shared between threads and cached.
+	 * 
+	 * @return The snapshot, or <code>null</code> if there is no Service.
+	 */
+	public ServiceSnapshot snapshot() {
+		if (service == null) {
+			return null;
+		}
+		return service.snapshot();
+	}
+
 	/**
 	 * Return the Service Document in it's XML form.
 	 * 
@@ -125,8 +139,7 @@ public class ServiceDocument {
 	public String marshall() {
 		try {
 			ByteArrayOutputStream stream = new ByteArrayOutputStream();
-			Serializer serializer = new Serializer(stream, "UTF-8");
-			serializer.setIndent(3);
+			Serializer serializer = XmlParserPool.getSerializer(stream);
 			//serializer.setMaxLength(64);
 
 			Document doc = new Document(service.marshall());
@@ -168,18 +181,37 @@ public class ServiceDocument {
     throws UnmarshallException
     {
 		try {
-			Builder builder = new Builder();
-			Document doc = builder.build(xml, Namespaces.PREFIX_APP);
+			Builder builder = XmlParserPool.getBuilder();
+			Document doc = XmlParserPool.build(builder, xml, Namespaces.PREFIX_APP);
             Element root = doc.getRootElement();
 			return unmarshall(root, validationProperties);
 		} catch (ParsingException ex) {
-			throw new UnmarshallException("Unable to parse the XML", ex);
+			throw XmlParserPool.parseFailure("Unable to parse the XML", ex);
 		} catch (IOException ex) {
-			throw new UnmarshallException("Error acessing the file?", ex);
+			throw XmlParserPool.parseFailure("Error acessing the file?", ex);
 		}
 	}
 
 
+    /**
+     * Unmarshall the service document that is read from the stream. The 
+     * document is processed by the StreamingUnmarshaller, so the complete 
+     * XML tree is not held in memory. This is the preferred method for 
+     * large service documents. 
+     * 
+     * @param stream The stream that contains the XML. 
+     * @param validationProperties The validation properties, or 
+     *                             <code>null</code>. 
+     * @return The validation information, or <code>null</code> if the
+     *         validationProperties are <code>null</code>.
+     * @throws org.purl.sword.base.UnmarshallException
+     */
+    public SwordValidationInfo unmarshall(InputStream stream, Properties validationProperties)
+    throws UnmarshallException
+    {
+        return new StreamingUnmarshaller().unmarshall(stream, this, validationProperties);
+    }
+
     /**
      * Unmarshall the specified element. This version does not generate any
      * valiation information.
@@ -213,6 +245,28 @@ public class ServiceDocument {
 		}
 	}
 
+    /**
+     * Unmarshall the specified element on several threads, and return the 
+     * generated validation information.
+     * 
+     * @param element
+     * @param validationProperties
+     * @param processor The processor that runs the unmarshalling.
+     * @return
+     * @throws org.purl.sword.base.UnmarshallException
+     */
+    public SwordValidationInfo unmarshall(Element element, Properties validationProperties,
+                                          ParallelServiceProcessor processor)
+    throws UnmarshallException
+    {
+		service = new Service();
+		try {
+			return processor.unmarshall(service, element, validationProperties);
+		} catch (UnmarshallException e) {
+			throw new UnmarshallException("Unable to parse the XML", e);
+		}
+	}
+
 
     public SwordValidationInfo validate()
     {
@@ -231,4 +285,21 @@ public class ServiceDocument {
         }
         return service.validate(validationContext);
     }
+
+    /**
+     * Validate the service on several threads. 
+     * 
+     * @param validationContext
+     * @param processor The processor that runs the validation.
+     * @return
+     */
+    public SwordValidationInfo validate(Properties validationContext,
+                                        ParallelServiceProcessor processor)
+    {
+        if( service == null)
+        {
+            return null;
+        }
+        return processor.validate(service, validationContext);
+    }
 }
\ No newline at end of file
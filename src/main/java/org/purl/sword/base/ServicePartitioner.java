@@ -0,0 +1,353 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.List;
+
+import org.purl.sword.atom.Link;
+
+/**
+ * Splits a large service document into a top-level document and a chain 
+ * of nested service documents. 
+ * 
+ * Workspaces that hold no more than the page size are left unchanged. For 
+ * larger workspaces, each document lists one page of the collections, 
+ * followed by a placeholder collection that refers to the document for the
+ * next page with a <code>sword:service</code> element. Any SWORD client can
+ * follow the placeholder to the rest of the collections, in the same way 
+ * as other nested service documents. The workspace also has an 
+ * <code>atom:link</code> with the relation <code>next</code> that refers 
+ * to the same document. The top-level document holds the first page of 
+ * each workspace, and the document for a later page holds only the 
+ * workspace that it belongs to. 
+ * 
+ * The pages are addressed by adding the <code>workspace</code> and 
+ * <code>page</code> parameters to the URL of the service document. Both 
+ * numbers start at 0. 
+ * 
+ * The service that is split can hold all of the collections, or only the 
+ * collections from the start of the requested page, so that a repository 
+ * does not have to create every collection to answer a request for one 
+ * page. 
+ */
+public final class ServicePartitioner
+{
+   /**
+    * Name of the parameter that selects the workspace. 
+    */
+   public static final String PARAMETER_WORKSPACE = "workspace";
+
+   /**
+    * Name of the parameter that selects the page within the workspace. 
+    */
+   public static final String PARAMETER_PAGE = "page";
+
+   /**
+    * The relation of the link to the next page of a workspace. 
+    */
+   public static final String REL_NEXT = "next";
+
+   /**
+    * The treatment of the placeholder collection for the next page. 
+    */
+   public static final String NEXT_PAGE_TREATMENT = 
+      "Lists the next page of collections in this workspace. Deposits are not accepted.";
+
+   /**
+    * The maximum number of collections in a single document. 
+    */
+   private final int pageSize;
+
+   /**
+    * Create a new partitioner. 
+    * 
+    * @param pageSize The maximum number of collections listed for a 
+    *                 workspace in a single document. 
+    * @throws IllegalArgumentException If the page size is less than 1. 
+    */
+   public ServicePartitioner(int pageSize)
+   {
+      if( pageSize < 1 )
+      {
+         throw new IllegalArgumentException("Page size must be at least 1: " + pageSize);
+      }
+      this.pageSize = pageSize;
+   }
+
+   /**
+    * Get the page size. 
+    * 
+    * @return The maximum number of collections in a single document. 
+    */
+   public int getPageSize()
+   {
+      return pageSize;
+   }
+
+   /**
+    * Determine if any workspace in the service holds more collections than 
+    * the page size. 
+    * 
+    * @param service The service. 
+    * @return True if the service would be partitioned. 
+    */
+   public boolean needsPartition(Service service)
+   {
+      for( Workspace workspace : service.getWorkspacesList() )
+      {
+         if( workspace.getCollections().size() > pageSize )
+         {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Get the number of pages for the workspace. 
+    * 
+    * @param workspace The workspace, with all of its collections. 
+    * @return The number of pages, which is 1 for a workspace that has no 
+    *         collections. 
+    */
+   public int getPageCount(Workspace workspace)
+   {
+      int size = workspace.getCollections().size();
+      return Math.max(1, (size + pageSize - 1) / pageSize);
+   }
+
+   /**
+    * Create the top-level document for the service, which holds the first 
+    * page of each workspace. The service is not modified. 
+    * 
+    * @param service The service. Each workspace holds its collections from 
+    *                the first one onwards. 
+    * @param baseUrl The URL of the service document, without the paging 
+    *                parameters. 
+    * @return The top-level service. 
+    */
+   public Service partition(Service service, String baseUrl)
+   {
+      Service result = copyService(service);
+      List<Workspace> workspaces = service.getWorkspacesList();
+      for( int w = 0; w < workspaces.size(); w++ )
+      {
+         result.addWorkspace(createPage(workspaces.get(w), w, 0, 0, baseUrl));
+      }
+      return result;
+   }
+
+   /**
+    * Create the nested document for one page of a workspace. The service 
+    * is not modified. 
+    * 
+    * @param service The service, with all of its collections. 
+    * @param workspaceIndex The index of the workspace. 
+    * @param pageIndex The index of the page within the workspace. 
+    * @param baseUrl The URL of the service document, without the paging 
+    *                parameters. 
+    * @return The service for the page, or <code>null</code> if there is 
+    *         no such workspace or page. 
+    */
+   public Service page(Service service, int workspaceIndex, int pageIndex, String baseUrl)
+   {
+      return page(service, workspaceIndex, pageIndex, baseUrl, 0);
+   }
+
+   /**
+    * Create the nested document for one page of a workspace, from a 
+    * service that only holds the collections from a known position 
+    * onwards. The service is not modified. 
+    * 
+    * @param service The service. 
+    * @param workspaceIndex The index of the workspace. 
+    * @param pageIndex The index of the page within the workspace. 
+    * @param baseUrl The URL of the service document, without the paging 
+    *                parameters. 
+    * @param firstIndex The position, in the full list of collections, of 
+    *                   the first collection held by the workspace. 
+    * @return The service for the page, or <code>null</code> if there is 
+    *         no such workspace or page. 
+    */
+   public Service page(Service service, int workspaceIndex, int pageIndex, 
+                       String baseUrl, int firstIndex)
+   {
+      List<Workspace> workspaces = service.getWorkspacesList();
+      if( workspaceIndex < 0 || workspaceIndex >= workspaces.size() )
+      {
+         return null;
+      }
+
+      Workspace workspace = workspaces.get(workspaceIndex);
+      int start = pageIndex * pageSize - firstIndex;
+      if( pageIndex < 0 || start < 0 || 
+          ( pageIndex > 0 && start >= workspace.getCollections().size() ) )
+      {
+         return null;
+      }
+
+      Service result = copyService(service);
+      result.addWorkspace(createPage(workspace, workspaceIndex, pageIndex, start, baseUrl));
+      return result;
+   }
+
+   /**
+    * Create the workspace for a page. A workspace that fits in a single 
+    * page is returned unchanged. If there are more collections, the page 
+    * ends with a placeholder for the next page. 
+    * 
+    * @param workspace The workspace. 
+    * @param workspaceIndex The index of the workspace. 
+    * @param pageIndex The index of the page. 
+    * @param start The position of the first collection for the page in 
+    *              the workspace's list. 
+    * @param baseUrl The URL of the service document. 
+    * @return The workspace for the page. 
+    */
+   private Workspace createPage(Workspace workspace, int workspaceIndex, int pageIndex, 
+                                int start, String baseUrl)
+   {
+      List<Collection> collections = workspace.getCollections();
+      int end = Math.min(start + pageSize, collections.size());
+      if( start == 0 && end == collections.size() )
+      {
+         return workspace;
+      }
+
+      Workspace page = new Workspace(workspace.getTitle());
+      for( Link link : workspace.getLinks() )
+      {
+         page.addLink(link);
+      }
+      String nextUrl = null;
+      if( end < collections.size() )
+      {
+         nextUrl = getPageUrl(baseUrl, workspaceIndex, pageIndex + 1);
+         Link next = new Link();
+         next.setRel(REL_NEXT);
+         next.setHref(nextUrl);
+         page.addLink(next);
+      }
+      for( Collection collection : collections.subList(start, end) )
+      {
+         page.addCollection(collection);
+      }
+      if( nextUrl != null )
+      {
+         page.addCollection(createNextPage(workspace, nextUrl, end - start + pageIndex * pageSize));
+      }
+      return page;
+   }
+
+   /**
+    * Create the placeholder collection that refers to the next page. 
+    * 
+    * @param workspace The workspace. 
+    * @param url The URL of the next page. 
+    * @param listed The number of collections in this and earlier pages. 
+    * @return The placeholder. 
+    */
+   private static Collection createNextPage(Workspace workspace, String url, int listed)
+   {
+      Collection next = new Collection(url);
+      String title = workspace.getTitle();
+      next.setTitle(((title == null) ? "Collections" : title) + 
+                    " (from collection " + (listed + 1) + ")");
+      next.setTreatment(NEXT_PAGE_TREATMENT);
+      next.setMediation(false);
+      next.setService(url);
+      return next;
+   }
+
+   /**
+    * Determine if a collection is the placeholder for the next page of a 
+    * workspace, rather than a collection that accepts deposits. 
+    * 
+    * @param collection The collection. 
+    * @return True if the collection refers to the next page. 
+    */
+   public static boolean isNextPage(Collection collection)
+   {
+      return collection.getService() != null && 
+             collection.getService().equals(collection.getLocation()) &&
+             NEXT_PAGE_TREATMENT.equals(collection.getTreatment());
+   }
+
+   /**
+    * Get the URL of a page. 
+    * 
+    * @param baseUrl The URL of the service document, without the paging 
+    *                parameters. 
+    * @param workspaceIndex The index of the workspace. 
+    * @param pageIndex The index of the page. 
+    * @return The URL. 
+    */
+   public static String getPageUrl(String baseUrl, int workspaceIndex, int pageIndex)
+   {
+      StringBuilder url = new StringBuilder(baseUrl);
+      url.append(baseUrl.indexOf('?') == -1 ? '?' : '&');
+      url.append(PARAMETER_WORKSPACE).append('=').append(workspaceIndex);
+      url.append('&');
+      url.append(PARAMETER_PAGE).append('=').append(pageIndex);
+      return url.toString();
+   }
+
+   /**
+    * Copy the service level properties, without any workspaces. 
+    * 
+    * @param service The service to copy. 
+    * @return The new service. 
+    */
+   private static Service copyService(Service service)
+   {
+      Service result = new Service(service.getVersion());
+      if( service.isNoOpSet() )
+      {
+         result.setNoOp(service.isNoOp());
+      }
+      if( service.isVerboseSet() )
+      {
+         result.setVerbose(service.isVerbose());
+      }
+      if( service.maxUploadIsDefined() )
+      {
+         result.setMaxUploadSize(service.getMaxUploadSize());
+      }
+      result.setGenerator(service.getGenerator());
+      return result;
+   }
+}
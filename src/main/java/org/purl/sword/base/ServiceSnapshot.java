@@ -0,0 +1,292 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.purl.sword.atom.Generator;
+
+/**
+ * An immutable copy of a {@link Service}, its workspaces and collections. 
+ * Instances are created by {@link Service#snapshot()} or 
+ * {@link ServiceDocument#snapshot()}. 
+ * 
+ * A snapshot can be shared between request threads and held in a cache 
+ * without locking. The list of all collections and the index of 
+ * collections by location are built when the snapshot is created. 
+ */
+public final class ServiceSnapshot
+{
+   private final String version;
+
+   private final boolean noOp;
+
+   private final boolean noOpSet;
+
+   private final boolean verbose;
+
+   private final boolean verboseSet;
+
+   private final int maxUploadSize;
+
+   private final String generatorContent;
+
+   private final String generatorUri;
+
+   private final String generatorVersion;
+
+   private final boolean hasGenerator;
+
+   private final List<WorkspaceSnapshot> workspaces;
+
+   /** The collections in all of the workspaces, in document order. */
+   private final List<CollectionSnapshot> collections;
+
+   /** The collections, indexed by location. */
+   private final Map<String, CollectionSnapshot> locations;
+
+   /**
+    * Create a snapshot of the service. 
+    * 
+    * @param service The service. 
+    * @param pool    The pool used to share repeated values. 
+    */
+   ServiceSnapshot(Service service, ValuePool pool)
+   {
+      this(service, snapshot(service.getWorkspacesList(), pool), pool);
+   }
+
+   /**
+    * Create a snapshot from workspaces that have already been copied. The 
+    * workspaces held by the service are ignored. 
+    * 
+    * @param service    The service. 
+    * @param workspaces The workspaces. The list is copied. 
+    * @param pool       The pool used to share repeated values. 
+    */
+   ServiceSnapshot(Service service, List<WorkspaceSnapshot> workspaces, ValuePool pool)
+   {
+      version = service.getVersion();
+      noOp = service.isNoOp();
+      noOpSet = service.isNoOpSet();
+      verbose = service.isVerbose();
+      verboseSet = service.isVerboseSet();
+      maxUploadSize = service.getMaxUploadSize();
+
+      Generator generator = service.getGenerator();
+      hasGenerator = (generator != null);
+      generatorContent = hasGenerator ? pool.intern(generator.getContent()) : null;
+      generatorUri = hasGenerator ? pool.intern(generator.getUri()) : null;
+      generatorVersion = hasGenerator ? pool.intern(generator.getVersion()) : null;
+
+      WorkspaceSnapshot[] items = workspaces.toArray(new WorkspaceSnapshot[workspaces.size()]);
+      List<CollectionSnapshot> all = new ArrayList<CollectionSnapshot>();
+      Map<String, CollectionSnapshot> index = new HashMap<String, CollectionSnapshot>();
+      for( int i = 0; i < items.length; i++ )
+      {
+         for( CollectionSnapshot collection : items[i].getCollections() )
+         {
+            all.add(collection);
+            if( collection.getLocation() != null && 
+                ! index.containsKey(collection.getLocation()) )
+            {
+               index.put(collection.getLocation(), collection);
+            }
+         }
+      }
+
+      this.workspaces = Collections.unmodifiableList(Arrays.asList(items));
+      collections = Collections.unmodifiableList(
+              Arrays.asList(all.toArray(new CollectionSnapshot[all.size()])));
+      locations = index;
+   }
+
+   private static List<WorkspaceSnapshot> snapshot(List<Workspace> source, ValuePool pool)
+   {
+      WorkspaceSnapshot[] items = new WorkspaceSnapshot[source.size()];
+      for( int i = 0; i < items.length; i++ )
+      {
+         items[i] = source.get(i).snapshot(pool);
+      }
+      return Arrays.asList(items);
+   }
+
+   /**
+    * Get the SWORD version. 
+    * 
+    * @return The version. 
+    */
+   public String getVersion()
+   {
+      return version;
+   }
+
+   /**
+    * Get the NoOp value. 
+    * 
+    * @return The value. 
+    */
+   public boolean isNoOp()
+   {
+      return noOp;
+   }
+
+   /**
+    * Determine if the NoOp value was set. 
+    * 
+    * @return True if the value was set. 
+    */
+   public boolean isNoOpSet()
+   {
+      return noOpSet;
+   }
+
+   /**
+    * Get the Verbose value. 
+    * 
+    * @return The value. 
+    */
+   public boolean isVerbose()
+   {
+      return verbose;
+   }
+
+   /**
+    * Determine if the Verbose value was set. 
+    * 
+    * @return True if the value was set. 
+    */
+   public boolean isVerboseSet()
+   {
+      return verboseSet;
+   }
+
+   /**
+    * Get the maximum upload size, in kB. 
+    * 
+    * @return The size, or Integer.MIN_VALUE if no size was set. 
+    */
+   public int getMaxUploadSize()
+   {
+      return maxUploadSize;
+   }
+
+   /**
+    * Determine if the max upload size is defined. 
+    * 
+    * @return True if the value is defined, otherwise false. 
+    */
+   public boolean maxUploadIsDefined()
+   {
+      return maxUploadSize != Integer.MIN_VALUE;
+   }
+
+   /**
+    * Get the workspaces. 
+    * 
+    * @return An unmodifiable list of the workspaces. 
+    */
+   public List<WorkspaceSnapshot> getWorkspaces()
+   {
+      return workspaces;
+   }
+
+   /**
+    * Get the collections in all of the workspaces. 
+    * 
+    * @return An unmodifiable list of the collections, in document order. 
+    */
+   public List<CollectionSnapshot> getCollections()
+   {
+      return collections;
+   }
+
+   /**
+    * Get the collection with the specified location. If more than one 
+    * collection has the location, the first is returned. 
+    * 
+    * @param location The location. 
+    * @return The collection, or <code>null</code> if there is no collection 
+    *         with that location. 
+    */
+   public CollectionSnapshot getCollection(String location)
+   {
+      return locations.get(location);
+   }
+
+   /**
+    * Create a new, modifiable Service that holds the values in this 
+    * snapshot. 
+    * 
+    * @return The service. 
+    */
+   public Service toService()
+   {
+      Service service = new Service();
+      service.setVersion(version);
+      if( noOpSet )
+      {
+         service.setNoOp(noOp);
+      }
+      if( verboseSet )
+      {
+         service.setVerbose(verbose);
+      }
+      if( maxUploadIsDefined() )
+      {
+         service.setMaxUploadSize(maxUploadSize);
+      }
+      if( hasGenerator )
+      {
+         Generator generator = new Generator();
+         generator.setContent(generatorContent);
+         generator.setUri(generatorUri);
+         generator.setVersion(generatorVersion);
+         service.setGenerator(generator);
+      }
+      for( WorkspaceSnapshot workspace : workspaces )
+      {
+         service.addWorkspace(workspace.toWorkspace());
+      }
+      return service;
+   }
+}
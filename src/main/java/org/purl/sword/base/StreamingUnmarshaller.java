@@ -0,0 +1,540 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import nu.xom.Builder;
+import nu.xom.Document;
+import nu.xom.Element;
+import nu.xom.NodeFactory;
+import nu.xom.Nodes;
+import nu.xom.ParsingException;
+
+import org.apache.log4j.Logger;
+import org.xml.sax.SAXException;
+
+/**
+ * Unmarshalls a service document in a single pass over the SAX events 
+ * generated by the parser, rather than building the complete XOM tree 
+ * before the model objects are created. 
+ * 
+ * Each collection is unmarshalled as soon as its end tag has been read and 
+ * is then discarded from the tree, so the memory used by the parser is 
+ * limited to a single collection at a time rather than the whole document. 
+ * Workspaces are handled in the same way. The same Service, Workspace and 
+ * Collection objects are populated and, when validation properties are 
+ * supplied, the same validation rules are applied as for the XOM based 
+ * <code>unmarshall(Element, Properties)</code> methods. 
+ * 
+ * A service document can also be validated without building the model. 
+ * The issues are passed to a ValidationReport as each collection is read, 
+ * and the parsing stops as soon as the report stops. 
+ * 
+ * Deposit responses are small, single entry documents, so the entry is 
+ * built as a tree and passed to the existing SWORDEntry unmarshalling. 
+ * Only service documents are streamed. 
+ * 
+ * An instance of this class holds no state between calls and can be shared. 
+ */
+public class StreamingUnmarshaller
+{
+   /** Logger */
+   private static Logger log = Logger.getLogger(StreamingUnmarshaller.class);
+
+   /**
+    * Unmarshall the service document that is read from the stream. The 
+    * Service held by the document is replaced. 
+    * 
+    * @param stream   The stream to read the XML from. 
+    * @param document The document to store the Service in. 
+    * @param validationProperties The validation properties, or 
+    *                             <code>null</code> if the document is not 
+    *                             to be validated. 
+    * @return The validation information, or <code>null</code> if the 
+    *         validationProperties are <code>null</code>.
+    * @throws UnmarshallException If there was an error parsing the XML or 
+    *                             unmarshalling the data. 
+    */
+   public SwordValidationInfo unmarshall(InputStream stream, 
+                                         ServiceDocument document,
+                                         Properties validationProperties)
+   throws UnmarshallException
+   {
+      ServiceNodeFactory factory = new ServiceNodeFactory(validationProperties, null);
+      try
+      {
+         Builder builder = XmlParserPool.createBuilder(factory);
+         Document doc = XmlParserPool.build(builder, stream);
+
+         Service service = new Service();
+         SwordValidationInfo info = service.unmarshall(doc.getRootElement(), 
+                 factory.workspaces, factory.workspaceInfo, validationProperties);
+         document.setService(service);
+         return info;
+      }
+      catch( StreamingException ex )
+      {
+         throw ex.getUnmarshallException();
+      }
+      catch( ParsingException ex )
+      {
+         throw parseFailure("Unable to parse the XML", ex);
+      }
+      catch( IOException ex )
+      {
+         log.error("Error reading the service document: " + ex.getMessage());
+         throw XmlParserPool.parseFailure("Error reading the service document", ex);
+      }
+   }
+
+   /**
+    * Validate the service document that is read from the stream, and pass 
+    * the issues to the report as they are found. Each collection is 
+    * validated as soon as it has been read, and its validation information 
+    * is then discarded, so neither the model nor the validation information 
+    * for the whole document is held in memory. If the report stops, for 
+    * example at the first error, the rest of the document is not read. 
+    * 
+    * The issues for a collection are added before those for the workspace 
+    * that holds it, and the issues for the service element are added last. 
+    * 
+    * @param stream The stream to read the XML from. 
+    * @param validationProperties The validation properties, or 
+    *                             <code>null</code> for none. 
+    * @param report The report that the issues are added to. 
+    * @return True if the whole document was validated, or false if the 
+    *         report stopped. 
+    * @throws UnmarshallException If there was an error parsing the XML or 
+    *                             unmarshalling the data. 
+    */
+   public boolean validate(InputStream stream, 
+                           Properties validationProperties,
+                           ValidationReport report)
+   throws UnmarshallException
+   {
+      Properties properties = validationProperties;
+      if( properties == null )
+      {
+         properties = new Properties();
+      }
+
+      ServiceNodeFactory factory = new ServiceNodeFactory(properties, null, report);
+      try
+      {
+         Builder builder = XmlParserPool.createBuilder(factory);
+         Document doc = XmlParserPool.build(builder, stream);
+
+         Service service = new Service();
+         SwordValidationInfo info = service.unmarshall(doc.getRootElement(), 
+                 factory.workspaces, null, properties);
+         return report.add(info);
+      }
+      catch( ReportStoppedException ex )
+      {
+         return false;
+      }
+      catch( StreamingException ex )
+      {
+         throw ex.getUnmarshallException();
+      }
+      catch( ParsingException ex )
+      {
+         // the parser wraps the exception that is thrown when the report stops
+         if( report.isStopped() )
+         {
+            return false;
+         }
+         throw parseFailure("Unable to parse the XML", ex);
+      }
+      catch( IOException ex )
+      {
+         log.error("Error reading the service document: " + ex.getMessage());
+         throw XmlParserPool.parseFailure("Error reading the service document", ex);
+      }
+   }
+
+   /**
+    * Read the service document from the stream into an immutable snapshot. 
+    * Each collection is copied into a CollectionSnapshot as soon as it has 
+    * been read and the Collection object is then discarded, so the full 
+    * mutable model is never held in memory. Repeated values are shared 
+    * through the pool. The document is not validated. 
+    * 
+    * @param stream The stream to read the XML from. 
+    * @param pool   The pool used to share repeated values. 
+    * @return The snapshot. 
+    * @throws UnmarshallException If there was an error parsing the XML or 
+    *                             unmarshalling the data. 
+    */
+   public ServiceSnapshot snapshot(InputStream stream, ValuePool pool)
+   throws UnmarshallException
+   {
+      ServiceNodeFactory factory = new ServiceNodeFactory(null, pool);
+      try
+      {
+         Builder builder = XmlParserPool.createBuilder(factory);
+         Document doc = XmlParserPool.build(builder, stream);
+
+         Service service = new Service();
+         service.unmarshall(doc.getRootElement(), factory.workspaces, 
+                            factory.workspaceInfo, null);
+         return new ServiceSnapshot(service, factory.workspaceSnapshots, pool);
+      }
+      catch( StreamingException ex )
+      {
+         throw ex.getUnmarshallException();
+      }
+      catch( ParsingException ex )
+      {
+         throw parseFailure("Unable to parse the XML", ex);
+      }
+      catch( IOException ex )
+      {
+         log.error("Error reading the service document: " + ex.getMessage());
+         throw XmlParserPool.parseFailure("Error reading the service document", ex);
+      }
+   }
+
+   /**
+    * Unmarshall the deposit response entry that is read from the stream. 
+    * The entry held by the response is replaced. 
+    * 
+    * @param stream   The stream to read the XML from. 
+    * @param response The response to store the entry in. 
+    * @param validationProperties The validation properties, or 
+    *                             <code>null</code> if the entry is not 
+    *                             to be validated. 
+    * @return The validation information, or <code>null</code> if the 
+    *         validationProperties are <code>null</code>.
+    * @throws UnmarshallException If there was an error parsing the XML or 
+    *                             unmarshalling the data. 
+    */
+   public SwordValidationInfo unmarshall(InputStream stream,
+                                         DepositResponse response,
+                                         Properties validationProperties)
+   throws UnmarshallException
+   {
+      try
+      {
+         Builder builder = XmlParserPool.getBuilder();
+         Document doc = XmlParserPool.build(builder, stream);
+
+         SWORDEntry entry = new SWORDEntry();
+         SwordValidationInfo info = entry.unmarshall(doc.getRootElement(), 
+                                                     validationProperties);
+         response.setEntry(entry);
+         return info;
+      }
+      catch( ParsingException ex )
+      {
+         throw XmlParserPool.parseFailure("Unable to parse the XML", ex);
+      }
+      catch( IOException ex )
+      {
+         log.error("Error reading the deposit response: " + ex.getMessage());
+         throw XmlParserPool.parseFailure("Error reading the deposit response", ex);
+      }
+   }
+
+   /**
+    * Create the exception for a service document parse that has failed. 
+    * The parser wraps any exception that the node factory throws, so the 
+    * UnmarshallException that a collection or workspace failed with is 
+    * found in the cause chain and returned unchanged. 
+    * 
+    * @param message The message for any other failure. 
+    * @param ex      The exception thrown by the parser. 
+    * @return The exception to throw. 
+    */
+   private static UnmarshallException parseFailure(String message, ParsingException ex)
+   {
+      Throwable cause = ex;
+      for( int i = 0; cause != null && i < 10; i++ )
+      {
+         if( cause instanceof StreamingException )
+         {
+            return ((StreamingException) cause).getUnmarshallException();
+         }
+         if( cause instanceof SAXException && 
+             ((SAXException) cause).getException() != null )
+         {
+            cause = ((SAXException) cause).getException();
+         }
+         else
+         {
+            cause = cause.getCause();
+         }
+      }
+      return XmlParserPool.parseFailure(message, ex);
+   }
+
+   /**
+    * Determine if the qualified name and namespace identify the specified 
+    * element. 
+    * 
+    * @param qualifiedName The qualified name, in the form prefix:localName. 
+    * @param namespace     The namespace. 
+    * @param xmlName       The element name to check against. 
+    * @return True if the names match. 
+    */
+   private static boolean matches(String qualifiedName, String namespace, XmlName xmlName)
+   {
+      String localName = xmlName.getLocalName();
+      int prefixLength = qualifiedName.length() - localName.length();
+      return xmlName.getNamespace().equals(namespace) &&
+             qualifiedName.endsWith(localName) &&
+             (prefixLength == 0 || qualifiedName.charAt(prefixLength - 1) == ':');
+   }
+
+   /**
+    * Node factory that unmarshalls the app:collection and app:workspace 
+    * elements of a service document as they are completed. The completed 
+    * elements are not added to the tree. This is package-private so that 
+    * the tests can check what is left in the tree. 
+    */
+   static class ServiceNodeFactory extends NodeFactory
+   {
+      /** The validation properties. */
+      private final Properties validationProperties;
+
+      /** The pool used when snapshots are created, or null. */
+      private final ValuePool pool;
+
+      /** The report that the issues are added to as they are found, or null. */
+      private final ValidationReport report;
+
+      /** The workspace snapshots, if a pool was specified. */
+      private final List<WorkspaceSnapshot> workspaceSnapshots = 
+              new ArrayList<WorkspaceSnapshot>();
+
+      /** The collection snapshots in the current workspace. */
+      private List<CollectionSnapshot> collectionSnapshots = 
+              new ArrayList<CollectionSnapshot>();
+
+      /** The workspaces that have been unmarshalled. */
+      private final List<Workspace> workspaces = new ArrayList<Workspace>();
+
+      /** The validation information for each workspace. */
+      private final List<SwordValidationInfo> workspaceInfo = 
+              new ArrayList<SwordValidationInfo>();
+
+      /** The collections in the current workspace. */
+      private List<Collection> collections = new ArrayList<Collection>();
+
+      /** The validation information for each collection in the current workspace. */
+      private List<SwordValidationInfo> collectionInfo = 
+              new ArrayList<SwordValidationInfo>();
+
+      /** The depth of the element that is being built. The root is 1. */
+      private int depth = 0;
+
+      /** True if the root element is the app:service element. */
+      private boolean serviceRoot = false;
+
+      /** True if the current depth 2 element is an app:workspace. */
+      private boolean inWorkspace = false;
+
+      public ServiceNodeFactory(Properties validationProperties, ValuePool pool)
+      {
+         this(validationProperties, pool, null);
+      }
+
+      public ServiceNodeFactory(Properties validationProperties, ValuePool pool,
+                                ValidationReport report)
+      {
+         this.validationProperties = validationProperties;
+         this.pool = pool;
+         this.report = report;
+      }
+
+      /**
+       * Get the workspaces that have been unmarshalled. 
+       * 
+       * @return The workspaces. 
+       */
+      List<Workspace> getWorkspaces()
+      {
+         return workspaces;
+      }
+
+      @Override
+      public Element makeRootElement(String name, String namespace)
+      {
+         serviceRoot = matches(name, namespace, Service.elementName());
+
+         // the default implementation creates the root through 
+         // startMakingElement, which would otherwise count it twice
+         depth = 0;
+         Element root = super.makeRootElement(name, namespace);
+         depth = 1;
+         return root;
+      }
+
+      @Override
+      public Element startMakingElement(String name, String namespace)
+      {
+         depth++;
+         if( depth == 2 )
+         {
+            inWorkspace = serviceRoot && 
+                          matches(name, namespace, Workspace.elementName());
+         }
+         return super.startMakingElement(name, namespace);
+      }
+
+      @Override
+      public Nodes finishMakingElement(Element element)
+      {
+         try
+         {
+            if( inWorkspace && depth == 3 && 
+                Collection.elementName().getLocalName().equals(element.getLocalName()) &&
+                Collection.elementName().getNamespace().equals(element.getNamespaceURI()) )
+            {
+               Collection collection = new Collection();
+               SwordValidationInfo info = collection.unmarshall(element, validationProperties);
+               if( report != null )
+               {
+                  report(info, Service.elementName(), Workspace.elementName());
+               }
+               else if( validationProperties != null )
+               {
+                  collectionInfo.add(info);
+               }
+               if( pool != null )
+               {
+                  collectionSnapshots.add(collection.snapshot(pool));
+               }
+               else
+               {
+                  collections.add(collection);
+               }
+               return new Nodes();
+            }
+            else if( inWorkspace && depth == 2 )
+            {
+               Workspace workspace = new Workspace();
+               SwordValidationInfo info = workspace.unmarshall(element, collections, 
+                       collectionInfo, validationProperties);
+               if( report != null )
+               {
+                  report(info, Service.elementName());
+               }
+               else if( validationProperties != null )
+               {
+                  workspaceInfo.add(info);
+               }
+               if( pool != null )
+               {
+                  workspaceSnapshots.add(new WorkspaceSnapshot(workspace.getTitle(), 
+                                                               workspace.getLinks(), 
+                                                               collectionSnapshots));
+                  collectionSnapshots = new ArrayList<CollectionSnapshot>();
+               }
+               else if( report != null )
+               {
+                  // the service only checks that there is a workspace, so 
+                  // the collections are not kept
+                  workspaces.add(new Workspace(workspace.getTitle()));
+               }
+               else
+               {
+                  workspaces.add(workspace);
+               }
+
+               collections = new ArrayList<Collection>();
+               collectionInfo = new ArrayList<SwordValidationInfo>();
+               inWorkspace = false;
+               return new Nodes();
+            }
+            return super.finishMakingElement(element);
+         }
+         catch( UnmarshallException ex )
+         {
+            throw new StreamingException(ex);
+         }
+         finally
+         {
+            depth--;
+         }
+      }
+
+      /**
+       * Add the validation information to the report, and stop the parsing 
+       * if the report has stopped. 
+       * 
+       * @param info    The validation information. 
+       * @param parents The names of the enclosing elements. 
+       */
+      private void report(SwordValidationInfo info, XmlName... parents)
+      {
+         if( ! report.add(info, parents) )
+         {
+            throw new ReportStoppedException();
+         }
+      }
+   }
+
+   /**
+    * Stops the parser when the validation report has stopped. 
+    */
+   private static class ReportStoppedException extends RuntimeException
+   {
+   }
+
+   /**
+    * Carries an UnmarshallException out of the node factory, which is not 
+    * permitted to throw checked exceptions. 
+    */
+   private static class StreamingException extends RuntimeException
+   {
+      public StreamingException(UnmarshallException cause)
+      {
+         super(cause);
+      }
+
+      public UnmarshallException getUnmarshallException()
+      {
+         return (UnmarshallException)getCause();
+      }
+   }
+}
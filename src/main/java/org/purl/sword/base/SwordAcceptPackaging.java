@@ -70,12 +70,12 @@ implements SwordElementInterface
 	/** */ 
     public static final String ELEMENT_NAME = "acceptPackaging";
 
-    protected static final XmlName ATTRIBUTE_Q_NAME = new XmlName(Namespaces.PREFIX_SWORD,
+    protected static final XmlName ATTRIBUTE_Q_NAME = XmlName.intern(Namespaces.PREFIX_SWORD,
                                     "q",
                                     Namespaces.NS_SWORD);
 
     private static final XmlName XML_NAME =
-            new XmlName(Namespaces.PREFIX_SWORD, ELEMENT_NAME, Namespaces.NS_SWORD);
+            XmlName.intern(Namespaces.PREFIX_SWORD, ELEMENT_NAME, Namespaces.NS_SWORD);
 
     public SwordAcceptPackaging()
     {
@@ -149,8 +149,8 @@ implements SwordElementInterface
 		   handleIncorrectElement(acceptPackaging, validationProperties);
 	   }
 
-       ArrayList<SwordValidationInfo> validationItems = new ArrayList<SwordValidationInfo>();
-       ArrayList<SwordValidationInfo> attributeItems = new ArrayList<SwordValidationInfo>();
+       ArrayList<SwordValidationInfo> validationItems = createValidationList(validationProperties);
+       ArrayList<SwordValidationInfo> attributeItems = createValidationList(validationProperties);
 
        try
 	   {
@@ -169,20 +169,23 @@ implements SwordElementInterface
 				      qv = Float.parseFloat(attribute.getValue());
                       qualityValue = new QualityValue(qv);
 
-                      SwordValidationInfo attr = new SwordValidationInfo(xmlName, ATTRIBUTE_Q_NAME);
-                      attr.setContentDescription("" + qv);
-                      attributeItems.add(attr);
+                      if( validationProperties != null )
+                      {
+                         SwordValidationInfo attr = new SwordValidationInfo(xmlName, ATTRIBUTE_Q_NAME);
+                         attr.setContentDescription("" + qv);
+                         addValidationItem(attributeItems, attr);
+                      }
                    }
                    catch(NumberFormatException nfe )
                    {
                       SwordValidationInfo attr = new SwordValidationInfo(xmlName, ATTRIBUTE_Q_NAME,
                               nfe.getMessage(), SwordValidationInfoType.ERROR);
                       attr.setContentDescription(attribute.getValue());
-                      attributeItems.add(attr);
+                      addValidationItem(attributeItems, attr);
                    }
 
                }
-               else
+               else if( validationProperties != null )
                {
                    SwordValidationInfo attr = new SwordValidationInfo(xmlName,
                            new XmlName(attribute),
@@ -190,7 +193,7 @@ implements SwordElementInterface
                        SwordValidationInfoType.INFO );
                    attr.setContentDescription(attribute.getValue());
 
-                   attributeItems.add(attr);
+                   addValidationItem(attributeItems, attr);
                }
 		   }
 
@@ -204,7 +207,7 @@ implements SwordElementInterface
                catch( UnmarshallException  ume )
                {
                   log.error("Error accessing the content of the acceptPackaging element");
-                  validationItems.add(new SwordValidationInfo(xmlName,
+                  addValidationItem(validationItems, new SwordValidationInfo(xmlName,
                                               "Error unmarshalling element: " + ume.getMessage(),
                                               SwordValidationInfoType.ERROR));
                }
@@ -51,15 +51,13 @@ public class SwordContentPackageTypes {
 
     private static Logger log = Logger.getLogger(SwordContentPackageTypes.class);
 
-    private static Properties types;
+    private final Properties types = new Properties();
 
     public SwordContentPackageTypes()
     {
-        // static constructor to attempt to load the properties file
+        // attempt to load the properties file
         try
         {
-
-            types = new Properties();
             InputStream stream = SwordContentPackageTypes.class.getClassLoader().getResourceAsStream("swordContentPackageTypes.properties");
             if( stream != null ) 
             {
@@ -72,15 +70,18 @@ public class SwordContentPackageTypes {
         }
     }
 
-    private static SwordContentPackageTypes instance;
+    /**
+     * Holds the shared instance. The class loader creates it once, on 
+     * first use, so no locking is needed to read it.
+     */
+    private static class Holder
+    {
+        static final SwordContentPackageTypes INSTANCE = new SwordContentPackageTypes();
+    }
 
     public static SwordContentPackageTypes instance()
     {
-       if( instance == null )
-       {
-           instance = new SwordContentPackageTypes();
-       }
-       return instance;
+       return Holder.INSTANCE;
     }
 
     public boolean isValidType(String uri)
@@ -12,7 +12,7 @@ package org.purl.sword.base;
 public class SwordMaxUploadSize extends BasicIntegerContentElement
 {
     private static final XmlName XML_NAME =
-            new XmlName(Namespaces.PREFIX_SWORD, "maxUploadSize", Namespaces.NS_SWORD);
+            XmlName.intern(Namespaces.PREFIX_SWORD, "maxUploadSize", Namespaces.NS_SWORD);
 
     public SwordMaxUploadSize()
     {
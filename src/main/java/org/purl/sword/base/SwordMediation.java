@@ -43,7 +43,7 @@ package org.purl.sword.base;
 public class SwordMediation extends BasicBooleanContentElement
 {
     private static final XmlName XML_NAME =
-            new XmlName(Namespaces.PREFIX_SWORD, "mediation", Namespaces.NS_SWORD);
+            XmlName.intern(Namespaces.PREFIX_SWORD, "mediation", Namespaces.NS_SWORD);
 
     public SwordMediation()
     {
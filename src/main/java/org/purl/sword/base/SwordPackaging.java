@@ -45,7 +45,7 @@ import java.util.Properties;
 public class SwordPackaging extends BasicStringContentElement
 {
     private static final XmlName XML_NAME =
-            new XmlName(Namespaces.PREFIX_SWORD, "packaging", Namespaces.NS_SWORD);
+            XmlName.intern(Namespaces.PREFIX_SWORD, "packaging", Namespaces.NS_SWORD);
 
     public SwordPackaging()
     {
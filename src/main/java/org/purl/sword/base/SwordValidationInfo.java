@@ -37,7 +37,9 @@
 package org.purl.sword.base;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Represents an validation information item about
@@ -159,10 +161,9 @@ public class SwordValidationInfo {
        
        message = theMessage;
        type = theType;
-       elementInfo = new ArrayList<SwordValidationInfo>();
-       attributeInfo = new ArrayList<SwordValidationInfo>();
-       unmarshallElementInfo = new ArrayList<SwordValidationInfo>();
-       unmarshallAttributeInfo = new ArrayList<SwordValidationInfo>(); 
+
+       // the lists of nested items are created when the first item is added.
+       // Most items do not have any nested items. 
     }
 
     /**
@@ -250,6 +251,10 @@ public class SwordValidationInfo {
            type = item.getType();
        }
 
+       if( elementInfo == null )
+       {
+           elementInfo = new ArrayList<SwordValidationInfo>();
+       }
        elementInfo.add(item);
     }
 
@@ -259,6 +264,10 @@ public class SwordValidationInfo {
         {
             type = attribute.getType();
         }
+        if( attributeInfo == null )
+        {
+            attributeInfo = new ArrayList<SwordValidationInfo>();
+        }
         attributeInfo.add(attribute); 
     }
 
@@ -274,6 +283,10 @@ public class SwordValidationInfo {
        {
            type = unmarshallElement.getType();
        }
+       if( unmarshallElementInfo == null )
+       {
+           unmarshallElementInfo = new ArrayList<SwordValidationInfo>();
+       }
        unmarshallElementInfo.add(unmarshallElement);
     }
 
@@ -283,6 +296,10 @@ public class SwordValidationInfo {
        {
            type = unmarshallAttribute.getType();
        }
+       if( unmarshallAttributeInfo == null )
+       {
+           unmarshallAttributeInfo = new ArrayList<SwordValidationInfo>();
+       }
        unmarshallAttributeInfo.add(unmarshallAttribute);
     }
 
@@ -291,8 +308,8 @@ public class SwordValidationInfo {
      */
     public void clearValidationItems()
     {
-        elementInfo.clear();
-        attributeInfo.clear();
+        elementInfo = null;
+        attributeInfo = null;
         resetType();
     }
 
@@ -301,8 +318,8 @@ public class SwordValidationInfo {
      */
     public void clearUnmarshallItems()
     {
-        unmarshallElementInfo.clear();
-        unmarshallAttributeInfo.clear();
+        unmarshallElementInfo = null;
+        unmarshallAttributeInfo = null;
         resetType(); 
     }
 
@@ -340,7 +357,7 @@ public class SwordValidationInfo {
      */
     public Iterator<SwordValidationInfo> getValidationElementInfoIterator()
     {
-        return elementInfo.iterator();
+        return iterator(elementInfo);
     }
 
     /**
@@ -349,7 +366,7 @@ public class SwordValidationInfo {
      */
     public Iterator<SwordValidationInfo> getValidationAttributeInfoIterator()
     {
-        return attributeInfo.iterator();
+        return iterator(attributeInfo);
     }
 
     /**
@@ -358,7 +375,7 @@ public class SwordValidationInfo {
      */
     public Iterator<SwordValidationInfo> getUnmarshallElementInfoIterator()
     {
-        return unmarshallElementInfo.iterator();
+        return iterator(unmarshallElementInfo);
     }
 
     /**
@@ -367,7 +384,23 @@ public class SwordValidationInfo {
      */
     public Iterator<SwordValidationInfo> getUnmarshallAttributeInfoIterator()
     {
-        return unmarshallAttributeInfo.iterator();
+        return iterator(unmarshallAttributeInfo);
+    }
+
+    /**
+     * Return an iterator for the list. An empty iterator is returned if the
+     * list has not been created. 
+     * 
+     * @param list The list, which can be <code>null</code>. 
+     * @return The iterator. 
+     */
+    private static Iterator<SwordValidationInfo> iterator(List<SwordValidationInfo> list)
+    {
+        if( list == null )
+        {
+            return Collections.<SwordValidationInfo>emptyList().iterator();
+        }
+        return list.iterator();
     }
 
     /**
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+/**
+ * A single problem reported by a ValidationReport. Unlike 
+ * SwordValidationInfo, an issue has no nested items. Its position in the 
+ * document is recorded as a path of element names. 
+ */
+public final class ValidationIssue
+{
+   /** The type of the issue. */
+   private final SwordValidationInfoType type;
+
+   /** The path to the element, e.g. app:service/app:workspace. */
+   private final String path;
+
+   /** The element. */
+   private final XmlName element;
+
+   /** The attribute, or null if the issue relates to the element. */
+   private final XmlName attribute;
+
+   /** The message. */
+   private final String message;
+
+   /** A description of the content, or null. */
+   private final String contentDescription;
+
+   /**
+    * Create a new issue. 
+    * 
+    * @param type The type. 
+    * @param path The path to the element. 
+    * @param info The validation information item. 
+    */
+   ValidationIssue(SwordValidationInfoType type, String path, SwordValidationInfo info)
+   {
+      this.type = type;
+      this.path = path;
+      this.element = info.getElement();
+      this.attribute = info.getAttribute();
+      this.message = info.getMessage();
+      this.contentDescription = info.getContentDescription();
+   }
+
+   /**
+    * Get the type. 
+    * 
+    * @return The type. 
+    */
+   public SwordValidationInfoType getType()
+   {
+      return type;
+   }
+
+   /**
+    * Get the path to the element, e.g. 
+    * <code>app:service/app:workspace/app:collection</code>. 
+    * 
+    * @return The path. 
+    */
+   public String getPath()
+   {
+      return path;
+   }
+
+   /**
+    * Get the element. 
+    * 
+    * @return The element. 
+    */
+   public XmlName getElement()
+   {
+      return element;
+   }
+
+   /**
+    * Get the attribute. 
+    * 
+    * @return The attribute, or <code>null</code> if the issue relates to 
+    *         the element. 
+    */
+   public XmlName getAttribute()
+   {
+      return attribute;
+   }
+
+   /**
+    * Get the message. 
+    * 
+    * @return The message. 
+    */
+   public String getMessage()
+   {
+      return message;
+   }
+
+   /**
+    * Get the description of the content. 
+    * 
+    * @return The description, or <code>null</code>. 
+    */
+   public String getContentDescription()
+   {
+      return contentDescription;
+   }
+
+   @Override
+   public String toString()
+   {
+      StringBuilder buffer = new StringBuilder();
+      buffer.append('[').append(type).append("] ").append(path);
+      if( attribute != null )
+      {
+         buffer.append(" @").append(attribute.getLocalName());
+      }
+      if( contentDescription != null )
+      {
+         buffer.append(" Value: '").append(contentDescription).append('\'');
+      }
+      buffer.append(" - ").append(message);
+      return buffer.toString();
+   }
+}
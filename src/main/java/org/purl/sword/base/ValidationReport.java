@@ -0,0 +1,530 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A flat report of the problems in a SwordValidationInfo tree. 
+ * 
+ * The tree is walked once, in the same order as 
+ * SwordValidationInfo.createString, and each item that has a message and 
+ * a type other than VALID is recorded as a ValidationIssue. A count is 
+ * kept for each type, so a caller that only needs to know if there are 
+ * any errors does not have to look at the issues. 
+ * 
+ * The report can be limited to the first issues of at least a minimum 
+ * type, and can stop at the first ERROR. Subtrees whose type is VALID are 
+ * skipped, because the add methods in SwordValidationInfo raise the type 
+ * of an item to the highest type of its nested items. 
+ * 
+ * If a ValidationListener is supplied, each issue is passed to it as soon 
+ * as it is found instead of being kept in the list, and the listener can 
+ * stop the report. The StreamingUnmarshaller adds the validation 
+ * information for each collection while the document is still being read, 
+ * so a report that stops also stops the parsing. 
+ */
+public final class ValidationReport
+{
+   /**
+    * Value for maxIssues that records every issue. 
+    */
+   public static final int UNLIMITED = -1;
+
+   /** The lowest type of issue that is recorded in the list. */
+   private final SwordValidationInfoType minimumType;
+
+   /** The maximum number of issues to record, or UNLIMITED. */
+   private final int maxIssues;
+
+   /** True if the report stops at the first error. */
+   private final boolean failFast;
+
+   /** The listener that is given each issue, or null to keep the issues. */
+   private final ValidationListener listener;
+
+   /** The recorded issues. */
+   private final List<ValidationIssue> issues = new ArrayList<ValidationIssue>();
+
+   /** The number of issues of each type, indexed by ordinal. */
+   private final int[] counts = new int[SwordValidationInfoType.values().length];
+
+   /** The element names from the root to the current item. */
+   private final List<String> path = new ArrayList<String>();
+
+   /** The number of issues that have been recorded or passed to the listener. */
+   private int recorded;
+
+   /** True if the report has stopped. */
+   private boolean stopped;
+
+   /** True if issues were found but not recorded because of maxIssues. */
+   private boolean truncated;
+
+   /**
+    * Create a report that records every issue. 
+    */
+   public ValidationReport()
+   {
+      this(SwordValidationInfoType.INFO, UNLIMITED, false);
+   }
+
+   /**
+    * Create a new report. 
+    * 
+    * @param minimumType The lowest type of issue to record. Issues of a 
+    *                    lower type are counted, but not recorded. 
+    * @param maxIssues   The maximum number of issues to record, or 
+    *                    UNLIMITED. 
+    * @param failFast    True if the report should stop at the first ERROR. 
+    */
+   public ValidationReport(SwordValidationInfoType minimumType, int maxIssues, 
+                           boolean failFast)
+   {
+      this(minimumType, maxIssues, failFast, null);
+   }
+
+   /**
+    * Create a new report that passes each issue to the listener as it is 
+    * found. The issues are not kept by the report, but they are counted. 
+    * 
+    * @param minimumType The lowest type of issue to pass to the listener. 
+    *                    Issues of a lower type are counted, but not passed. 
+    * @param maxIssues   The maximum number of issues to pass to the 
+    *                    listener, or UNLIMITED. 
+    * @param failFast    True if the report should stop at the first ERROR. 
+    * @param listener    The listener, or <code>null</code> to keep the 
+    *                    issues in the list. 
+    */
+   public ValidationReport(SwordValidationInfoType minimumType, int maxIssues, 
+                           boolean failFast, ValidationListener listener)
+   {
+      this.minimumType = minimumType;
+      this.maxIssues = maxIssues;
+      this.failFast = failFast;
+      this.listener = listener;
+   }
+
+   /**
+    * Create a report that records every issue in the validation 
+    * information. 
+    * 
+    * @param info The validation information. 
+    * @return The report. 
+    */
+   public static ValidationReport create(SwordValidationInfo info)
+   {
+      ValidationReport report = new ValidationReport();
+      report.add(info);
+      return report;
+   }
+
+   /**
+    * Add the issues in the validation information to this report. 
+    * 
+    * @param info The validation information, or <code>null</code>. 
+    * @return False if the report has stopped at an error, otherwise true. 
+    */
+   public boolean add(SwordValidationInfo info)
+   {
+      return add(info, new XmlName[0]);
+   }
+
+   /**
+    * Add the issues in the validation information for an element that is 
+    * nested within other elements. This is used by the 
+    * StreamingUnmarshaller, which adds the information for each element as 
+    * soon as it has been read. 
+    * 
+    * @param info    The validation information, or <code>null</code>. 
+    * @param parents The names of the enclosing elements, starting with the 
+    *                root. These are used for the path of each issue. 
+    * @return False if the report has stopped, otherwise true. 
+    */
+   boolean add(SwordValidationInfo info, XmlName... parents)
+   {
+      if( stopped )
+      {
+         return false;
+      }
+      if( info != null )
+      {
+         path.clear();
+         for( XmlName parent : parents )
+         {
+            path.add(parent.getQualifiedName());
+         }
+         walk(info);
+      }
+      return ! stopped;
+   }
+
+   /**
+    * Record the item and its nested items. 
+    * 
+    * @param info The item. 
+    * @return False if the walk should stop. 
+    */
+   private boolean walk(SwordValidationInfo info)
+   {
+      SwordValidationInfoType type = info.getType();
+      if( type == null || type == SwordValidationInfoType.VALID )
+      {
+         return true;
+      }
+
+      // attribute items normally repeat the name of the parent element
+      String name = info.getElement().getQualifiedName();
+      boolean pushed = ! ( info.getAttribute() != null && 
+                           ! path.isEmpty() && 
+                           name.equals(path.get(path.size() - 1)) );
+      if( pushed )
+      {
+         path.add(name);
+      }
+
+      try
+      {
+         String message = info.getMessage();
+         if( message != null && message.length() > 0 )
+         {
+            if( ! record(type, info) || 
+                ( failFast && type == SwordValidationInfoType.ERROR ) )
+            {
+               stopped = true;
+               return false;
+            }
+         }
+
+         return walk(info.getValidationAttributeInfoIterator()) &&
+                walk(info.getUnmarshallAttributeInfoIterator()) &&
+                walk(info.getValidationElementInfoIterator()) &&
+                walk(info.getUnmarshallElementInfoIterator());
+      }
+      finally
+      {
+         if( pushed )
+         {
+            path.remove(path.size() - 1);
+         }
+      }
+   }
+
+   /**
+    * Record each item in the iterator. 
+    * 
+    * @param iterator The items. 
+    * @return False if the walk should stop. 
+    */
+   private boolean walk(Iterator<SwordValidationInfo> iterator)
+   {
+      while( iterator.hasNext() )
+      {
+         SwordValidationInfo item = iterator.next();
+         if( item != null && ! walk(item) )
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Count the issue, and pass it to the listener or add it to the list if 
+    * it is within the limits. 
+    * 
+    * @param type The type. 
+    * @param info The item. 
+    * @return False if the listener has asked to stop. 
+    */
+   private boolean record(SwordValidationInfoType type, SwordValidationInfo info)
+   {
+      counts[type.ordinal()]++;
+      if( type.compareTo(minimumType) < 0 )
+      {
+         return true;
+      }
+      if( maxIssues != UNLIMITED && recorded >= maxIssues )
+      {
+         truncated = true;
+         return true;
+      }
+      recorded++;
+
+      StringBuilder buffer = new StringBuilder();
+      for( String element : path )
+      {
+         if( buffer.length() > 0 )
+         {
+            buffer.append('/');
+         }
+         buffer.append(element);
+      }
+      ValidationIssue issue = new ValidationIssue(type, buffer.toString(), info);
+      if( listener != null )
+      {
+         return listener.issueFound(issue);
+      }
+      issues.add(issue);
+      return true;
+   }
+
+   /**
+    * Get the number of issues of the specified type, including those that 
+    * were not recorded. 
+    * 
+    * @param type The type. 
+    * @return The number of issues. 
+    */
+   public int getCount(SwordValidationInfoType type)
+   {
+      return counts[type.ordinal()];
+   }
+
+   /**
+    * Determine if any errors were found. 
+    * 
+    * @return True if there was at least one ERROR. 
+    */
+   public boolean hasErrors()
+   {
+      return getCount(SwordValidationInfoType.ERROR) > 0;
+   }
+
+   /**
+    * Get the highest type of issue that was found. 
+    * 
+    * @return The type, or VALID if there were no issues. 
+    */
+   public SwordValidationInfoType getHighestType()
+   {
+      SwordValidationInfoType[] types = SwordValidationInfoType.values();
+      for( int i = types.length - 1; i > 0; i-- )
+      {
+         if( counts[i] > 0 )
+         {
+            return types[i];
+         }
+      }
+      return SwordValidationInfoType.VALID;
+   }
+
+   /**
+    * Get the recorded issues, in document order. The list is empty if the 
+    * issues were passed to a listener. 
+    * 
+    * @return An unmodifiable list of the issues. 
+    */
+   public List<ValidationIssue> getIssues()
+   {
+      return Collections.unmodifiableList(issues);
+   }
+
+   /**
+    * Determine if the report stopped at the first error, or because the 
+    * listener asked it to stop. 
+    * 
+    * @return True if the report is incomplete because it stopped. 
+    */
+   public boolean isStopped()
+   {
+      return stopped;
+   }
+
+   /**
+    * Determine if some issues were not recorded because the maximum number 
+    * of issues had been reached. 
+    * 
+    * @return True if the list of issues is incomplete. 
+    */
+   public boolean isTruncated()
+   {
+      return truncated;
+   }
+
+   /**
+    * Write the report as text, with one line for each issue. 
+    * 
+    * @param out The writer. This is not flushed or closed. 
+    * @throws IOException If there was an error writing the report. 
+    */
+   public void writeText(Writer out) throws IOException
+   {
+      out.write("Result: ");
+      out.write(getHighestType().toString());
+      SwordValidationInfoType[] types = SwordValidationInfoType.values();
+      for( int i = 1; i < types.length; i++ )
+      {
+         out.write(", ");
+         out.write(types[i].toString());
+         out.write(": ");
+         out.write(Integer.toString(counts[i]));
+      }
+      out.write('\n');
+
+      for( ValidationIssue issue : issues )
+      {
+         out.write(issue.toString());
+         out.write('\n');
+      }
+
+      if( truncated )
+      {
+         out.write("(further issues are not listed)\n");
+      }
+      if( stopped )
+      {
+         out.write("(stopped before the end of the document)\n");
+      }
+   }
+
+   /**
+    * Write the report as a JSON object. 
+    * 
+    * @param out The writer. This is not flushed or closed. 
+    * @throws IOException If there was an error writing the report. 
+    */
+   public void writeJson(Writer out) throws IOException
+   {
+      out.write("{\"result\":");
+      writeJsonString(out, getHighestType().toString());
+      out.write(",\"counts\":{");
+      SwordValidationInfoType[] types = SwordValidationInfoType.values();
+      for( int i = 1; i < types.length; i++ )
+      {
+         if( i > 1 )
+         {
+            out.write(',');
+         }
+         writeJsonString(out, types[i].toString());
+         out.write(':');
+         out.write(Integer.toString(counts[i]));
+      }
+      out.write("},\"truncated\":");
+      out.write(Boolean.toString(truncated));
+      out.write(",\"stopped\":");
+      out.write(Boolean.toString(stopped));
+      out.write(",\"issues\":[");
+
+      boolean first = true;
+      for( ValidationIssue issue : issues )
+      {
+         if( ! first )
+         {
+            out.write(',');
+         }
+         first = false;
+
+         out.write("{\"type\":");
+         writeJsonString(out, issue.getType().toString());
+         out.write(",\"path\":");
+         writeJsonString(out, issue.getPath());
+         out.write(",\"element\":");
+         writeJsonString(out, issue.getElement().getQualifiedName());
+         out.write(",\"attribute\":");
+         writeJsonString(out, (issue.getAttribute() == null) ? null : 
+                                     issue.getAttribute().getQualifiedName());
+         out.write(",\"value\":");
+         writeJsonString(out, issue.getContentDescription());
+         out.write(",\"message\":");
+         writeJsonString(out, issue.getMessage());
+         out.write('}');
+      }
+      out.write("]}");
+   }
+
+   /**
+    * Write a JSON string, or null. 
+    * 
+    * @param out   The writer. 
+    * @param value The value, or <code>null</code>. 
+    * @throws IOException If there was an error writing the value. 
+    */
+   private static void writeJsonString(Writer out, String value) throws IOException
+   {
+      if( value == null )
+      {
+         out.write("null");
+         return;
+      }
+
+      out.write('"');
+      for( int i = 0; i < value.length(); i++ )
+      {
+         char c = value.charAt(i);
+         switch( c )
+         {
+            case '"':
+               out.write("\\\"");
+               break;
+            case '\\':
+               out.write("\\\\");
+               break;
+            case '\n':
+               out.write("\\n");
+               break;
+            case '\r':
+               out.write("\\r");
+               break;
+            case '\t':
+               out.write("\\t");
+               break;
+            default:
+               if( c < 0x20 )
+               {
+                  String hex = Integer.toHexString(c);
+                  out.write("\\u");
+                  for( int pad = hex.length(); pad < 4; pad++ )
+                  {
+                     out.write('0');
+                  }
+                  out.write(hex);
+               }
+               else
+               {
+                  out.write(c);
+               }
+         }
+      }
+      out.write('"');
+   }
+}
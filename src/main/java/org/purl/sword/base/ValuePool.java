@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A pool of shared values, used when snapshots are created so that equal 
+ * values are held once. In a large service document most collections have 
+ * the same accepts values, packaging formats, policies and treatments. 
+ * With a pool, the snapshots of those collections refer to a single copy 
+ * of each string, a single accepts list and a single packaging table. 
+ * 
+ * A pool is safe for use by several threads. It holds a reference to every 
+ * value that has been added, so it should have the same lifetime as the 
+ * snapshots that use it rather than being a global registry. 
+ */
+public final class ValuePool
+{
+   /** The shared values. Each value is stored as both key and value. */
+   private final ConcurrentMap<Object, Object> values = 
+           new ConcurrentHashMap<Object, Object>();
+
+   /**
+    * Get the shared copy of the string. 
+    * 
+    * @param value The string, or <code>null</code>. 
+    * @return The shared copy, or <code>null</code> if the value is 
+    *         <code>null</code>. 
+    */
+   public String intern(String value)
+   {
+      if( value == null )
+      {
+         return null;
+      }
+      return share(value);
+   }
+
+   /**
+    * Get a shared, unmodifiable list that holds the values. The strings in 
+    * the list are also shared. 
+    * 
+    * @param items The values. The array is not modified or retained. 
+    * @return The shared list. 
+    */
+   public List<String> internList(String[] items)
+   {
+      String[] copy = new String[items.length];
+      for( int i = 0; i < items.length; i++ )
+      {
+         copy[i] = intern(items[i]);
+      }
+      return share(Collections.unmodifiableList(Arrays.asList(copy)));
+   }
+
+   /**
+    * Get the number of distinct values in the pool. 
+    * 
+    * @return The number of values. 
+    */
+   public int size()
+   {
+      return values.size();
+   }
+
+   /**
+    * Get the shared copy of a value. The value must implement equals and 
+    * hashCode, and must not be modified after it has been added. 
+    * 
+    * @param value The value. 
+    * @return The shared copy. 
+    */
+   @SuppressWarnings("unchecked")
+   <T> T share(T value)
+   {
+      Object existing = values.putIfAbsent(value, value);
+      return (existing == null) ? value : (T) existing;
+   }
+}
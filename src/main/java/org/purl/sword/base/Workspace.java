@@ -46,6 +46,7 @@ import nu.xom.Elements;
 
 import org.apache.log4j.Logger;
 import org.purl.sword.atom.ContentType;
+import org.purl.sword.atom.Link;
 import org.purl.sword.atom.Title;
 
 /**
@@ -65,6 +66,11 @@ public class Workspace extends XmlElement implements SwordElementInterface
     */
    private List<Collection> collections; 
 
+   /**
+    * A list of links associated with this workspace. 
+    */
+   private List<Link> links; 
+
    /**
     * The logger. 
     */
@@ -77,7 +83,7 @@ public class Workspace extends XmlElement implements SwordElementInterface
    public static final String ELEMENT_NAME = "workspace";
    
    private static final XmlName XML_NAME = 
-           new XmlName(Namespaces.PREFIX_APP, "workspace", Namespaces.NS_APP);
+           XmlName.intern(Namespaces.PREFIX_APP, "workspace", Namespaces.NS_APP);
    
    /**
     * Create a new instance of the workspace, with no title. 
@@ -111,6 +117,7 @@ public class Workspace extends XmlElement implements SwordElementInterface
    protected void initialise()
    {
        collections = new ArrayList<Collection>();
+       links = new ArrayList<Link>();
        title = null; 
    }
 
@@ -176,6 +183,50 @@ public class Workspace extends XmlElement implements SwordElementInterface
       return collections;
    }
 
+   /**
+    * Add a link to the Workspace. The ServicePartitioner uses a link to 
+    * refer to the next page of collections in a large service document. 
+    * 
+    * @param link The link. 
+    */
+   public void addLink( Link link )
+   {
+      links.add(link);
+   }
+
+   /**
+    * Get a list of the links. 
+    * 
+    * @return A list. 
+    */
+   public List<Link> getLinks( )
+   {
+      return links;
+   }
+
+   /**
+    * Create an immutable copy of this workspace and its collections, which 
+    * can be shared between threads. 
+    * 
+    * @return The snapshot. 
+    */
+   public WorkspaceSnapshot snapshot( )
+   {
+      return snapshot(new ValuePool());
+   }
+
+   /**
+    * Create an immutable copy of this workspace and its collections, sharing 
+    * repeated values through the specified pool. 
+    * 
+    * @param pool The pool. 
+    * @return The snapshot. 
+    */
+   public WorkspaceSnapshot snapshot( ValuePool pool )
+   {
+      return new WorkspaceSnapshot(this, pool);
+   }
+
    /**
     * Marshall the data in this element to an Element. 
     * 
@@ -191,6 +242,11 @@ public class Workspace extends XmlElement implements SwordElementInterface
       {
          workspace.appendChild(title.marshall());
       }
+
+      for( Link link : links )
+      {
+         workspace.appendChild(link.marshall());
+      }
       
       for( Collection item : collections )
       {
@@ -222,13 +278,38 @@ public class Workspace extends XmlElement implements SwordElementInterface
     */
    public SwordValidationInfo unmarshall( Element workspace, Properties validationProperties )
    throws UnmarshallException
+   {
+      return unmarshall(workspace, null, null, validationProperties);
+   }
+
+   /**
+    * Unmarshall the workspace element, adding a set of collections that
+    * have already been unmarshalled. This is used by the 
+    * StreamingUnmarshaller, which processes each collection as soon as it 
+    * has been read and removes it from the workspace element. 
+    * 
+    * @param workspace      The workspace element. 
+    * @param collectionList Collections that have already been unmarshalled, 
+    *                       or <code>null</code>. 
+    * @param collectionInfo The validation information for those collections, 
+    *                       or <code>null</code>. 
+    * @param validationProperties The validation properties, or <code>null</code>. 
+    * @return The validation information, or <code>null</code> if the 
+    *         validationProperties are <code>null</code>. 
+    * @throws UnmarshallException If there was a problem accessing the data. 
+    */
+   SwordValidationInfo unmarshall( Element workspace, 
+                                   List<Collection> collectionList,
+                                   List<SwordValidationInfo> collectionInfo,
+                                   Properties validationProperties )
+   throws UnmarshallException
    {
       if( ! isInstanceOf(workspace, xmlName))
       {
          return handleIncorrectElement(workspace, validationProperties);
       }
 
-      ArrayList<SwordValidationInfo> validationItems = new ArrayList<SwordValidationInfo>();
+      ArrayList<SwordValidationInfo> validationItems = createValidationList(validationProperties);
 
       try
       {
@@ -249,31 +330,47 @@ public class Workspace extends XmlElement implements SwordElementInterface
                if( title == null )
                {
                   title = new Title();
-                  validationItems.add(title.unmarshall(element, validationProperties));
+                  addValidationItem(validationItems, title.unmarshall(element, validationProperties));
                }
-               else
+               else if( validationProperties != null )
                {
                   SwordValidationInfo info =
                           new SwordValidationInfo(Title.elementName(),
                              SwordValidationInfo.DUPLICATE_ELEMENT,
                              SwordValidationInfoType.WARNING);
                   info.setContentDescription(element.getValue());
-                  validationItems.add(info);
+                  addValidationItem(validationItems, info);
                }
             }
+            else if( isInstanceOf(element, Link.elementName() ))
+            {
+               Link link = new Link();
+               addValidationItem(validationItems, link.unmarshall(element, validationProperties));
+               links.add(link);
+            }
             else if( isInstanceOf(element, Collection.elementName() ))
             {
                Collection collection = new Collection( );
-               validationItems.add(collection.unmarshall(element, validationProperties));
+               addValidationItem(validationItems, collection.unmarshall(element, validationProperties));
                collections.add(collection); 
             }
             else if( validationProperties != null )
             {
-                validationItems.add(new SwordValidationInfo(new XmlName(element),
+                addValidationItem(validationItems, new SwordValidationInfo(new XmlName(element),
                         SwordValidationInfo.UNKNOWN_ELEMENT,
                         SwordValidationInfoType.INFO));
             }
          }
+
+         if( collectionList != null )
+         {
+            collections.addAll(collectionList);
+         }
+
+         if( collectionInfo != null && validationItems != null )
+         {
+            validationItems.addAll(collectionInfo);
+         }
       }
       catch( Exception ex )
       {
@@ -306,6 +403,41 @@ public class Workspace extends XmlElement implements SwordElementInterface
     */
    protected SwordValidationInfo validate(ArrayList<SwordValidationInfo> existing,
            Properties validationContext)
+   {
+      return validate(existing, null, validationContext);
+   }
+
+   /**
+    * Validate the workspace, using validation information for the 
+    * collections that has already been generated. This is used by the 
+    * ParallelServiceProcessor, which validates the collections on several 
+    * threads. 
+    * 
+    * @param validationContext The validation properties. 
+    * @param collectionInfo    The validation information for each 
+    *                          collection, in the same order as the 
+    *                          collections. 
+    * @return The validation information. 
+    */
+   SwordValidationInfo validate(Properties validationContext, 
+                                List<SwordValidationInfo> collectionInfo)
+   {
+      return validate(null, collectionInfo, validationContext);
+   }
+
+   /**
+    * Validate the workspace. 
+    * 
+    * @param existing          Validation information from the unmarshall 
+    *                          step, or <code>null</code> to validate all. 
+    * @param collectionInfo    Validation information for the collections, or
+    *                          <code>null</code> to validate each collection.
+    * @param validationContext The validation properties. 
+    * @return The validation information. 
+    */
+   private SwordValidationInfo validate(ArrayList<SwordValidationInfo> existing,
+           List<SwordValidationInfo> collectionInfo,
+           Properties validationContext)
    {
       boolean validateAll = (existing == null );
 
@@ -325,7 +457,19 @@ public class Workspace extends XmlElement implements SwordElementInterface
               result.addValidationInfo(title.validate(validationContext));
           }
 
-          if( collections.size() > 0 )
+          for( Link link : links )
+          {
+             result.addValidationInfo(link.validate(validationContext));
+          }
+
+          if( collectionInfo != null )
+          {
+             for( SwordValidationInfo info : collectionInfo )
+             {
+                result.addValidationInfo(info);
+             }
+          }
+          else if( collections.size() > 0 )
           {
              Iterator<Collection> iterator = collections.iterator();
              while( iterator.hasNext() )
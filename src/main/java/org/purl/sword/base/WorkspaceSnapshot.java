@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.purl.sword.atom.Link;
+
+/**
+ * An immutable copy of a {@link Workspace} and its collections. Instances 
+ * are created by {@link Workspace#snapshot()}, and can be shared between 
+ * threads without locking. 
+ */
+public final class WorkspaceSnapshot
+{
+   private final String title;
+
+   /** Private copies of the links, which are copied again when read. */
+   private final Link[] links;
+
+   private final List<CollectionSnapshot> collections;
+
+   /**
+    * Create a snapshot of the workspace. 
+    * 
+    * @param workspace The workspace. 
+    * @param pool      The pool used to share repeated values. 
+    */
+   WorkspaceSnapshot(Workspace workspace, ValuePool pool)
+   {
+      this(workspace.getTitle(), workspace.getLinks(), 
+           snapshot(workspace.getCollections(), pool));
+   }
+
+   /**
+    * Create a snapshot from collections that have already been copied. 
+    * 
+    * @param title       The title. 
+    * @param links       The links. Each link is copied. 
+    * @param collections The collections. The list is copied. 
+    */
+   WorkspaceSnapshot(String title, List<Link> links, List<CollectionSnapshot> collections)
+   {
+      this.title = title;
+      this.links = new Link[links.size()];
+      for( int i = 0; i < this.links.length; i++ )
+      {
+         this.links[i] = copy(links.get(i));
+      }
+      this.collections = Collections.unmodifiableList(Arrays.asList(
+              collections.toArray(new CollectionSnapshot[collections.size()])));
+   }
+
+   private static List<CollectionSnapshot> snapshot(List<Collection> source, ValuePool pool)
+   {
+      CollectionSnapshot[] items = new CollectionSnapshot[source.size()];
+      for( int i = 0; i < items.length; i++ )
+      {
+         items[i] = source.get(i).snapshot(pool);
+      }
+      return Arrays.asList(items);
+   }
+
+   /**
+    * Get the title. 
+    * 
+    * @return The title. 
+    */
+   public String getTitle()
+   {
+      return title;
+   }
+
+   /**
+    * Get copies of the links. 
+    * 
+    * @return A new list of the links. 
+    */
+   public List<Link> getLinks()
+   {
+      Link[] result = new Link[links.length];
+      for( int i = 0; i < links.length; i++ )
+      {
+         result[i] = copy(links[i]);
+      }
+      return Arrays.asList(result);
+   }
+
+   /**
+    * Get the collections. 
+    * 
+    * @return An unmodifiable list of the collections. 
+    */
+   public List<CollectionSnapshot> getCollections()
+   {
+      return collections;
+   }
+
+   /**
+    * Create a new, modifiable Workspace that holds the values in this 
+    * snapshot. 
+    * 
+    * @return The workspace. 
+    */
+   public Workspace toWorkspace()
+   {
+      Workspace workspace = new Workspace();
+      if( title != null )
+      {
+         workspace.setTitle(title);
+      }
+      for( Link link : links )
+      {
+         workspace.addLink(copy(link));
+      }
+      for( CollectionSnapshot collection : collections )
+      {
+         workspace.addCollection(collection.toCollection());
+      }
+      return workspace;
+   }
+
+   /**
+    * Copy a link. 
+    * 
+    * @param link The link. 
+    * @return A new link with the same values. 
+    */
+   private static Link copy(Link link)
+   {
+      Link copy = new Link();
+      copy.setHref(link.getHref());
+      copy.setRel(link.getRel());
+      copy.setType(link.getType());
+      copy.setHreflang(link.getHreflang());
+      copy.setTitle(link.getTitle());
+      copy.setLength(link.getLength());
+      copy.setContent(link.getContent());
+      return copy;
+   }
+}
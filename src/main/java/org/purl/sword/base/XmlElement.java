@@ -97,7 +97,7 @@ public abstract class XmlElement
     */
    public XmlElement(String prefix, String localName)
    {
-      this.xmlName = new XmlName(prefix, localName, "");
+      this.xmlName = XmlName.intern(prefix, localName, "");
    }
 
    /**
@@ -109,7 +109,7 @@ public abstract class XmlElement
     */
    public XmlElement(String prefix, String localName, String namespaceUri)
    {
-       this.xmlName = new XmlName(prefix, localName, namespaceUri);
+       this.xmlName = XmlName.intern(prefix, localName, namespaceUri);
    }
 
    /**
@@ -129,7 +129,10 @@ public abstract class XmlElement
    
    /**
     * Array of possible date formats that are permitted for date elements. 
+    * 
+    * @deprecated Use {@link DateCodec}, which accepts all of these formats. 
     */
+   @Deprecated
    protected static final String[] DATE_FORMATS = 
    {
       "yyyy-MM-dd'T'HH:mm:ss'Z'",
@@ -279,8 +282,7 @@ public abstract class XmlElement
     */
    protected boolean isInstanceOf(Element element, XmlName xmlName)
    {
-       return (xmlName.getLocalName().equals(element.getLocalName()) &&
-               xmlName.getNamespace().equals(element.getNamespaceURI()));
+       return xmlName.matches(element);
    }
    
    /**
@@ -322,8 +324,91 @@ public abstract class XmlElement
 
    public abstract SwordValidationInfo validate(Properties validationContext);
 
+   /**
+    * Create a list to hold the validation items that are generated during 
+    * an unmarshall. No list is created if the element is not being 
+    * validated, so that no validation information is allocated. 
+    * 
+    * @param validationProperties The validation properties. 
+    * @return A new list, or <code>null</code> if the validationProperties 
+    *         are <code>null</code>. 
+    */
+   protected static ArrayList<SwordValidationInfo> createValidationList(Properties validationProperties)
+   {
+       if( validationProperties == null )
+       {
+           return null;
+       }
+       return new ArrayList<SwordValidationInfo>();
+   }
+
+   /**
+    * Add the item to the list of validation items. Nothing is added if the 
+    * list has not been created because the element is not being validated. 
+    * 
+    * @param items The list, which can be <code>null</code>. 
+    * @param item  The item to add. 
+    */
+   protected static void addValidationItem(ArrayList<SwordValidationInfo> items, 
+                                           SwordValidationInfo item)
+   {
+       if( items != null )
+       {
+           items.add(item);
+       }
+   }
+
+   /**
+    * Add the item to the unmarshall information in the result. Nothing is 
+    * added if the result is <code>null</code> because the element is not 
+    * being validated. 
+    * 
+    * @param result The result, which can be <code>null</code>. 
+    * @param item   The item to add. 
+    */
+   protected static void addUnmarshallInfo(SwordValidationInfo result, 
+                                           SwordValidationInfo item)
+   {
+       if( result != null )
+       {
+           result.addUnmarshallElementInfo(item);
+       }
+   }
+
+   /**
+    * Create the validation information for an element that has already 
+    * been included in the parent element. 
+    * 
+    * @param name    The name of the element. 
+    * @param element The duplicate element. 
+    * @param type    The type of validation information to report. 
+    * @param validationProperties The validation properties. 
+    * @return The validation information, or <code>null</code> if the 
+    *         validationProperties are <code>null</code>. 
+    */
+   protected static SwordValidationInfo createDuplicateInfo(XmlName name, 
+                                           Element element,
+                                           SwordValidationInfoType type,
+                                           Properties validationProperties)
+   {
+       if( validationProperties == null )
+       {
+           return null;
+       }
+
+       SwordValidationInfo info = new SwordValidationInfo(name,
+               SwordValidationInfo.DUPLICATE_ELEMENT, type);
+       info.setContentDescription(element.getValue());
+       return info;
+   }
+
    protected void processUnexpectedAttributes(Element element, ArrayList<SwordValidationInfo> attributeItems)
    {
+       if( attributeItems == null )
+       {
+           return;
+       }
+
        int attributeCount = element.getAttributeCount();
        Attribute attribute = null;
 
@@ -351,6 +436,11 @@ public abstract class XmlElement
     */
    protected void processUnexpectedAttributes(Element element, SwordValidationInfo info)
    {
+       if( info == null )
+       {
+           return;
+       }
+
        int attributeCount = element.getAttributeCount();
        Attribute attribute = null;
 
@@ -392,10 +482,22 @@ public abstract class XmlElement
 
    protected SwordValidationInfo createValidAttributeInfo(String name, String content)
    {
-      XmlName attributeName = new XmlName(xmlName.getPrefix(),
-                       name,
-                       xmlName.getNamespace());
+      return createValidAttributeInfo(new XmlName(xmlName.getPrefix(), name, 
+                                                  xmlName.getNamespace()), 
+                                      content);
+   }
 
+   /**
+    * Create the validation information for a valid attribute. The classes 
+    * in this library pass a name that is held in a static field, so that 
+    * no name is created or looked up during validation. 
+    * 
+    * @param attributeName The name of the attribute. 
+    * @param content       The value of the attribute. 
+    * @return The validation information. 
+    */
+   protected SwordValidationInfo createValidAttributeInfo(XmlName attributeName, String content)
+   {
       SwordValidationInfo item = new SwordValidationInfo(xmlName, attributeName);
       item.setContentDescription(content);
       //attributeItems.add(item);
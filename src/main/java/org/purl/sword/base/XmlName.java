@@ -36,15 +36,34 @@
  */
 package org.purl.sword.base;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import nu.xom.Attribute;
 import nu.xom.Element;
 
 /**
+ * The name of an element or attribute, consisting of a prefix, local name 
+ * and namespace. The qualified name and hash code are calculated when the 
+ * object is created, and again when one of the parts is changed. 
+ * 
+ * The names used by the element classes are obtained from 
+ * {@link #intern(String, String, String)}, which returns a single shared 
+ * instance for each name. Comparisons between those names are then identity
+ * checks. A shared instance cannot be changed, and its setters throw an 
+ * <code>UnsupportedOperationException</code>; an instance that is created
+ * with a constructor can still be changed. Names that are read from a 
+ * document are not interned, so that the registry cannot be filled by the 
+ * content of untrusted documents. 
  *
  * @author Neil Taylor (nst@aber.ac.uk)
  */
 public class XmlName {
 
+    /** The registry of shared names, indexed by {namespace}qualifiedName. */
+    private static final ConcurrentMap<String, XmlName> registry = 
+            new ConcurrentHashMap<String, XmlName>();
+
     /** Prefix for the name */
     private String prefix;
 
@@ -54,6 +73,14 @@ public class XmlName {
     /** The namespace for the element */ 
     private String namespace;
 
+    /** The qualified name, in the form prefix:localName. */
+    private String qualifiedName;
+
+    /** The hash code, based on the namespace and local name. */
+    private int hash;
+
+    /** True if this is the instance held in the registry. */
+    private final boolean shared;
     
     /**
      * Create a new instance with the specified prefix and local name.
@@ -61,24 +88,111 @@ public class XmlName {
      * @param localName  The element's local name. 
      */
     public XmlName(String prefix, String localName, String namespace )
+    {
+        this(prefix, localName, namespace, false);
+    }
+
+    public XmlName(Element element)
+    {
+        this(element.getNamespacePrefix(), 
+             element.getLocalName(), 
+             element.getNamespaceURI());
+    }
+
+    public XmlName(Attribute attribute)
+    {
+        this(attribute.getNamespacePrefix(), 
+             attribute.getLocalName(), 
+             attribute.getNamespaceURI());
+    }
+
+    private XmlName(String prefix, String localName, String namespace, boolean shared)
     {
         this.prefix = prefix;
         this.localName = localName;
         this.namespace = namespace;
+        this.shared = shared;
+        update();
     }
 
-    public XmlName(Element element)
+    /**
+     * Calculate the qualified name and hash code from the current parts. 
+     */
+    private void update()
     {
-        this.prefix = element.getNamespacePrefix();
-        this.localName = element.getLocalName();
-        this.namespace = element.getNamespaceURI();
+        if( prefix != null && prefix.trim().length() > 0 )
+        {
+           qualifiedName = prefix + ":" + localName;
+        }
+        else
+        {
+           qualifiedName = localName;
+        }
+
+        hash = 31 * ((namespace == null) ? 0 : namespace.hashCode()) +
+               ((localName == null) ? 0 : localName.hashCode());
     }
 
-    public XmlName(Attribute attribute)
+    /**
+     * Check that this instance can be changed. 
+     * 
+     * @throws UnsupportedOperationException If this is a shared instance. 
+     */
+    private void checkMutable()
+    {
+        if( shared )
+        {
+            throw new UnsupportedOperationException(
+                    "The shared name " + this + " cannot be changed");
+        }
+    }
+
+    /**
+     * Get the shared instance for the specified name. The same instance is 
+     * returned for every call with the same prefix, local name and namespace. 
+     * 
+     * @param prefix    The namespace prefix.
+     * @param localName The local name. 
+     * @param namespace The namespace. 
+     * @return The shared instance. 
+     */
+    public static XmlName intern(String prefix, String localName, String namespace)
+    {
+        return new XmlName(prefix, localName, namespace).intern();
+    }
+
+    /**
+     * Get the shared instance that has the same prefix, local name and 
+     * namespace as this object. This object is not registered itself, 
+     * because it can still be changed. The strings of the shared instance 
+     * are interned, so that {@link #matches(Element)} can usually compare 
+     * them by reference. 
+     * 
+     * @return The shared instance. 
+     */
+    public XmlName intern()
     {
-        this.prefix = attribute.getNamespacePrefix();
-        this.localName = attribute.getLocalName();
-        this.namespace = attribute.getNamespaceURI();
+        if( shared )
+        {
+            return this;
+        }
+
+        String key = "{" + namespace + "}" + qualifiedName;
+        XmlName name = registry.get(key);
+        if( name == null )
+        {
+            XmlName created = new XmlName(
+                    (prefix == null) ? null : prefix.intern(),
+                    (localName == null) ? null : localName.intern(),
+                    (namespace == null) ? null : namespace.intern(),
+                    true);
+            name = registry.putIfAbsent(key, created);
+            if( name == null )
+            {
+                name = created;
+            }
+        }
+        return name;
     }
 
     /**
@@ -94,9 +208,12 @@ public class XmlName {
      * Set the prefix.
      *
      * @param prefix the prefix to set
+     * @throws UnsupportedOperationException If this is a shared instance. 
      */
     public void setPrefix(String prefix) {
+        checkMutable();
         this.prefix = prefix;
+        update();
     }
 
     /**
@@ -112,9 +229,12 @@ public class XmlName {
      * Set the local name.
      * 
      * @param localName the localName to set
+     * @throws UnsupportedOperationException If this is a shared instance. 
      */
     public void setLocalName(String localName) {
+        checkMutable();
         this.localName = localName;
+        update();
     }
 
     /**
@@ -130,29 +250,65 @@ public class XmlName {
      * Set the namespace value.
      *
      * @param namespace the namespace to set
+     * @throws UnsupportedOperationException If this is a shared instance. 
      */
     public void setNamespace(String namespace) {
+        checkMutable();
         this.namespace = namespace;
+        update();
     }
 
+    /**
+     * Get the qualified name. 
+     * 
+     * @return The name in the form prefix:localName, or the local name if 
+     *         there is no prefix. 
+     */
     public String getQualifiedName()
     {
-        String qName = "";
-        if( prefix != null && prefix.trim().length() > 0 )
+        return qualifiedName;
+    }
+
+    /**
+     * Determine if the element has this name. The parser normally interns 
+     * the names that it reads, so the strings are compared by reference 
+     * before they are compared by content. 
+     * 
+     * @param element The element. 
+     * @return True if the namespace and local name match. 
+     */
+    public boolean matches(Element element)
+    {
+        String name = element.getLocalName();
+        if( localName != name && !localName.equals(name) )
         {
-           qName = prefix + ":";
+            return false;
         }
-        qName += localName;
-        return qName;
+
+        String uri = element.getNamespaceURI();
+        return namespace == uri || namespace.equals(uri);
     }
 
+    /**
+     * Two names are equal if they have the same namespace and local name. 
+     * The prefix is not compared. 
+     */
     @Override
     public boolean equals(Object other)
     {
+        if( this == other )
+        {
+            return true;
+        }
 
         if( other instanceof XmlName )
         {
             XmlName otherName = (XmlName) other;
+            if( hash != otherName.hash )
+            {
+                return false;
+            }
+
             try
             {
                return (this.namespace.equals(otherName.namespace) &&
@@ -168,4 +324,15 @@ public class XmlName {
         return false;
     }
 
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "{" + namespace + "}" + qualifiedName;
+    }
 }
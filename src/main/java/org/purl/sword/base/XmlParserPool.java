@@ -0,0 +1,359 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import nu.xom.Builder;
+import nu.xom.Document;
+import nu.xom.NodeFactory;
+import nu.xom.ParsingException;
+import nu.xom.Serializer;
+
+import org.apache.log4j.Logger;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Provides the XOM Builder and Serializer objects used to parse and write 
+ * the SWORD documents. 
+ * 
+ * Creating a new Builder locates a SAX parser through the JAXP lookup 
+ * each time, which is a noticeable cost when many small documents are 
+ * processed. This class resolves the SAXParserFactory once and keeps one 
+ * Builder and one Serializer for each thread, so they are reused by 
+ * subsequent calls on the same thread. 
+ * 
+ * The parsers are configured to refuse external entities and external 
+ * DTDs, and to use the JAXP secure processing limits. Each document is 
+ * also checked against the current {@link ParserLimits}, and document 
+ * type declarations are refused. 
+ * 
+ * The objects returned by this class must not be passed to another thread 
+ * and must not be used re-entrantly. A server that parses documents on 
+ * pooled threads should call {@link #release()} when a thread is finished 
+ * with them, as the SWORD servlets do at the end of each request. 
+ */
+public final class XmlParserPool
+{
+   /** Logger */
+   private static Logger log = Logger.getLogger(XmlParserPool.class);
+
+   /** The encoding used by the serializers. */
+   public static final String ENCODING = "UTF-8";
+
+   /** The indent used by the serializers. */
+   public static final int INDENT = 3;
+
+   /** The features that are disabled on each parser. */
+   private static final String[] DISABLED_FEATURES = {
+      "http://xml.org/sax/features/external-general-entities",
+      "http://xml.org/sax/features/external-parameter-entities",
+      "http://apache.org/xml/features/nonvalidating/load-external-dtd"
+   };
+
+   /** The factory, resolved once when the class is loaded. */
+   private static final SAXParserFactory parserFactory = createParserFactory();
+
+   /** The Builder for each thread. */
+   private static final ThreadLocal<Builder> builders = new ThreadLocal<Builder>();
+
+   /** The Serializer for each thread. */
+   private static final ThreadLocal<Serializer> serializers = new ThreadLocal<Serializer>();
+
+   /** The limits applied to each document. */
+   private static volatile ParserLimits limits = ParserLimits.DEFAULT;
+
+   /**
+    * Utility class. 
+    */
+   private XmlParserPool()
+   {
+      // no instances
+   }
+
+   /**
+    * Get the Builder for the current thread. The Builder uses the default 
+    * XOM NodeFactory. 
+    * 
+    * @return The Builder. 
+    * @throws UnmarshallException If a parser could not be created. 
+    */
+   public static Builder getBuilder()
+   throws UnmarshallException
+   {
+      Builder builder = builders.get();
+      if( builder == null )
+      {
+         builder = createBuilder(null);
+         builders.set(builder);
+      }
+      return builder;
+   }
+
+   /**
+    * Create a new Builder that uses the specified NodeFactory. The Builder 
+    * is not pooled, because the factory is usually specific to a single 
+    * document, but the parser is created from the shared SAXParserFactory. 
+    * 
+    * @param factory The NodeFactory, or <code>null</code> to use the default 
+    *                XOM NodeFactory. 
+    * @return The Builder. 
+    * @throws UnmarshallException If a parser could not be created. 
+    */
+   public static Builder createBuilder(NodeFactory factory)
+   throws UnmarshallException
+   {
+      XMLReader reader = createReader();
+      LimitingXMLFilter filter = new LimitingXMLFilter(reader);
+      Builder builder;
+      if( factory == null )
+      {
+         builder = new Builder(filter, false);
+      }
+      else
+      {
+         builder = new Builder(filter, false, factory);
+      }
+
+      // XOM sets its own features when the Builder is created, so the 
+      // security settings are applied afterwards.
+      secure(reader);
+      return builder;
+   }
+
+   /**
+    * Get the Serializer for the current thread, set to write to the 
+    * specified stream. The Serializer writes UTF-8 with an indent of 3. 
+    * 
+    * @param stream The stream to write to. 
+    * @return The Serializer. 
+    * @throws IOException If the previous stream could not be flushed. 
+    */
+   public static Serializer getSerializer(OutputStream stream)
+   throws IOException
+   {
+      Serializer serializer = serializers.get();
+      if( serializer == null )
+      {
+         serializer = new Serializer(stream, ENCODING);
+         serializer.setIndent(INDENT);
+         serializers.set(serializer);
+      }
+      else
+      {
+         serializer.setOutputStream(stream);
+      }
+      return serializer;
+   }
+
+   /**
+    * Get the limits that are applied to each document. 
+    * 
+    * @return The limits. 
+    */
+   public static ParserLimits getLimits()
+   {
+      return limits;
+   }
+
+   /**
+    * Set the limits that are applied to each document. The new limits are 
+    * used by every parse that starts after this call, on all threads. 
+    * 
+    * @param newLimits The limits. Use ParserLimits.NONE to remove them. 
+    */
+   public static void setLimits(ParserLimits newLimits)
+   {
+      if( newLimits == null )
+      {
+         throw new IllegalArgumentException("Limits are required");
+      }
+      limits = newLimits;
+   }
+
+   /**
+    * Parse the XML string with the builder, after checking its length 
+    * against the current limits. 
+    * 
+    * @param builder The builder. 
+    * @param xml     The XML. 
+    * @param baseURI The base URI of the document. 
+    * @return The document. 
+    * @throws LimitExceededException If the string is too long. 
+    * @throws ParsingException If the XML could not be parsed. 
+    * @throws IOException If there was an error reading the XML. 
+    */
+   public static Document build(Builder builder, String xml, String baseURI)
+   throws LimitExceededException, ParsingException, IOException
+   {
+      long maxBytes = limits.getMaxBytes();
+      if( ParserLimits.exceeds(xml.length(), maxBytes) )
+      {
+         throw new LimitExceededException(ParserLimits.MAX_BYTES, maxBytes);
+      }
+      return builder.build(xml, baseURI);
+   }
+
+   /**
+    * Parse the XML that is read from the stream with the builder. The 
+    * parse stops when more than the current maximum number of bytes have 
+    * been read. 
+    * 
+    * @param builder The builder. 
+    * @param stream  The stream. 
+    * @return The document. 
+    * @throws ParsingException If the XML could not be parsed. 
+    * @throws IOException If there was an error reading the XML, or the 
+    *                     stream is too long. 
+    */
+   public static Document build(Builder builder, InputStream stream)
+   throws ParsingException, IOException
+   {
+      long maxBytes = limits.getMaxBytes();
+      if( maxBytes != ParserLimits.UNLIMITED )
+      {
+         stream = new LimitingXMLFilter.LimitedInputStream(stream, maxBytes);
+      }
+      return builder.build(stream);
+   }
+
+   /**
+    * Create the exception for a parse that has failed. If the parse 
+    * failed because a limit was exceeded, the LimitExceededException is 
+    * returned. 
+    * 
+    * @param message The message for any other failure. 
+    * @param ex      The exception thrown by the parser. 
+    * @return The exception to throw. 
+    */
+   public static UnmarshallException parseFailure(String message, Exception ex)
+   {
+      LimitExceededException limit = LimitingXMLFilter.findLimit(ex);
+      if( limit != null )
+      {
+         log.warn(limit.getMessage());
+         return limit;
+      }
+      return new UnmarshallException(message, ex);
+   }
+
+   /**
+    * Release the Builder and Serializer held for the current thread. 
+    */
+   public static void release()
+   {
+      builders.remove();
+      serializers.remove();
+   }
+
+   /**
+    * Create a new XMLReader from the shared factory. 
+    * 
+    * @return The reader. 
+    * @throws UnmarshallException If the reader could not be created. 
+    */
+   private static XMLReader createReader()
+   throws UnmarshallException
+   {
+      try
+      {
+         synchronized( parserFactory )
+         {
+            return parserFactory.newSAXParser().getXMLReader();
+         }
+      }
+      catch( ParserConfigurationException ex )
+      {
+         log.error("Unable to create an XML parser: " + ex.getMessage());
+         throw new UnmarshallException("Unable to create an XML parser", ex);
+      }
+      catch( SAXException ex )
+      {
+         log.error("Unable to create an XML parser: " + ex.getMessage());
+         throw new UnmarshallException("Unable to create an XML parser", ex);
+      }
+   }
+
+   /**
+    * Apply the security features to the reader. Features that are not 
+    * supported by the parser are logged and ignored. 
+    * 
+    * @param reader The reader. 
+    */
+   private static void secure(XMLReader reader)
+   {
+      for( String feature : DISABLED_FEATURES )
+      {
+         try
+         {
+            reader.setFeature(feature, false);
+         }
+         catch( SAXException ex )
+         {
+            log.debug("Parser does not support feature " + feature);
+         }
+      }
+   }
+
+   /**
+    * Create the shared SAXParserFactory. 
+    * 
+    * @return The factory. 
+    */
+   private static SAXParserFactory createParserFactory()
+   {
+      SAXParserFactory factory = SAXParserFactory.newInstance();
+      factory.setNamespaceAware(true);
+      factory.setValidating(false);
+      try
+      {
+         factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      }
+      catch( Exception ex )
+      {
+         log.debug("Parser factory does not support secure processing");
+      }
+      return factory;
+   }
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Limits the number of requests that the Client sends to each host at the 
+ * same time, and adjusts the limit to suit the server. The limit grows by 
+ * one for each limit's worth of requests that succeed while the limit is 
+ * in use, and is halved when a request is refused with 503 or 429, or 
+ * times out. If a response takes much longer than the fastest recent 
+ * response, the limit is reduced by a tenth. A failure only halves the 
+ * limit once, however many of the requests that were in progress at the 
+ * time fail. 
+ */
+public class AdaptiveLimiter {
+
+	/**
+	 * The number of samples after which the fastest time is reset.
+	 */
+	private static final int WINDOW = 100;
+
+	/**
+	 * A response must be at least this many milliseconds slower than the 
+	 * fastest time to reduce the limit, so that the small variation in very
+	 * fast responses is ignored.
+	 */
+	private static final long LATENCY_MARGIN = 10;
+
+	/**
+	 * The smallest limit.
+	 */
+	private final int minLimit;
+
+	/**
+	 * The largest limit.
+	 */
+	private final int maxLimit;
+
+	/**
+	 * The limit for a host that has not been used.
+	 */
+	private final int initialLimit;
+
+	/**
+	 * A response that takes longer than this multiple of the fastest time 
+	 * shows that the server is overloaded.
+	 */
+	private final double latencyTolerance;
+
+	/**
+	 * The state for each host.
+	 */
+	private final Map<String, HostLimit> hosts = new HashMap<String, HostLimit>();
+
+	/**
+	 * Logger.
+	 */
+	private static Logger log = Logger.getLogger(AdaptiveLimiter.class);
+
+	/**
+	 * Create a new limiter that reduces the limit when a response takes 
+	 * more than twice as long as the fastest recent response.
+	 * 
+	 * @param initialLimit
+	 *            The limit for a host that has not been used.
+	 * @param minLimit
+	 *            The smallest limit.
+	 * @param maxLimit
+	 *            The largest limit.
+	 */
+	public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit) {
+		this(initialLimit, minLimit, maxLimit, 2.0);
+	}
+
+	/**
+	 * Create a new limiter.
+	 * 
+	 * @param initialLimit
+	 *            The limit for a host that has not been used.
+	 * @param minLimit
+	 *            The smallest limit.
+	 * @param maxLimit
+	 *            The largest limit.
+	 * @param latencyTolerance
+	 *            A response that takes longer than this multiple of the 
+	 *            fastest recent response reduces the limit.
+	 */
+	public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, 
+			double latencyTolerance) {
+		if (minLimit < 1 || maxLimit < minLimit) {
+			throw new IllegalArgumentException("The limits must be 1 <= min <= max");
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.initialLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+		this.latencyTolerance = latencyTolerance;
+	}
+
+	/**
+	 * Wait until a request can be sent to the host.
+	 * 
+	 * @param host
+	 *            The host.
+	 * @return The time at which the request was allowed, which must be 
+	 *         passed to release.
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while waiting.
+	 */
+	public long acquire(String host) throws InterruptedException {
+		HostLimit limit = getHostLimit(host);
+		synchronized (limit) {
+			while (limit.inFlight >= (int) limit.limit) {
+				limit.wait();
+			}
+			limit.inFlight++;
+			return System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Record the outcome of a request, and allow another request to be 
+	 * sent to the host.
+	 * 
+	 * @param host
+	 *            The host.
+	 * @param started
+	 *            The value that was returned by acquire.
+	 * @param latency
+	 *            The time taken for the response, in milliseconds, or a 
+	 *            negative value if it is not known.
+	 * @param dropped
+	 *            True if the server refused the request or did not respond.
+	 */
+	public void release(String host, long started, long latency, boolean dropped) {
+		HostLimit limit = getHostLimit(host);
+		synchronized (limit) {
+			boolean saturated = limit.inFlight >= (int) limit.limit;
+			limit.inFlight--;
+
+			if (dropped) {
+				if (started > limit.lastDecrease) {
+					decrease(host, limit, 0.5);
+				}
+			} else if (latency >= 0) {
+				limit.sample(latency);
+				long threshold = Math.max((long) (limit.minLatency * latencyTolerance), 
+						limit.minLatency + LATENCY_MARGIN);
+				if (latency > threshold && started > limit.lastDecrease) {
+					decrease(host, limit, 0.9);
+				} else if (saturated) {
+					limit.limit = Math.min(maxLimit, limit.limit + 1.0 / limit.limit);
+				}
+			}
+			limit.notifyAll();
+		}
+	}
+
+	/**
+	 * Get the current limit for a host.
+	 * 
+	 * @param host
+	 *            The host.
+	 * @return The number of requests that can be sent at the same time.
+	 */
+	public int getLimit(String host) {
+		HostLimit limit = getHostLimit(host);
+		synchronized (limit) {
+			return (int) limit.limit;
+		}
+	}
+
+	/**
+	 * Get the limits for the hosts that have been used.
+	 * 
+	 * @return A map of host to limit.
+	 */
+	public Map<String, Integer> getLimits() {
+		Map<String, Integer> limits = new HashMap<String, Integer>();
+		synchronized (hosts) {
+			for (Map.Entry<String, HostLimit> entry : hosts.entrySet()) {
+				synchronized (entry.getValue()) {
+					limits.put(entry.getKey(), (int) entry.getValue().limit);
+				}
+			}
+		}
+		return limits;
+	}
+
+	/**
+	 * Reduce the limit for a host.
+	 */
+	private void decrease(String host, HostLimit limit, double factor) {
+		limit.limit = Math.max(minLimit, limit.limit * factor);
+		limit.lastDecrease = System.currentTimeMillis();
+		log.debug("Limit for " + host + " reduced to " + (int) limit.limit);
+	}
+
+	/**
+	 * Get the state for a host, creating it if necessary.
+	 */
+	private HostLimit getHostLimit(String host) {
+		synchronized (hosts) {
+			HostLimit limit = hosts.get(host);
+			if (limit == null) {
+				limit = new HostLimit(initialLimit);
+				hosts.put(host, limit);
+			}
+			return limit;
+		}
+	}
+
+	/**
+	 * The limit and measurements for a single host. The fields are guarded
+	 * by the object's lock.
+	 */
+	private static class HostLimit {
+
+		/** The current limit. */
+		private double limit;
+
+		/** The number of requests in progress. */
+		private int inFlight;
+
+		/** The fastest response in the current window. */
+		private long minLatency = Long.MAX_VALUE;
+
+		/** The fastest response in the next window. */
+		private long nextMinLatency = Long.MAX_VALUE;
+
+		/** The number of samples in the next window. */
+		private int samples;
+
+		/** The time at which the limit was last reduced. */
+		private long lastDecrease;
+
+		/**
+		 * Create a new instance.
+		 * 
+		 * @param limit
+		 *            The initial limit.
+		 */
+		HostLimit(int limit) {
+			this.limit = limit;
+		}
+
+		/**
+		 * Record the time of a response. The fastest time is taken from a 
+		 * moving window, so that it follows a change in the server.
+		 * 
+		 * @param latency
+		 *            The time, in milliseconds.
+		 */
+		void sample(long latency) {
+			minLatency = Math.min(minLatency, latency);
+			nextMinLatency = Math.min(nextMinLatency, latency);
+			if (++samples >= WINDOW) {
+				minLatency = nextMinLatency;
+				nextMinLatency = Long.MAX_VALUE;
+				samples = 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,272 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.apache.log4j.Logger;
+import org.purl.sword.base.DepositResponse;
+import org.purl.sword.base.ServiceDocument;
+
+/**
+ * Runs the requests for a Client on an Executor. The number of requests that 
+ * are transferring data at the same time is limited by the number of threads 
+ * that the executor provides; other requests wait in the executor's queue. 
+ * The Client should be created with the pooled constructor, with enough 
+ * connections for the executor's threads. 
+ */
+public class AsyncClient implements AsyncSWORDClient {
+
+	/**
+	 * The client that makes the requests.
+	 */
+	private final Client client;
+
+	/**
+	 * The executor that runs the requests.
+	 */
+	private final Executor executor;
+
+	/**
+	 * Logger.
+	 */
+	private static Logger log = Logger.getLogger(AsyncClient.class);
+
+	/**
+	 * Create a new instance.
+	 * 
+	 * @param client
+	 *            The client that makes the requests.
+	 * @param executor
+	 *            The executor that runs the requests.
+	 */
+	public AsyncClient(Client client, Executor executor) {
+		this.client = client;
+		this.executor = executor;
+	}
+
+	/**
+	 * Retrieve a service document, using the credentials that have been set
+	 * for the client.
+	 * 
+	 * @see AsyncSWORDClient#getServiceDocument(String, String, ClientCallback)
+	 */
+	public Future<ClientResult<ServiceDocument>> getServiceDocument(
+			String url, String onBehalfOf, ClientCallback<ServiceDocument> callback) {
+		if (client.isAuthenticating()) {
+			return getServiceDocument(url, onBehalfOf, client.getUsername(), 
+					client.getPassword(), callback);
+		}
+		return getServiceDocument(url, onBehalfOf, null, null, callback);
+	}
+
+	/**
+	 * Retrieve a service document with the specified credentials.
+	 * 
+	 * @param url
+	 *            The location of the service document.
+	 * @param onBehalfOf
+	 *            The user, or <code>null</code>.
+	 * @param username
+	 *            The username, or <code>null</code> for no authentication.
+	 * @param password
+	 *            The password.
+	 * @param callback
+	 *            Notified when the request has finished, or <code>null</code>.
+	 * @return The future result.
+	 */
+	public Future<ClientResult<ServiceDocument>> getServiceDocument(
+			final String url, final String onBehalfOf, final String username, 
+			final String password, ClientCallback<ServiceDocument> callback) {
+		final RequestHandle handle = new RequestHandle();
+		return submit(new Callable<ClientResult<ServiceDocument>>() {
+			public ClientResult<ServiceDocument> call() throws SWORDClientException {
+				return client.retrieveServiceDocument(url, onBehalfOf, 
+						username, password, handle);
+			}
+		}, handle, callback);
+	}
+
+	/**
+	 * Post a file to the server, using the credentials that have been set 
+	 * for the client.
+	 * 
+	 * @see AsyncSWORDClient#postFile(PostMessage, ClientCallback)
+	 */
+	public Future<ClientResult<DepositResponse>> postFile(PostMessage message,
+			ClientCallback<DepositResponse> callback) {
+		if (client.isAuthenticating()) {
+			return postFile(message, client.getUsername(), client.getPassword(), 
+					callback);
+		}
+		return postFile(message, null, null, callback);
+	}
+
+	/**
+	 * Post a file to the server with the specified credentials.
+	 * 
+	 * @param message
+	 *            The message that contains the post information.
+	 * @param username
+	 *            The username, or <code>null</code> for no authentication.
+	 * @param password
+	 *            The password.
+	 * @param callback
+	 *            Notified when the request has finished, or <code>null</code>.
+	 * @return The future result.
+	 */
+	public Future<ClientResult<DepositResponse>> postFile(
+			final PostMessage message, final String username, 
+			final String password, ClientCallback<DepositResponse> callback) {
+		final RequestHandle handle = new RequestHandle();
+		return submit(new Callable<ClientResult<DepositResponse>>() {
+			public ClientResult<DepositResponse> call() throws SWORDClientException {
+				return client.deposit(message, username, password, handle);
+			}
+		}, handle, callback);
+	}
+
+	/**
+	 * Pass a request to the executor.
+	 * 
+	 * @param request
+	 *            The request.
+	 * @param handle
+	 *            The handle that is used to abort the request.
+	 * @param callback
+	 *            The callback, or <code>null</code>.
+	 * @return The future result.
+	 */
+	private <T> Future<ClientResult<T>> submit(Callable<ClientResult<T>> request,
+			RequestHandle handle, ClientCallback<T> callback) {
+		RequestTask<T> task = new RequestTask<T>(request, handle, callback);
+		executor.execute(task);
+		return task;
+	}
+
+	/**
+	 * A request that aborts the HTTP method when it is cancelled, and 
+	 * notifies the callback when it has finished.
+	 */
+	private static class RequestTask<T> extends FutureTask<ClientResult<T>> {
+
+		/** The handle that is used to abort the request. */
+		private final RequestHandle handle;
+
+		/** The callback, or null. */
+		private final ClientCallback<T> callback;
+
+		/**
+		 * Create a new task.
+		 * 
+		 * @param request
+		 *            The request.
+		 * @param handle
+		 *            The handle that is used to abort the request.
+		 * @param callback
+		 *            The callback, or <code>null</code>.
+		 */
+		RequestTask(Callable<ClientResult<T>> request, RequestHandle handle,
+				ClientCallback<T> callback) {
+			super(request);
+			this.handle = handle;
+			this.callback = callback;
+		}
+
+		/**
+		 * Cancel the task, and abort the request if it has started.
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				handle.abort();
+			}
+			return cancelled;
+		}
+
+		/**
+		 * Notify the callback.
+		 */
+		@Override
+		protected void done() {
+			if (callback == null) {
+				return;
+			}
+
+			if (isCancelled()) {
+				callback.cancelled();
+				return;
+			}
+
+			ClientResult<T> result;
+			try {
+				result = get();
+			} catch (InterruptedException ex) {
+				// get does not block once the task is done
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException ex) {
+				callback.failed(toClientException(ex.getCause()));
+				return;
+			}
+			callback.completed(result);
+		}
+	}
+
+	/**
+	 * Convert the cause of a failed request to a SWORDClientException.
+	 * 
+	 * @param cause
+	 *            The cause.
+	 * @return The exception.
+	 */
+	private static SWORDClientException toClientException(Throwable cause) {
+		if (cause instanceof SWORDClientException) {
+			return (SWORDClientException) cause;
+		}
+		log.error("Unexpected error processing request", cause);
+		if (cause instanceof Exception) {
+			return new SWORDClientException(cause.getMessage(), (Exception) cause);
+		}
+		return new SWORDClientException(String.valueOf(cause));
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.util.concurrent.Future;
+
+import org.purl.sword.base.DepositResponse;
+import org.purl.sword.base.ServiceDocument;
+
+/**
+ * Interface for a SWORD client that does not block the calling thread. 
+ * Each method returns a Future for the result. If the request fails, 
+ * the Future throws an ExecutionException whose cause is the 
+ * SWORDClientException. Cancelling the Future aborts the request, 
+ * including any transfer that is in progress. 
+ */
+public interface AsyncSWORDClient 
+{
+	/**
+	 * Retrieve a service document. 
+	 * 
+	 * @param url The location of the service document. 
+	 * @param onBehalfOf The user, or <code>null</code>. 
+	 * @param callback Notified when the request has finished, or <code>null</code>. 
+	 * @return The future result. 
+	 */
+	public Future<ClientResult<ServiceDocument>> getServiceDocument( String url, 
+			String onBehalfOf, ClientCallback<ServiceDocument> callback );
+
+	/**
+	 * Post a file to the server. 
+	 * 
+	 * @param message The message that contains the post information. 
+	 * @param callback Notified when the request has finished, or <code>null</code>. 
+	 * @return The future result. 
+	 */
+	public Future<ClientResult<DepositResponse>> postFile( PostMessage message, 
+			ClientCallback<DepositResponse> callback );
+}
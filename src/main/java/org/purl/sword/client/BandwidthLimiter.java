@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+/**
+ * A token bucket that limits the rate at which data is sent. One limiter 
+ * can be shared by several uploads, so that together they do not exceed 
+ * the rate. An upload that takes more than the available tokens leaves 
+ * the bucket in debt, and the next upload waits for the debt to be repaid. 
+ */
+public class BandwidthLimiter {
+
+	/**
+	 * The smallest number of bytes that the bucket can hold.
+	 */
+	private static final long MIN_CAPACITY = 16 * 1024;
+
+	/**
+	 * The rate, in bytes per second.
+	 */
+	private final long bytesPerSecond;
+
+	/**
+	 * The number of bytes that can be sent in a burst.
+	 */
+	private final long capacity;
+
+	/**
+	 * The number of bytes that can be sent now. This is negative if the
+	 * bucket is in debt.
+	 */
+	private double tokens;
+
+	/**
+	 * The time at which the tokens were last updated, in nanoseconds.
+	 */
+	private long lastUpdate;
+
+	/**
+	 * Create a limiter that allows a burst of a quarter of a second's data.
+	 * 
+	 * @param bytesPerSecond
+	 *            The rate, in bytes per second.
+	 */
+	public BandwidthLimiter(long bytesPerSecond) {
+		this(bytesPerSecond, Math.max(MIN_CAPACITY, bytesPerSecond / 4));
+	}
+
+	/**
+	 * Create a new limiter.
+	 * 
+	 * @param bytesPerSecond
+	 *            The rate, in bytes per second.
+	 * @param capacity
+	 *            The number of bytes that can be sent in a burst.
+	 */
+	public BandwidthLimiter(long bytesPerSecond, long capacity) {
+		if (bytesPerSecond <= 0) {
+			throw new IllegalArgumentException("bytesPerSecond must be positive");
+		}
+		this.bytesPerSecond = bytesPerSecond;
+		this.capacity = capacity;
+		this.tokens = capacity;
+		this.lastUpdate = System.nanoTime();
+	}
+
+	/**
+	 * Get the rate.
+	 * 
+	 * @return The rate, in bytes per second.
+	 */
+	public long getBytesPerSecond() {
+		return bytesPerSecond;
+	}
+
+	/**
+	 * Wait until the bytes can be sent.
+	 * 
+	 * @param bytes
+	 *            The number of bytes.
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while waiting.
+	 */
+	public void acquire(int bytes) throws InterruptedException {
+		long wait = reserve(bytes);
+		if (wait > 0) {
+			Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+		}
+	}
+
+	/**
+	 * Take the tokens for the bytes from the bucket.
+	 * 
+	 * @param bytes
+	 *            The number of bytes.
+	 * @return The time to wait before the bytes are sent, in nanoseconds.
+	 */
+	synchronized long reserve(int bytes) {
+		long now = System.nanoTime();
+		tokens = Math.min(capacity, tokens + (now - lastUpdate) * bytesPerSecond / 1e9);
+		lastUpdate = now;
+		tokens -= bytes;
+		if (tokens >= 0) {
+			return 0;
+		}
+		return (long) (-tokens * 1e9 / bytesPerSecond);
+	}
+}
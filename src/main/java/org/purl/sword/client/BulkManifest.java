@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates the list of messages for a bulk deposit, either from a CSV 
+ * manifest or by scanning a directory. 
+ * 
+ * Each line of a manifest has the columns: file, destination, filetype, 
+ * packaging, slug and onBehalfOf. Only the file is required; empty columns 
+ * use the default destination and file type, or are not sent. Fields can 
+ * be enclosed in double quotes. Blank lines, lines that start with '#' and 
+ * a header line that starts with "file" are ignored. A relative file is 
+ * resolved against the directory that contains the manifest. 
+ */
+public class BulkManifest {
+
+	/**
+	 * The default destination, or null.
+	 */
+	private String defaultDestination;
+
+	/**
+	 * The default file type, or null.
+	 */
+	private String defaultFiletype;
+
+	/**
+	 * Create a new instance.
+	 * 
+	 * @param defaultDestination
+	 *            The destination for items that do not specify one, or 
+	 *            <code>null</code>.
+	 * @param defaultFiletype
+	 *            The file type for items that do not specify one, or 
+	 *            <code>null</code>.
+	 */
+	public BulkManifest(String defaultDestination, String defaultFiletype) {
+		this.defaultDestination = defaultDestination;
+		this.defaultFiletype = defaultFiletype;
+	}
+
+	/**
+	 * Read the messages from a CSV manifest.
+	 * 
+	 * @param manifest
+	 *            The manifest file.
+	 * @return The messages, in the order that they appear in the manifest.
+	 * @throws IOException
+	 *             If the manifest cannot be read, or a line is not valid.
+	 */
+	public List<PostMessage> read(File manifest) throws IOException {
+		List<PostMessage> messages = new ArrayList<PostMessage>();
+		File base = manifest.getAbsoluteFile().getParentFile();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(manifest), "UTF-8"));
+		try {
+			String line;
+			int number = 0;
+			boolean first = true;
+			while ((line = reader.readLine()) != null) {
+				number++;
+				String trimmed = line.trim();
+				if (trimmed.length() == 0 || trimmed.startsWith("#")) {
+					continue;
+				}
+
+				List<String> fields = parseLine(line);
+				if (first) {
+					first = false;
+					if ("file".equalsIgnoreCase(fields.get(0).trim())) {
+						continue;
+					}
+				}
+
+				String path = field(fields, 0);
+				if (path == null) {
+					throw new IOException(manifest + " line " + number + ": no file");
+				}
+				File file = new File(path);
+				if (!file.isAbsolute()) {
+					file = new File(base, path);
+				}
+				try {
+					messages.add(createMessage(file, field(fields, 1), 
+							field(fields, 2), field(fields, 3), field(fields, 4), 
+							field(fields, 5)));
+				} catch (IOException ex) {
+					throw new IOException(manifest + " line " + number + ": " 
+							+ ex.getMessage());
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return messages;
+	}
+
+	/**
+	 * Create a message for each file in a directory and its subdirectories.
+	 * The files are sent to the default destination with the default file 
+	 * type. Hidden files are ignored.
+	 * 
+	 * @param directory
+	 *            The directory.
+	 * @return The messages, sorted by path.
+	 * @throws IOException
+	 *             If the directory cannot be read, or there is no default 
+	 *             destination or file type.
+	 */
+	public List<PostMessage> scan(File directory) throws IOException {
+		if (!directory.isDirectory()) {
+			throw new IOException(directory + " is not a directory");
+		}
+		List<PostMessage> messages = new ArrayList<PostMessage>();
+		scan(directory, messages);
+		return messages;
+	}
+
+	/**
+	 * Add the files in a directory to the list.
+	 * 
+	 * @param directory
+	 *            The directory.
+	 * @param messages
+	 *            The list of messages.
+	 * @throws IOException
+	 *             If the directory cannot be read.
+	 */
+	private void scan(File directory, List<PostMessage> messages) throws IOException {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			throw new IOException("Unable to list " + directory);
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.isHidden()) {
+				continue;
+			}
+			if (file.isDirectory()) {
+				scan(file, messages);
+			} else {
+				messages.add(createMessage(file, null, null, null, null, null));
+			}
+		}
+	}
+
+	/**
+	 * Create the message for a single item.
+	 * 
+	 * @return The message.
+	 * @throws IOException
+	 *             If there is no destination or file type for the item.
+	 */
+	private PostMessage createMessage(File file, String destination, 
+			String filetype, String packaging, String slug, String onBehalfOf)
+			throws IOException {
+		if (destination == null) {
+			destination = defaultDestination;
+		}
+		if (destination == null) {
+			throw new IOException("No destination for " + file);
+		}
+		if (filetype == null) {
+			filetype = defaultFiletype;
+		}
+		if (filetype == null) {
+			throw new IOException("No file type for " + file);
+		}
+
+		PostMessage message = new PostMessage();
+		message.setFilepath(file.getAbsolutePath());
+		message.setDestination(destination);
+		message.setFiletype(filetype);
+		message.setFormatNamespace(packaging);
+		message.setSlug(slug);
+		message.setOnBehalfOf(onBehalfOf);
+		return message;
+	}
+
+	/**
+	 * Get a field, or null if it is empty or missing.
+	 */
+	private static String field(List<String> fields, int index) {
+		if (index >= fields.size()) {
+			return null;
+		}
+		String value = fields.get(index).trim();
+		return (value.length() == 0) ? null : value;
+	}
+
+	/**
+	 * Split a line of the manifest into fields. Fields are separated by 
+	 * commas and can be enclosed in double quotes. A double quote within a 
+	 * quoted field is written as two double quotes.
+	 * 
+	 * @param line
+	 *            The line.
+	 * @return The fields.
+	 */
+	static List<String> parseLine(String line) {
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"') {
+					if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+						field.append('"');
+						i++;
+					} else {
+						quoted = false;
+					}
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+}
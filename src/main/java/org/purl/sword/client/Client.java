@@ -37,42 +37,70 @@
 package org.purl.sword.client;
 
 import java.io.*;
+import java.net.ConnectException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.NoSuchAlgorithmException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.httpclient.DefaultHttpMethodRetryHandler;
 import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpException;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpState;
 import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.URIException;
 import org.apache.commons.httpclient.UsernamePasswordCredentials;
 import org.apache.commons.httpclient.auth.AuthScope;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
 import org.apache.commons.httpclient.methods.FileRequestEntity;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.InputStreamRequestEntity;
 import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.params.HttpMethodParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
 import org.apache.log4j.Logger;
+import org.purl.sword.atom.Link;
 import org.purl.sword.base.ChecksumUtils;
+import org.purl.sword.base.Collection;
 import org.purl.sword.base.DepositResponse;
 import org.purl.sword.base.HttpHeaders;
 import org.purl.sword.base.SWORDErrorDocument;
 import org.purl.sword.base.ServiceDocument;
+import org.purl.sword.base.ServicePartitioner;
+import org.purl.sword.base.ServiceSnapshot;
 import org.purl.sword.base.SwordValidationInfo;
 import org.purl.sword.base.UnmarshallException;
+import org.purl.sword.base.Workspace;
 
 /**
  * This is an example Client implementation to demonstrate how to connect to a
  * SWORD server. The client supports BASIC HTTP Authentication. This can be
  * initialised by setting a username and password.
  * 
+ * A client created with the pooled constructor can be shared by several 
+ * threads, once it has been configured. The retrieveServiceDocument and 
+ * deposit methods return the status and validation information with each 
+ * result, and the credentials are held separately for each request. The 
+ * getStatus and getLastUnmarshallInfo methods only report the most recent 
+ * request, so they are not useful when the client is shared.
+ * 
  * @author Neil Taylor
  */
 public class Client implements SWORDClient {
 	/**
 	 * The status field for the response code from the recent network access.
 	 */
-	private Status status;
+	private volatile Status status;
 
 	/**
 	 * The name of the server to contact.
@@ -87,17 +115,80 @@ public class Client implements SWORDClient {
 	/**
 	 * Specifies if the network access should use HTTP authentication.
 	 */
-	private boolean doAuthentication;
+	private volatile boolean doAuthentication;
 
 	/**
 	 * The username to use for Basic Authentication.
 	 */
-	private String username;
+	private volatile String username;
 
 	/**
 	 * User password that is to be used.
 	 */
-	private String password;
+	private volatile String password;
+
+	/**
+	 * The realm that the credentials apply to, or null for any realm.
+	 */
+	private volatile String realm;
+
+	/**
+	 * Flag to indicate if the credentials are sent with the first request,
+	 * rather than after the server has challenged the client.
+	 */
+	private volatile boolean preemptiveAuthentication;
+
+	/**
+	 * Flag to indicate if a deposit waits for a 100 Continue response from
+	 * the server before the file is sent.
+	 */
+	private volatile boolean expectContinue;
+
+	/**
+	 * The policy for repeating requests that have failed.
+	 */
+	private volatile RetryPolicy retryPolicy = RetryPolicy.NONE;
+
+	/**
+	 * Limits the number of requests to each host, or null.
+	 */
+	private volatile AdaptiveLimiter concurrencyLimiter;
+
+	/**
+	 * Limits the rate at which all files are sent, or null.
+	 */
+	private volatile BandwidthLimiter bandwidthLimiter;
+
+	/**
+	 * Limits the rate at which files are sent to each host. 
+	 */
+	private final Map<String, BandwidthLimiter> hostBandwidthLimiters = 
+		new ConcurrentHashMap<String, BandwidthLimiter>();
+
+	/**
+	 * Receives reports on the progress of each file that is posted, or null.
+	 */
+	private volatile ProgressListener progressListener;
+
+	/**
+	 * The checksums of files that have been posted, or null.
+	 */
+	private volatile DigestCache digestCache;
+
+	/**
+	 * The service documents that have been retrieved, or null.
+	 */
+	private volatile ServiceDocumentCache serviceDocumentCache;
+
+	/**
+	 * The number of times that a request has been repeated.
+	 */
+	private final AtomicLong retryCount = new AtomicLong();
+
+	/**
+	 * The number of requests that were repeated, but did not succeed.
+	 */
+	private final AtomicLong exhaustedCount = new AtomicLong();
 
 	/**
 	 * The userAgent to identify this application.
@@ -109,12 +200,28 @@ public class Client implements SWORDClient {
 	 */
 	private HttpClient client;
 
+	/**
+	 * The pooled connection manager, or null if the client uses a single
+	 * connection.
+	 */
+	private MultiThreadedHttpConnectionManager connectionManager;
+
+	/**
+	 * The thread that closes idle pooled connections, or null.
+	 */
+	private IdleConnectionTimeoutThread idleConnectionThread;
+
 	/**
 	 * The default connection timeout. This can be modified by using the
 	 * setSocketTimeout method.
 	 */
 	public static final int DEFAULT_TIMEOUT = 20000;
 
+	/**
+	 * The number of bytes in a megabyte.
+	 */
+	private static final long MEGABYTE = 1024 * 1024;
+
 	/**
 	 * Logger.
 	 */
@@ -132,6 +239,56 @@ public class Client implements SWORDClient {
         doAuthentication = false;
 	}
 
+	/**
+	 * Create a new Client that uses a pool of connections, and can be used
+	 * by several threads at the same time. Connections that are kept alive
+	 * by the server are reused by later requests. Call shutdown when the
+	 * client is no longer needed.
+	 * 
+	 * @param maxConnectionsPerHost
+	 *            The maximum number of connections to each server.
+	 * @param maxTotalConnections
+	 *            The maximum number of connections to all servers.
+	 * @param idleTimeout
+	 *            The time, in milliseconds, after which an idle connection
+	 *            is closed. Set to 0 to keep idle connections open.
+	 */
+	public Client(int maxConnectionsPerHost, int maxTotalConnections, long idleTimeout) {
+		connectionManager = new MultiThreadedHttpConnectionManager();
+		HttpConnectionManagerParams params = connectionManager.getParams();
+		params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+		params.setMaxTotalConnections(maxTotalConnections);
+
+		client = new HttpClient(connectionManager);
+		client.getParams().setParameter("http.socket.timeout",
+				new Integer(DEFAULT_TIMEOUT));
+		doAuthentication = false;
+
+		if (idleTimeout > 0) {
+			idleConnectionThread = new IdleConnectionTimeoutThread();
+			idleConnectionThread.setName("SWORD idle connection monitor");
+			idleConnectionThread.setConnectionTimeout(idleTimeout);
+			idleConnectionThread.setTimeoutInterval(Math.max(1000, idleTimeout / 2));
+			idleConnectionThread.addConnectionManager(connectionManager);
+			idleConnectionThread.start();
+		}
+	}
+
+	/**
+	 * Close the pooled connections and stop the idle connection thread. 
+	 * This has no effect on a client that was created with the default
+	 * constructor.
+	 */
+	public void shutdown() {
+		if (idleConnectionThread != null) {
+			idleConnectionThread.shutdown();
+			idleConnectionThread = null;
+		}
+		if (connectionManager != null) {
+			connectionManager.shutdown();
+		}
+	}
+
 	/**
 	 * Initialise the server that will be used to send the network access.
 	 * 
@@ -153,23 +310,325 @@ public class Client implements SWORDClient {
 	 *            The password.
 	 */
 	public void setCredentials(String username, String password) {
+		setCredentials(username, password, null);
+	}
+
+	/**
+	 * Set the user credentials that will be used when the server requests
+	 * authentication for the specified realm.
+	 * 
+	 * @param username
+	 *            The username.
+	 * @param password
+	 *            The password.
+	 * @param realm
+	 *            The realm, or <code>null</code> for any realm.
+	 * @throws IllegalStateException
+	 *             If a realm is given while preemptive authentication is
+	 *             enabled.
+	 */
+	public void setCredentials(String username, String password, String realm) {
+		if (realm != null && preemptiveAuthentication) {
+			throw new IllegalStateException(
+					"A realm cannot be used with preemptive authentication");
+		}
 		this.username = username;
 		this.password = password;
+		this.realm = realm;
 		doAuthentication = true;
 	}
 
 	/**
-	 * Set the basic credentials. You must have previously set the server and
-	 * port using setServer.
+	 * Set the policy for repeating requests that have failed. By default,
+	 * requests are not repeated.
+	 * 
+	 * @param retryPolicy
+	 *            The policy.
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = (retryPolicy == null) ? RetryPolicy.NONE : retryPolicy;
+	}
+
+	/**
+	 * Get the policy for repeating requests that have failed.
+	 * 
+	 * @return The policy.
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Set the limiter that controls how many requests are sent to each host
+	 * at the same time. This is only useful when the client is shared by 
+	 * several threads. 
+	 * 
+	 * @param limiter
+	 *            The limiter, or <code>null</code> for no limit.
+	 */
+	public void setConcurrencyLimiter(AdaptiveLimiter limiter) {
+		this.concurrencyLimiter = limiter;
+	}
+
+	/**
+	 * Get the limiter that controls how many requests are sent to each host.
+	 * 
+	 * @return The limiter, or <code>null</code>.
+	 */
+	public AdaptiveLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
+	}
+
+	/**
+	 * Set the limiter that controls the rate at which files are posted. The
+	 * limit applies to all of the files that are posted by this client, 
+	 * including those posted by other threads at the same time. 
+	 * 
+	 * @param limiter
+	 *            The limiter, or <code>null</code> for no limit.
+	 */
+	public void setBandwidthLimiter(BandwidthLimiter limiter) {
+		this.bandwidthLimiter = limiter;
+	}
+
+	/**
+	 * Set the limiter that controls the rate at which files are posted to a 
+	 * host. This applies as well as the limiter for all files. 
+	 * 
+	 * @param host
+	 *            The name of the host.
+	 * @param limiter
+	 *            The limiter, or <code>null</code> to remove the limit.
+	 */
+	public void setBandwidthLimiter(String host, BandwidthLimiter limiter) {
+		if (limiter == null) {
+			hostBandwidthLimiters.remove(host.toLowerCase());
+		} else {
+			hostBandwidthLimiters.put(host.toLowerCase(), limiter);
+		}
+	}
+
+	/**
+	 * Get the limiter that controls the rate at which files are posted.
+	 * 
+	 * @return The limiter, or <code>null</code>.
+	 */
+	public BandwidthLimiter getBandwidthLimiter() {
+		return bandwidthLimiter;
+	}
+
+	/**
+	 * Set the listener that receives reports on the progress of each file 
+	 * that is posted. The reports are made on the thread that posts the 
+	 * file. 
 	 * 
+	 * @param listener
+	 *            The listener, or <code>null</code>.
+	 */
+	public void setProgressListener(ProgressListener listener) {
+		this.progressListener = listener;
+	}
+
+	/**
+	 * Set the cache for the MD5 checksums of the files that are posted. By
+	 * default, there is no cache and the checksum is calculated each time.
+	 * 
+	 * @param cache
+	 *            The cache, or <code>null</code> to calculate the checksum 
+	 *            each time a file is posted.
+	 */
+	public void setDigestCache(DigestCache cache) {
+		this.digestCache = cache;
+	}
+
+	/**
+	 * Get the cache for the MD5 checksums of the files that are posted.
+	 * 
+	 * @return The cache, or <code>null</code>.
+	 */
+	public DigestCache getDigestCache() {
+		return digestCache;
+	}
+
+	/**
+	 * Set the cache for the service documents that are retrieved. If a 
+	 * document is in the cache, the server is asked to return it only if it 
+	 * has changed. 
+	 * 
+	 * @param cache
+	 *            The cache, or <code>null</code> to retrieve the document 
+	 *            each time.
+	 */
+	public void setServiceDocumentCache(ServiceDocumentCache cache) {
+		this.serviceDocumentCache = cache;
+	}
+
+	/**
+	 * Get the cache for the service documents that are retrieved.
+	 * 
+	 * @return The cache, or <code>null</code>.
+	 */
+	public ServiceDocumentCache getServiceDocumentCache() {
+		return serviceDocumentCache;
+	}
+
+	/**
+	 * Get the MD5 checksum of a file, using the cache if there is one.
+	 * 
+	 * @param filepath
+	 *            The path to the file.
+	 * @return The checksum.
+	 * @throws SWORDClientException
+	 *             If the file cannot be read, or MD5 is not supported.
+	 */
+	public String generateMD5(String filepath) throws SWORDClientException {
+		try {
+			DigestCache cache = digestCache;
+			if (cache == null) {
+				return ChecksumUtils.generateMD5(filepath);
+			}
+			return cache.getMD5(filepath);
+		} catch (NoSuchAlgorithmException nex) {
+			throw new SWORDClientException("Unable to use MD5. "
+					+ nex.getMessage(), nex);
+		} catch (IOException ioex) {
+			throw new SWORDClientException(ioex.getMessage(), ioex);
+		}
+	}
+
+	/**
+	 * Get the number of times that a request has been repeated by this 
+	 * client.
+	 * 
+	 * @return The number of retries.
+	 */
+	public long getRetryCount() {
+		return retryCount.get();
+	}
+
+	/**
+	 * Get the number of requests that were repeated, but still did not
+	 * succeed.
+	 * 
+	 * @return The number of requests.
+	 */
+	public long getRetryExhaustedCount() {
+		return exhaustedCount.get();
+	}
+
+	/**
+	 * Determine if credentials have been set for this client.
+	 * 
+	 * @return True if the requests are authenticated.
+	 */
+	boolean isAuthenticating() {
+		return doAuthentication;
+	}
+
+	/**
+	 * Get the username that has been set for this client.
+	 * 
+	 * @return The username.
+	 */
+	String getUsername() {
+		return username;
+	}
+
+	/**
+	 * Get the password that has been set for this client.
+	 * 
+	 * @return The password.
+	 */
+	String getPassword() {
+		return password;
+	}
+
+	/**
+	 * Set whether the Basic credentials are sent with the first request. 
+	 * Otherwise, they are only sent after the server has rejected a request 
+	 * with a 401 response, which means that a deposit is sent twice. 
+	 * 
+	 * The credentials are sent before the server has named its realm, so 
+	 * preemptive authentication cannot be combined with credentials that are
+	 * restricted to a realm.
+	 * 
+	 * @param preemptive
+	 *            True if the credentials are sent with the first request.
+	 * @throws IllegalStateException
+	 *             If the credentials have been set for a realm.
+	 */
+	public void setPreemptiveAuthentication(boolean preemptive) {
+		if (preemptive && realm != null) {
+			throw new IllegalStateException(
+					"Preemptive authentication cannot be used with a realm");
+		}
+		this.preemptiveAuthentication = preemptive;
+		client.getParams().setAuthenticationPreemptive(preemptive);
+	}
+
+	/**
+	 * Determine if the Basic credentials are sent with the first request.
+	 * 
+	 * @return True if the credentials are sent with the first request.
+	 */
+	public boolean isPreemptiveAuthentication() {
+		return preemptiveAuthentication;
+	}
+
+	/**
+	 * Set whether a deposit sends the <code>Expect: 100-continue</code> 
+	 * header. The file is then only sent once the server has accepted the
+	 * headers, so a request that is rejected because of its credentials or 
+	 * headers does not transmit the file. This is disabled by default, 
+	 * because some servers and proxies do not answer the header, and the 
+	 * client then waits before it sends the file. Preemptive authentication
+	 * avoids the second transmission without relying on the server.
+	 * 
+	 * @param expectContinue
+	 *            True if the header is sent.
+	 */
+	public void setExpectContinue(boolean expectContinue) {
+		this.expectContinue = expectContinue;
+	}
+
+	/**
+	 * Determine if a deposit sends the <code>Expect: 100-continue</code> 
+	 * header.
+	 * 
+	 * @return True if the header is sent.
+	 */
+	public boolean isExpectContinue() {
+		return expectContinue;
+	}
+
+	/**
+	 * Create the state for a single request, holding the basic credentials
+	 * for the server that the method will be sent to. The state is not
+	 * shared with other requests, so the credentials for one request do not
+	 * affect another.
+	 * 
+	 * @param method
+	 *            The method that will be executed.
 	 * @param username
+	 *            The username, or <code>null</code> for no authentication.
 	 * @param password
+	 *            The password.
+	 * @return The state.
+	 * @throws URIException
+	 *             If the method does not have a valid URI.
 	 */
-	private void setBasicCredentials(String username, String password) {
-		log.debug("server: " + server + " port: " + port + " u: '" + username
-				+ "' p '" + password + "'");
-		client.getState().setCredentials(new AuthScope(server, port),
-				new UsernamePasswordCredentials(username, password));
+	private HttpState createState(HttpMethod method, String username, String password)
+			throws URIException {
+		HttpState state = new HttpState();
+		if (username != null) {
+			String host = method.getURI().getHost();
+			int targetPort = method.getURI().getPort();
+			log.debug("server: " + host + " port: " + targetPort + " u: '" + username + "'");
+			state.setCredentials(new AuthScope(host, targetPort, realm),
+					new UsernamePasswordCredentials(username, password));
+			method.setDoAuthentication(true);
+		}
+		return state;
 	}
 
 	/**
@@ -210,6 +669,7 @@ public class Client implements SWORDClient {
 	 */
 	public void clearCredentials() {
 		client.getState().clearProxyCredentials();
+		realm = null;
 		doAuthentication = false;
 	}
 
@@ -258,6 +718,88 @@ public class Client implements SWORDClient {
 	 */
 	public ServiceDocument getServiceDocument(String url, String onBehalfOf)
 			throws SWORDClientException {
+		ClientResult<ServiceDocument> result = retrieveServiceDocument(url, onBehalfOf);
+		status = result.getStatus();
+		lastUnmarshallInfo = result.getValidationInfo();
+		if (result.getValue() == null) {
+			throw new SWORDClientException(
+					"Received error from service document request: "
+							+ status);
+		}
+		return result.getValue();
+	}
+
+	/**
+	 * Retrieve the service document, using the credentials that have been
+	 * set for this client. This method can be called by several threads at
+	 * the same time.
+	 * 
+	 * @param url
+	 *            The location of the service document.
+	 * @param onBehalfOf
+	 *            The user, or <code>null</code>.
+	 * @return The result. The value is <code>null</code> if the server did
+	 *         not return the service document.
+	 * 
+	 * @throws SWORDClientException
+	 *             If there is an error accessing the resource.
+	 */
+	public ClientResult<ServiceDocument> retrieveServiceDocument(String url, 
+			String onBehalfOf) throws SWORDClientException {
+		if (doAuthentication) {
+			return retrieveServiceDocument(url, onBehalfOf, username, password);
+		}
+		return retrieveServiceDocument(url, onBehalfOf, null, null);
+	}
+
+	/**
+	 * Retrieve the service document with the specified credentials. This
+	 * method can be called by several threads at the same time.
+	 * 
+	 * @param url
+	 *            The location of the service document.
+	 * @param onBehalfOf
+	 *            The user, or <code>null</code>.
+	 * @param username
+	 *            The username, or <code>null</code> for no authentication.
+	 * @param password
+	 *            The password.
+	 * @return The result. The value is <code>null</code> if the server did
+	 *         not return the service document.
+	 * 
+	 * @throws SWORDClientException
+	 *             If there is an error accessing the resource.
+	 */
+	public ClientResult<ServiceDocument> retrieveServiceDocument(String url, 
+			String onBehalfOf, String username, String password) 
+			throws SWORDClientException {
+		return retrieveServiceDocument(url, onBehalfOf, username, password, null);
+	}
+
+	/**
+	 * Retrieve the service document with the specified credentials. The 
+	 * request is registered with the handle before it is sent, so that 
+	 * another thread can abort it.
+	 * 
+	 * @param url
+	 *            The location of the service document.
+	 * @param onBehalfOf
+	 *            The user, or <code>null</code>.
+	 * @param username
+	 *            The username, or <code>null</code> for no authentication.
+	 * @param password
+	 *            The password.
+	 * @param handle
+	 *            The handle, or <code>null</code>.
+	 * @return The result.
+	 * 
+	 * @throws SWORDClientException
+	 *             If there is an error accessing the resource, or the 
+	 *             request has been aborted.
+	 */
+	ClientResult<ServiceDocument> retrieveServiceDocument(String url, 
+			String onBehalfOf, String username, String password, 
+			RequestHandle handle) throws SWORDClientException {
 		URL serviceDocURL = null;
 		try {
 			serviceDocURL = new URL(url);
@@ -276,62 +818,228 @@ public class Client implements SWORDClient {
 			}
 		}
 		
-		GetMethod httpget = new GetMethod(serviceDocURL.toExternalForm());
-		if (doAuthentication) {
-			// this does not perform any check on the username password. It
-			// relies on the server to determine if the values are correct.
-			setBasicCredentials(username, password);
-			httpget.setDoAuthentication(true);
-		}
-
         Properties properties = new Properties();
-
 		if (containsValue(onBehalfOf)) {
-			log.debug("Setting on-behalf-of: " + onBehalfOf);
-			httpget.addRequestHeader(new Header(HttpHeaders.X_ON_BEHALF_OF,
-					onBehalfOf));
             properties.put(HttpHeaders.X_ON_BEHALF_OF, onBehalfOf);
 		}
-
 		if (containsValue(userAgent)) {
-			log.debug("Setting userAgent: " + userAgent);
-			httpget.addRequestHeader(new Header(HttpHeaders.USER_AGENT,
-					userAgent));
             properties.put(HttpHeaders.USER_AGENT, userAgent);
 		}
 
-		ServiceDocument doc = null;
+		String location = serviceDocURL.toExternalForm();
+		ServiceDocumentCache cache = serviceDocumentCache;
+		ServiceDocumentCache.Entry cached = null;
+		if (cache != null) {
+			cached = cache.get(location, username, onBehalfOf);
+		}
 
-		try {
-			client.executeMethod(httpget);
-			// store the status code
-			status = new Status(httpget.getStatusCode(), httpget
-					.getStatusText());
-
-			if (status.getCode() == HttpStatus.SC_OK) {
-				String message = readResponse(httpget.getResponseBodyAsStream());
-				log.debug("returned message is: " + message);
-				doc = new ServiceDocument();
-				lastUnmarshallInfo = doc.unmarshall(message, properties);
-			} else {
-				throw new SWORDClientException(
-						"Received error from service document request: "
-								+ status);
+		RetryPolicy policy = retryPolicy;
+		for (int attempt = 1; ; attempt++) {
+			GetMethod httpget = new GetMethod(location);
+			disableDefaultRetry(httpget, policy);
+
+			if (containsValue(onBehalfOf)) {
+				log.debug("Setting on-behalf-of: " + onBehalfOf);
+				httpget.addRequestHeader(new Header(HttpHeaders.X_ON_BEHALF_OF,
+						onBehalfOf));
 			}
-		} catch (HttpException ex) {
-			throw new SWORDClientException(ex.getMessage(), ex);
-		} catch (IOException ioex) {
-			throw new SWORDClientException(ioex.getMessage(), ioex);
-		} catch (UnmarshallException uex) {
-			throw new SWORDClientException(uex.getMessage(), uex);
-		} finally {
-			httpget.releaseConnection();
+
+			if (containsValue(userAgent)) {
+				log.debug("Setting userAgent: " + userAgent);
+				httpget.addRequestHeader(new Header(HttpHeaders.USER_AGENT,
+						userAgent));
+			}
+
+			if (cached != null && cached.getETag() != null) {
+				httpget.addRequestHeader(new Header(HttpHeaders.IF_NONE_MATCH,
+						cached.getETag()));
+			}
+			if (cached != null && cached.getLastModified() != null) {
+				httpget.addRequestHeader(new Header(HttpHeaders.IF_MODIFIED_SINCE,
+						cached.getLastModified()));
+			}
+
+			long delay;
+			try {
+				// this does not perform any check on the username password. It
+				// relies on the server to determine if the values are correct.
+				HttpState state = createState(httpget, username, password);
+				execute(httpget, state, handle, 0);
+				Status result = new Status(httpget.getStatusCode(), httpget
+						.getStatusText());
+
+				if (result.getCode() == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+					log.debug("Using the cached service document for " + location);
+					return getCachedDocument(cached, properties, result, attempt);
+				}
+
+				if (result.getCode() == HttpStatus.SC_OK) {
+					String message = readResponse(httpget.getResponseBodyAsStream());
+					log.debug("returned message is: " + message);
+					ServiceDocument doc = new ServiceDocument();
+					SwordValidationInfo info = doc.unmarshall(message, properties);
+
+					String etag = getResponseHeader(httpget, HttpHeaders.ETAG);
+					String lastModified = getResponseHeader(httpget, HttpHeaders.LAST_MODIFIED);
+					// a document without either header cannot be revalidated
+					if (cache != null && (etag != null || lastModified != null)) {
+						cache.put(location, username, onBehalfOf, 
+								message.getBytes("UTF-8"), etag, lastModified, doc.snapshot());
+					}
+					return new ClientResult<ServiceDocument>(doc, result, info, attempt);
+				}
+
+				delay = policy.getDelay(attempt, result.getCode(), 
+						getRetryAfter(httpget), true);
+				if (delay == RetryPolicy.NO_RETRY) {
+					countExhausted(attempt);
+					return new ClientResult<ServiceDocument>(null, result, null, attempt);
+				}
+				log.info("Retrying " + serviceDocURL + " after status " + result);
+			} catch (HttpException ex) {
+				throw new SWORDClientException(ex.getMessage(), ex);
+			} catch (IOException ioex) {
+				delay = policy.getDelay(attempt, ioex, true);
+				if (delay == RetryPolicy.NO_RETRY) {
+					countExhausted(attempt);
+					throw new SWORDClientException(ioex.getMessage(), ioex);
+				}
+				log.info("Retrying " + serviceDocURL + " after " + ioex);
+			} catch (UnmarshallException uex) {
+				throw new SWORDClientException(uex.getMessage(), uex);
+			} finally {
+				httpget.releaseConnection();
+			}
+			waitToRetry(delay, handle);
 		}
+	}
 
-		return doc;
+	/**
+	 * Get the result for a service document that has not changed since it 
+	 * was cached. Each caller has its own copy of the document, created from
+	 * the cached snapshot, and its own validation information. The cached 
+	 * bytes are only parsed if the entry was loaded from a file. 
+	 * 
+	 * @param cached
+	 *            The cached document.
+	 * @param properties
+	 *            The properties that are used to validate the document.
+	 * @param status
+	 *            The status of the request.
+	 * @param attempt
+	 *            The number of attempts that were made.
+	 * @return The result.
+	 * @throws UnmarshallException
+	 *             If the cached document cannot be parsed.
+	 * @throws UnsupportedEncodingException
+	 *             If UTF-8 is not supported.
+	 */
+	private ClientResult<ServiceDocument> getCachedDocument(
+			ServiceDocumentCache.Entry cached, Properties properties, 
+			Status status, int attempt) 
+			throws UnmarshallException, UnsupportedEncodingException {
+		ServiceSnapshot snapshot = cached.getSnapshot();
+		if (snapshot == null) {
+			ServiceDocument doc = new ServiceDocument();
+			SwordValidationInfo info = doc.unmarshall(
+					new String(cached.getContent(), "UTF-8"), properties);
+			cached.setSnapshot(doc.snapshot());
+			return new ClientResult<ServiceDocument>(doc, status, info, attempt);
+		}
+		ServiceDocument doc = new ServiceDocument(snapshot.toService());
+		return new ClientResult<ServiceDocument>(doc, status, 
+				doc.validate(properties), attempt);
 	}
 
-    private SwordValidationInfo lastUnmarshallInfo;
+	/**
+	 * Get the value of a response header.
+	 * 
+	 * @param method
+	 *            The method that has been executed.
+	 * @param name
+	 *            The name of the header.
+	 * @return The value, or <code>null</code> if the header is not present.
+	 */
+	private static String getResponseHeader(HttpMethod method, String name) {
+		Header header = method.getResponseHeader(name);
+		return (header == null) ? null : header.getValue();
+	}
+
+	/**
+	 * Retrieve the nested service document for a collection. This is the 
+	 * document referred to by the collection's sword:service element. This 
+	 * calls getNestedServiceDocument(collection,null).
+	 * 
+	 * @param collection
+	 *            The collection.
+	 * @return The nested ServiceDocument, or <code>null</code> if the 
+	 *         collection does not refer to a nested service document.
+	 * 
+	 * @throws SWORDClientException
+	 *             If there is an error accessing the resource.
+	 */
+	public ServiceDocument getNestedServiceDocument(Collection collection)
+			throws SWORDClientException {
+		return getNestedServiceDocument(collection, null);
+	}
+
+	/**
+	 * Retrieve the nested service document for a collection, on behalf of 
+	 * the specified user.
+	 * 
+	 * @param collection
+	 *            The collection.
+	 * @param onBehalfOf
+	 *            The user, or <code>null</code>.
+	 * @return The nested ServiceDocument, or <code>null</code> if the 
+	 *         collection does not refer to a nested service document.
+	 * 
+	 * @throws SWORDClientException
+	 *             If there is an error accessing the resource.
+	 */
+	public ServiceDocument getNestedServiceDocument(Collection collection, 
+			String onBehalfOf) throws SWORDClientException {
+		String nested = collection.getService();
+		if (!containsValue(nested)) {
+			return null;
+		}
+		return getServiceDocument(nested, onBehalfOf);
+	}
+
+	/**
+	 * Retrieve the next page of collections for a workspace, from a server 
+	 * that splits large service documents into pages. This is the nested
+	 * service document of the placeholder collection at the end of the 
+	 * page, or the document referred to by the workspace's atom:link with 
+	 * the relation "next". 
+	 * 
+	 * @param workspace
+	 *            The workspace.
+	 * @param onBehalfOf
+	 *            The user, or <code>null</code>.
+	 * @return The ServiceDocument for the next page, or <code>null</code> 
+	 *         if the workspace does not have a next page.
+	 * 
+	 * @throws SWORDClientException
+	 *             If there is an error accessing the resource.
+	 */
+	public ServiceDocument getNextServiceDocument(Workspace workspace, 
+			String onBehalfOf) throws SWORDClientException {
+		for (Collection collection : workspace.getCollections()) {
+			if (ServicePartitioner.isNextPage(collection)) {
+				return getNestedServiceDocument(collection, onBehalfOf);
+			}
+		}
+		for (Link link : workspace.getLinks()) {
+			if (ServicePartitioner.REL_NEXT.equals(link.getRel()) && 
+					containsValue(link.getHref())) {
+				return getServiceDocument(link.getHref(), onBehalfOf);
+			}
+		}
+		return null;
+	}
+
+    private volatile SwordValidationInfo lastUnmarshallInfo;
 
     /**
      * 
@@ -354,114 +1062,391 @@ public class Client implements SWORDClient {
 	 */
 	public DepositResponse postFile(PostMessage message)
 			throws SWORDClientException {
+		ClientResult<DepositResponse> result = deposit(message);
+		status = result.getStatus();
+		if (result.getValidationInfo() != null) {
+			lastUnmarshallInfo = result.getValidationInfo();
+		}
+		return result.getValue();
+	}
+
+	/**
+	 * Post a file to the server, using the credentials that have been set 
+	 * for this client. This method can be called by several threads at the 
+	 * same time.
+	 * 
+	 * @param message
+	 *            The message that contains the post information.
+	 * @return The result, which holds the deposit response or error document.
+	 * 
+	 * @throws SWORDClientException
+	 *             if there is an error during the post operation.
+	 */
+	public ClientResult<DepositResponse> deposit(PostMessage message)
+			throws SWORDClientException {
+		if (doAuthentication) {
+			return deposit(message, username, password);
+		}
+		return deposit(message, null, null);
+	}
+
+	/**
+	 * Post a file to the server with the specified credentials. This method
+	 * can be called by several threads at the same time.
+	 * 
+	 * @param message
+	 *            The message that contains the post information.
+	 * @param username
+	 *            The username, or <code>null</code> for no authentication.
+	 * @param password
+	 *            The password.
+	 * @return The result, which holds the deposit response or error document.
+	 * 
+	 * @throws SWORDClientException
+	 *             if there is an error during the post operation.
+	 */
+	public ClientResult<DepositResponse> deposit(PostMessage message, 
+			String username, String password) throws SWORDClientException {
+		return deposit(message, username, password, null);
+	}
+
+	/**
+	 * Post a file to the server with the specified credentials. The request
+	 * is registered with the handle before it is sent, so that another 
+	 * thread can abort it.
+	 * 
+	 * @param message
+	 *            The message that contains the post information.
+	 * @param username
+	 *            The username, or <code>null</code> for no authentication.
+	 * @param password
+	 *            The password.
+	 * @param handle
+	 *            The handle, or <code>null</code>.
+	 * @return The result, which holds the deposit response or error document.
+	 * 
+	 * @throws SWORDClientException
+	 *             if there is an error during the post operation, or the 
+	 *             request has been aborted.
+	 */
+	ClientResult<DepositResponse> deposit(PostMessage message, String username, 
+			String password, RequestHandle handle) throws SWORDClientException {
 		if (message == null) {
 			throw new SWORDClientException("Message cannot be null.");
 		}
 
+		String md5 = null;
+		if (message.isUseMD5()) {
+			md5 = message.getMD5();
+			if (md5 == null) {
+				md5 = generateMD5(message.getFilepath());
+			}
+			if (message.getChecksumError()) {
+				md5 = "1234567890";
+			}
+			log.debug("checksum error is: " + md5);
+		}
+
+		// the server can use the slug to detect a deposit that is repeated
+		boolean idempotent = containsValue(message.getSlug());
+		RetryPolicy policy = retryPolicy;
+		for (int attempt = 1; ; attempt++) {
+			PostMethod httppost = createPostMethod(message, md5);
+			disableDefaultRetry(httppost, policy);
+
+			DepositResponse response = null;
+			SwordValidationInfo info = null;
+			String messageBody = "";
+			long delay;
+			try {
+				HttpState state = createState(httppost, username, password);
+				execute(httppost, state, handle, 
+						new File(message.getFilepath()).length());
+				Status status = new Status(httppost.getStatusCode(), httppost
+						.getStatusText());
+
+				log.info("Checking the status code: " + status.getCode());
+
+				if (status.getCode() == HttpStatus.SC_ACCEPTED
+						|| status.getCode() == HttpStatus.SC_CREATED) {
+					messageBody = readResponse(httppost
+							.getResponseBodyAsStream());
+					response = new DepositResponse(status.getCode()); 
+					response.setLocation(httppost.getResponseHeader("Location").getValue());
+					// added call for the status code.
+					info = response.unmarshall(messageBody, new Properties());
+					return new ClientResult<DepositResponse>(response, status, info, attempt);
+				}
+
+				delay = policy.getDelay(attempt, status.getCode(), 
+						getRetryAfter(httppost), idempotent);
+				if (delay == RetryPolicy.NO_RETRY) {
+					countExhausted(attempt);
+					messageBody = readResponse(httppost
+							.getResponseBodyAsStream());
+					response = new DepositResponse(status.getCode());
+					response.unmarshallErrorDocument(messageBody);
+					return new ClientResult<DepositResponse>(response, status, info, attempt);
+				}
+				log.info("Retrying deposit to " + message.getDestination() 
+						+ " after status " + status);
+			} catch (HttpException ex) {
+				throw new SWORDClientException(ex.getMessage(), ex);
+			} catch (IOException ioex) {
+				delay = policy.getDelay(attempt, ioex, idempotent);
+				if (delay == RetryPolicy.NO_RETRY) {
+					countExhausted(attempt);
+					throw new SWORDClientException(ioex.getMessage(), ioex);
+				}
+				log.info("Retrying deposit to " + message.getDestination() 
+						+ " after " + ioex);
+			} catch (UnmarshallException uex) {
+				throw new SWORDClientException(uex.getMessage() + "(<pre>" + messageBody + "</pre>)", uex);
+			} finally {
+				httppost.releaseConnection();
+			}
+			waitToRetry(delay, handle);
+		}
+	}
+
+	/**
+	 * Create the method to post a file to the server.
+	 * 
+	 * @param message
+	 *            The message that contains the post information.
+	 * @param md5
+	 *            The checksum to send, or <code>null</code>.
+	 * @return The method.
+	 */
+	private PostMethod createPostMethod(PostMessage message, String md5) {
 		PostMethod httppost = new PostMethod(message.getDestination());
+		httppost.getParams().setBooleanParameter(
+				HttpMethodParams.USE_EXPECT_CONTINUE, expectContinue);
 
-		if (doAuthentication) {
-			setBasicCredentials(username, password);
-			httppost.setDoAuthentication(true);
+		if (md5 != null) {
+			httppost.addRequestHeader(new Header(
+					HttpHeaders.CONTENT_MD5, md5));
+		}
+
+		String filename = message.getFilename();
+		if (! "".equals(filename)) {
+			httppost.addRequestHeader(new Header(
+					HttpHeaders.CONTENT_DISPOSITION, " filename="
+							+ filename));
 		}
 
-		DepositResponse response = null;
+		if (containsValue(message.getSlug())) {
+			httppost.addRequestHeader(new Header(HttpHeaders.SLUG, message
+					.getSlug()));
+		}
+
+        if(message.getCorruptRequest())
+        {
+            // insert a header with an invalid boolean value
+            httppost.addRequestHeader(new Header(HttpHeaders.X_NO_OP, "Wibble"));
+        }else{
+            httppost.addRequestHeader(new Header(HttpHeaders.X_NO_OP, Boolean
+				.toString(message.isNoOp())));
+        }
+		httppost.addRequestHeader(new Header(HttpHeaders.X_VERBOSE, Boolean
+				.toString(message.isVerbose())));
+
+		String packaging = message.getPackaging();
+		if (packaging != null && packaging.length() > 0) {
+			httppost.addRequestHeader(new Header(
+					HttpHeaders.X_PACKAGING, packaging));
+		}
 
-		String messageBody = "";
+		String onBehalfOf = message.getOnBehalfOf();
+		if (containsValue(onBehalfOf)) {
+			httppost.addRequestHeader(new Header(
+					HttpHeaders.X_ON_BEHALF_OF, onBehalfOf));
+		}
 		
-		try {
-			if (message.isUseMD5()) {
-				String md5 = ChecksumUtils.generateMD5(message.getFilepath());
-				if (message.getChecksumError()) {
-					md5 = "1234567890";
-				}
-				log.debug("checksum error is: " + md5);
-				if (md5 != null) {
-					httppost.addRequestHeader(new Header(
-							HttpHeaders.CONTENT_MD5, md5));
+		String userAgent = message.getUserAgent();
+		if (containsValue(userAgent)) {
+			httppost.addRequestHeader(new Header(
+					HttpHeaders.USER_AGENT, userAgent));
+		}
+		
+		File file = new File(message.getFilepath());
+		List<BandwidthLimiter> limiters = getBandwidthLimiters(message.getDestination());
+		ProgressListener listener = progressListener;
+		RequestEntity requestEntity;
+		if (limiters.isEmpty() && listener == null) {
+			requestEntity = new FileRequestEntity(file, message.getFiletype());
+		} else {
+			requestEntity = new ThrottledFileRequestEntity(file, 
+					message.getFiletype(), message.getDestination(), 
+					limiters, listener);
+		}
+		httppost.setRequestEntity(requestEntity);
+		return httppost;
+	}
+
+	/**
+	 * Get the limiters that apply to a destination.
+	 * 
+	 * @param destination
+	 *            The URL of the destination.
+	 * @return The limiters, which may be empty.
+	 */
+	private List<BandwidthLimiter> getBandwidthLimiters(String destination) {
+		List<BandwidthLimiter> limiters = new ArrayList<BandwidthLimiter>();
+		BandwidthLimiter limiter = bandwidthLimiter;
+		if (limiter != null) {
+			limiters.add(limiter);
+		}
+		if (!hostBandwidthLimiters.isEmpty()) {
+			try {
+				String host = new URL(destination).getHost().toLowerCase();
+				limiter = hostBandwidthLimiters.get(host);
+				if (limiter != null) {
+					limiters.add(limiter);
 				}
+			} catch (MalformedURLException ex) {
+				log.warn("Unable to find the host for " + destination);
 			}
+		}
+		return limiters;
+	}
 
-			String filename = message.getFilename();
-			if (! "".equals(filename)) {
-				httppost.addRequestHeader(new Header(
-						HttpHeaders.CONTENT_DISPOSITION, " filename="
-								+ filename));
-			}
+	/**
+	 * Execute a method. If a limiter has been set, this waits until the 
+	 * limiter allows another request to the host, and then reports how the 
+	 * server responded. For a deposit, the time is scaled to a megabyte of
+	 * content, so that a large file is not mistaken for a slow server, and
+	 * any time spent waiting for a bandwidth limiter is not counted.
+	 * 
+	 * @param method
+	 *            The method.
+	 * @param state
+	 *            The state for the request.
+	 * @param handle
+	 *            The handle for the request, or <code>null</code>.
+	 * @param length
+	 *            The length of the content that is sent, or 0.
+	 * @throws IOException
+	 *             If there is an error sending the request.
+	 * @throws SWORDClientException
+	 *             If the request has been aborted, or the thread is 
+	 *             interrupted while waiting for the limiter.
+	 */
+	private void execute(HttpMethod method, HttpState state, RequestHandle handle,
+			long length) throws IOException, SWORDClientException {
+		if (handle != null) {
+			handle.start(method);
+		}
 
-			if (containsValue(message.getSlug())) {
-				httppost.addRequestHeader(new Header(HttpHeaders.SLUG, message
-						.getSlug()));
-			}
+		AdaptiveLimiter limiter = concurrencyLimiter;
+		if (limiter == null) {
+			client.executeMethod(null, method, state);
+			return;
+		}
 
-            if(message.getCorruptRequest())
-            {
-                // insert a header with an invalid boolean value
-                httppost.addRequestHeader(new Header(HttpHeaders.X_NO_OP, "Wibble"));
-            }else{
-                httppost.addRequestHeader(new Header(HttpHeaders.X_NO_OP, Boolean
-					.toString(message.isNoOp())));
-            }
-			httppost.addRequestHeader(new Header(HttpHeaders.X_VERBOSE, Boolean
-					.toString(message.isVerbose())));
-
-			String packaging = message.getPackaging();
-			if (packaging != null && packaging.length() > 0) {
-				httppost.addRequestHeader(new Header(
-						HttpHeaders.X_PACKAGING, packaging));
-			}
+		String host = method.getURI().getHost();
+		long started;
+		try {
+			started = limiter.acquire(host);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SWORDClientException("Interrupted while waiting to send the request", ex);
+		}
 
-			String onBehalfOf = message.getOnBehalfOf();
-			if (containsValue(onBehalfOf)) {
-				httppost.addRequestHeader(new Header(
-						HttpHeaders.X_ON_BEHALF_OF, onBehalfOf));
+		ThrottledFileRequestEntity throttled = null;
+		if (method instanceof EntityEnclosingMethod) {
+			RequestEntity entity = ((EntityEnclosingMethod) method).getRequestEntity();
+			if (entity instanceof ThrottledFileRequestEntity) {
+				throttled = (ThrottledFileRequestEntity) entity;
 			}
-			
-			String userAgent = message.getUserAgent();
-			if (containsValue(userAgent)) {
-				httppost.addRequestHeader(new Header(
-						HttpHeaders.USER_AGENT, userAgent));
-			}
-			
-			
-			FileRequestEntity requestEntity = new FileRequestEntity(
-			   new File(message.getFilepath()), message.getFiletype());
-			httppost.setRequestEntity(requestEntity);
-
-			client.executeMethod(httppost);
-			status = new Status(httppost.getStatusCode(), httppost
-					.getStatusText());
-
-			log.info("Checking the status code: " + status.getCode());
-
-			if (status.getCode() == HttpStatus.SC_ACCEPTED
-					|| status.getCode() == HttpStatus.SC_CREATED) {
-				messageBody = readResponse(httppost
-						.getResponseBodyAsStream());
-				response = new DepositResponse(status.getCode()); 
-				response.setLocation(httppost.getResponseHeader("Location").getValue());
-				// added call for the status code.
-				lastUnmarshallInfo = response.unmarshall(messageBody, new Properties());
+		}
+		long throttledBefore = (throttled == null) ? 0 : throttled.getThrottledTime();
+
+		boolean dropped = false;
+		long latency = -1;
+		try {
+			client.executeMethod(null, method, state);
+			int code = method.getStatusCode();
+			dropped = (code == HttpStatus.SC_SERVICE_UNAVAILABLE || code == 429);
+			latency = System.currentTimeMillis() - started;
+			if (throttled != null) {
+				// the client held the request back, not the server
+				latency = Math.max(0, latency - (throttled.getThrottledTime() - throttledBefore));
 			}
-			else {
-				messageBody = readResponse(httppost
-						.getResponseBodyAsStream());
-				response = new DepositResponse(status.getCode());
-				response.unmarshallErrorDocument(messageBody);
+			if (length > MEGABYTE) {
+				latency = latency * MEGABYTE / length;
 			}
-			return response;
-
-		} catch (NoSuchAlgorithmException nex) {
-			throw new SWORDClientException("Unable to use MD5. "
-					+ nex.getMessage(), nex);
-		} catch (HttpException ex) {
-			throw new SWORDClientException(ex.getMessage(), ex);
-		} catch (IOException ioex) {
-			throw new SWORDClientException(ioex.getMessage(), ioex);
-		} catch (UnmarshallException uex) {
-			throw new SWORDClientException(uex.getMessage() + "(<pre>" + messageBody + "</pre>)", uex);
+		} catch (IOException ex) {
+			// a timeout or refused connection shows that the server is overloaded
+			dropped = ex instanceof InterruptedIOException 
+					|| ex instanceof ConnectException;
+			throw ex;
 		} finally {
-			httppost.releaseConnection();
+			limiter.release(host, started, latency, dropped);
+		}
+	}
+
+	/**
+	 * Stop HttpClient from repeating the method itself when a retry policy
+	 * is in use, so that the policy decides which requests are repeated.
+	 * 
+	 * @param method
+	 *            The method.
+	 * @param policy
+	 *            The retry policy.
+	 */
+	private void disableDefaultRetry(HttpMethod method, RetryPolicy policy) {
+		if (policy.getMaxAttempts() > 1) {
+			method.getParams().setParameter(HttpMethodParams.RETRY_HANDLER,
+					new DefaultHttpMethodRetryHandler(0, false));
+		}
+	}
+
+	/**
+	 * Get the value of the Retry-After header.
+	 * 
+	 * @param method
+	 *            The method that has been executed.
+	 * @return The value, or <code>null</code>.
+	 */
+	private String getRetryAfter(HttpMethod method) {
+		Header header = method.getResponseHeader(HttpHeaders.RETRY_AFTER);
+		return (header == null) ? null : header.getValue();
+	}
+
+	/**
+	 * Update the counters when a request has finished without success.
+	 * 
+	 * @param attempts
+	 *            The number of attempts that were made.
+	 */
+	private void countExhausted(int attempts) {
+		if (attempts > 1) {
+			exhaustedCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Wait before a request is repeated.
+	 * 
+	 * @param delay
+	 *            The time to wait, in milliseconds.
+	 * @param handle
+	 *            The handle for the request, or <code>null</code>.
+	 * @throws SWORDClientException
+	 *             If the thread is interrupted, or the request is aborted.
+	 */
+	private void waitToRetry(long delay, RequestHandle handle) 
+			throws SWORDClientException {
+		retryCount.incrementAndGet();
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SWORDClientException("Interrupted while waiting to retry the request", ex);
+		}
+		if (handle != null && handle.isAborted()) {
+			throw new SWORDClientException("The request has been cancelled.");
 		}
 	}
 
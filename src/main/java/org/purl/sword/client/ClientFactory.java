@@ -90,7 +90,23 @@ public class ClientFactory {
 				.append("Command Mode: MultiPost - Post a file to multiple remote services.\n");
 		buffer
 				.append("swordclient -cmd -t multipost [user-options] [proxy-options] [post-options] \n");
-		buffer.append("            [-dest dest]");
+		buffer.append("            [-threads n] [-dest dest]");
+
+		buffer.append("\n\n");
+		buffer
+				.append("Command Mode: Bulk - Post each file in a manifest or directory.\n");
+		buffer
+				.append("swordclient -cmd -t bulk [user-options] [proxy-options] [post-options] \n");
+		buffer
+				.append("            (-manifest file | -dir directory) [-journal file] [-threads n]\n");
+		buffer
+				.append("            [-href url] [-filetype type] [-onBehalfOf name]");
+
+		buffer.append("\n\n");
+		buffer
+				.append("Command Mode: Validate - Validate a service document that is stored in a file.\n");
+		buffer
+				.append("swordclient -cmd -t validate -file file [-failFast]");
 
 		buffer.append("\n\n");
 		buffer.append("User options: \n");
@@ -98,7 +114,12 @@ public class ClientFactory {
 				.append("   -u username          Specify a username to access the remote service.\n");
 		buffer
 				.append("   -p password          Specify a password to access the remote service.\n");
-		buffer.append("                        Required if -u option is used.");
+		buffer.append("                        Required if -u option is used.\n");
+		buffer
+				.append("   -realm realm         Only send the credentials to the named realm.\n");
+		buffer
+				.append("   -preemptive          Send the credentials with the first request, rather than\n");
+		buffer.append("                        waiting for the server to ask for them.");
 
 		buffer.append("\n\n");
 		buffer.append("Proxy options: \n");
@@ -119,12 +140,17 @@ public class ClientFactory {
 		buffer.append("   -slug name           The slug value.\n");
 		buffer
 				.append("   -verbose             Request a verbose response from the server.\n");
+		buffer
+				.append("   -expectContinue      Wait for the server to accept the request headers\n");
+		buffer.append("                        before the file is sent.\n");
 
 		buffer.append("\n\n");
 		buffer.append("Other options: \n");
 		buffer.append("    -help               Show this message.\n");
 		buffer
-				.append("    -t type             The type of operation: service, post or multipost.\n");
+				.append("    -t type             The type of operation: service, post, multipost, bulk\n");
+		buffer
+				.append("                        or validate.\n");
 		buffer
 				.append("    -href url           The URL for the service or post document.\n");
 		buffer
@@ -147,6 +173,56 @@ public class ClientFactory {
 				.append("                        e.g. sword[nst]:swordpass@http://sword.aber.ac.uk/post/\n");
 		buffer
 				.append("                             nst:pass@http://sword.aber.ac.uk/post\n");
+		buffer
+				.append("    -threads n          The number of destinations that a multipost sends to at\n");
+		buffer
+				.append("                        the same time. A summary table is shown if n is more than 1.\n");
+		buffer
+				.append("                        For bulk, the number of files that are sent at the same time.\n");
+		buffer
+				.append("    -adaptive           With -threads, start with fewer requests to each server and\n");
+		buffer
+				.append("                        add more while it responds quickly. Back off when it is\n");
+		buffer
+				.append("                        unavailable or slows down.\n");
+		buffer
+				.append("    -bandwidth rate     Limit the rate at which files are sent, in bytes per second.\n");
+		buffer
+				.append("                        Use k or m for kilobytes or megabytes, e.g. 500k. The limit\n");
+		buffer
+				.append("                        is shared by all of the files that are sent at the same time.\n");
+		buffer
+				.append("    -retries n          Repeat a request up to n times if the server is unavailable\n");
+		buffer
+				.append("                        or the connection fails, waiting longer each time.\n");
+		buffer
+				.append("    -manifest file      CSV file with the columns: file, destination, filetype,\n");
+		buffer
+				.append("                        packaging, slug, onBehalfOf. Empty columns use the\n");
+		buffer
+				.append("                        -href, -filetype and -onBehalfOf values.\n");
+		buffer
+				.append("    -dir directory      Post every file in the directory, and its subdirectories,\n");
+		buffer
+				.append("                        to -href.\n");
+		buffer
+				.append("    -journal file       Records each bulk deposit, so that an interrupted run can\n");
+		buffer
+				.append("                        be resumed. Defaults to the manifest or directory name\n");
+		buffer
+				.append("                        followed by .journal.\n");
+		buffer
+				.append("    -digestCache file   Keep the MD5 checksums of the files that are posted in the\n");
+		buffer
+				.append("                        file, so that a file is only read again if it has changed.\n");
+		buffer
+				.append("    -serviceCache dir   Keep the service documents in the directory. The server is\n");
+		buffer
+				.append("                        asked to send a document again only if it has changed.\n");
+		buffer
+				.append("    -failFast           Stop the validation at the first error, without reading\n");
+		buffer
+				.append("                        the rest of the document.\n");
 		buffer
 				.append("    -nocapture          Do not capture System.out and System.err to a debug panel\n");
 		buffer.append("                        in the GUI panel.");
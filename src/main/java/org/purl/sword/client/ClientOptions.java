@@ -65,6 +65,16 @@ public class ClientOptions
     */
    public static final String TYPE_MULTI_POST = "multipost";
 
+   /**
+    * Label for the bulk deposit operation. 
+    */
+   public static final String TYPE_BULK = "bulk";
+
+   /**
+    * Label for the validate operation. 
+    */
+   public static final String TYPE_VALIDATE = "validate";
+
    /**
     * The access type. 
     */
@@ -143,6 +153,71 @@ public class ClientOptions
     */
    private boolean checksumError = false;
 
+   /**
+    * The realm for the username and password. 
+    */
+   private String realm = null;
+
+   /**
+    * Send the credentials with the first request. 
+    */
+   private boolean preemptive = false;
+
+   /**
+    * Send the Expect: 100-continue header with a post. 
+    */
+   private boolean expectContinue = false;
+
+   /**
+    * The number of destinations that a multipost sends to at the same time. 
+    */
+   private int threads = 1;
+
+   /**
+    * The number of times that a failed request is repeated. 
+    */
+   private int retries = 0;
+
+   /**
+    * Adjust the number of requests to each server to suit the server. 
+    */
+   private boolean adaptive = false;
+
+   /**
+    * The maximum rate at which files are sent, in bytes per second, or 0 for no limit. 
+    */
+   private long bandwidth = 0;
+
+   /**
+    * The manifest that lists the files for a bulk deposit. 
+    */
+   private String manifest = null;
+
+   /**
+    * The directory that holds the files for a bulk deposit. 
+    */
+   private String directory = null;
+
+   /**
+    * The journal for a bulk deposit. 
+    */
+   private String journal = null;
+
+   /**
+    * The file that holds the checksums of the files that have been posted. 
+    */
+   private String digestCache = null;
+
+   /**
+    * The directory that holds the service documents that have been retrieved. 
+    */
+   private String serviceCache = null;
+
+   /**
+    * Stop the validation at the first error. 
+    */
+   private boolean failFast = false;
+
    /**
     * Logger. 
     */
@@ -234,6 +309,80 @@ public class ClientOptions
                password = args[i];
             }
 
+            if( "-realm".equals(args[i]))
+            {
+               i++;
+               realm = args[i];
+            }
+
+            if( "-preemptive".equals(args[i]))
+            {
+               preemptive = true;
+            }
+
+            if( "-threads".equals(args[i]))
+            {
+               i++;
+               threads = Integer.parseInt(args[i]);
+            }
+
+            if( "-adaptive".equals(args[i]))
+            {
+               adaptive = true;
+            }
+
+            if( "-bandwidth".equals(args[i]))
+            {
+               i++;
+               bandwidth = parseRate(args[i]);
+            }
+
+            if( "-retries".equals(args[i]))
+            {
+               i++;
+               retries = Integer.parseInt(args[i]);
+            }
+
+            if( "-manifest".equals(args[i]))
+            {
+               i++;
+               manifest = args[i];
+            }
+
+            if( "-dir".equals(args[i]))
+            {
+               i++;
+               directory = args[i];
+            }
+
+            if( "-journal".equals(args[i]))
+            {
+               i++;
+               journal = args[i];
+            }
+
+            if( "-digestCache".equals(args[i]))
+            {
+               i++;
+               digestCache = args[i];
+            }
+
+            if( "-serviceCache".equals(args[i]))
+            {
+               i++;
+               serviceCache = args[i];
+            }
+
+            if( "-failFast".equals(args[i]))
+            {
+               failFast = true;
+            }
+
+            if( "-expectContinue".equals(args[i]))
+            {
+               expectContinue = true;
+            }
+
             if( "-href".equals(args[i]))
             {
                i++;
@@ -341,21 +490,103 @@ public class ClientOptions
             return false;
          }
 
+         if( TYPE_VALIDATE.equals(accessType) && filename == null )
+         {
+            log.error("No file specified to validate.");
+            return false;
+         }
+
+         if( TYPE_BULK.equals(accessType) && ( manifest == null ) == ( directory == null ) )
+         {
+            log.error("Specify either a manifest or a directory for a bulk deposit.");
+            return false;
+         }
+
+         if( TYPE_BULK.equals(accessType) && directory != null && href == null )
+         {
+            log.error("No href specified for the files in the directory.");
+            return false;
+         }
+
+         if( bandwidth < 0 )
+         {
+            log.error("The bandwidth cannot be negative.");
+            return false;
+         }
+
+         if( retries < 0 )
+         {
+            log.error("The number of retries cannot be negative.");
+            return false;
+         }
+
+         if( threads < 1 )
+         {
+            log.error("The number of threads must be at least 1.");
+            return false;
+         }
+
+         if( adaptive && threads <= 1 )
+         {
+            log.error("-adaptive only applies when -threads is greater than 1.");
+            return false;
+         }
+
          if( ( username == null && password != null ) || (username != null && password == null))
          {
             log.error("The username and/or password are not specified. If one is specified, the other must also be specified.");
             return false; 
          }
+
+         if( realm != null && preemptive )
+         {
+            log.error("A realm cannot be used with -preemptive, because the credentials are sent before the server names its realm.");
+            return false;
+         }
       }
       catch( ArrayIndexOutOfBoundsException ex )
       {
          log.error("Error with parameters.");
          return false;
       }
+      catch( NumberFormatException ex )
+      {
+         log.error("Error with numeric parameter: " + ex.getMessage());
+         return false;
+      }
 
       return true;
    }
 
+   /**
+    * Parse a rate in bytes per second. The value can end with k or m for
+    * kilobytes or megabytes per second, e.g. 500k. 
+    * 
+    * @param value The value. 
+    * @return The rate, in bytes per second. 
+    * @throws NumberFormatException If the value is not a valid rate. 
+    */
+   static long parseRate(String value)
+   throws NumberFormatException
+   {
+      String number = value.trim().toLowerCase();
+      long multiplier = 1;
+      if( number.endsWith("k") )
+      {
+         multiplier = 1024;
+      }
+      else if( number.endsWith("m") )
+      {
+         multiplier = 1024 * 1024;
+      }
+
+      if( multiplier > 1 )
+      {
+         number = number.substring(0, number.length() - 1);
+      }
+      return Long.parseLong(number) * multiplier;
+   }
+
    /** 
     * Get the access type. 
     * @return The value, or <code>null</code> if the value is not set. 
@@ -632,6 +863,240 @@ public class ClientOptions
       this.slug = slug;
    }
 
+   /**
+    * Get the realm for the username and password. 
+    * @return The realm, or <code>null</code> if the credentials apply to any realm.
+    */
+   public String getRealm()
+   {
+      return realm;
+   }
+
+   /**
+    * Set the realm for the username and password. 
+    * @param realm The value, or <code>null</code> to clear the value. 
+    */
+   public void setRealm(String realm)
+   {
+      this.realm = realm;
+   }
+
+   /**
+    * Determine if the credentials are sent with the first request. 
+    * @return True if the credentials are sent preemptively. 
+    */
+   public boolean isPreemptive()
+   {
+      return preemptive;
+   }
+
+   /**
+    * Set whether the credentials are sent with the first request. 
+    * @param preemptive True if the credentials are sent preemptively. 
+    */
+   public void setPreemptive(boolean preemptive)
+   {
+      this.preemptive = preemptive;
+   }
+
+   /**
+    * Determine if a post sends the Expect: 100-continue header. 
+    * @return True if the header is sent. Default value is false. 
+    */
+   public boolean isExpectContinue()
+   {
+      return expectContinue;
+   }
+
+   /**
+    * Set whether a post sends the Expect: 100-continue header. 
+    * @param expectContinue True if the header is sent. 
+    */
+   public void setExpectContinue(boolean expectContinue)
+   {
+      this.expectContinue = expectContinue;
+   }
+
+   /**
+    * Get the number of destinations that a multipost sends to at the same time. 
+    * @return The number of threads. Default value is 1. 
+    */
+   public int getThreads()
+   {
+      return threads;
+   }
+
+   /**
+    * Set the number of destinations that a multipost sends to at the same time. 
+    * @param threads The number of threads. 
+    */
+   public void setThreads(int threads)
+   {
+      this.threads = threads;
+   }
+
+   /**
+    * Get the number of times that a failed request is repeated. 
+    * @return The number of retries. Default value is 0. 
+    */
+   public int getRetries()
+   {
+      return retries;
+   }
+
+   /**
+    * Set the number of times that a failed request is repeated. 
+    * @param retries The number of retries. 
+    */
+   public void setRetries(int retries)
+   {
+      this.retries = retries;
+   }
+
+   /**
+    * Determine if the number of requests to each server is adjusted to suit the server. 
+    * @return True if the number of requests is adjusted. 
+    */
+   public boolean isAdaptive()
+   {
+      return adaptive;
+   }
+
+   /**
+    * Set whether the number of requests to each server is adjusted to suit the server. 
+    * @param adaptive True if the number of requests is adjusted. 
+    */
+   public void setAdaptive(boolean adaptive)
+   {
+      this.adaptive = adaptive;
+   }
+
+   /**
+    * Determine if the validation stops at the first error. 
+    * @return True if the validation stops at the first error. 
+    */
+   public boolean isFailFast()
+   {
+      return failFast;
+   }
+
+   /**
+    * Set whether the validation stops at the first error. 
+    * @param failFast True if the validation stops at the first error. 
+    */
+   public void setFailFast(boolean failFast)
+   {
+      this.failFast = failFast;
+   }
+
+   /**
+    * Get the maximum rate at which files are sent. 
+    * @return The rate, in bytes per second, or 0 for no limit. 
+    */
+   public long getBandwidth()
+   {
+      return bandwidth;
+   }
+
+   /**
+    * Set the maximum rate at which files are sent. 
+    * @param bandwidth The rate, in bytes per second, or 0 for no limit. 
+    */
+   public void setBandwidth(long bandwidth)
+   {
+      this.bandwidth = bandwidth;
+   }
+
+   /**
+    * Get the manifest for a bulk deposit. 
+    * @return The path to the manifest, or <code>null</code> if the value is not set. 
+    */
+   public String getManifest()
+   {
+      return manifest;
+   }
+
+   /**
+    * Set the manifest for a bulk deposit. 
+    * @param manifest The value, or <code>null</code> to clear the value. 
+    */
+   public void setManifest(String manifest)
+   {
+      this.manifest = manifest;
+   }
+
+   /**
+    * Get the directory for a bulk deposit. 
+    * @return The path to the directory, or <code>null</code> if the value is not set. 
+    */
+   public String getDirectory()
+   {
+      return directory;
+   }
+
+   /**
+    * Set the directory for a bulk deposit. 
+    * @param directory The value, or <code>null</code> to clear the value. 
+    */
+   public void setDirectory(String directory)
+   {
+      this.directory = directory;
+   }
+
+   /**
+    * Get the journal for a bulk deposit. 
+    * @return The path to the journal, or <code>null</code> if the value is not set. 
+    */
+   public String getJournal()
+   {
+      return journal;
+   }
+
+   /**
+    * Set the journal for a bulk deposit. 
+    * @param journal The value, or <code>null</code> to clear the value. 
+    */
+   public void setJournal(String journal)
+   {
+      this.journal = journal;
+   }
+
+   /**
+    * Get the file that holds the checksums of the files that have been posted. 
+    * @return The path to the file, or <code>null</code> if the value is not set. 
+    */
+   public String getDigestCache()
+   {
+      return digestCache;
+   }
+
+   /**
+    * Set the file that holds the checksums of the files that have been posted. 
+    * @param digestCache The value, or <code>null</code> to clear the value. 
+    */
+   public void setDigestCache(String digestCache)
+   {
+      this.digestCache = digestCache;
+   }
+
+   /**
+    * Get the directory that holds the service documents that have been retrieved. 
+    * @return The path to the directory, or <code>null</code> if the value is not set. 
+    */
+   public String getServiceCache()
+   {
+      return serviceCache;
+   }
+
+   /**
+    * Set the directory that holds the service documents that have been retrieved. 
+    * @param serviceCache The value, or <code>null</code> to clear the value. 
+    */
+   public void setServiceCache(String serviceCache)
+   {
+      this.serviceCache = serviceCache;
+   }
+
    /**
     * Get the list of post destinations. 
     * @return An iterator over the list of PostDestination objects. 
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import org.purl.sword.base.SwordValidationInfo;
+
+/**
+ * The result of a single request made by the Client. The status and 
+ * validation information are returned with the value, rather than being 
+ * stored in the client, so that one client can be used by several threads. 
+ */
+public class ClientResult<T> {
+
+	/** The value returned by the server. */
+	private final T value;
+
+	/** The status of the response. */
+	private final Status status;
+
+	/** The validation information, or null. */
+	private final SwordValidationInfo validationInfo;
+
+	/** The number of times that the request was sent. */
+	private final int attempts;
+
+	/**
+	 * Create a new result.
+	 * 
+	 * @param value
+	 *            The value returned by the server.
+	 * @param status
+	 *            The status of the response.
+	 * @param validationInfo
+	 *            The validation information, or <code>null</code>.
+	 */
+	public ClientResult(T value, Status status, SwordValidationInfo validationInfo) {
+		this(value, status, validationInfo, 1);
+	}
+
+	/**
+	 * Create a new result for a request that may have been sent more than
+	 * once.
+	 * 
+	 * @param value
+	 *            The value returned by the server.
+	 * @param status
+	 *            The status of the response.
+	 * @param validationInfo
+	 *            The validation information, or <code>null</code>.
+	 * @param attempts
+	 *            The number of times that the request was sent.
+	 */
+	public ClientResult(T value, Status status, SwordValidationInfo validationInfo,
+			int attempts) {
+		this.value = value;
+		this.status = status;
+		this.validationInfo = validationInfo;
+		this.attempts = attempts;
+	}
+
+	/**
+	 * Get the value returned by the server.
+	 * 
+	 * @return The value.
+	 */
+	public T getValue() {
+		return value;
+	}
+
+	/**
+	 * Get the status of the response.
+	 * 
+	 * @return The status.
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Get the validation information that was generated when the response 
+	 * was unmarshalled.
+	 * 
+	 * @return The validation information, or <code>null</code> if the 
+	 *         response was not validated.
+	 */
+	public SwordValidationInfo getValidationInfo() {
+		return validationInfo;
+	}
+
+	/**
+	 * Get the number of times that the request was sent.
+	 * 
+	 * @return The number of attempts, which is 1 if the request was not 
+	 *         repeated.
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+}
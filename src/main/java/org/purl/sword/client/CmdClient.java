@@ -36,16 +36,31 @@
  */
 package org.purl.sword.client;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PrintWriter;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Hashtable;
 import java.util.Enumeration;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.log4j.Logger;
 import org.purl.sword.atom.Author;
 import org.purl.sword.atom.Content;
@@ -60,6 +75,12 @@ import org.purl.sword.base.Collection;
 import org.purl.sword.base.DepositResponse;
 import org.purl.sword.base.SWORDEntry;
 import org.purl.sword.base.ServiceDocument;
+import org.purl.sword.base.StreamingUnmarshaller;
+import org.purl.sword.base.SwordValidationInfoType;
+import org.purl.sword.base.UnmarshallException;
+import org.purl.sword.base.ValidationIssue;
+import org.purl.sword.base.ValidationListener;
+import org.purl.sword.base.ValidationReport;
 import org.purl.sword.base.Workspace;
 import org.purl.sword.base.QualityValue;
 import org.purl.sword.base.SwordAcceptPackaging;
@@ -78,7 +99,7 @@ public class CmdClient implements ClientType
    /**
     * The client that is used to process the service and post requests. 
     */
-	private SWORDClient client; 
+	private Client client; 
 
 	/**
 	 * List of the options that can be specified on the command line.
@@ -105,13 +126,75 @@ public class CmdClient implements ClientType
 	 */
 	public void process()
 	{
+		if ((ClientOptions.TYPE_MULTI_POST.equals(options.getAccessType()) || 
+		     ClientOptions.TYPE_BULK.equals(options.getAccessType())) && 
+		    options.getThreads() > 1)
+		{
+			// a pooled client can be shared by the threads that post the files
+			client = new Client(options.getThreads(), options.getThreads(), 0);
+			if (options.isAdaptive())
+			{
+				client.setConcurrencyLimiter(new AdaptiveLimiter(
+						Math.min(4, options.getThreads()), 1, options.getThreads()));
+			}
+		}
+
 		if (options.getProxyHost() != null)
 		{
 			client.setProxy(options.getProxyHost(), options.getProxyPort());
 		}
+		client.setPreemptiveAuthentication(options.isPreemptive());
+		client.setExpectContinue(options.isExpectContinue());
+		if (options.getRetries() > 0)
+		{
+			client.setRetryPolicy(new RetryPolicy(options.getRetries() + 1, 1000, 60000));
+		}
+		if (options.getBandwidth() > 0)
+		{
+			client.setBandwidthLimiter(new BandwidthLimiter(options.getBandwidth()));
+		}
+		if (options.getThreads() <= 1)
+		{
+			// only one file is sent at a time, so its progress can be shown on one line
+			client.setProgressListener(new ProgressListener() {
+				public void progressUpdated(TransferProgress progress)
+				{
+					System.out.print("\r" + progress + "   ");
+					if (progress.isComplete())
+					{
+						System.out.println();
+					}
+				}
+			});
+		}
 
 		try
 		{
+			if (options.getDigestCache() != null)
+			{
+				try
+				{
+					client.setDigestCache(new DigestCache(new File(options.getDigestCache())));
+				}
+				catch (IOException ex)
+				{
+					System.out.println("Unable to open the checksum cache: " + ex.getMessage());
+				}
+			}
+
+			if (options.getServiceCache() != null)
+			{
+				try
+				{
+					client.setServiceDocumentCache(new ServiceDocumentCache(
+							new File(options.getServiceCache()), ServiceDocumentCache.DEFAULT_MAX_SIZE));
+				}
+				catch (IOException ex)
+				{
+					System.out.println("Unable to open the service document cache: " + ex.getMessage());
+				}
+			}
+
 			String accessType = options.getAccessType();
 			if (ClientOptions.TYPE_SERVICE.equals(accessType))
 			{
@@ -126,6 +209,14 @@ public class CmdClient implements ClientType
 				System.out.println("checking multi-post");
 				multiPost();
 			}
+			else if (ClientOptions.TYPE_BULK.equals(accessType))
+			{
+				bulk();
+			}
+			else if (ClientOptions.TYPE_VALIDATE.equals(accessType))
+			{
+				validate();
+			}
 			else
 			{
 				System.out.println("Access type not recognised.");
@@ -141,6 +232,30 @@ public class CmdClient implements ClientType
 			System.out.println("Exception: " + ex.getMessage());
 			ex.printStackTrace();
 		}
+		finally
+		{
+			client.shutdown();
+			closeDigestCache();
+		}
+	}
+
+	/**
+	 * Close the checksum cache, so that its file is not left open. 
+	 */
+	private void closeDigestCache()
+	{
+		DigestCache cache = client.getDigestCache();
+		if (cache != null)
+		{
+			try
+			{
+				cache.close();
+			}
+			catch (IOException ex)
+			{
+				log.warn("Unable to close the checksum cache: " + ex.getMessage());
+			}
+		}
 	}
 
 	/**
@@ -227,6 +342,58 @@ public class CmdClient implements ClientType
 		}
 	}
 	
+	/**
+	 * Validate the service document in the file. Each issue is printed as 
+	 * soon as it is found, and the document is read in a single pass, so a 
+	 * large document is not held in memory. With -failFast, the rest of 
+	 * the document is not read after the first error. 
+	 */
+	private void validate()
+	{
+		ValidationReport report = new ValidationReport(SwordValidationInfoType.INFO,
+				ValidationReport.UNLIMITED, options.isFailFast(), new ValidationListener()
+		{
+			public boolean issueFound(ValidationIssue issue)
+			{
+				System.out.println(issue);
+				return true;
+			}
+		});
+
+		InputStream stream = null;
+		try
+		{
+			stream = new BufferedInputStream(new FileInputStream(options.getFilename()));
+			new StreamingUnmarshaller().validate(stream, null, report);
+
+			PrintWriter out = new PrintWriter(System.out);
+			report.writeText(out);
+			out.flush();
+		}
+		catch (UnmarshallException ex)
+		{
+			System.out.println("Unable to read the service document: " + ex.getMessage());
+		}
+		catch (IOException ex)
+		{
+			System.out.println("Unable to read the file: " + ex.getMessage());
+		}
+		finally
+		{
+			if (stream != null)
+			{
+				try
+				{
+					stream.close();
+				}
+				catch (IOException ex)
+				{
+					log.warn("Unable to close the file: " + ex.getMessage());
+				}
+			}
+		}
+	}
+
 	/**
 	 * Perform a post. If any of the destination URL, the filename and the 
 	 * filetype are missing, the user will be prompted to enter the values. 
@@ -274,7 +441,8 @@ public class CmdClient implements ClientType
 
 	/**
 	 * Perform a multi-post. Iterate over the list of -dest arguments in the command line 
-	 * options. For each -dest argument, attempt to post the file to the server. 
+	 * options. For each -dest argument, attempt to post the file to the server. If more 
+	 * than one thread has been requested, the destinations are processed in parallel. 
 	 * 
 	 * @throws SWORDClientException if there is an error processing the post for a requested 
 	 *                              destination. 
@@ -294,6 +462,19 @@ public class CmdClient implements ClientType
 		{
 			type = readLine("Please enter the file type, e.g. application/zip: ");
 		}
+
+		// the file is the same for each destination, so only calculate the checksum once
+		String md5 = null;
+		if( options.isMd5() )
+		{
+			md5 = client.generateMD5(file);
+		}
+
+		if( options.getThreads() > 1 )
+		{
+			parallelMultiPost(file, type, md5);
+			return;
+		}
 		
 		// process this information for each of the specified destinations
 		PostDestination destination;
@@ -318,23 +499,402 @@ public class CmdClient implements ClientType
 		   
 		   System.out.println("Sending file to: " + url + " for: " + destination.getUsername() + 
 				  onBehalfOf );
-		   PostMessage message = new PostMessage(); 
-		   message.setFilepath(file);
-		   message.setDestination(url);
-		   message.setFiletype(type);
-		   message.setUseMD5(options.isMd5());
-		   message.setVerbose(options.isVerbose());
-		   message.setNoOp(options.isNoOp());
-		   message.setFormatNamespace(options.getFormatNamespace());
-		   message.setOnBehalfOf(destination.getOnBehalfOf());
-		   message.setChecksumError(options.getChecksumError());
-           message.setUserAgent(ClientConstants.SERVICE_NAME);
-			
-		   processPost(message);
+		   processPost(createMessage(file, type, md5, destination));
 		}
 		
 	}
 
+	/**
+	 * Perform a bulk deposit. Each file in the manifest or directory is posted, 
+	 * using up to the number of threads that is set in the options. The outcome 
+	 * of each post is recorded in the journal, and files that the journal shows 
+	 * were accepted by an earlier run are not posted again. 
+	 * 
+	 * @throws SWORDClientException if the list of files or the journal cannot be 
+	 *                              read, or the deposit is interrupted. 
+	 */
+	private void bulk()
+	throws SWORDClientException
+	{
+		BulkManifest manifest = new BulkManifest(options.getHref(), options.getFiletype());
+		String source = (options.getManifest() != null) ? options.getManifest() : options.getDirectory();
+		String journalPath = options.getJournal();
+		if( journalPath == null )
+		{
+			journalPath = new File(source).getAbsolutePath() + ".journal";
+		}
+
+		final DepositJournal journal;
+		List<PostMessage> messages;
+		try
+		{
+			if( options.getManifest() != null )
+			{
+				messages = manifest.read(new File(options.getManifest()));
+			}
+			else
+			{
+				messages = manifest.scan(new File(options.getDirectory()));
+			}
+			journal = new DepositJournal(new File(journalPath));
+		}
+		catch( IOException ex )
+		{
+			throw new SWORDClientException("Unable to start the bulk deposit. " + ex.getMessage(), ex);
+		}
+
+		List<PostMessage> pending = new ArrayList<PostMessage>();
+		for( PostMessage message : messages )
+		{
+			if( ! journal.isCompleted(message) )
+			{
+				if( message.getOnBehalfOf() == null )
+				{
+					message.setOnBehalfOf(options.getOnBehalfOf());
+				}
+				if( message.getPackaging() == null )
+				{
+					message.setFormatNamespace(options.getFormatNamespace());
+				}
+				message.setUseMD5(options.isMd5());
+				message.setVerbose(options.isVerbose());
+				message.setNoOp(options.isNoOp());
+				message.setChecksumError(options.getChecksumError());
+				message.setUserAgent(ClientConstants.SERVICE_NAME);
+				pending.add(message);
+			}
+		}
+
+		System.out.println("Bulk deposit of " + pending.size() + " files, skipping " + 
+				(messages.size() - pending.size()) + " already deposited. Journal: " + journalPath);
+
+		final AtomicInteger deposited = new AtomicInteger();
+		final AtomicInteger failed = new AtomicInteger();
+		final AtomicBoolean stopped = new AtomicBoolean();
+		long start = System.currentTimeMillis();
+
+		ExecutorService executor = Executors.newFixedThreadPool(options.getThreads());
+		try
+		{
+			for( final PostMessage message : pending )
+			{
+				executor.execute(new Runnable() {
+					public void run()
+					{
+						if( ! stopped.get() )
+						{
+							bulkDeposit(message, journal, deposited, failed, stopped);
+						}
+					}
+				});
+			}
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+		catch( InterruptedException ex )
+		{
+			Thread.currentThread().interrupt();
+			throw new SWORDClientException("Interrupted during the bulk deposit", ex);
+		}
+		finally
+		{
+			executor.shutdownNow();
+			try
+			{
+				journal.close();
+			}
+			catch( IOException ex )
+			{
+				log.error("Unable to close the journal", ex);
+			}
+			// show the limits that were reached, even if the deposit failed
+			printLimits();
+		}
+
+		System.out.println();
+		System.out.println("Deposited: " + deposited.get() + " Failed: " + failed.get() + 
+				" Not attempted: " + (pending.size() - deposited.get() - failed.get()) + 
+				" Time: " + (System.currentTimeMillis() - start) + " ms");
+		if( client.getRetryCount() > 0 )
+		{
+			System.out.println("Retries: " + client.getRetryCount() + " Failed after retrying: " + 
+					client.getRetryExhaustedCount());
+		}
+		if( stopped.get() )
+		{
+			System.out.println("The deposit was stopped because the journal could not be written.");
+		}
+	}
+
+	/**
+	 * Post one file of a bulk deposit and record the outcome in the journal. 
+	 * If the journal cannot be written, the deposit is stopped, because a 
+	 * later run would not know which files had been accepted. 
+	 * 
+	 * @param message The message to post. 
+	 * @param journal The journal. 
+	 * @param deposited The count of files that have been accepted. 
+	 * @param failed The count of files that have not been accepted. 
+	 * @param stopped Set if the deposit must stop. 
+	 */
+	private void bulkDeposit(PostMessage message, DepositJournal journal, 
+			AtomicInteger deposited, AtomicInteger failed, AtomicBoolean stopped)
+	{
+		String username = options.getUsername();
+		String password = options.getPassword();
+		if( username == null || username.length() == 0 || 
+		    password == null || password.length() == 0 )
+		{
+			username = null;
+			password = null;
+		}
+
+		int code;
+		String detail;
+		try
+		{
+			ClientResult<DepositResponse> result = client.deposit(message, username, password);
+			code = result.getStatus().getCode();
+			detail = (result.getValue() != null) ? result.getValue().getLocation() : null;
+			if( detail == null )
+			{
+				detail = result.getStatus().getMessage();
+			}
+		}
+		catch( SWORDClientException ex )
+		{
+			code = DepositJournal.NOT_SENT;
+			detail = ex.getMessage();
+		}
+
+		try
+		{
+			journal.record(message, code, detail);
+		}
+		catch( IOException ex )
+		{
+			log.error("Unable to write to the journal", ex);
+			stopped.set(true);
+		}
+
+		if( code == 201 || code == 202 )
+		{
+			deposited.incrementAndGet();
+			System.out.println("Deposited " + message.getFilepath() + " to " + detail);
+		}
+		else
+		{
+			failed.incrementAndGet();
+			System.out.println("Failed " + message.getFilepath() + ": " + code + " " + detail);
+		}
+	}
+
+	/**
+	 * Post the file to all of the destinations, using up to the number of threads 
+	 * that is set in the options. A table with the result and time for each 
+	 * destination is printed once all of the posts have finished. 
+	 * 
+	 * @param file The file to post. 
+	 * @param type The file type. 
+	 * @param md5 The checksum for the file, or <code>null</code>. 
+	 * 
+	 * @throws SWORDClientException if the posts are interrupted. 
+	 */
+	private void parallelMultiPost(String file, String type, String md5)
+	throws SWORDClientException
+	{
+		List<PostDestination> destinations = new ArrayList<PostDestination>();
+		Iterator<PostDestination> iterator = options.getMultiPost();
+		while( iterator.hasNext() )
+		{
+			destinations.add(iterator.next());
+		}
+
+		System.out.println("Sending file to " + destinations.size() + " destinations using " + 
+				options.getThreads() + " threads");
+
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(options.getThreads(), destinations.size()));
+		long start = System.currentTimeMillis();
+		try
+		{
+			List<Future<MultiPostResult>> futures = new ArrayList<Future<MultiPostResult>>();
+			for( final PostDestination destination : destinations )
+			{
+				final PostMessage message = createMessage(file, type, md5, destination);
+				futures.add(executor.submit(new Callable<MultiPostResult>() {
+					public MultiPostResult call()
+					{
+						return postTo(destination, message);
+					}
+				}));
+			}
+
+			List<MultiPostResult> results = new ArrayList<MultiPostResult>();
+			for( Future<MultiPostResult> future : futures )
+			{
+				results.add(future.get());
+			}
+
+			printResults(results, System.currentTimeMillis() - start);
+		}
+		catch( InterruptedException ex )
+		{
+			Thread.currentThread().interrupt();
+			throw new SWORDClientException("Interrupted while waiting for the posts", ex);
+		}
+		catch( ExecutionException ex )
+		{
+			throw new SWORDClientException("Error posting the file", ex);
+		}
+		finally
+		{
+			executor.shutdownNow();
+			printLimits();
+		}
+	}
+
+	/**
+	 * Post the message to a single destination. This can be called by several 
+	 * threads at the same time. 
+	 * 
+	 * @param destination The destination. 
+	 * @param message The message to post. 
+	 * @return The result of the post. 
+	 */
+	private MultiPostResult postTo(PostDestination destination, PostMessage message)
+	{
+		String username = destination.getUsername();
+		String password = destination.getPassword();
+		if( username == null || username.length() == 0 || 
+		    password == null || password.length() == 0 )
+		{
+			username = null;
+			password = null;
+		}
+
+		long start = System.currentTimeMillis();
+		try
+		{
+			ClientResult<DepositResponse> result = client.deposit(message, username, password);
+			if( result.getValue() != null )
+			{
+				log.debug("message is: " + result.getValue().marshall());
+			}
+			return new MultiPostResult(destination, result.getStatus().toString(), 
+					System.currentTimeMillis() - start);
+		}
+		catch( SWORDClientException ex )
+		{
+			log.error("Error posting to " + destination.getUrl(), ex);
+			return new MultiPostResult(destination, "Error: " + ex.getMessage(), 
+					System.currentTimeMillis() - start);
+		}
+	}
+
+	/**
+	 * Print a table with the result and time for each destination. 
+	 * 
+	 * @param results The results. 
+	 * @param elapsed The total time, in milliseconds. 
+	 */
+	private void printResults(List<MultiPostResult> results, long elapsed)
+	{
+		int width = "Destination".length();
+		for( MultiPostResult result : results )
+		{
+			width = Math.max(width, result.destination.getUrl().length());
+		}
+
+		String format = "%-" + width + "s  %-12s  %8s  %s%n";
+		System.out.println();
+		System.out.printf(format, "Destination", "User", "Time(ms)", "Status");
+		for( MultiPostResult result : results )
+		{
+			String user = result.destination.getUsername();
+			if( result.destination.getOnBehalfOf() != null )
+			{
+				user = user + "[" + result.destination.getOnBehalfOf() + "]";
+			}
+			System.out.printf(format, result.destination.getUrl(), user, 
+					Long.toString(result.time), result.status);
+		}
+		System.out.println();
+		System.out.println("Total time: " + elapsed + " ms");
+	}
+
+	/**
+	 * Print the number of requests that the adaptive limiter allows to each 
+	 * server at the end of the run. 
+	 */
+	private void printLimits()
+	{
+		AdaptiveLimiter limiter = client.getConcurrencyLimiter();
+		if( limiter != null )
+		{
+			for( Map.Entry<String, Integer> entry : limiter.getLimits().entrySet() )
+			{
+				System.out.println("Concurrent requests for " + entry.getKey() + ": " + entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Create the message to post the file to a destination. 
+	 * 
+	 * @param file The file to post. 
+	 * @param type The file type. 
+	 * @param md5 The checksum for the file, or <code>null</code>. 
+	 * @param destination The destination. 
+	 * @return The message. 
+	 */
+	private PostMessage createMessage(String file, String type, String md5, 
+			PostDestination destination)
+	{
+		PostMessage message = new PostMessage(); 
+		message.setFilepath(file);
+		message.setDestination(destination.getUrl());
+		message.setFiletype(type);
+		message.setUseMD5(options.isMd5());
+		message.setMD5(md5);
+		message.setVerbose(options.isVerbose());
+		message.setNoOp(options.isNoOp());
+		message.setFormatNamespace(options.getFormatNamespace());
+		message.setOnBehalfOf(destination.getOnBehalfOf());
+		message.setChecksumError(options.getChecksumError());
+		message.setUserAgent(ClientConstants.SERVICE_NAME);
+		return message;
+	}
+
+	/**
+	 * The result of posting the file to one destination. 
+	 */
+	private static class MultiPostResult
+	{
+		/** The destination. */
+		private final PostDestination destination;
+
+		/** The status, or a description of the error. */
+		private final String status;
+
+		/** The time taken for the post, in milliseconds. */
+		private final long time;
+
+		/**
+		 * Create a new result. 
+		 * 
+		 * @param destination The destination. 
+		 * @param status The status. 
+		 * @param time The time taken. 
+		 */
+		MultiPostResult(PostDestination destination, String status, long time)
+		{
+			this.destination = destination;
+			this.status = status;
+			this.time = time;
+		}
+	}
+
 	/**
 	 * Process the post response. The message contains the list of arguments 
 	 * for the post. The method will then print out the details of the 
@@ -497,7 +1057,7 @@ public class CmdClient implements ClientType
 		{
 			log.info("Setting the username/password: " + username + " "
 					+ password);
-			client.setCredentials(username, password);
+			client.setCredentials(username, password, options.getRealm());
 		}
 		else
 		{
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.httpclient.HttpStatus;
+
+/**
+ * An append-only record of the items in a bulk deposit. Each line holds the 
+ * status code, destination, file and location, or error message, of one 
+ * deposit, separated by tabs. Each line is synced to the disk before the 
+ * next item is recorded, so that a run which is interrupted can be resumed 
+ * without sending the items that were accepted by the server again. An item
+ * that was accepted, but not recorded before the run stopped, will be sent
+ * again. 
+ */
+public class DepositJournal {
+
+	/**
+	 * The status code that is recorded when the deposit could not be sent.
+	 */
+	public static final int NOT_SENT = 0;
+
+	/**
+	 * The items that have been accepted by the server.
+	 */
+	private Set<String> completed = new HashSet<String>();
+
+	/**
+	 * The stream that the journal is written to.
+	 */
+	private FileOutputStream out;
+
+	/**
+	 * Open the journal. Any existing entries are read, and new entries are
+	 * appended to the file.
+	 * 
+	 * @param file
+	 *            The journal file.
+	 * @throws IOException
+	 *             If the journal cannot be read or opened.
+	 */
+	public DepositJournal(File file) throws IOException {
+		if (file.exists()) {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					new FileInputStream(file), "UTF-8"));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					String[] fields = line.split("\t");
+					// ignore a line that was not completed when the run stopped
+					if (fields.length >= 3 && isAccepted(fields[0])) {
+						completed.add(fields[1] + "\t" + fields[2]);
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		boolean partial = endsWithPartialLine(file);
+		out = new FileOutputStream(file, true);
+		if (partial) {
+			// start the next entry on a new line
+			out.write('\n');
+			out.flush();
+		}
+	}
+
+	/**
+	 * Determine if the last line in the file is not complete.
+	 */
+	private static boolean endsWithPartialLine(File file) throws IOException {
+		if (!file.exists() || file.length() == 0) {
+			return false;
+		}
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			in.seek(in.length() - 1);
+			return in.read() != '\n';
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Determine if the item has already been accepted by the server.
+	 * 
+	 * @param message
+	 *            The item.
+	 * @return True if the item has been accepted.
+	 */
+	public synchronized boolean isCompleted(PostMessage message) {
+		return completed.contains(getKey(message));
+	}
+
+	/**
+	 * Get the number of items that have been accepted by the server.
+	 * 
+	 * @return The number of items.
+	 */
+	public synchronized int getCompletedCount() {
+		return completed.size();
+	}
+
+	/**
+	 * Record the outcome of a deposit.
+	 * 
+	 * @param message
+	 *            The item.
+	 * @param code
+	 *            The status code, or NOT_SENT.
+	 * @param detail
+	 *            The location of the deposit, or an error message. This can
+	 *            be <code>null</code>.
+	 * @throws IOException
+	 *             If the entry cannot be written to the disk.
+	 */
+	public synchronized void record(PostMessage message, int code, String detail)
+			throws IOException {
+		StringBuilder line = new StringBuilder();
+		line.append(code).append('\t').append(getKey(message));
+		if (detail != null) {
+			line.append('\t').append(detail.replace('\t', ' ').replace('\n', ' ')
+					.replace('\r', ' '));
+		}
+		line.append('\n');
+		out.write(line.toString().getBytes("UTF-8"));
+		out.flush();
+		out.getFD().sync();
+
+		if (code == HttpStatus.SC_CREATED || code == HttpStatus.SC_ACCEPTED) {
+			completed.add(getKey(message));
+		}
+	}
+
+	/**
+	 * Close the journal.
+	 * 
+	 * @throws IOException
+	 *             If there is an error closing the file.
+	 */
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * Get the key that identifies an item in the journal.
+	 */
+	private static String getKey(PostMessage message) {
+		return message.getDestination() + "\t" 
+				+ new File(message.getFilepath()).getAbsolutePath();
+	}
+
+	/**
+	 * Determine if a recorded status code shows that the item was accepted.
+	 */
+	private static boolean isAccepted(String code) {
+		return Integer.toString(HttpStatus.SC_CREATED).equals(code)
+				|| Integer.toString(HttpStatus.SC_ACCEPTED).equals(code);
+	}
+}
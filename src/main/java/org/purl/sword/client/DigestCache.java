@@ -0,0 +1,354 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.purl.sword.base.ChecksumUtils;
+
+/**
+ * A cache of the MD5 checksums of files, so that a file which is posted 
+ * more than once is only read to calculate the checksum until it changes. 
+ * A file is identified by its canonical path, size and last modified time. 
+ * 
+ * Some filesystems only record the last modified time to the nearest one or
+ * two seconds, so a file could change without a change to its size or time.
+ * The checksum of a file that was modified shortly before it was read is 
+ * therefore not kept. The cache holds a limited number of files, and the 
+ * least recently used file is removed when the limit is reached.
+ * 
+ * The cache can be kept in a file. Each line holds the checksum, size, 
+ * last modified time and path of one file, separated by tabs. New entries
+ * are appended to the file, and later lines replace earlier lines for the 
+ * same path. 
+ */
+public class DigestCache {
+
+	/**
+	 * The logger.
+	 */
+	private static Logger log = Logger.getLogger(DigestCache.class);
+
+	/**
+	 * The default number of files that are held in the cache.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	/**
+	 * The time, in milliseconds, that a file must have been unchanged for 
+	 * before its checksum is kept. This covers the resolution of the last
+	 * modified time on the common filesystems.
+	 */
+	public static final long MODIFIED_RESOLUTION = 2000L;
+
+	/**
+	 * The maximum number of files that are held in the cache.
+	 */
+	private final int maxEntries;
+
+	/**
+	 * The cached checksums, keyed on the canonical path, in the order that 
+	 * they were last used.
+	 */
+	private final Map<String, Entry> entries;
+
+	/**
+	 * The stream that new entries are written to, or null.
+	 */
+	private FileOutputStream out;
+
+	/**
+	 * The number of checksums that were found in the cache.
+	 */
+	private int hits;
+
+	/**
+	 * The number of checksums that were calculated.
+	 */
+	private int misses;
+
+	/**
+	 * Create a cache that is held in memory, with the default limit on the 
+	 * number of files.
+	 */
+	public DigestCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Create a cache that is held in memory.
+	 * 
+	 * @param maxEntries
+	 *            The maximum number of files that are held in the cache.
+	 */
+	public DigestCache(final int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("The cache must hold at least one file");
+		}
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, DigestCache.Entry> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Create a cache that is kept in a file, with the default limit on the
+	 * number of files. Any existing entries are read, and new entries are 
+	 * appended to the file.
+	 * 
+	 * @param file
+	 *            The cache file.
+	 * @throws IOException
+	 *             If the file cannot be read or opened.
+	 */
+	public DigestCache(File file) throws IOException {
+		this(file, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Create a cache that is kept in a file. Any existing entries are read,
+	 * and new entries are appended to the file. 
+	 * 
+	 * @param file
+	 *            The cache file.
+	 * @param maxEntries
+	 *            The maximum number of files that are held in the cache.
+	 * @throws IOException
+	 *             If the file cannot be read or opened.
+	 */
+	public DigestCache(File file, int maxEntries) throws IOException {
+		this(maxEntries);
+		if (file.exists()) {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					new FileInputStream(file), "UTF-8"));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					String[] fields = line.split("\t", 4);
+					// ignore a line that was not completed
+					if (fields.length == 4 && fields[0].length() == 32) {
+						try {
+							entries.put(fields[3], new Entry(Long.parseLong(fields[1]), 
+									Long.parseLong(fields[2]), fields[0]));
+						} catch (NumberFormatException ex) {
+							log.warn("Ignoring an invalid entry in " + file + ": " + line);
+						}
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		boolean partial = endsWithPartialLine(file);
+		out = new FileOutputStream(file, true);
+		if (partial) {
+			out.write('\n');
+			out.flush();
+		}
+	}
+
+	/**
+	 * Determine if the last line in the file is not complete.
+	 */
+	private static boolean endsWithPartialLine(File file) throws IOException {
+		if (!file.exists() || file.length() == 0) {
+			return false;
+		}
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			in.seek(in.length() - 1);
+			return in.read() != '\n';
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Get the MD5 checksum of a file. The checksum is calculated if the file
+	 * is not in the cache, or has changed since it was added. The checksum is
+	 * not kept if the file was modified within {@link #MODIFIED_RESOLUTION} 
+	 * of being read.
+	 * 
+	 * @param filepath
+	 *            The path to the file.
+	 * @return The checksum, as a hex string.
+	 * @throws NoSuchAlgorithmException
+	 *             If the MD5 algorithm is not supported.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	public String getMD5(String filepath) throws NoSuchAlgorithmException, IOException {
+		File file = new File(filepath);
+		String path = file.getCanonicalPath();
+		long size = file.length();
+		long modified = file.lastModified();
+
+		synchronized (this) {
+			Entry entry = entries.get(path);
+			if (entry != null && entry.size == size && entry.modified == modified) {
+				hits++;
+				return entry.md5;
+			}
+			misses++;
+		}
+
+		long started = System.currentTimeMillis();
+		String md5 = ChecksumUtils.generateMD5(path);
+
+		// don't keep the checksum if the file changed while it was read, or 
+		// could change again without a new modified time
+		if (file.length() == size && file.lastModified() == modified
+				&& modified < started - MODIFIED_RESOLUTION) {
+			put(path, new Entry(size, modified, md5));
+		}
+		return md5;
+	}
+
+	/**
+	 * Add an entry to the cache, and to the file if there is one. If the file
+	 * cannot be written, the error is logged and later entries are only held
+	 * in memory.
+	 */
+	private synchronized void put(String path, Entry entry) {
+		entries.put(path, entry);
+		if (out != null) {
+			String line = entry.md5 + "\t" + entry.size + "\t" + entry.modified 
+					+ "\t" + path + "\n";
+			try {
+				out.write(line.getBytes("UTF-8"));
+				out.flush();
+			} catch (IOException ex) {
+				log.error("Unable to write to the checksum cache file, so it is no "
+						+ "longer updated: " + ex.getMessage());
+				try {
+					out.close();
+				} catch (IOException cex) {
+					log.debug("Unable to close the checksum cache file: " + cex.getMessage());
+				}
+				out = null;
+			}
+		}
+	}
+
+	/**
+	 * Get the maximum number of files that are held in the cache.
+	 * 
+	 * @return The number of files.
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Get the number of files that are held in the cache.
+	 * 
+	 * @return The number of files.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Get the number of checksums that were found in the cache.
+	 * 
+	 * @return The number of checksums.
+	 */
+	public synchronized int getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Get the number of checksums that were calculated, because the file was
+	 * not in the cache or had changed.
+	 * 
+	 * @return The number of checksums.
+	 */
+	public synchronized int getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Close the cache file. Checksums that are calculated after this are only
+	 * held in memory.
+	 * 
+	 * @throws IOException
+	 *             If there is an error closing the file.
+	 */
+	public synchronized void close() throws IOException {
+		if (out != null) {
+			out.close();
+			out = null;
+		}
+	}
+
+	/**
+	 * The checksum of a file, and the size and time that identify the 
+	 * version of the file.
+	 */
+	private static class Entry {
+
+		/** The size of the file. */
+		private final long size;
+
+		/** The last modified time of the file. */
+		private final long modified;
+
+		/** The checksum. */
+		private final String md5;
+
+		Entry(long size, long modified, String md5) {
+			this.size = size;
+			this.modified = modified;
+			this.md5 = md5;
+		}
+	}
+}
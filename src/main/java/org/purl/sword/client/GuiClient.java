@@ -77,6 +77,7 @@ import javax.swing.JTabbedPane;
 import javax.swing.JTextArea;
 import javax.swing.JToolBar;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -229,6 +230,16 @@ public class GuiClient extends JFrame implements ClientType,
 				swordclient.clearProxy();
 			}
 
+			value = props.getProperty("serviceDocumentCache");
+			if (value != null && value.trim().length() > 0) {
+				try {
+					swordclient.setServiceDocumentCache(new ServiceDocumentCache(
+							new File(value.trim()), ServiceDocumentCache.DEFAULT_MAX_SIZE));
+				} catch (IOException ex) {
+					log.warn("Unable to use the service document cache in " 
+							+ value + ": " + ex.getMessage());
+				}
+			}
 		}
 
 	}
@@ -293,6 +304,7 @@ public class GuiClient extends JFrame implements ClientType,
 
 		log.debug("Initialising client ...");
 		swordclient = new Client();
+		swordclient.setServiceDocumentCache(new ServiceDocumentCache());
 		log.debug("Loading props ...");
 		loadProperties();
 		processProperties();
@@ -746,116 +758,133 @@ public class GuiClient extends JFrame implements ClientType,
 						PostDestination[] destinations = postDialog
 								.getDestinations();
 
-						String location;
-						String username;
-						String password;
-						for (PostDestination destination : destinations) {
-							try {
-								location = destination.getUrl();
-								username = destination.getUsername();
-								password = destination.getPassword();
-								initialiseServer(location, username, password);
-
-								if (username != null && username.length() > 0
-										&& password != null
-										&& password.length() > 0) {
-									publish("Setting the username/password: "
-											+ username + " " + password);
-									swordclient.setCredentials(username,
-											password);
-								} else {
-									swordclient.clearCredentials();
-								}
-
-								PostMessage message = new PostMessage();
-								message.setDestination(location);
-								message.setFilepath(postDialog.getFile());
-								message.setFiletype(postDialog.getFileType());
-								message.setFormatNamespace(postDialog
-										.getFormatNamespace());
-								message.setUseMD5(postDialog.useMd5());
-								message.setVerbose(postDialog.useVerbose());
-								message.setOnBehalfOf(destination
-										.getOnBehalfOf());
-								message.setNoOp(postDialog.useNoOp());
-								message.setChecksumError(postDialog
-										.corruptMD5());
-								message.setCorruptRequest(postDialog
-										.corruptRequest());
-                                message.setUserAgent(ClientConstants.SERVICE_NAME);
-
-								publish("Posting file to: " + location);
-
-								DepositResponse document = swordclient
-										.postFile(message);
-								Status status = swordclient.getStatus();
-								publish("The status is: " + status);
-
-                                SwordValidationInfo info = swordclient.getLastUnmarshallInfo();
-                                if( info != null &&
-                                    info.getType() == SwordValidationInfoType.VALID)
-                                {
-                                   publish("The document was valid");
-                                }
-                                else if( info != null )
-                                {
-                                   publish("This document did not validate.");
-                                   StringBuffer buffer = new StringBuffer();
-                                   info.createString(info, buffer, " ");
-                                   publish(buffer.toString());
-                                }
-
-								if (status.getCode() == 201
-										|| status.getCode() == 202) {
-									mainPanel.processDespositResponse(location,
-											document);
-									mainPanel.addMessage(document.marshall());
-									publish("Data received for location: "
-											+ location);
-								} else {
-									publish("Unable to post file to: "
-											+ location);
-									mainPanel.addMessage(document.marshall());
-
-                                    // build up the error message, taking into
-                                    // account the exception condition.
-                                    String outputMessage;
-                                    try{
-                                        SWORDErrorDocument errorDoc = document.getErrorDocument();
-                                        outputMessage = "Unable to post file to "
-													+ location
-													+ ".\r\nStatus is: "
-													+ status.toString()
-													+ ".\r\nThe Error URI is: "
-													+ errorDoc.getErrorURI()
-                                                    + "\r\nSummary is: "
-                                                    + errorDoc.getSummary();
-                                    }catch (SWORDException se){
-                                        outputMessage = se.getMessage();
-                                    }
-
-                                    // display the error - using the string created above
-									JOptionPane.showMessageDialog(
-											GuiClient.this,
-											outputMessage,
-											"Post File",
-											JOptionPane.WARNING_MESSAGE);
+						long limit = postDialog.getUploadLimit();
+						swordclient.setBandwidthLimiter((limit > 0) ? new BandwidthLimiter(limit) : null);
+						swordclient.setProgressListener(new ProgressListener() {
+							public void progressUpdated(final TransferProgress progress) {
+								// show the progress in the status bar, without adding to the messages
+								SwingUtilities.invokeLater(new Runnable() {
+									public void run() {
+										mainPanel.setStatus(progress.toString());
+									}
+								});
+							}
+						});
+
+						try {
+							String location;
+							String username;
+							String password;
+							for (PostDestination destination : destinations) {
+								try {
+									location = destination.getUrl();
+									username = destination.getUsername();
+									password = destination.getPassword();
+									initialiseServer(location, username, password);
+
+									if (username != null && username.length() > 0
+											&& password != null
+											&& password.length() > 0) {
+										publish("Setting the username/password: "
+												+ username + " " + password);
+										swordclient.setCredentials(username,
+												password);
+									} else {
+										swordclient.clearCredentials();
+									}
+
+									PostMessage message = new PostMessage();
+									message.setDestination(location);
+									message.setFilepath(postDialog.getFile());
+									message.setFiletype(postDialog.getFileType());
+									message.setFormatNamespace(postDialog
+											.getFormatNamespace());
+									message.setUseMD5(postDialog.useMd5());
+									message.setVerbose(postDialog.useVerbose());
+									message.setOnBehalfOf(destination
+											.getOnBehalfOf());
+									message.setNoOp(postDialog.useNoOp());
+									message.setChecksumError(postDialog
+											.corruptMD5());
+									message.setCorruptRequest(postDialog
+											.corruptRequest());
+	                                message.setUserAgent(ClientConstants.SERVICE_NAME);
+
+									publish("Posting file to: " + location);
+
+									DepositResponse document = swordclient
+											.postFile(message);
+									Status status = swordclient.getStatus();
+									publish("The status is: " + status);
+
+	                                SwordValidationInfo info = swordclient.getLastUnmarshallInfo();
+	                                if( info != null &&
+	                                    info.getType() == SwordValidationInfoType.VALID)
+	                                {
+	                                   publish("The document was valid");
+	                                }
+	                                else if( info != null )
+	                                {
+	                                   publish("This document did not validate.");
+	                                   StringBuffer buffer = new StringBuffer();
+	                                   info.createString(info, buffer, " ");
+	                                   publish(buffer.toString());
+	                                }
+
+									if (status.getCode() == 201
+											|| status.getCode() == 202) {
+										mainPanel.processDespositResponse(location,
+												document);
+										mainPanel.addMessage(document.marshall());
+										publish("Data received for location: "
+												+ location);
+									} else {
+										publish("Unable to post file to: "
+												+ location);
+										mainPanel.addMessage(document.marshall());
+
+	                                    // build up the error message, taking into
+	                                    // account the exception condition.
+	                                    String outputMessage;
+	                                    try{
+	                                        SWORDErrorDocument errorDoc = document.getErrorDocument();
+	                                        outputMessage = "Unable to post file to "
+														+ location
+														+ ".\r\nStatus is: "
+														+ status.toString()
+														+ ".\r\nThe Error URI is: "
+														+ errorDoc.getErrorURI()
+	                                                    + "\r\nSummary is: "
+	                                                    + errorDoc.getSummary();
+	                                    }catch (SWORDException se){
+	                                        outputMessage = se.getMessage();
+	                                    }
+
+	                                    // display the error - using the string created above
+										JOptionPane.showMessageDialog(
+												GuiClient.this,
+												outputMessage,
+												"Post File",
+												JOptionPane.WARNING_MESSAGE);
+									}
+								} catch (MalformedURLException ex) {
+									publish("Unable to access resource. Error with URL.");
+									JOptionPane.showMessageDialog(GuiClient.this,
+											"There is an error with the URL. "
+													+ ex.getMessage(),
+											"Service Access Error",
+											JOptionPane.ERROR_MESSAGE);
+								} catch (SWORDClientException sce) {
+									publish("Unable to access resource.");
+									JOptionPane.showMessageDialog(GuiClient.this,
+											"There was an error accessing the resource. "
+													+ sce.getMessage(),
+											"Service Access Error",
+											JOptionPane.ERROR_MESSAGE);
 								}
-							} catch (MalformedURLException ex) {
-								publish("Unable to access resource. Error with URL.");
-								JOptionPane.showMessageDialog(GuiClient.this,
-										"There is an error with the URL. "
-												+ ex.getMessage(),
-										"Service Access Error",
-										JOptionPane.ERROR_MESSAGE);
-							} catch (SWORDClientException sce) {
-								publish("Unable to access resource.");
-								JOptionPane.showMessageDialog(GuiClient.this,
-										"There was an error accessing the resource. "
-												+ sce.getMessage(),
-										"Service Access Error",
-										JOptionPane.ERROR_MESSAGE);
 							}
+						} finally {
+							swordclient.setProgressListener(null);
 						}
 
 						return "Finished";
@@ -88,6 +88,7 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPasswordField;
 import javax.swing.JScrollPane;
+import javax.swing.JTextField;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
@@ -184,6 +185,11 @@ implements ActionListener, ChangeListener
     */
    private SWORDComboBox formatNamespace;
 
+   /**
+    * The maximum upload rate, in kilobytes per second. 
+    */
+   private JTextField uploadLimit;
+
    /**
     * The list of post destinations. 
     */
@@ -278,6 +284,7 @@ implements ActionListener, ChangeListener
       useNoOp = new JCheckBox();
       useVerbose = new JCheckBox();
       formatNamespace = new SWORDComboBox();
+      uploadLimit = new JTextField();
       
       JLabel fileLabel = new JLabel("File:", JLabel.TRAILING);
       JLabel fileTypeLabel = new JLabel("File Type:", JLabel.TRAILING);
@@ -288,6 +295,7 @@ implements ActionListener, ChangeListener
       JLabel useNoOpLabel = new JLabel("Use noOp:", JLabel.TRAILING);
       JLabel useVerboseLabel = new JLabel("Use verbose:", JLabel.TRAILING);
       JLabel formatNamespaceLabel = new JLabel("X-Packaging:", JLabel.TRAILING);
+      JLabel uploadLimitLabel = new JLabel("Upload limit (KB/s):", JLabel.TRAILING);
       JLabel userAgentLabel = new JLabel("User Agent:", JLabel.TRAILING);
       JLabel userAgentNameLabel = new JLabel(ClientConstants.SERVICE_NAME, JLabel.LEADING);
       
@@ -305,6 +313,7 @@ implements ActionListener, ChangeListener
       panel.addRow(useNoOpLabel, useNoOp);
       panel.addRow(useVerboseLabel, useVerbose);
       panel.addRow(formatNamespaceLabel, formatNamespace);
+      panel.addRow(uploadLimitLabel, uploadLimit);
       panel.addRow(userAgentLabel, userAgentNameLabel);
       
       return panel; 
@@ -539,6 +548,25 @@ implements ActionListener, ChangeListener
 	   return formatNamespace.getText();
    }
    
+   /**
+    * Get the maximum upload rate. 
+    * 
+    * @return The rate, in bytes per second, or 0 if the value is empty or 
+    *         is not a positive number. 
+    */
+   public long getUploadLimit()
+   {
+      try
+      {
+         long limit = Long.parseLong(uploadLimit.getText().trim());
+         return (limit > 0) ? limit * 1024 : 0;
+      }
+      catch( NumberFormatException ex )
+      {
+         return 0;
+      }
+   }
+   
    /**
     * Determine if the MD5 checkbox is selected. 
     * 
@@ -147,6 +147,11 @@ public class PostMessage
     */
    private String userAgent;
 
+   /**
+    * The MD5 checksum of the file, if it has already been calculated.
+    */
+   private String md5;
+
    /**
     * Get the filepath. 
     * 
@@ -391,4 +396,27 @@ public class PostMessage
 	public void setUserAgent(String userAgent) {
 		this.userAgent = userAgent;
 	}
+
+   /**
+    * Get the MD5 checksum that has been calculated for the file. 
+    * 
+    * @return The checksum, or <code>null</code> if it has not been calculated. 
+    */
+   public String getMD5()
+   {
+      return md5;
+   }
+
+   /**
+    * Set the MD5 checksum for the file. This is used when the same file is 
+    * posted to several destinations, so that the file is only read once to 
+    * calculate the checksum. 
+    * 
+    * @param md5 The checksum, or <code>null</code> to calculate it when the 
+    *            file is posted. 
+    */
+   public void setMD5(String md5)
+   {
+      this.md5 = md5;
+   }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import org.apache.commons.httpclient.HttpMethod;
+
+/**
+ * Holds the HTTP method for a request, so that the request can be aborted 
+ * by a different thread. If the handle is aborted before the method is 
+ * started, the method is not sent. 
+ */
+class RequestHandle {
+
+	/** The method that is being executed, or null. */
+	private HttpMethod method;
+
+	/** True if the request has been aborted. */
+	private boolean aborted;
+
+	/**
+	 * Register the method that is about to be executed.
+	 * 
+	 * @param method
+	 *            The method.
+	 * @throws SWORDClientException
+	 *             If the request has already been aborted.
+	 */
+	synchronized void start(HttpMethod method) throws SWORDClientException {
+		if (aborted) {
+			throw new SWORDClientException("The request has been cancelled.");
+		}
+		this.method = method;
+	}
+
+	/**
+	 * Abort the request. If the method is being executed, the connection is 
+	 * closed.
+	 */
+	synchronized void abort() {
+		aborted = true;
+		if (method != null) {
+			method.abort();
+		}
+	}
+
+	/**
+	 * Determine if the request has been aborted.
+	 * 
+	 * @return True if the request has been aborted.
+	 */
+	synchronized boolean isAborted() {
+		return aborted;
+	}
+}
@@ -0,0 +1,303 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.util.Date;
+import java.util.Random;
+
+import org.apache.commons.httpclient.ConnectTimeoutException;
+import org.apache.commons.httpclient.HttpException;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.NoHttpResponseException;
+import org.apache.commons.httpclient.util.DateParseException;
+import org.apache.commons.httpclient.util.DateUtil;
+
+/**
+ * Decides whether the Client should repeat a request that has failed, and 
+ * how long it should wait first. The delay doubles after each attempt, up 
+ * to a maximum, and a random part of it is removed so that clients which 
+ * failed together do not retry together. A Retry-After header from the 
+ * server is used instead of the calculated delay. 
+ * 
+ * A request that is idempotent is repeated after a timeout, a lost 
+ * connection or a 408, 429, 502, 503 or 504 response. A deposit is only 
+ * treated as idempotent when it has a Slug, which allows the server to 
+ * detect a duplicate. Otherwise, it is only repeated if the connection 
+ * could not be made, or the server responded with 429 or 503, because the 
+ * server may already have stored the first copy. 
+ */
+public class RetryPolicy {
+
+	/**
+	 * A policy that never repeats a request.
+	 */
+	public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0);
+
+	/**
+	 * The value returned when the request should not be repeated.
+	 */
+	public static final long NO_RETRY = -1;
+
+	/**
+	 * The maximum number of attempts, including the first.
+	 */
+	private final int maxAttempts;
+
+	/**
+	 * The delay before the second attempt, in milliseconds.
+	 */
+	private final long initialDelay;
+
+	/**
+	 * The longest delay, in milliseconds.
+	 */
+	private final long maxDelay;
+
+	/**
+	 * The factor that is applied to the delay after each attempt.
+	 */
+	private final double multiplier;
+
+	/**
+	 * The part of the delay that is random, between 0 and 1.
+	 */
+	private final double jitter;
+
+	/**
+	 * Source of the random part of the delay.
+	 */
+	private final Random random = new Random();
+
+	/**
+	 * Create a policy that doubles the delay after each attempt, with up to
+	 * half of the delay being random.
+	 * 
+	 * @param maxAttempts
+	 *            The maximum number of attempts, including the first.
+	 * @param initialDelay
+	 *            The delay before the second attempt, in milliseconds.
+	 * @param maxDelay
+	 *            The longest delay, in milliseconds.
+	 */
+	public RetryPolicy(int maxAttempts, long initialDelay, long maxDelay) {
+		this(maxAttempts, initialDelay, maxDelay, 2.0, 0.5);
+	}
+
+	/**
+	 * Create a new policy.
+	 * 
+	 * @param maxAttempts
+	 *            The maximum number of attempts, including the first.
+	 * @param initialDelay
+	 *            The delay before the second attempt, in milliseconds.
+	 * @param maxDelay
+	 *            The longest delay, in milliseconds.
+	 * @param multiplier
+	 *            The factor that is applied to the delay after each attempt.
+	 * @param jitter
+	 *            The part of the delay that is random, between 0 and 1.
+	 */
+	public RetryPolicy(int maxAttempts, long initialDelay, long maxDelay,
+			double multiplier, double jitter) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("maxAttempts must be at least 1");
+		}
+		if (jitter < 0 || jitter > 1) {
+			throw new IllegalArgumentException("jitter must be between 0 and 1");
+		}
+		this.maxAttempts = maxAttempts;
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+		this.multiplier = multiplier;
+		this.jitter = jitter;
+	}
+
+	/**
+	 * Get the maximum number of attempts, including the first.
+	 * 
+	 * @return The number of attempts.
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Get the delay before the request is repeated after a response.
+	 * 
+	 * @param attempt
+	 *            The number of the attempt that has just finished, starting
+	 *            at 1.
+	 * @param statusCode
+	 *            The status code of the response.
+	 * @param retryAfter
+	 *            The value of the Retry-After header, or <code>null</code>.
+	 * @param idempotent
+	 *            True if the request can safely be sent more than once.
+	 * @return The delay in milliseconds, or NO_RETRY.
+	 */
+	public long getDelay(int attempt, int statusCode, String retryAfter, 
+			boolean idempotent) {
+		if (attempt >= maxAttempts || !isRetryableStatus(statusCode, idempotent)) {
+			return NO_RETRY;
+		}
+		long requested = parseRetryAfter(retryAfter, System.currentTimeMillis());
+		if (requested == NO_RETRY) {
+			return getBackoff(attempt);
+		}
+		// the server has asked for a longer wait than we are willing to give
+		return (requested > maxDelay) ? NO_RETRY : requested;
+	}
+
+	/**
+	 * Get the delay before the request is repeated after an exception.
+	 * 
+	 * @param attempt
+	 *            The number of the attempt that has just finished, starting
+	 *            at 1.
+	 * @param exception
+	 *            The exception.
+	 * @param idempotent
+	 *            True if the request can safely be sent more than once.
+	 * @return The delay in milliseconds, or NO_RETRY.
+	 */
+	public long getDelay(int attempt, IOException exception, boolean idempotent) {
+		if (attempt >= maxAttempts || !isRetryableException(exception, idempotent)) {
+			return NO_RETRY;
+		}
+		return getBackoff(attempt);
+	}
+
+	/**
+	 * Determine if a response with the status code can be retried.
+	 * 
+	 * @param statusCode
+	 *            The status code.
+	 * @param idempotent
+	 *            True if the request can safely be sent more than once.
+	 * @return True if the request can be retried.
+	 */
+	public boolean isRetryableStatus(int statusCode, boolean idempotent) {
+		switch (statusCode) {
+		case HttpStatus.SC_SERVICE_UNAVAILABLE:
+		case 429: // Too Many Requests
+			return true;
+		case HttpStatus.SC_REQUEST_TIMEOUT:
+		case HttpStatus.SC_BAD_GATEWAY:
+		case HttpStatus.SC_GATEWAY_TIMEOUT:
+			return idempotent;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Determine if a request that failed with the exception can be retried.
+	 * 
+	 * @param exception
+	 *            The exception.
+	 * @param idempotent
+	 *            True if the request can safely be sent more than once.
+	 * @return True if the request can be retried.
+	 */
+	public boolean isRetryableException(IOException exception, boolean idempotent) {
+		if (exception instanceof ConnectException
+				|| exception instanceof ConnectTimeoutException
+				|| exception instanceof NoRouteToHostException) {
+			// the request was not sent
+			return true;
+		}
+		if (!idempotent || exception instanceof HttpException) {
+			return false;
+		}
+		return exception instanceof InterruptedIOException
+				|| exception instanceof NoHttpResponseException
+				|| exception instanceof SocketException;
+	}
+
+	/**
+	 * Get the calculated delay after an attempt.
+	 * 
+	 * @param attempt
+	 *            The number of the attempt that has just finished, starting
+	 *            at 1.
+	 * @return The delay in milliseconds.
+	 */
+	public long getBackoff(int attempt) {
+		double delay = initialDelay * Math.pow(multiplier, attempt - 1);
+		delay = Math.min(delay, maxDelay);
+		double random;
+		synchronized (this.random) {
+			random = this.random.nextDouble();
+		}
+		return (long) (delay * (1 - jitter * random));
+	}
+
+	/**
+	 * Convert the value of a Retry-After header to a delay. The value is 
+	 * either a number of seconds or a date.
+	 * 
+	 * @param value
+	 *            The value, or <code>null</code>.
+	 * @param now
+	 *            The current time.
+	 * @return The delay in milliseconds, or NO_RETRY if there is no valid
+	 *         value.
+	 */
+	static long parseRetryAfter(String value, long now) {
+		if (value == null || value.trim().length() == 0) {
+			return NO_RETRY;
+		}
+		value = value.trim();
+		try {
+			long seconds = Long.parseLong(value);
+			return (seconds < 0) ? NO_RETRY : seconds * 1000;
+		} catch (NumberFormatException ex) {
+			// try a date
+		}
+		try {
+			Date date = DateUtil.parseDate(value);
+			return Math.max(0, date.getTime() - now);
+		} catch (DateParseException ex) {
+			return NO_RETRY;
+		}
+	}
+}
@@ -0,0 +1,517 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.log4j.Logger;
+import org.purl.sword.base.ServiceSnapshot;
+
+/**
+ * A cache of service documents, keyed on the URL, username and 
+ * On-Behalf-Of user. Each entry holds the document that the server 
+ * returned, along with its ETag and Last-Modified headers, so that the 
+ * client can ask the server if the document has changed rather than 
+ * fetching it again. 
+ * 
+ * The entries that were used least recently are removed when the total 
+ * size of the documents is over the limit. The cache can be kept in a 
+ * directory, so that it is available to later runs. Each entry is stored
+ * as two files: the document, and a properties file with the headers. 
+ * Passwords are not stored, but the documents list what each user can 
+ * deposit to, so the directory and files are made readable by their owner 
+ * only, where the filesystem supports it.
+ * 
+ * Each entry holds the bytes of the document and an immutable 
+ * {@link ServiceSnapshot} of its parsed form. The client creates a new 
+ * ServiceDocument from the snapshot each time the entry is used, so the 
+ * document is not parsed again and callers never share a mutable document.
+ * Entries that are loaded from the directory are parsed on first use.
+ */
+public class ServiceDocumentCache {
+
+	/**
+	 * The logger.
+	 */
+	private static Logger log = Logger.getLogger(ServiceDocumentCache.class);
+
+	/**
+	 * The default limit on the total size of the documents.
+	 */
+	public static final long DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * The extension of the files that hold the documents.
+	 */
+	private static final String DOCUMENT_EXTENSION = ".xml";
+
+	/**
+	 * The extension of the files that hold the headers.
+	 */
+	private static final String HEADERS_EXTENSION = ".properties";
+
+	/**
+	 * The limit on the total size of the documents, in bytes.
+	 */
+	private final long maxSize;
+
+	/**
+	 * The directory that the entries are stored in, or null.
+	 */
+	private final File directory;
+
+	/**
+	 * The entries, in order of use, with the least recently used first.
+	 */
+	private final LinkedHashMap<String, Entry> entries = 
+		new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	/**
+	 * The total size of the documents, in bytes.
+	 */
+	private long size;
+
+	/**
+	 * Create a cache that is held in memory, with the default size limit.
+	 */
+	public ServiceDocumentCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Create a cache that is held in memory.
+	 * 
+	 * @param maxSize
+	 *            The limit on the total size of the documents, in bytes.
+	 */
+	public ServiceDocumentCache(long maxSize) {
+		this.maxSize = maxSize;
+		this.directory = null;
+	}
+
+	/**
+	 * Create a cache that is kept in a directory. Any entries in the 
+	 * directory are loaded, in the order that they were last used.
+	 * 
+	 * @param directory
+	 *            The directory. It is created if it does not exist.
+	 * @param maxSize
+	 *            The limit on the total size of the documents, in bytes.
+	 * @throws IOException
+	 *             If the directory cannot be created.
+	 */
+	public ServiceDocumentCache(File directory, long maxSize) throws IOException {
+		this.maxSize = maxSize;
+		this.directory = directory;
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create the directory " + directory);
+		}
+		restrict(directory);
+		directory.setExecutable(false, false);
+		directory.setExecutable(true, true);
+		load();
+	}
+
+	/**
+	 * Load the entries from the directory.
+	 */
+	private void load() {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		// the least recently used entries are added first
+		Arrays.sort(files, new Comparator<File>() {
+			public int compare(File a, File b) {
+				long difference = a.lastModified() - b.lastModified();
+				return (difference < 0) ? -1 : ((difference > 0) ? 1 : 0);
+			}
+		});
+
+		for (File file : files) {
+			String name = file.getName();
+			if (!name.endsWith(HEADERS_EXTENSION)) {
+				continue;
+			}
+			String base = name.substring(0, name.length() - HEADERS_EXTENSION.length());
+			try {
+				Properties headers = new Properties();
+				InputStream in = new FileInputStream(file);
+				try {
+					headers.load(in);
+				} finally {
+					in.close();
+				}
+				byte[] content = readFile(new File(directory, base + DOCUMENT_EXTENSION));
+				Entry entry = new Entry(headers.getProperty("url"),
+						headers.getProperty("username"), 
+						headers.getProperty("onBehalfOf"), content,
+						headers.getProperty("etag"), 
+						headers.getProperty("lastModified"));
+				String key = getKey(entry.url, entry.username, entry.onBehalfOf);
+				if (entry.url != null && base.equals(getFileName(key))) {
+					add(key, entry);
+				}
+			} catch (IOException ex) {
+				log.warn("Ignoring the cached service document " + file + ": " 
+						+ ex.getMessage());
+			}
+		}
+		evict();
+	}
+
+	/**
+	 * Get the entry for a service document.
+	 * 
+	 * @param url
+	 *            The URL of the service document.
+	 * @param username
+	 *            The username, or <code>null</code>.
+	 * @param onBehalfOf
+	 *            The On-Behalf-Of user, or <code>null</code>.
+	 * @return The entry, or <code>null</code> if the document is not in the
+	 *         cache.
+	 */
+	public synchronized Entry get(String url, String username, String onBehalfOf) {
+		String key = getKey(url, username, onBehalfOf);
+		Entry entry = entries.get(key);
+		if (entry != null && directory != null) {
+			// the time is used to restore the order of the entries
+			new File(directory, getFileName(key) + HEADERS_EXTENSION)
+					.setLastModified(System.currentTimeMillis());
+		}
+		return entry;
+	}
+
+	/**
+	 * Add a service document to the cache, replacing any earlier version.
+	 * 
+	 * @param url
+	 *            The URL of the service document.
+	 * @param username
+	 *            The username, or <code>null</code>.
+	 * @param onBehalfOf
+	 *            The On-Behalf-Of user, or <code>null</code>.
+	 * @param content
+	 *            The document, as returned by the server.
+	 * @param etag
+	 *            The ETag header, or <code>null</code>.
+	 * @param lastModified
+	 *            The Last-Modified header, or <code>null</code>.
+	 * @param snapshot
+	 *            The parsed document, or <code>null</code>.
+	 */
+	public synchronized void put(String url, String username, String onBehalfOf,
+			byte[] content, String etag, String lastModified, ServiceSnapshot snapshot) {
+		Entry entry = new Entry(url, username, onBehalfOf, content.clone(), 
+				etag, lastModified);
+		entry.snapshot = snapshot;
+
+		String key = getKey(url, username, onBehalfOf);
+		Entry previous = entries.remove(key);
+		if (previous != null) {
+			size -= previous.content.length;
+		}
+		add(key, entry);
+		if (directory != null) {
+			try {
+				save(key, entry);
+			} catch (IOException ex) {
+				log.warn("Unable to store the service document for " + url + ": "
+						+ ex.getMessage());
+			}
+		}
+		evict();
+	}
+
+	/**
+	 * Get the number of documents in the cache.
+	 * 
+	 * @return The number of documents.
+	 */
+	public synchronized int getEntryCount() {
+		return entries.size();
+	}
+
+	/**
+	 * Get the total size of the documents in the cache.
+	 * 
+	 * @return The size, in bytes.
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Add an entry to the map.
+	 */
+	private void add(String key, Entry entry) {
+		entries.put(key, entry);
+		size += entry.content.length;
+	}
+
+	/**
+	 * Remove the least recently used entries until the total size is within
+	 * the limit. The most recent entry is kept, even if it is over the limit
+	 * on its own.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (size > maxSize && entries.size() > 1) {
+			Map.Entry<String, Entry> eldest = iterator.next();
+			size -= eldest.getValue().content.length;
+			iterator.remove();
+			if (directory != null) {
+				String name = getFileName(eldest.getKey());
+				new File(directory, name + HEADERS_EXTENSION).delete();
+				new File(directory, name + DOCUMENT_EXTENSION).delete();
+			}
+		}
+	}
+
+	/**
+	 * Write an entry to the directory. The headers are written last, so that
+	 * an entry is only loaded if its document was written.
+	 */
+	private void save(String key, Entry entry) throws IOException {
+		String name = getFileName(key);
+		OutputStream out = openRestricted(new File(directory, name + DOCUMENT_EXTENSION));
+		try {
+			out.write(entry.content);
+		} finally {
+			out.close();
+		}
+
+		Properties headers = new Properties();
+		headers.setProperty("url", entry.url);
+		setProperty(headers, "username", entry.username);
+		setProperty(headers, "onBehalfOf", entry.onBehalfOf);
+		setProperty(headers, "etag", entry.etag);
+		setProperty(headers, "lastModified", entry.lastModified);
+		out = openRestricted(new File(directory, name + HEADERS_EXTENSION));
+		try {
+			headers.store(out, "Cached service document");
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Open a file for writing, and make it readable and writable by its owner
+	 * only before anything is written to it.
+	 */
+	private static OutputStream openRestricted(File file) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		restrict(file);
+		return out;
+	}
+
+	/**
+	 * Make a file or directory readable and writable by its owner only. 
+	 */
+	private static void restrict(File file) {
+		boolean restricted = file.setReadable(false, false)
+				&& file.setReadable(true, true)
+				&& file.setWritable(false, false)
+				&& file.setWritable(true, true);
+		if (!restricted) {
+			log.warn("Unable to restrict the permissions of " + file);
+		}
+	}
+
+	/**
+	 * Set a property if the value is not null.
+	 */
+	private static void setProperty(Properties properties, String name, String value) {
+		if (value != null) {
+			properties.setProperty(name, value);
+		}
+	}
+
+	/**
+	 * Read the contents of a file.
+	 */
+	private static byte[] readFile(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] content = new byte[(int) file.length()];
+			int offset = 0;
+			int count;
+			while (offset < content.length
+					&& (count = in.read(content, offset, content.length - offset)) != -1) {
+				offset += count;
+			}
+			if (offset < content.length) {
+				throw new IOException("Unable to read all of " + file);
+			}
+			return content;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Get the key for a service document.
+	 */
+	private static String getKey(String url, String username, String onBehalfOf) {
+		return url + "\n" + ((username == null) ? "" : username) + "\n"
+				+ ((onBehalfOf == null) ? "" : onBehalfOf);
+	}
+
+	/**
+	 * Get the name of the files for an entry, which is the MD5 hash of the 
+	 * key.
+	 */
+	private static String getFileName(String key) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("MD5");
+			byte[] digest = md.digest(key.getBytes("UTF-8"));
+			StringBuffer buffer = new StringBuffer();
+			for (byte b : digest) {
+				String hex = Integer.toHexString(b & 0xFF);
+				if (hex.length() == 1) {
+					buffer.append("0");
+				}
+				buffer.append(hex);
+			}
+			return buffer.toString();
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("MD5 is not supported", ex);
+		} catch (IOException ex) {
+			throw new IllegalStateException("UTF-8 is not supported", ex);
+		}
+	}
+
+	/**
+	 * A cached service document.
+	 */
+	public static class Entry {
+
+		/** The URL of the service document. */
+		private final String url;
+
+		/** The username, or null. */
+		private final String username;
+
+		/** The On-Behalf-Of user, or null. */
+		private final String onBehalfOf;
+
+		/** The document, as returned by the server. */
+		private final byte[] content;
+
+		/** The ETag header, or null. */
+		private final String etag;
+
+		/** The Last-Modified header, or null. */
+		private final String lastModified;
+
+		/** The parsed document, or null if it has not been parsed. */
+		private volatile ServiceSnapshot snapshot;
+
+		Entry(String url, String username, String onBehalfOf, byte[] content,
+				String etag, String lastModified) {
+			this.url = url;
+			this.username = username;
+			this.onBehalfOf = onBehalfOf;
+			this.content = content;
+			this.etag = etag;
+			this.lastModified = lastModified;
+		}
+
+		/**
+		 * Get the document, as returned by the server.
+		 * 
+		 * @return A copy of the document.
+		 */
+		public byte[] getContent() {
+			return content.clone();
+		}
+
+		/**
+		 * Get the ETag header.
+		 * 
+		 * @return The value, or <code>null</code>.
+		 */
+		public String getETag() {
+			return etag;
+		}
+
+		/**
+		 * Get the Last-Modified header.
+		 * 
+		 * @return The value, or <code>null</code>.
+		 */
+		public String getLastModified() {
+			return lastModified;
+		}
+
+		/**
+		 * Get the parsed document. The snapshot is immutable, so it can be 
+		 * shared by everyone that uses the entry.
+		 * 
+		 * @return The snapshot, or <code>null</code> if the entry was loaded
+		 *         from the directory and has not been parsed.
+		 */
+		public ServiceSnapshot getSnapshot() {
+			return snapshot;
+		}
+
+		/**
+		 * Set the parsed document, after the entry has been loaded from the
+		 * directory.
+		 * 
+		 * @param snapshot
+		 *            The snapshot.
+		 */
+		public void setSnapshot(ServiceSnapshot snapshot) {
+			this.snapshot = snapshot;
+		}
+	}
+}
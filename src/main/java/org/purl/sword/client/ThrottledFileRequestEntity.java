@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+/**
+ * Sends a file as the body of a request, limiting the rate at which it is 
+ * sent and reporting the progress. 
+ */
+public class ThrottledFileRequestEntity implements RequestEntity {
+
+	/**
+	 * The size of the blocks that the file is sent in.
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * The minimum time between progress reports, in milliseconds.
+	 */
+	private static final long REPORT_INTERVAL = 500;
+
+	/**
+	 * The file.
+	 */
+	private final File file;
+
+	/**
+	 * The content type.
+	 */
+	private final String contentType;
+
+	/**
+	 * The destination, which is included in the progress reports.
+	 */
+	private final String destination;
+
+	/**
+	 * The limiters that control the rate.
+	 */
+	private final List<BandwidthLimiter> limiters;
+
+	/**
+	 * The listener, or null.
+	 */
+	private final ProgressListener listener;
+
+	/**
+	 * The total time spent waiting for the limiters, in milliseconds.
+	 */
+	private volatile long throttledTime;
+
+	/**
+	 * Create a new instance.
+	 * 
+	 * @param file
+	 *            The file.
+	 * @param contentType
+	 *            The content type.
+	 * @param destination
+	 *            The destination, which is included in the progress reports.
+	 * @param limiters
+	 *            The limiters that control the rate. Each block of the file
+	 *            is only sent when all of the limiters allow it.
+	 * @param listener
+	 *            The listener, or <code>null</code>.
+	 */
+	public ThrottledFileRequestEntity(File file, String contentType, 
+			String destination, List<BandwidthLimiter> limiters, 
+			ProgressListener listener) {
+		this.file = file;
+		this.contentType = contentType;
+		this.destination = destination;
+		this.limiters = limiters;
+		this.listener = listener;
+	}
+
+	/**
+	 * @see RequestEntity#getContentLength()
+	 */
+	public long getContentLength() {
+		return file.length();
+	}
+
+	/**
+	 * @see RequestEntity#getContentType()
+	 */
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * The file can be sent again, e.g. after an authentication challenge.
+	 * 
+	 * @see RequestEntity#isRepeatable()
+	 */
+	public boolean isRepeatable() {
+		return true;
+	}
+
+	/**
+	 * Send the file.
+	 * 
+	 * @see RequestEntity#writeRequest(OutputStream)
+	 */
+	public void writeRequest(OutputStream out) throws IOException {
+		long total = file.length();
+		long start = System.currentTimeMillis();
+		long lastReport = start;
+		long lastSent = 0;
+		long sent = 0;
+
+		byte[] buffer = new byte[BUFFER_SIZE];
+		InputStream in = new FileInputStream(file);
+		try {
+			int length;
+			while ((length = in.read(buffer)) > 0) {
+				long waitStarted = System.currentTimeMillis();
+				try {
+					for (BandwidthLimiter limiter : limiters) {
+						limiter.acquire(length);
+					}
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while sending " + file);
+				} finally {
+					throttledTime += System.currentTimeMillis() - waitStarted;
+				}
+				out.write(buffer, 0, length);
+				sent += length;
+
+				long now = System.currentTimeMillis();
+				if (listener != null && now - lastReport >= REPORT_INTERVAL && sent < total) {
+					report(sent, total, now - start, sent - lastSent, now - lastReport);
+					lastReport = now;
+					lastSent = sent;
+				}
+			}
+		} finally {
+			in.close();
+		}
+
+		if (listener != null) {
+			long now = System.currentTimeMillis();
+			report(sent, total, now - start, sent - lastSent, now - lastReport);
+		}
+	}
+
+	/**
+	 * Get the total time that has been spent waiting for the limiters, each
+	 * time the file has been sent.
+	 * 
+	 * @return The time, in milliseconds.
+	 */
+	public long getThrottledTime() {
+		return throttledTime;
+	}
+
+	/**
+	 * Send a progress report to the listener.
+	 */
+	private void report(long sent, long total, long elapsed, long bytes, long interval) {
+		double rate = (interval > 0) ? bytes * 1000.0 / interval : 0;
+		listener.progressUpdated(new TransferProgress(destination, sent, total, 
+				elapsed, rate));
+	}
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+/**
+ * The progress of a file that is being posted. 
+ */
+public class TransferProgress {
+
+	/** The destination of the file. */
+	private final String destination;
+
+	/** The number of bytes that have been sent. */
+	private final long bytesSent;
+
+	/** The size of the file. */
+	private final long totalBytes;
+
+	/** The time since the upload started, in milliseconds. */
+	private final long elapsed;
+
+	/** The rate since the previous report, in bytes per second. */
+	private final double rate;
+
+	/**
+	 * Create a new instance.
+	 * 
+	 * @param destination
+	 *            The destination of the file.
+	 * @param bytesSent
+	 *            The number of bytes that have been sent.
+	 * @param totalBytes
+	 *            The size of the file.
+	 * @param elapsed
+	 *            The time since the upload started, in milliseconds.
+	 * @param rate
+	 *            The rate since the previous report, in bytes per second.
+	 */
+	public TransferProgress(String destination, long bytesSent, long totalBytes,
+			long elapsed, double rate) {
+		this.destination = destination;
+		this.bytesSent = bytesSent;
+		this.totalBytes = totalBytes;
+		this.elapsed = elapsed;
+		this.rate = rate;
+	}
+
+	/**
+	 * Get the destination of the file.
+	 * 
+	 * @return The destination.
+	 */
+	public String getDestination() {
+		return destination;
+	}
+
+	/**
+	 * Get the number of bytes that have been sent.
+	 * 
+	 * @return The number of bytes.
+	 */
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	/**
+	 * Get the size of the file.
+	 * 
+	 * @return The number of bytes.
+	 */
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * Get the time since the upload started.
+	 * 
+	 * @return The time, in milliseconds.
+	 */
+	public long getElapsedTime() {
+		return elapsed;
+	}
+
+	/**
+	 * Get the rate since the previous report.
+	 * 
+	 * @return The rate, in bytes per second.
+	 */
+	public double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Get the average rate since the upload started.
+	 * 
+	 * @return The rate, in bytes per second.
+	 */
+	public double getAverageRate() {
+		return (elapsed > 0) ? bytesSent * 1000.0 / elapsed : 0;
+	}
+
+	/**
+	 * Get the estimated time until the file has been sent, based on the
+	 * average rate.
+	 * 
+	 * @return The time, in milliseconds, or -1 if it is not known.
+	 */
+	public long getEstimatedTimeRemaining() {
+		double average = getAverageRate();
+		if (average <= 0) {
+			return -1;
+		}
+		return (long) ((totalBytes - bytesSent) * 1000 / average);
+	}
+
+	/**
+	 * Determine if the whole file has been sent.
+	 * 
+	 * @return True if the file has been sent.
+	 */
+	public boolean isComplete() {
+		return bytesSent >= totalBytes;
+	}
+
+	/**
+	 * Describe the progress, e.g. "Sent 1.5 MB of 10.0 MB (15%) at 
+	 * 512.0 KB/s, average 500.0 KB/s, 17 s remaining".
+	 */
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("Sent ").append(formatBytes(bytesSent));
+		buffer.append(" of ").append(formatBytes(totalBytes));
+		if (totalBytes > 0) {
+			buffer.append(" (").append(bytesSent * 100 / totalBytes).append("%)");
+		}
+		buffer.append(" at ").append(formatBytes((long) rate)).append("/s");
+		buffer.append(", average ").append(formatBytes((long) getAverageRate())).append("/s");
+		long remaining = getEstimatedTimeRemaining();
+		if (!isComplete() && remaining >= 0) {
+			buffer.append(", ").append(remaining / 1000).append(" s remaining");
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Format a number of bytes with a unit.
+	 * 
+	 * @param bytes
+	 *            The number of bytes.
+	 * @return The formatted value, e.g. "1.5 MB".
+	 */
+	public static String formatBytes(long bytes) {
+		if (bytes < 1024) {
+			return bytes + " B";
+		}
+		if (bytes < 1024 * 1024) {
+			return String.format("%.1f KB", bytes / 1024.0);
+		}
+		if (bytes < 1024L * 1024 * 1024) {
+			return String.format("%.1f MB", bytes / (1024.0 * 1024));
+		}
+		return String.format("%.1f GB", bytes / (1024.0 * 1024 * 1024));
+	}
+}
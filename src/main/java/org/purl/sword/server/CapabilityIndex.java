@@ -0,0 +1,316 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.server;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.log4j.Logger;
+import org.purl.sword.base.CollectionCapabilities;
+import org.purl.sword.base.CollectionSnapshot;
+import org.purl.sword.base.SWORDAuthenticationException;
+import org.purl.sword.base.SWORDErrorException;
+import org.purl.sword.base.SWORDException;
+import org.purl.sword.base.ServiceDocument;
+import org.purl.sword.base.ServiceDocumentRequest;
+import org.purl.sword.base.ServiceSnapshot;
+import org.purl.sword.base.ValuePool;
+
+/**
+ * A cache of the collection capabilities in the service documents returned 
+ * by a SWORDServer, indexed by the deposit location of each collection. 
+ * The DepositServlet uses this to reject a deposit that the collection 
+ * does not accept before the body of the request is read. 
+ * 
+ * Service documents can differ between users, so an index is kept for each 
+ * combination of username and on-behalf-of user. The password is not kept. 
+ * Instead, each index records a salted digest of the password that it was 
+ * built with, and a request with a different password builds the index 
+ * again, so that the repository still checks the credentials. Each index is
+ * rebuilt when it is older than the time to live, and the least recently 
+ * used index is removed when the maximum number of users is reached. If 
+ * several requests need the same index at the same time, it is only built 
+ * once and the other requests wait for it. 
+ * 
+ * The index is only used to reject deposits. If the service document 
+ * cannot be retrieved, or the deposit location is not listed in it, no 
+ * capabilities are returned and the deposit is passed to the SWORDServer 
+ * as before. 
+ */
+public class CapabilityIndex {
+
+	/** The default maximum number of users for which an index is cached */
+	private static final int MAX_ENTRIES = 1000;
+
+	/** Logger */
+	private static Logger log = Logger.getLogger(CapabilityIndex.class);
+
+	/** The repository */
+	private final SWORDServer repository;
+
+	/** The time to live of each index, in milliseconds */
+	private final long timeToLive;
+
+	/** The maximum number of users for which an index is cached */
+	private final int maxEntries;
+
+	/** The salt for the password digests */
+	private final byte[] salt = new byte[16];
+
+	/** The cached indexes, in access order. Guarded by itself. */
+	private final LinkedHashMap<String, Entry> entries;
+
+	/**
+	 * Create a new index.
+	 * 
+	 * @param repository The repository that provides the service documents
+	 * @param timeToLive The time to live of each index, in milliseconds
+	 */
+	public CapabilityIndex(SWORDServer repository, long timeToLive) {
+		this(repository, timeToLive, MAX_ENTRIES);
+	}
+
+	/**
+	 * Create a new index.
+	 * 
+	 * @param repository The repository that provides the service documents
+	 * @param timeToLive The time to live of each index, in milliseconds
+	 * @param maxEntries The maximum number of users for which an index is 
+	 *                   cached
+	 */
+	public CapabilityIndex(SWORDServer repository, long timeToLive, 
+			final int maxEntries) {
+		this.repository = repository;
+		this.timeToLive = timeToLive;
+		this.maxEntries = maxEntries;
+		new SecureRandom().nextBytes(salt);
+		entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CapabilityIndex.Entry> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Get the maximum number of users for which an index is cached.
+	 * 
+	 * @return The maximum number of users
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Get the capabilities of the collection at the deposit location.
+	 * 
+	 * @param depositLocation The location that the deposit was sent to
+	 * @param request The request used to retrieve the service document, if 
+	 *                the index for the user is not cached
+	 * @return The capabilities, or null if they are not known
+	 */
+	public CollectionCapabilities getCapabilities(String depositLocation, 
+			ServiceDocumentRequest request) {
+		String key = request.getUsername() + '\u0000' + request.getOnBehalfOf();
+		byte[] digest = digest(request.getPassword());
+		long now = System.currentTimeMillis();
+
+		Entry entry;
+		boolean build = false;
+		synchronized (entries) {
+			entry = entries.get(key);
+			if ((entry == null) || (entry.expires < now) || 
+			    (!MessageDigest.isEqual(entry.digest, digest))) {
+				entry = new Entry(digest);
+				entries.put(key, entry);
+				build = true;
+			}
+		}
+
+		if (build) {
+			Map<String, CollectionCapabilities> collections = null;
+			try {
+				collections = build(request);
+			} finally {
+				if (collections == null) {
+					// do not keep the failure, so that the next request tries again
+					synchronized (entries) {
+						if (entries.get(key) == entry) {
+							entries.remove(key);
+						}
+					}
+				}
+				entry.setCollections(collections, System.currentTimeMillis() + timeToLive);
+			}
+		}
+
+		Map<String, CollectionCapabilities> collections = entry.getCollections();
+		return (collections == null) ? null : collections.get(depositLocation);
+	}
+
+	/**
+	 * Get the number of users for which an index is cached.
+	 * 
+	 * @return The number of users
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Remove all of the cached indexes.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * Calculate the salted digest of a password.
+	 * 
+	 * @param password The password, or null
+	 * @return The digest
+	 */
+	private byte[] digest(String password) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			md.update(salt);
+			if (password != null) {
+				md.update((byte) 1);
+				md.update(password.getBytes("UTF-8"));
+			}
+			return md.digest();
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new IllegalStateException("SHA-256 is not available", nsae);
+		} catch (UnsupportedEncodingException uee) {
+			throw new IllegalStateException("UTF-8 is not supported", uee);
+		}
+	}
+
+	/**
+	 * Retrieve the service document and index its collections.
+	 * 
+	 * @param request The service document request
+	 * @return The capabilities of each collection, or null if the service 
+	 *         document could not be retrieved
+	 */
+	private Map<String, CollectionCapabilities> build(ServiceDocumentRequest request) {
+		try {
+			ServiceDocument document = repository.doServiceDocument(request);
+			Map<String, CollectionCapabilities> collections = 
+					new HashMap<String, CollectionCapabilities>();
+			if ((document == null) || (document.getService() == null)) {
+				return collections;
+			}
+			ServiceSnapshot snapshot = document.getService().snapshot(new ValuePool());
+			for (CollectionSnapshot collection : snapshot.getCollections()) {
+				if (collection.getLocation() != null) {
+					collections.put(collection.getLocation(), collection.getCapabilities());
+				}
+			}
+			log.debug("Indexed " + collections.size() + " collections");
+			return collections;
+		} catch (SWORDAuthenticationException sae) {
+			log.debug("Unable to index the service document: " + sae.getMessage());
+		} catch (SWORDErrorException see) {
+			log.debug("Unable to index the service document: " + see.getMessage());
+		} catch (SWORDException se) {
+			log.warn("Unable to index the service document: " + se.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * A cached index. The index is built by the first request that needs 
+	 * it, and any other request for the same index waits until it is ready.
+	 */
+	private static class Entry {
+
+		/** The salted digest of the password used to build the index */
+		final byte[] digest;
+
+		/** Released when the index has been built */
+		private final CountDownLatch built = new CountDownLatch(1);
+
+		/** The capabilities of each collection, or null if the build failed */
+		private volatile Map<String, CollectionCapabilities> collections;
+
+		/** The time at which the index expires. It does not expire while it is built. */
+		volatile long expires = Long.MAX_VALUE;
+
+		Entry(byte[] digest) {
+			this.digest = digest;
+		}
+
+		/**
+		 * Store the result of the build, and release any waiting requests.
+		 * 
+		 * @param collections The capabilities, or null if the build failed
+		 * @param expires The time at which the index expires
+		 */
+		void setCollections(Map<String, CollectionCapabilities> collections, long expires) {
+			this.collections = collections;
+			this.expires = expires;
+			built.countDown();
+		}
+
+		/**
+		 * Get the capabilities, waiting until the index has been built.
+		 * 
+		 * @return The capabilities, or null if the build failed or the 
+		 *         thread was interrupted
+		 */
+		Map<String, CollectionCapabilities> getCollections() {
+			try {
+				built.await();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+			return collections;
+		}
+	}
+}
@@ -45,8 +45,6 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.security.NoSuchAlgorithmException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.StringTokenizer;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -61,6 +59,8 @@ import org.apache.log4j.Logger;
 import org.purl.sword.atom.Summary;
 import org.purl.sword.atom.Title;
 import org.purl.sword.base.ChecksumUtils;
+import org.purl.sword.base.CollectionCapabilities;
+import org.purl.sword.base.DateCodec;
 import org.purl.sword.base.Deposit;
 import org.purl.sword.base.DepositResponse;
 import org.purl.sword.base.ErrorCodes;
@@ -69,6 +69,8 @@ import org.purl.sword.base.SWORDAuthenticationException;
 import org.purl.sword.base.SWORDErrorDocument;
 import org.purl.sword.base.SWORDException;
 import org.purl.sword.base.SWORDErrorException;
+import org.purl.sword.base.ServiceDocumentRequest;
+import org.purl.sword.base.XmlParserPool;
 
 /**
  * DepositServlet
@@ -89,6 +91,12 @@ public class DepositServlet extends HttpServlet {
 	/** Temp directory */
 	private String tempDirectory;
 
+	/** Location of the service document used to check deposits, or null */
+	private String capabilityServiceDocument;
+
+	/** Collection capabilities, or null if deposits are not checked */
+	private CapabilityIndex capabilityIndex;
+
 	/** Counter */
 	private static AtomicInteger counter = new AtomicInteger(0);
 
@@ -173,6 +181,39 @@ public class DepositServlet extends HttpServlet {
 					"Upload temporary directory cannot be written to: "
 							+ tempDir);
 		}
+
+		// Check deposits against the collections in the service document?
+		capabilityServiceDocument = getServletContext().getInitParameter(
+				"capability-check-service-document");
+		if ((capabilityServiceDocument != null) && (!capabilityServiceDocument.equals(""))) {
+			long ttl = 300;
+			String ttlStr = getServletContext().getInitParameter("capability-check-ttl");
+			if ((ttlStr != null) && (!ttlStr.equals(""))) {
+				try {
+					ttl = Long.parseLong(ttlStr);
+				} catch (NumberFormatException nfe) {
+					log.warn("capability-check-ttl not a number, so using " + ttl + " seconds.");
+				}
+			}
+			capabilityIndex = new CapabilityIndex(myRepository, ttl * 1000);
+			log.info("Checking deposits against " + capabilityServiceDocument + 
+					 ", refreshed every " + ttl + " seconds");
+		}
+	}
+
+	/**
+	 * Process the request, and then release the XML parsers held for the 
+	 * container's thread, so that they are not kept while the thread is idle
+	 * or reused by another application.
+	 */
+	@Override
+	protected void service(HttpServletRequest request, HttpServletResponse response) 
+			throws ServletException, IOException {
+		try {
+			super.service(request, response);
+		} finally {
+			XmlParserPool.release();
+		}
 	}
 
 	/**
@@ -207,6 +248,12 @@ public class DepositServlet extends HttpServlet {
 			response.setStatus(401);
 			return;
 		}
+
+		// Reject the deposit before the file is read if the collection 
+		// does not accept it
+		if (isRejected(d, request, response)) {
+			return;
+		}
 		
 		// Set up some variables
 		String filename = null;
@@ -393,6 +440,77 @@ public class DepositServlet extends HttpServlet {
 		}
 	}
 	
+	/**
+	 * Check the content type and packaging of the deposit against the 
+	 * collection capabilities, and send an error document if the collection 
+	 * does not accept the deposit. Deposits are only checked when the 
+	 * 'capability-check-service-document' parameter is set, and only 
+	 * rejected if the collection is listed in the service document.
+	 * 
+	 * @param d The deposit, with the credentials set
+	 * @param request The request
+	 * @param response The response
+	 * @return true if the deposit was rejected
+	 * @throws IOException
+	 */
+	protected boolean isRejected(Deposit d, HttpServletRequest request, 
+			HttpServletResponse response) throws IOException {
+		if (capabilityIndex == null) {
+			return false;
+		}
+
+		ServiceDocumentRequest sdr = new ServiceDocumentRequest();
+		sdr.setUsername(d.getUsername());
+		sdr.setPassword(d.getPassword());
+		sdr.setOnBehalfOf(request.getHeader(HttpHeaders.X_ON_BEHALF_OF.toString()));
+		sdr.setIPAddress(request.getRemoteAddr());
+		sdr.setLocation(getServiceDocumentUrl(request));
+
+		CollectionCapabilities capabilities = 
+				capabilityIndex.getCapabilities(getUrl(request), sdr);
+		if (capabilities == null) {
+			return false;
+		}
+
+		String contentType = request.getContentType();
+		if (!capabilities.acceptsMediaType(contentType)) {
+			log.debug("Rejecting deposit with content type " + contentType);
+			this.makeErrorDocument(ErrorCodes.ERROR_CONTENT, 
+					HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+					"The collection does not accept deposits with the content type " + contentType,
+					request, response);
+			return true;
+		}
+
+		String packaging = request.getHeader(HttpHeaders.X_PACKAGING);
+		if (!capabilities.acceptsPackaging(packaging)) {
+			log.debug("Rejecting deposit with packaging " + packaging);
+			this.makeErrorDocument(ErrorCodes.ERROR_CONTENT, 
+					HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+					"The collection does not accept deposits with the packaging format " + packaging,
+					request, response);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Utility method to construct the URL of the service document used to 
+	 * check deposits. A location starting with '/' is relative to the web 
+	 * application.
+	 * 
+	 * @param req The request object
+	 * @return The URL
+	 */
+	protected String getServiceDocumentUrl(HttpServletRequest req) {
+		if (!capabilityServiceDocument.startsWith("/")) {
+			return capabilityServiceDocument;
+		}
+		String reqUrl = req.getRequestURL().toString();
+		String prefix = reqUrl.substring(0, reqUrl.length() - req.getRequestURI().length());
+		return prefix + req.getContextPath() + capabilityServiceDocument;
+	}
+
 	/**
 	 * Utility method to construct a SWORDErrorDocumentTest
 	 * 
@@ -410,11 +528,7 @@ public class DepositServlet extends HttpServlet {
 		Title title = new Title();
 		title.setContent("ERROR");
 		sed.setTitle(title);
-		Calendar calendar = Calendar.getInstance();
-		String utcformat = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
-		SimpleDateFormat zulu = new SimpleDateFormat(utcformat);
-		String serializeddate = zulu.format(calendar.getTime());
-		sed.setUpdated(serializeddate);
+		sed.setUpdated(DateCodec.formatMillis(System.currentTimeMillis()));
 		Summary sum = new Summary();
 		sum.setContent(summary);
 		sed.setSummary(sum);
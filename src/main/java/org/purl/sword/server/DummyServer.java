@@ -38,9 +38,6 @@
 package org.purl.sword.server;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.TimeZone;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -57,6 +54,7 @@ import org.purl.sword.atom.Title;
 import org.purl.sword.base.AtomDocumentRequest;
 import org.purl.sword.base.AtomDocumentResponse;
 import org.purl.sword.base.Collection;
+import org.purl.sword.base.DateCodec;
 import org.purl.sword.base.Deposit;
 import org.purl.sword.base.DepositResponse;
 import org.purl.sword.base.ErrorCodes;
@@ -277,11 +275,7 @@ public class DummyServer implements SWORDServer {
 			se.setId("ID: " + counter);
 		}
 		 
-		SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-		TimeZone utc = TimeZone.getTimeZone("UTC");
-		sdf.setTimeZone (utc);
-		String milliFormat = sdf.format(new Date());
-		se.setUpdated(milliFormat);
+		se.setUpdated(DateCodec.now());
 			
 	    Summary s = new Summary();
 		s.setContent(filenames.toString());
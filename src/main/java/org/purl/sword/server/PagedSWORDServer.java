@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.server;
+
+import org.purl.sword.base.SWORDAuthenticationException;
+import org.purl.sword.base.SWORDErrorException;
+import org.purl.sword.base.SWORDException;
+import org.purl.sword.base.ServiceDocument;
+import org.purl.sword.base.ServiceDocumentRequest;
+
+/**
+ * A repository that can create part of its service document. When the 
+ * ServiceDocumentServlet splits service documents into pages, it uses this 
+ * interface, if the repository implements it, so that only the collections
+ * for the requested page are created. 
+ */
+public interface PagedSWORDServer extends SWORDServer {
+
+	/**
+	 * Answer a request for part of a Service Document. Every workspace is 
+	 * included, in the same order as for doServiceDocument(sdr), but each 
+	 * workspace only holds its collections from position <code>first</code>
+	 * onwards, up to a maximum of <code>count</code>. 
+	 * 
+	 * @param sdr The Service Document Request object
+	 * @param first The position of the first collection in each workspace, 
+	 *              starting at 0
+	 * @param count The maximum number of collections in each workspace
+	 * 
+	 * @exception SWORDAuthenticationException Thrown if the authentication fails
+	 * @exception SWORDErrorException Thrown if there was an error with the input not matching
+	 *            the capabilities of the server
+	 * @exception SWORDException Thrown in an un-handalable Exception occurs. 
+	 *            This will be dealt with by sending a HTTP 500 Server Exception
+	 *
+	 * @return The ServiceDocument representing the part of the service document
+	 */
+	public ServiceDocument doServiceDocument(ServiceDocumentRequest sdr, int first, int count)
+		throws SWORDAuthenticationException, SWORDErrorException, SWORDException;
+}
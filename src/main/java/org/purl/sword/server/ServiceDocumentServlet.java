@@ -52,8 +52,11 @@ import org.purl.sword.base.HttpHeaders;
 import org.purl.sword.base.SWORDAuthenticationException;
 import org.purl.sword.base.SWORDErrorException;
 import org.purl.sword.base.SWORDException;
+import org.purl.sword.base.Service;
 import org.purl.sword.base.ServiceDocument;
 import org.purl.sword.base.ServiceDocumentRequest;
+import org.purl.sword.base.ServicePartitioner;
+import org.purl.sword.base.XmlParserPool;
 
 /**
  * ServiceDocumentServlet
@@ -71,6 +74,9 @@ public class ServiceDocumentServlet extends HttpServlet {
 	/** Maximum file upload size in kB **/
 	private int maxUploadSize;
 
+	/** Splits large service documents into pages, or null if disabled */
+	private ServicePartitioner partitioner;
+
 	/** Logger */
 	private static Logger log = Logger.getLogger(ServiceDocumentServlet.class);
 
@@ -120,6 +126,37 @@ public class ServiceDocumentServlet extends HttpServlet {
 				log.warn("maxUploadSize not a number, so setting max file upload size to unlimited.");
 			}
 		}
+
+		String pageSizeStr = getServletContext().getInitParameter("service-document-page-size");
+		if ((pageSizeStr == null) || (pageSizeStr.equals(""))) {
+			partitioner = null;
+		} else {
+			try {
+				int pageSize = Integer.parseInt(pageSizeStr);
+				if (pageSize > 0) {
+					partitioner = new ServicePartitioner(pageSize);
+					log.info("Splitting service documents into pages of " + pageSize + " collections");
+				}
+			} catch (NumberFormatException nfe) {
+				partitioner = null;
+				log.warn("service-document-page-size not a number, so service documents will not be split.");
+			}
+		}
+	}
+
+	/**
+	 * Process the request, and then release the XML parsers held for the 
+	 * container's thread, so that they are not kept while the thread is idle
+	 * or reused by another application.
+	 */
+	@Override
+	protected void service(HttpServletRequest request, HttpServletResponse response) 
+			throws ServletException, IOException {
+		try {
+			super.service(request, response);
+		} finally {
+			XmlParserPool.release();
+		}
 	}
 
 	/**
@@ -155,12 +192,65 @@ public class ServiceDocumentServlet extends HttpServlet {
 		// Set the deposit location
 		sdr.setLocation(getUrl(request));
 
+		// Which page of the service document has been requested?
+		int workspaceIndex = -1;
+		int pageIndex = -1;
+		if (partitioner != null) {
+			String workspaceStr = request.getParameter(ServicePartitioner.PARAMETER_WORKSPACE);
+			String pageStr = request.getParameter(ServicePartitioner.PARAMETER_PAGE);
+			if ((workspaceStr != null) || (pageStr != null)) {
+				try {
+					workspaceIndex = Integer.parseInt(workspaceStr);
+					pageIndex = Integer.parseInt(pageStr);
+				} catch (NumberFormatException nfe) {
+					response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+							"Invalid service document page");
+					return;
+				}
+				if ((workspaceIndex < 0) || (pageIndex < 0)) {
+					response.sendError(HttpServletResponse.SC_NOT_FOUND,
+							"No such service document page");
+					return;
+				}
+			}
+		}
+
 		// Get the ServiceDocument
 		try {
-			ServiceDocument sd = myRepository.doServiceDocument(sdr);
+			ServiceDocument sd;
+			int first = 0;
+			if ((partitioner != null) && (myRepository instanceof PagedSWORDServer)) {
+				// One more collection than a page holds shows if there is a next page
+				if (pageIndex != -1) {
+					first = pageIndex * partitioner.getPageSize();
+				}
+				sd = ((PagedSWORDServer)myRepository).doServiceDocument(sdr, first, 
+						partitioner.getPageSize() + 1);
+			} else {
+				sd = myRepository.doServiceDocument(sdr);
+			}
 			if ((sd.getService().getMaxUploadSize() == -1) && (maxUploadSize != -1)) {
 				sd.getService().setMaxUploadSize(maxUploadSize);
 			}
+
+			// Split the service document, if it is too large
+			if (partitioner != null) {
+				Service service;
+				if (workspaceIndex != -1) {
+					service = partitioner.page(sd.getService(), workspaceIndex, pageIndex, 
+							sdr.getLocation(), first);
+					if (service == null) {
+						response.sendError(HttpServletResponse.SC_NOT_FOUND,
+								"No such service document page");
+						return;
+					}
+				} else if (partitioner.needsPartition(sd.getService())) {
+					service = partitioner.partition(sd.getService(), sdr.getLocation());
+				} else {
+					service = sd.getService();
+				}
+				sd = new ServiceDocument(service);
+			}
 		
 			// Print out the Service Document
 			response.setContentType("application/atomsvc+xml; charset=UTF-8");
@@ -234,14 +324,20 @@ public class ServiceDocumentServlet extends HttpServlet {
 	}
 	
 	/**
-	 * Utility method to construct the URL called for this Servlet
+	 * Utility method to construct the URL called for this Servlet. If 
+	 * service documents are split into pages, the paging parameters are 
+	 * removed, so that each page is requested from the repository with the 
+	 * same location.
 	 * 
 	 * @param req The request object
 	 * @return The URL
 	 */
-	private static String getUrl(HttpServletRequest req) {
+	private String getUrl(HttpServletRequest req) {
 		String reqUrl = req.getRequestURL().toString();
 		String queryString = req.getQueryString();
+		if (partitioner != null) {
+			queryString = removePagingParameters(queryString);
+		}
         log.debug("Requested url is: " + reqUrl);
 		if (queryString != null) {
 			reqUrl += "?" + queryString;
@@ -249,4 +345,32 @@ public class ServiceDocumentServlet extends HttpServlet {
         log.debug("Requested url with Query String is: " + reqUrl);
 		return reqUrl;
 	}
+
+	/**
+	 * Utility method to remove the service document paging parameters 
+	 * from a query string
+	 * 
+	 * @param queryString The query string, or null
+	 * @return The query string without the paging parameters, or null if 
+	 *         no other parameters remain
+	 */
+	private static String removePagingParameters(String queryString) {
+		if (queryString == null) {
+			return null;
+		}
+		StringBuilder result = new StringBuilder();
+		StringTokenizer st = new StringTokenizer(queryString, "&");
+		while (st.hasMoreTokens()) {
+			String parameter = st.nextToken();
+			if ((parameter.startsWith(ServicePartitioner.PARAMETER_WORKSPACE + "=")) ||
+			    (parameter.startsWith(ServicePartitioner.PARAMETER_PAGE + "="))) {
+				continue;
+			}
+			if (result.length() > 0) {
+				result.append('&');
+			}
+			result.append(parameter);
+		}
+		return (result.length() == 0) ? null : result.toString();
+	}
 }
@@ -38,7 +38,12 @@ package org.purl.sword.atom;
 
 import org.junit.*;
 
+import java.util.Date;
+import java.util.Iterator;
 import java.util.Properties;
+import nu.xom.Element;
+import org.purl.sword.base.DateCodec;
+import org.purl.sword.base.SWORDEntry;
 import org.purl.sword.base.SwordValidationInfo;
 import org.purl.sword.base.SwordValidationInfoType;
 
@@ -103,6 +108,66 @@ public class EntryTest
         Assert.assertSame(entry.getLinks().next(), link);
     }
 
+    @Test
+    public void testLazyUnmarshall() throws Exception
+    {
+        SWORDEntry entry = new SWORDEntry();
+        entry.setId(TEST_ID);
+        entry.setUpdated("2007-08-02T10:22:17Z");
+        entry.addCategory(TEST_CATEGORY);
+        Link link = new Link();
+        link.setHref("http://localhost/edit");
+        entry.addLink(link);
+        Author author = new Author();
+        author.setName(TEST_AUTHOR_NAME);
+        entry.addAuthors(author);
+        entry.setTreatment("treatment");
+        Element element = entry.marshall();
+
+        SWORDEntry eager = new SWORDEntry();
+        eager.unmarshall(element);
+
+        SWORDEntry lazy = new SWORDEntry();
+        lazy.unmarshallLazily(element);
+        Assert.assertEquals("treatment", lazy.getTreatment());
+        Assert.assertEquals(TEST_ID, lazy.getId());
+        Assert.assertEquals("http://localhost/edit", lazy.getLinks().next().getHref());
+        Assert.assertEquals(eager.marshall().toXML(), lazy.marshall().toXML());
+
+        lazy = new SWORDEntry();
+        lazy.unmarshallLazily(element);
+        lazy.setId("replaced");
+        lazy.addCategory("second");
+        Assert.assertEquals("replaced", lazy.getId());
+        Iterator<String> categories = lazy.getCategories();
+        Assert.assertEquals(TEST_CATEGORY, categories.next());
+        Assert.assertEquals("second", categories.next());
+
+        // the deferred elements are held, so they can be removed from the entry
+        lazy = new SWORDEntry();
+        lazy.unmarshallLazily(element);
+        element.removeChildren();
+        Assert.assertEquals(TEST_ID, lazy.getId());
+        Assert.assertEquals(TEST_AUTHOR_NAME, lazy.getAuthors().next().getName());
+        Assert.assertEquals(eager.marshall().toXML(), lazy.marshall().toXML());
+    }
+
+    @Test
+    public void testDates() throws Exception
+    {
+        Entry entry = new Entry();
+        Assert.assertNull(entry.getUpdatedDate());
+
+        entry.setUpdated("2007-08-02T11:22:17+01:00");
+        Assert.assertEquals(DateCodec.parse("2007-08-02T10:22:17Z"), entry.getUpdatedDate().getTime());
+
+        entry.setPublished(new Date(DateCodec.parse("2007-08-02T10:13:14.5Z")));
+        Assert.assertEquals("2007-08-02T10:13:14.500Z", entry.getPublished());
+
+        entry.setPublished("not a date");
+        Assert.assertNull(entry.getPublishedDate());
+    }
+
 
     @Test
     public void testValidEntry()
@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.atom;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import nu.xom.Element;
+import nu.xom.Elements;
+
+import org.purl.sword.base.Namespaces;
+import org.purl.sword.base.SWORDEntry;
+
+/**
+ * Simple benchmark that compares the time and memory allocated to 
+ * unmarshall a feed of entries and read one field from each, with 
+ * unmarshall and with unmarshallLazily. This is not run as part of the 
+ * unit tests. Run it with:
+ * 
+ * <pre>
+ * java -cp target/classes:target/test-classes:... \
+ *      org.purl.sword.atom.EntryUnmarshallBenchmark [entries] [iterations]
+ * </pre>
+ */
+public class EntryUnmarshallBenchmark
+{
+   public static void main(String[] args) throws Exception
+   {
+      int entries = (args.length > 0) ? Integer.parseInt(args[0]) : 5000;
+      int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+      Element feed = createFeed(entries);
+      System.out.println("Feed: " + entries + " entries");
+
+      // warm up both paths before measuring 
+      for( int i = 0; i < 3; i++ )
+      {
+         unmarshall(feed, false);
+         unmarshall(feed, true);
+      }
+
+      long eagerTime = 0;
+      long lazyTime = 0;
+      long eagerBytes = 0;
+      long lazyBytes = 0;
+      for( int i = 0; i < iterations; i++ )
+      {
+         long bytes = allocatedBytes();
+         long start = System.nanoTime();
+         unmarshall(feed, false);
+         eagerTime += System.nanoTime() - start;
+         eagerBytes += allocatedBytes() - bytes;
+
+         bytes = allocatedBytes();
+         start = System.nanoTime();
+         unmarshall(feed, true);
+         lazyTime += System.nanoTime() - start;
+         lazyBytes += allocatedBytes() - bytes;
+      }
+
+      System.out.println("unmarshall:        " + (eagerTime / iterations / 1000000) + " ms, " 
+                         + (eagerBytes / iterations / 1024) + " KB allocated per feed");
+      System.out.println("unmarshallLazily:  " + (lazyTime / iterations / 1000000) + " ms, " 
+                         + (lazyBytes / iterations / 1024) + " KB allocated per feed");
+   }
+
+   /**
+    * Unmarshall each entry in the feed, and read its identifier. 
+    */
+   private static List<SWORDEntry> unmarshall(Element feed, boolean lazily) throws Exception
+   {
+      Elements elements = feed.getChildElements();
+      List<SWORDEntry> result = new ArrayList<SWORDEntry>(elements.size());
+      for( int i = 0; i < elements.size(); i++ )
+      {
+         SWORDEntry entry = new SWORDEntry();
+         if( lazily )
+         {
+            entry.unmarshallLazily(elements.get(i));
+         }
+         else
+         {
+            entry.unmarshall(elements.get(i));
+         }
+         entry.getId();
+         result.add(entry);
+      }
+      return result;
+   }
+
+   /**
+    * Get the number of bytes allocated by this thread, or -1 if the 
+    * virtual machine does not report it. 
+    */
+   private static long allocatedBytes()
+   {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if( bean instanceof com.sun.management.ThreadMXBean )
+      {
+         return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+                 Thread.currentThread().getId());
+      }
+      return -1;
+   }
+
+   /**
+    * Create a feed element that holds the specified number of entries. 
+    */
+   private static Element createFeed(int entries) throws InvalidMediaTypeException
+   {
+      Element feed = new Element("atom:feed", Namespaces.NS_ATOM);
+      for( int i = 0; i < entries; i++ )
+      {
+         SWORDEntry entry = new SWORDEntry();
+         entry.setId("info:entry/" + i);
+         Title title = new Title();
+         title.setContent("Deposit " + i);
+         entry.setTitle(title);
+         Summary summary = new Summary();
+         summary.setContent("A summary of deposit " + i + " that is long enough to be typical");
+         entry.setSummary(summary);
+         entry.setUpdated("2026-10-19T10:00:00Z");
+         entry.setPublished("2026-10-19T10:00:00Z");
+         entry.addCategory("category " + (i % 10));
+         Author author = new Author();
+         author.setName("Depositor " + (i % 100));
+         author.setEmail("depositor" + (i % 100) + "@example.org");
+         entry.addAuthors(author);
+         Link link = new Link();
+         link.setRel("edit-media");
+         link.setHref("http://localhost/media/" + i);
+         entry.addLink(link);
+         Content content = new Content();
+         content.setSource("http://localhost/content/" + i);
+         content.setType("application/zip");
+         entry.setContent(content);
+         entry.setTreatment("Unpacked and stored");
+         feed.appendChild(entry.marshall());
+      }
+      return feed;
+   }
+}
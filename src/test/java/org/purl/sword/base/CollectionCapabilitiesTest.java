@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.Arrays;
+
+import org.junit.*;
+
+public class CollectionCapabilitiesTest {
+
+    private static final String METS = "http://purl.org/net/sword-types/METSDSpaceSIP";
+    private static final String BAGIT = "http://purl.org/net/sword-types/bagit";
+
+    private Collection createCollection()
+    {
+        Collection collection = new Collection("http://localhost/one");
+        collection.setTitle("one");
+        collection.addAccepts("application/zip");
+        collection.addAccepts("image/*");
+        collection.addAccepts("application/atom+xml;type=entry");
+        collection.addAcceptPackaging(METS, 0.5f);
+        collection.addAcceptPackaging(BAGIT, 1.0f);
+        collection.addAcceptPackaging("http://other", 0.0f);
+        return collection;
+    }
+
+    @Test
+    public void mediaTypeTest()
+    {
+        CollectionCapabilities capabilities = CollectionCapabilities.compile(createCollection());
+        Assert.assertTrue(capabilities.acceptsMediaType("application/zip"));
+        Assert.assertTrue(capabilities.acceptsMediaType("Application/ZIP; charset=binary"));
+        Assert.assertTrue(capabilities.acceptsMediaType("image/png"));
+        Assert.assertTrue(capabilities.acceptsMediaType("application/atom+xml"));
+        Assert.assertFalse(capabilities.acceptsMediaType("text/plain"));
+        Assert.assertFalse(capabilities.acceptsMediaType("zip"));
+        Assert.assertFalse(capabilities.acceptsMediaType(null));
+
+        Collection any = new Collection("http://localhost/any");
+        Assert.assertTrue(CollectionCapabilities.compile(any).acceptsMediaType("text/plain"));
+        any.addAccepts("*/*");
+        Assert.assertTrue(CollectionCapabilities.compile(any).acceptsMediaType("text/plain"));
+    }
+
+    @Test
+    public void packagingTest()
+    {
+        CollectionCapabilities capabilities = CollectionCapabilities.compile(createCollection());
+        Assert.assertEquals(BAGIT, capabilities.getPreferredPackaging());
+        Assert.assertEquals(0.5f, capabilities.getQualityValue(METS), 0.0f);
+        Assert.assertTrue(capabilities.acceptsPackaging(METS));
+        Assert.assertTrue(capabilities.acceptsPackaging(null));
+        Assert.assertFalse(capabilities.acceptsPackaging("http://other"));
+        Assert.assertFalse(capabilities.acceptsPackaging("http://unknown"));
+        Assert.assertTrue(capabilities.isAcceptable("application/zip", METS));
+        Assert.assertFalse(capabilities.isAcceptable("text/plain", METS));
+
+        Assert.assertEquals(BAGIT, capabilities.choosePackaging(Arrays.asList(METS, BAGIT)));
+        Assert.assertEquals(METS, capabilities.choosePackaging(Arrays.asList("http://other", METS)));
+        Assert.assertNull(capabilities.choosePackaging(Arrays.asList("http://other")));
+
+        Collection none = new Collection("http://localhost/none");
+        Assert.assertTrue(CollectionCapabilities.compile(none).acceptsPackaging(METS));
+        Assert.assertNull(CollectionCapabilities.compile(none).getPreferredPackaging());
+    }
+
+    @Test
+    public void snapshotTest()
+    {
+        ValuePool pool = new ValuePool();
+        CollectionSnapshot first = createCollection().snapshot(pool);
+        CollectionSnapshot second = createCollection().snapshot(pool);
+        Assert.assertSame(first.getCapabilities(), second.getCapabilities());
+        Assert.assertEquals(CollectionCapabilities.compile(createCollection()), 
+                            first.getCapabilities());
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.*;
+
+public class DateCodecTest {
+
+    private static SimpleDateFormat createFormat(String pattern)
+    {
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format;
+    }
+
+    @Test
+    public void parseTest() throws Exception
+    {
+        SimpleDateFormat format = createFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        long expected = format.parse("2007-08-02T10:13:14.000Z").getTime();
+
+        Assert.assertEquals(expected, DateCodec.parse("2007-08-02T10:13:14Z"));
+        Assert.assertEquals(expected, DateCodec.parse("2007-08-02t10:13:14z"));
+        Assert.assertEquals(expected, DateCodec.parse("2007-08-02T11:13:14+01:00"));
+        Assert.assertEquals(expected, DateCodec.parse("2007-08-02T05:43:14-0430"));
+        Assert.assertEquals(expected, DateCodec.parse("2007-08-02T10:13:14"));
+        Assert.assertEquals(expected + 120, DateCodec.parse("2007-08-02T10:13:14.12Z"));
+        Assert.assertEquals(expected + 123, DateCodec.parse("2007-08-02T10:13:14.123456Z"));
+
+        Assert.assertEquals(format.parse("2007-08-02T10:13:00.000Z").getTime(),
+                            DateCodec.parse("2007-08-02T10:13Z"));
+        Assert.assertEquals(format.parse("2007-08-02T00:00:00.000Z").getTime(),
+                            DateCodec.parse("2007-08-02"));
+        Assert.assertEquals(format.parse("2007-08-01T00:00:00.000Z").getTime(),
+                            DateCodec.parse("2007-08"));
+        Assert.assertEquals(format.parse("2007-01-01T00:00:00.000Z").getTime(),
+                            DateCodec.parse("2007"));
+        Assert.assertEquals(format.parse("1960-02-29T23:59:59.000Z").getTime(),
+                            DateCodec.parse("1960-02-29T23:59:59Z"));
+    }
+
+    @Test
+    public void invalidTest()
+    {
+        String[] invalid = { "", "07-08-02", "2007-13-01", "2007-02-29", 
+                             "2007-08-02T25:00:00Z", "2007-08-02T10:13:14.Z", 
+                             "2007-08-02T10:13:14Q", "2007-08-02T10:13:14Z extra" };
+        for( String text : invalid )
+        {
+            try
+            {
+                DateCodec.parse(text);
+                Assert.fail("Parsed invalid date " + text);
+            }
+            catch( ParseException ex )
+            {
+                // expected
+            }
+        }
+        Assert.assertNull(DateCodec.parseDate("not a date"));
+        Assert.assertNull(DateCodec.parseDate(null));
+    }
+
+    @Test
+    public void formatTest() throws Exception
+    {
+        SimpleDateFormat seconds = createFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        SimpleDateFormat millis = createFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+
+        long time = -86400000L * 365 * 3 + 7;
+        for( int i = 0; i < 2000; i++ )
+        {
+            Date date = new Date(time);
+            Assert.assertEquals(seconds.format(date), DateCodec.format(time));
+            Assert.assertEquals(millis.format(date), DateCodec.formatMillis(time));
+            Assert.assertEquals(time, DateCodec.parse(DateCodec.formatMillis(time)));
+            time += 86400000L * 17 + 3600000L * 5 + 61001L;
+        }
+
+        String now = DateCodec.now();
+        Assert.assertEquals(now, DateCodec.format(DateCodec.parse(now)));
+    }
+}
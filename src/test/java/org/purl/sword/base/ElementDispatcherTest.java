@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+import nu.xom.Builder;
+import nu.xom.Element;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the ElementDispatcher and the registration of handlers for 
+ * extension elements. 
+ */
+public class ElementDispatcherTest
+{
+   private static final String NS_EXAMPLE = "http://example.org/sword/extension";
+
+   private static final XmlName NOTE = new XmlName("ex", "note", NS_EXAMPLE);
+
+   private static final List<String> notes = new ArrayList<String>();
+
+   static
+   {
+      Collection.registerElementHandler(NOTE, new ElementHandler<Collection>()
+      {
+         public SwordValidationInfo unmarshall(Collection target, Element element,
+                 Properties validationProperties)
+         {
+            notes.add(target.getTitle() + ":" + element.getValue());
+            return null;
+         }
+      });
+   }
+
+   private ElementHandler<String> handler(final String value)
+   {
+      return new ElementHandler<String>()
+      {
+         public SwordValidationInfo unmarshall(String target, Element element,
+                 Properties validationProperties)
+         {
+            return new SwordValidationInfo(new XmlName(element), value, 
+                                           SwordValidationInfoType.INFO);
+         }
+      };
+   }
+
+   @Test
+   public void registerAndLookup() throws Exception
+   {
+      ElementDispatcher<String> dispatcher = new ElementDispatcher<String>();
+      XmlName name = new XmlName("ex", "one", NS_EXAMPLE);
+      dispatcher.register(name, handler("first"));
+
+      assertNotNull(dispatcher.getHandler(NS_EXAMPLE, "one"));
+      assertNull(dispatcher.getHandler(NS_EXAMPLE, "two"));
+      assertNull(dispatcher.getHandler(Namespaces.NS_ATOM, "one"));
+
+      Element element = new Element("ex:one", NS_EXAMPLE);
+      assertNotNull(dispatcher.getHandler(element));
+
+      // replace the handler
+      dispatcher.register(name, handler("second"));
+      assertEquals("second", 
+              dispatcher.getHandler(element).unmarshall("", element, null).getMessage());
+
+      dispatcher.unregister(name);
+      assertNull(dispatcher.getHandler(element));
+   }
+
+   @Test
+   public void extensionElementInCollection() throws Exception
+   {
+      String xml = "<collection xmlns=\"http://www.w3.org/2007/app\" " +
+                   "xmlns:atom=\"http://www.w3.org/2005/Atom\" " +
+                   "xmlns:ex=\"" + NS_EXAMPLE + "\" href=\"http://localhost/c\">" +
+                   "<atom:title>Collection</atom:title>" +
+                   "<accept>application/zip</accept>" +
+                   "<ex:note>extension</ex:note>" +
+                   "<ex:other>unknown</ex:other>" +
+                   "</collection>";
+      Element element = new Builder().build(xml, Namespaces.PREFIX_APP).getRootElement();
+
+      notes.clear();
+      Collection collection = new Collection();
+      SwordValidationInfo info = collection.unmarshall(element, new Properties());
+
+      assertEquals(1, notes.size());
+      assertEquals("Collection:extension", notes.get(0));
+      assertEquals("Collection", collection.getTitle());
+
+      // only the element without a handler is reported as unknown
+      int unknown = 0;
+      Iterator<SwordValidationInfo> items = info.getUnmarshallElementInfoIterator();
+      while( items.hasNext() )
+      {
+         SwordValidationInfo item = items.next();
+         if( SwordValidationInfo.UNKNOWN_ELEMENT.equals(item.getMessage()) )
+         {
+            assertEquals("other", item.getElement().getLocalName());
+            unknown++;
+         }
+      }
+      assertEquals(1, unknown);
+   }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import nu.xom.Element;
+
+import org.junit.*;
+
+public class ParallelServiceProcessorTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp()
+    {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    private Service createService()
+    {
+        Service service = new Service("1.3", true, false);
+        for( int w = 0; w < 3; w++ )
+        {
+            Workspace workspace = new Workspace("workspace " + w);
+            for( int i = 0; i < 100; i++ )
+            {
+                Collection collection = new Collection("http://localhost/" + w + "/" + i);
+                collection.setTitle("collection " + i);
+                if( i % 3 == 0 )
+                {
+                    collection.addAccepts("application/zip");
+                    collection.setMediation(true);
+                }
+                workspace.addCollection(collection);
+            }
+            service.addWorkspace(workspace);
+        }
+        return service;
+    }
+
+    @Test
+    public void unmarshallTest() throws Exception
+    {
+        Element element = createService().marshall();
+        String original = element.toXML();
+        ParallelServiceProcessor processor = new ParallelServiceProcessor(executor, 10, 7);
+
+        Service sequential = new Service();
+        SwordValidationInfo expected = sequential.unmarshall(element, new Properties());
+
+        Service parallel = new Service();
+        SwordValidationInfo actual = processor.unmarshall(parallel, element, new Properties());
+
+        Assert.assertEquals(sequential.marshall().toXML(), parallel.marshall().toXML());
+        Assert.assertEquals(expected.getType(), actual.getType());
+        Assert.assertEquals(expected.toString(), actual.toString());
+
+        // the element is not modified
+        Assert.assertEquals(original, element.toXML());
+    }
+
+    @Test
+    public void validateTest()
+    {
+        Service service = createService();
+        ParallelServiceProcessor processor = new ParallelServiceProcessor(executor, 10, 7);
+
+        SwordValidationInfo expected = service.validate(new Properties());
+        SwordValidationInfo actual = processor.validate(service, new Properties());
+        Assert.assertEquals(expected.getType(), actual.getType());
+        Assert.assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void thresholdTest() throws Exception
+    {
+        executor.shutdown();
+        ParallelServiceProcessor processor = new ParallelServiceProcessor(executor);
+
+        // below the threshold, the executor is not used
+        Service service = new Service();
+        processor.unmarshall(service, createService().marshall(), null);
+        Assert.assertEquals(3, service.getWorkspacesList().size());
+        Assert.assertNotNull(processor.validate(service, new Properties()));
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.*;
+
+public class ParserLimitsTest {
+
+    @After
+    public void tearDown()
+    {
+        XmlParserPool.setLimits(ParserLimits.DEFAULT);
+    }
+
+    private String nested(int depth)
+    {
+        StringBuilder xml = new StringBuilder();
+        for( int i = 0; i < depth; i++ )
+        {
+            xml.append("<a>");
+        }
+        for( int i = 0; i < depth; i++ )
+        {
+            xml.append("</a>");
+        }
+        return xml.toString();
+    }
+
+    private void assertLimit(String limitName, String xml)
+    {
+        try
+        {
+            new ServiceDocument().unmarshall(xml);
+            Assert.fail("Limit " + limitName + " was not applied");
+        }
+        catch( LimitExceededException ex )
+        {
+            Assert.assertEquals(limitName, ex.getLimitName());
+        }
+        catch( UnmarshallException ex )
+        {
+            Assert.fail("Expected a LimitExceededException: " + ex);
+        }
+    }
+
+    @Test
+    public void limitsTest()
+    {
+        XmlParserPool.setLimits(new ParserLimits(1000, 5, 20, 2, 10));
+
+        assertLimit(ParserLimits.MAX_DEPTH, nested(6));
+        assertLimit(ParserLimits.MAX_ELEMENTS, "<a>" + nested(1) + nested(1) + 
+                nested(3) + nested(3) + nested(3) + nested(3) + nested(3) + 
+                nested(3) + nested(3) + "</a>");
+        assertLimit(ParserLimits.MAX_ATTRIBUTES, "<a x='1' y='2' z='3'/>");
+        assertLimit(ParserLimits.MAX_TEXT_LENGTH, "<a>12345678901</a>");
+        assertLimit(ParserLimits.MAX_BYTES, "<a>" + nested(200) + "</a>");
+        assertLimit(ParserLimits.DOCTYPE, 
+                "<!DOCTYPE a [ <!ENTITY e \"x\"> ]><a>&e;</a>");
+    }
+
+    @Test
+    public void streamTest() throws Exception
+    {
+        String xml = StreamingUnmarshallerTest.createServiceDocument(2, 50);
+        XmlParserPool.setLimits(new ParserLimits(xml.length() / 2, 
+                ParserLimits.UNLIMITED, ParserLimits.UNLIMITED, 
+                ParserLimits.UNLIMITED, ParserLimits.UNLIMITED));
+        try
+        {
+            new ServiceDocument().unmarshall(
+                    new ByteArrayInputStream(xml.getBytes("UTF-8")), null);
+            Assert.fail("Limit was not applied to the stream");
+        }
+        catch( LimitExceededException ex )
+        {
+            Assert.assertEquals(ParserLimits.MAX_BYTES, ex.getLimitName());
+        }
+    }
+
+    @Test
+    public void withinLimitsTest() throws Exception
+    {
+        String xml = StreamingUnmarshallerTest.createServiceDocument(2, 50);
+        ServiceDocument document = new ServiceDocument();
+        document.unmarshall(xml);
+        Assert.assertEquals(2, document.getService().getWorkspacesList().size());
+
+        XmlParserPool.setLimits(ParserLimits.NONE);
+        document.unmarshall(new ByteArrayInputStream(xml.getBytes("UTF-8")), null);
+        Assert.assertEquals(2, document.getService().getWorkspacesList().size());
+    }
+}
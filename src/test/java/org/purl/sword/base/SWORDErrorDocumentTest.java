@@ -82,6 +82,23 @@ public class SWORDErrorDocumentTest
        Assert.assertEquals(info.getType(), SwordValidationInfoType.WARNING);
    }
 
+   @Test
+   public void unmarshallWithoutValidation()
+   throws Exception
+   {
+       String xml = start + " href=\"" + ErrorCodes.ERROR_CONTENT + "\" >\n" +
+                    "<atom:title>Error</atom:title>\n" +
+                    "<atom:unknown a=\"b\">Unknown</atom:unknown>\n" + end;
+
+       Element element = createElementForTest(xml);
+       SWORDErrorDocument error = new SWORDErrorDocument();
+       SwordValidationInfo info = error.unmarshall(element, null);
+
+       Assert.assertNull(info);
+       Assert.assertEquals(ErrorCodes.ERROR_CONTENT, error.getErrorURI());
+       Assert.assertEquals("Error", error.getTitle().getContent());
+   }
+
    @Test
    public void unmarshallWithValidErrorContentHref()
    throws Exception
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.util.List;
+
+import org.junit.*;
+import org.purl.sword.atom.Link;
+
+public class ServicePartitionerTest {
+
+    private static final String BASE = "http://localhost/servicedocument";
+
+    private Service createService(int large, int small)
+    {
+        Service service = new Service("1.3", true, false);
+        service.setMaxUploadSize(100);
+
+        Workspace workspace = new Workspace("large");
+        for( int i = 0; i < large; i++ )
+        {
+            Collection collection = new Collection("http://localhost/large/" + i);
+            collection.setTitle("large " + i);
+            workspace.addCollection(collection);
+        }
+        service.addWorkspace(workspace);
+
+        workspace = new Workspace("small");
+        for( int i = 0; i < small; i++ )
+        {
+            Collection collection = new Collection("http://localhost/small/" + i);
+            collection.setTitle("small " + i);
+            workspace.addCollection(collection);
+        }
+        service.addWorkspace(workspace);
+        return service;
+    }
+
+    @Test
+    public void partitionTest()
+    {
+        Service service = createService(25, 3);
+        ServicePartitioner partitioner = new ServicePartitioner(10);
+        Assert.assertTrue(partitioner.needsPartition(service));
+
+        Service top = partitioner.partition(service, BASE);
+        Assert.assertEquals("1.3", top.getVersion());
+        Assert.assertTrue(top.isNoOp());
+        Assert.assertEquals(100, top.getMaxUploadSize());
+
+        List<Workspace> workspaces = top.getWorkspacesList();
+        Assert.assertEquals(2, workspaces.size());
+
+        // the first page of the large workspace, with a nested service 
+        // document and a link for the next page
+        List<Collection> collections = workspaces.get(0).getCollections();
+        Assert.assertEquals(11, collections.size());
+        Assert.assertEquals("http://localhost/large/9", collections.get(9).getLocation());
+        Assert.assertNull(collections.get(0).getService());
+        Assert.assertFalse(ServicePartitioner.isNextPage(collections.get(9)));
+        Collection placeholder = collections.get(10);
+        Assert.assertTrue(ServicePartitioner.isNextPage(placeholder));
+        Assert.assertEquals(BASE + "?workspace=0&page=1", placeholder.getService());
+        Assert.assertEquals("large (from collection 11)", placeholder.getTitle());
+        Assert.assertFalse(placeholder.getMediation());
+        Assert.assertEquals(1, workspaces.get(0).getLinks().size());
+        Link next = workspaces.get(0).getLinks().get(0);
+        Assert.assertEquals(ServicePartitioner.REL_NEXT, next.getRel());
+        Assert.assertEquals(BASE + "?workspace=0&page=1", next.getHref());
+
+        Assert.assertSame(service.getWorkspacesList().get(1), workspaces.get(1));
+        Assert.assertTrue(workspaces.get(1).getLinks().isEmpty());
+
+        // the original service is unchanged
+        Assert.assertEquals(25, service.getWorkspacesList().get(0).getCollections().size());
+        Assert.assertTrue(service.getWorkspacesList().get(0).getLinks().isEmpty());
+    }
+
+    @Test
+    public void pageTest() throws Exception
+    {
+        Service service = createService(25, 3);
+        ServicePartitioner partitioner = new ServicePartitioner(10);
+
+        Service page = partitioner.page(service, 0, 1, BASE);
+        List<Workspace> workspaces = page.getWorkspacesList();
+        Assert.assertEquals(1, workspaces.size());
+        Assert.assertEquals(11, workspaces.get(0).getCollections().size());
+        Assert.assertEquals(BASE + "?workspace=0&page=2", 
+                            workspaces.get(0).getCollections().get(10).getService());
+        Assert.assertEquals(BASE + "?workspace=0&page=2", 
+                            workspaces.get(0).getLinks().get(0).getHref());
+
+        page = partitioner.page(service, 0, 2, BASE);
+        List<Collection> collections = page.getWorkspacesList().get(0).getCollections();
+        Assert.assertEquals(5, collections.size());
+        Assert.assertEquals("http://localhost/large/20", collections.get(0).getLocation());
+        Assert.assertFalse(ServicePartitioner.isNextPage(collections.get(4)));
+        Assert.assertTrue(page.getWorkspacesList().get(0).getLinks().isEmpty());
+
+        Assert.assertEquals(3, partitioner.page(service, 1, 0, BASE).getWorkspacesList().get(0).getCollections().size());
+        Assert.assertNull(partitioner.page(service, 0, 3, BASE));
+        Assert.assertNull(partitioner.page(service, 2, 0, BASE));
+        Assert.assertNull(partitioner.page(service, 0, -1, BASE));
+
+        // the pages can be marshalled and read back
+        ServiceDocument document = new ServiceDocument(partitioner.partition(service, BASE));
+        ServiceDocument read = new ServiceDocument();
+        read.unmarshall(document.marshall());
+        Workspace workspace = read.getService().getWorkspacesList().get(0);
+        Assert.assertEquals(11, workspace.getCollections().size());
+        Assert.assertTrue(ServicePartitioner.isNextPage(workspace.getCollections().get(10)));
+        Assert.assertEquals(BASE + "?workspace=0&page=1", 
+                            workspace.getCollections().get(10).getService());
+        Assert.assertEquals(BASE + "?workspace=0&page=1", workspace.getLinks().get(0).getHref());
+    }
+
+    @Test
+    public void partialServiceTest()
+    {
+        // a repository that creates part of the service returns one more 
+        // collection than a page holds, from the start of the page
+        Service service = new Service("1.3", true, false);
+        Workspace workspace = new Workspace("large");
+        for( int i = 10; i < 21; i++ )
+        {
+            workspace.addCollection(new Collection("http://localhost/large/" + i));
+        }
+        service.addWorkspace(workspace);
+        ServicePartitioner partitioner = new ServicePartitioner(10);
+
+        Workspace page = partitioner.page(service, 0, 1, BASE, 10).getWorkspacesList().get(0);
+        Assert.assertEquals(11, page.getCollections().size());
+        Assert.assertEquals("http://localhost/large/10", page.getCollections().get(0).getLocation());
+        Assert.assertEquals("large (from collection 21)", page.getCollections().get(10).getTitle());
+        Assert.assertEquals(BASE + "?workspace=0&page=2", page.getLinks().get(0).getHref());
+
+        Assert.assertNull(partitioner.page(service, 0, 0, BASE, 10));
+    }
+
+    @Test
+    public void smallServiceTest()
+    {
+        Service service = createService(10, 3);
+        ServicePartitioner partitioner = new ServicePartitioner(10);
+        Assert.assertFalse(partitioner.needsPartition(service));
+        Assert.assertEquals(BASE + "?x=1&workspace=1&page=0",
+                ServicePartitioner.getPageUrl(BASE + "?x=1", 1, 0));
+    }
+}
@@ -0,0 +1,294 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.*;
+import org.purl.sword.atom.Generator;
+import org.purl.sword.atom.Link;
+
+public class ServiceSnapshotTest {
+
+    private Service createService()
+    {
+        Service service = new Service("1.3", true, false);
+        service.setMaxUploadSize(100);
+        Generator generator = new Generator();
+        generator.setUri("http://test");
+        generator.setVersion("1.0");
+        service.setGenerator(generator);
+
+        Workspace workspace = new Workspace("workspace");
+        Collection collection = new Collection("http://localhost/one");
+        collection.setTitle("one");
+        collection.addAccepts("application/zip");
+        collection.addAccepts("application/xml");
+        collection.addAcceptPackaging("http://purl.org/net/sword-types/METSDSpaceSIP", 0.5f);
+        collection.addAcceptPackaging("http://purl.org/net/sword-types/bagit", 1.0f);
+        collection.addAcceptPackaging("http://purl.org/net/sword-types/other", 0.5f);
+        collection.setMediation(true);
+        collection.setTreatment("treatment");
+        workspace.addCollection(collection);
+        Collection second = new Collection("http://localhost/two");
+        second.setTitle("two");
+        workspace.addCollection(second);
+        service.addWorkspace(workspace);
+        return service;
+    }
+
+    @Test
+    public void snapshotTest()
+    {
+        Service service = createService();
+        ServiceSnapshot snapshot = service.snapshot();
+
+        Assert.assertEquals("1.3", snapshot.getVersion());
+        Assert.assertTrue(snapshot.isNoOp());
+        Assert.assertEquals(100, snapshot.getMaxUploadSize());
+        Assert.assertEquals(1, snapshot.getWorkspaces().size());
+        Assert.assertEquals(2, snapshot.getCollections().size());
+
+        CollectionSnapshot collection = snapshot.getCollection("http://localhost/one");
+        Assert.assertSame(snapshot.getWorkspaces().get(0).getCollections().get(0), collection);
+        Assert.assertEquals("one", collection.getTitle());
+        Assert.assertEquals(2, collection.getAccepts().size());
+        Assert.assertTrue(collection.getMediation());
+        Assert.assertEquals("http://purl.org/net/sword-types/bagit", collection.getAcceptPackaging().get(0));
+        Assert.assertEquals("http://purl.org/net/sword-types/METSDSpaceSIP", collection.getAcceptPackaging().get(1));
+        Assert.assertEquals("http://purl.org/net/sword-types/other", collection.getAcceptPackaging().get(2));
+        Assert.assertEquals(0.5f, collection.getQualityValue("http://purl.org/net/sword-types/other"), 0.0001f);
+        Assert.assertEquals(0f, collection.getQualityValue("unknown"), 0.0001f);
+
+        // later changes to the service are not seen by the snapshot 
+        service.getWorkspacesList().get(0).getCollections().get(0).addAccepts("text/plain");
+        service.clearWorkspaces();
+        Assert.assertEquals(2, collection.getAccepts().size());
+        Assert.assertEquals(1, snapshot.getWorkspaces().size());
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void unmodifiableTest()
+    {
+        createService().snapshot().getCollections().get(0).getAccepts().add("text/plain");
+    }
+
+    @Test
+    public void toServiceTest()
+    {
+        Service service = createService();
+        Link link = new Link();
+        link.setRel("next");
+        link.setHref("http://localhost/next");
+        service.getWorkspacesList().get(0).addLink(link);
+        ServiceSnapshot snapshot = service.snapshot();
+        Assert.assertEquals(service.marshall().toXML(), 
+                            snapshot.toService().marshall().toXML());
+
+        // the links are copied, so changes are not seen by the snapshot
+        link.setHref("http://localhost/changed");
+        snapshot.getWorkspaces().get(0).getLinks().get(0).setRel("changed");
+        Link copy = snapshot.toService().getWorkspacesList().get(0).getLinks().get(0);
+        Assert.assertEquals("http://localhost/next", copy.getHref());
+        Assert.assertEquals("next", copy.getRel());
+    }
+
+    @Test
+    public void sharedValuesTest() throws Exception
+    {
+        byte[] xml = StreamingUnmarshallerTest.createServiceDocument(2, 10).getBytes("UTF-8");
+        ServiceSnapshot snapshot = new StreamingUnmarshaller().snapshot(
+                new ByteArrayInputStream(xml), new ValuePool());
+
+        Assert.assertEquals(2, snapshot.getWorkspaces().size());
+        Assert.assertEquals("Workspace 1", snapshot.getWorkspaces().get(1).getTitle());
+        Assert.assertEquals(20, snapshot.getCollections().size());
+
+        CollectionSnapshot first = snapshot.getCollections().get(0);
+        CollectionSnapshot last = snapshot.getCollections().get(19);
+        Assert.assertEquals("http://localhost/deposit/1/9", last.getLocation());
+        Assert.assertEquals("Collection 9", last.getTitle());
+        Assert.assertSame(first.getAccepts(), last.getAccepts());
+        Assert.assertSame(first.getAcceptPackaging(), last.getAcceptPackaging());
+        Assert.assertSame(first.getTreatment(), last.getTreatment());
+        Assert.assertEquals(0.8f, last.getQualityValue("http://purl.org/net/sword-types/METSDSpaceSIP"), 0.0001f);
+
+        ServiceDocument document = new ServiceDocument();
+        document.unmarshall(new ByteArrayInputStream(xml), null);
+        Assert.assertEquals(document.marshall(), new ServiceDocument(snapshot.toService()).marshall());
+    }
+
+    /**
+     * Check that the values repeated by every collection in a large service 
+     * document are held once, so the size of the pool does not depend on 
+     * the number of collections. 
+     */
+    @Test
+    public void largeDocumentSharesValuesTest() throws Exception
+    {
+        ValuePool smallPool = new ValuePool();
+        new StreamingUnmarshaller().snapshot(new ByteArrayInputStream(
+                StreamingUnmarshallerTest.createServiceDocument(1, 10).getBytes("UTF-8")), 
+                smallPool);
+
+        ValuePool pool = new ValuePool();
+        ServiceSnapshot snapshot = new StreamingUnmarshaller().snapshot(new ByteArrayInputStream(
+                StreamingUnmarshallerTest.createServiceDocument(1, 5000).getBytes("UTF-8")), 
+                pool);
+        Assert.assertEquals(5000, snapshot.getCollections().size());
+        Assert.assertEquals(smallPool.size(), pool.size());
+
+        CollectionSnapshot first = snapshot.getCollections().get(0);
+        for( CollectionSnapshot collection : snapshot.getCollections() )
+        {
+            Assert.assertSame(first.getAccepts(), collection.getAccepts());
+            Assert.assertSame(first.getAcceptPackaging(), collection.getAcceptPackaging());
+            Assert.assertSame(first.getCapabilities(), collection.getCapabilities());
+            Assert.assertSame(first.getCollectionPolicy(), collection.getCollectionPolicy());
+            Assert.assertSame(first.getTreatment(), collection.getTreatment());
+            Assert.assertSame(first.getAbstract(), collection.getAbstract());
+        }
+    }
+
+    /**
+     * Check the memory held by a snapshot of a large service document, by 
+     * counting the distinct objects that it retains. The count does not 
+     * depend on the virtual machine or the garbage collector, unlike the 
+     * used heap. 
+     */
+    @Test
+    public void heapFootprintTest() throws Exception
+    {
+        int[] snapshotCounts = new int[2];
+        int[] serviceCounts = new int[2];
+        int[] sizes = { 1000, 2000 };
+        for( int i = 0; i < sizes.length; i++ )
+        {
+            byte[] xml = StreamingUnmarshallerTest.createServiceDocument(1, sizes[i]).getBytes("UTF-8");
+            ServiceSnapshot snapshot = new StreamingUnmarshaller().snapshot(
+                    new ByteArrayInputStream(xml), new ValuePool());
+            ServiceDocument document = new ServiceDocument();
+            document.unmarshall(new ByteArrayInputStream(xml), null);
+            snapshotCounts[i] = countObjects(snapshot);
+            serviceCounts[i] = countObjects(document.getService());
+        }
+
+        // the objects added for each collection, which are the ones that 
+        // matter for a document with tens of thousands of collections
+        int perSnapshot = (snapshotCounts[1] - snapshotCounts[0]) / 1000;
+        int perService = (serviceCounts[1] - serviceCounts[0]) / 1000;
+
+        // only the snapshot, its location and its title are not shared
+        Assert.assertTrue("Objects per collection in a snapshot: " + perSnapshot, 
+                          perSnapshot <= 3);
+        Assert.assertTrue("Objects per collection: " + perSnapshot + " against " + perService, 
+                          perSnapshot * 5 <= perService);
+    }
+
+    /**
+     * Count the distinct objects that can be reached from the root. The 
+     * fields of the SWORD and XOM classes are followed, and the elements of
+     * the JDK collections and arrays. Other JDK objects, such as strings, 
+     * are counted but not followed. 
+     */
+    private static int countObjects(Object root) throws IllegalAccessException
+    {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        List<Object> pending = new ArrayList<Object>();
+        pending.add(root);
+        while( ! pending.isEmpty() )
+        {
+            Object object = pending.remove(pending.size() - 1);
+            if( object == null || object instanceof Class || ! seen.add(object) )
+            {
+                continue;
+            }
+
+            Class<?> type = object.getClass();
+            if( type.isArray() )
+            {
+                if( ! type.getComponentType().isPrimitive() )
+                {
+                    for( Object item : (Object[]) object )
+                    {
+                        pending.add(item);
+                    }
+                }
+            }
+            else if( object instanceof java.util.Collection )
+            {
+                for( Object item : (java.util.Collection<?>) object )
+                {
+                    pending.add(item);
+                }
+            }
+            else if( object instanceof Map )
+            {
+                for( Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet() )
+                {
+                    pending.add(entry.getKey());
+                    pending.add(entry.getValue());
+                }
+            }
+            else if( type.getName().startsWith("org.purl.sword.") || 
+                     type.getName().startsWith("nu.xom.") )
+            {
+                for( Class<?> c = type; c != Object.class; c = c.getSuperclass() )
+                {
+                    for( Field field : c.getDeclaredFields() )
+                    {
+                        if( ! Modifier.isStatic(field.getModifiers()) && 
+                            ! field.getType().isPrimitive() )
+                        {
+                            field.setAccessible(true);
+                            pending.add(field.get(object));
+                        }
+                    }
+                }
+            }
+        }
+        return seen.size();
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import nu.xom.Builder;
+import nu.xom.Document;
+
+/**
+ * Simple benchmark that compares the time and memory used to unmarshall a 
+ * large service document with the XOM tree and with the 
+ * StreamingUnmarshaller. This is not run as part of the unit tests. Run it 
+ * with:
+ * 
+ * <pre>
+ * java -cp target/classes:target/test-classes:... \
+ *      org.purl.sword.base.StreamingUnmarshallerBenchmark [collections] [iterations]
+ * </pre>
+ */
+public class StreamingUnmarshallerBenchmark
+{
+   public static void main(String[] args) throws Exception
+   {
+      int collections = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+      int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+      byte[] xml = StreamingUnmarshallerTest.createServiceDocument(1, collections).getBytes("UTF-8");
+      System.out.println("Service document: " + collections + " collections, " + 
+                         xml.length + " bytes");
+
+      // warm up both paths before measuring 
+      for( int i = 0; i < 3; i++ )
+      {
+         xom(xml);
+         streaming(xml);
+      }
+
+      long xomTime = 0;
+      long streamingTime = 0;
+      for( int i = 0; i < iterations; i++ )
+      {
+         long start = System.nanoTime();
+         xom(xml);
+         xomTime += System.nanoTime() - start;
+
+         start = System.nanoTime();
+         streaming(xml);
+         streamingTime += System.nanoTime() - start;
+      }
+
+      System.out.println("XOM tree:  " + (xomTime / iterations / 1000000) + " ms per document");
+      System.out.println("Streaming: " + (streamingTime / iterations / 1000000) + " ms per document");
+
+      // the XOM path holds the tree and the model together at its peak 
+      long base = usedMemory();
+      resetPeak();
+      Document doc = new Builder().build(new ByteArrayInputStream(xml));
+      ServiceDocument fromTree = new ServiceDocument();
+      fromTree.unmarshall(doc.getRootElement());
+      long xomPeak = peakMemory() - base;
+      doc = null;
+      long xomMemory = usedMemory() - base;
+      fromTree = null;
+
+      base = usedMemory();
+      resetPeak();
+      ServiceDocument streamed = new ServiceDocument();
+      streamed.unmarshall(new ByteArrayInputStream(xml), null);
+      long streamingPeak = peakMemory() - base;
+      long streamingMemory = usedMemory() - base;
+
+      System.out.println("XOM tree and model:  peak " + (xomPeak / 1024) + " KB, model " 
+                         + (xomMemory / 1024) + " KB");
+      System.out.println("Streaming model:     peak " + (streamingPeak / 1024) + " KB, model " 
+                         + (streamingMemory / 1024) + " KB");
+      System.out.println(streamed.getService().getWorkspacesList().size() + " workspace(s) read");
+   }
+
+   /**
+    * Reset the peak usage of the heap memory pools. 
+    */
+   private static void resetPeak()
+   {
+      for( MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() )
+      {
+         if( pool.getType() == MemoryType.HEAP )
+         {
+            pool.resetPeakUsage();
+         }
+      }
+   }
+
+   /**
+    * Get the sum of the peak usage of the heap memory pools since they were 
+    * reset. This is an upper bound, because the pools can peak at 
+    * different times. 
+    */
+   private static long peakMemory()
+   {
+      long peak = 0;
+      for( MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() )
+      {
+         if( pool.getType() == MemoryType.HEAP )
+         {
+            peak += pool.getPeakUsage().getUsed();
+         }
+      }
+      return peak;
+   }
+
+   private static ServiceDocument xom(byte[] xml) throws Exception
+   {
+      Document doc = new Builder().build(new ByteArrayInputStream(xml));
+      ServiceDocument document = new ServiceDocument();
+      document.unmarshall(doc.getRootElement());
+      return document;
+   }
+
+   private static ServiceDocument streaming(byte[] xml) throws Exception
+   {
+      ServiceDocument document = new ServiceDocument();
+      document.unmarshall(new ByteArrayInputStream(xml), null);
+      return document;
+   }
+
+   private static long usedMemory()
+   {
+      Runtime runtime = Runtime.getRuntime();
+      for( int i = 0; i < 4; i++ )
+      {
+         System.gc();
+      }
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+}
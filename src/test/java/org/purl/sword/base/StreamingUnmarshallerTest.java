@@ -0,0 +1,305 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import nu.xom.Builder;
+import nu.xom.Document;
+import nu.xom.Element;
+import nu.xom.Nodes;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the StreamingUnmarshaller produces the same model as the XOM
+ * based unmarshall methods. 
+ */
+public class StreamingUnmarshallerTest
+{
+   /**
+    * Build a service document with the specified number of workspaces and 
+    * collections in each workspace. 
+    */
+   static String createServiceDocument(int workspaces, int collections)
+   {
+      StringBuffer xml = new StringBuffer();
+      xml.append("<?xml version=\"1.0\" encoding=\"utf-8\" ?>\n");
+      xml.append("<service xmlns=\"http://www.w3.org/2007/app\" ");
+      xml.append("xmlns:atom=\"http://www.w3.org/2005/Atom\" ");
+      xml.append("xmlns:sword=\"http://purl.org/net/sword/\" ");
+      xml.append("xmlns:dcterms=\"http://purl.org/dc/terms/\">\n");
+      xml.append("  <sword:version>1.3</sword:version>\n");
+      xml.append("  <sword:verbose>true</sword:verbose>\n");
+      xml.append("  <sword:noOp>true</sword:noOp>\n");
+      for( int w = 0; w < workspaces; w++ )
+      {
+         xml.append("  <workspace>\n");
+         xml.append("    <atom:title>Workspace ").append(w).append("</atom:title>\n");
+         xml.append("    <something>unknown element</something>\n");
+         for( int c = 0; c < collections; c++ )
+         {
+            xml.append("    <collection href=\"http://localhost/deposit/");
+            xml.append(w).append("/").append(c).append("\">\n");
+            xml.append("      <atom:title>Collection ").append(c).append("</atom:title>\n");
+            xml.append("      <accept>application/zip</accept>\n");
+            xml.append("      <accept>application/xml</accept>\n");
+            xml.append("      <sword:collectionPolicy>Collection policy</sword:collectionPolicy>\n");
+            xml.append("      <dcterms:abstract>Collection description</dcterms:abstract>\n");
+            xml.append("      <sword:mediation>true</sword:mediation>\n");
+            xml.append("      <sword:treatment>Unpacked</sword:treatment>\n");
+            xml.append("      <sword:acceptPackaging q=\"0.8\">http://purl.org/net/sword-types/METSDSpaceSIP</sword:acceptPackaging>\n");
+            xml.append("    </collection>\n");
+         }
+         xml.append("  </workspace>\n");
+      }
+      xml.append("</service>\n");
+      return xml.toString();
+   }
+
+   private ServiceDocument unmarshallWithXom(String xml, Properties properties)
+   throws Exception
+   {
+      ServiceDocument document = new ServiceDocument();
+      Document doc = new Builder().build(xml, Namespaces.PREFIX_APP);
+      document.unmarshall(doc.getRootElement(), properties);
+      return document;
+   }
+
+   @Test
+   public void sameModelAsXom() throws Exception
+   {
+      String xml = createServiceDocument(3, 20);
+      ServiceDocument expected = unmarshallWithXom(xml, null);
+
+      ServiceDocument actual = new ServiceDocument();
+      SwordValidationInfo info = actual.unmarshall(
+              new ByteArrayInputStream(xml.getBytes("UTF-8")), null);
+      assertNull(info);
+
+      List<Workspace> workspaces = actual.getService().getWorkspacesList();
+      assertEquals(3, workspaces.size());
+      assertEquals("Workspace 1", workspaces.get(1).getTitle());
+      assertEquals(20, workspaces.get(2).getCollections().size());
+
+      Collection collection = workspaces.get(2).getCollections().get(5);
+      assertEquals("http://localhost/deposit/2/5", collection.getLocation());
+      assertEquals("Collection 5", collection.getTitle());
+      assertEquals(2, collection.getAcceptsList().size());
+
+      assertEquals(expected.marshall(), actual.marshall());
+   }
+
+   @Test
+   public void sameValidationAsXom() throws Exception
+   {
+      String xml = createServiceDocument(2, 5);
+      Properties properties = new Properties();
+
+      ServiceDocument document = new ServiceDocument();
+      Document doc = new Builder().build(xml, Namespaces.PREFIX_APP);
+      SwordValidationInfo expected = document.unmarshall(doc.getRootElement(), properties);
+
+      SwordValidationInfo actual = new ServiceDocument().unmarshall(
+              new ByteArrayInputStream(xml.getBytes("UTF-8")), properties);
+
+      assertNotNull(actual);
+      assertEquals(expected.getType(), actual.getType());
+      assertEquals(expected.toString(), actual.toString());
+   }
+
+   @Test
+   public void incorrectRootElement() throws Exception
+   {
+      String xml = "<feed xmlns=\"http://www.w3.org/2005/Atom\"><title>t</title></feed>";
+      SwordValidationInfo info = new ServiceDocument().unmarshall(
+              new ByteArrayInputStream(xml.getBytes("UTF-8")), new Properties());
+      assertEquals(SwordValidationInfoType.ERROR, info.getType());
+   }
+
+   @Test
+   public void collectionFailure() throws Exception
+   {
+      String xml = createServiceDocument(1, 1).replace(
+              "<sword:mediation>true</sword:mediation>", 
+              "<sword:mediation>maybe</sword:mediation>");
+      try
+      {
+         new ServiceDocument().unmarshall(new ByteArrayInputStream(xml.getBytes("UTF-8")), null);
+         fail("The invalid collection was accepted");
+      }
+      catch( UnmarshallException ex )
+      {
+         // the exception from the collection is not wrapped by the parser
+         assertEquals("Unable to parse an element in Collection", ex.getMessage());
+      }
+   }
+
+   @Test(expected=UnmarshallException.class)
+   public void malformedDocument() throws Exception
+   {
+      String xml = createServiceDocument(1, 1).substring(0, 400);
+      new ServiceDocument().unmarshall(new ByteArrayInputStream(xml.getBytes("UTF-8")), null);
+   }
+
+   @Test
+   public void collectionsDetachedTest() throws Exception
+   {
+      final XmlName collectionName = Collection.elementName();
+      final int[] kept = new int[1];
+      StreamingUnmarshaller.ServiceNodeFactory factory = 
+              new StreamingUnmarshaller.ServiceNodeFactory(null, null)
+      {
+         @Override
+         public Nodes finishMakingElement(Element element)
+         {
+            // count the collections that are still attached when each 
+            // workspace is completed 
+            if( Workspace.elementName().getLocalName().equals(element.getLocalName()) )
+            {
+               kept[0] += element.getChildElements(collectionName.getLocalName(), 
+                                                   collectionName.getNamespace()).size();
+            }
+            return super.finishMakingElement(element);
+         }
+      };
+
+      String xml = createServiceDocument(2, 5);
+      Document doc = new Builder(factory).build(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+
+      assertEquals(0, kept[0]);
+      assertEquals(0, doc.getRootElement().getChildElements(
+              Workspace.elementName().getLocalName(), 
+              Workspace.elementName().getNamespace()).size());
+
+      List<Workspace> workspaces = factory.getWorkspaces();
+      assertEquals(2, workspaces.size());
+      assertEquals(5, workspaces.get(0).getCollections().size());
+      assertEquals(5, workspaces.get(1).getCollections().size());
+   }
+
+   @Test
+   public void validateCountsSameIssuesAsXom() throws Exception
+   {
+      String xml = createServiceDocument(2, 5).replaceFirst(
+              "<sword:mediation>true", "<sword:mediation>maybe");
+      Properties properties = new Properties();
+
+      ServiceDocument document = new ServiceDocument();
+      Document doc = new Builder().build(xml, Namespaces.PREFIX_APP);
+      ValidationReport expected = ValidationReport.create(
+              document.unmarshall(doc.getRootElement(), properties));
+
+      final List<ValidationIssue> found = new ArrayList<ValidationIssue>();
+      ValidationReport actual = new ValidationReport(SwordValidationInfoType.INFO, 
+              ValidationReport.UNLIMITED, false, new ValidationListener()
+      {
+         public boolean issueFound(ValidationIssue issue)
+         {
+            found.add(issue);
+            return true;
+         }
+      });
+      assertTrue(new StreamingUnmarshaller().validate(
+              new ByteArrayInputStream(xml.getBytes("UTF-8")), properties, actual));
+
+      assertTrue(actual.getIssues().isEmpty());
+      assertEquals(expected.getIssues().size(), found.size());
+      for( SwordValidationInfoType type : SwordValidationInfoType.values() )
+      {
+         assertEquals(expected.getCount(type), actual.getCount(type));
+      }
+      assertEquals(1, actual.getCount(SwordValidationInfoType.ERROR));
+      assertEquals(findError(expected.getIssues()).getPath(), 
+                   findError(found).getPath());
+   }
+
+   private static ValidationIssue findError(List<ValidationIssue> issues)
+   {
+      for( ValidationIssue issue : issues )
+      {
+         if( issue.getType() == SwordValidationInfoType.ERROR )
+         {
+            return issue;
+         }
+      }
+      return null;
+   }
+
+   @Test
+   public void validateStopsParsingAtFirstError() throws Exception
+   {
+      // the document is truncated after the collection with the error, so 
+      // it can only be read without an exception if the parsing stops
+      String xml = createServiceDocument(1, 50).replaceFirst(
+              "<sword:mediation>true", "<sword:mediation>maybe");
+      xml = xml.substring(0, xml.indexOf("/deposit/0/5\""));
+
+      ValidationReport report = new ValidationReport(SwordValidationInfoType.INFO, 
+              ValidationReport.UNLIMITED, true);
+      assertFalse(new StreamingUnmarshaller().validate(
+              new ByteArrayInputStream(xml.getBytes("UTF-8")), null, report));
+      assertTrue(report.isStopped());
+      assertEquals(1, report.getCount(SwordValidationInfoType.ERROR));
+   }
+
+   @Test
+   public void listenerStopsParsing() throws Exception
+   {
+      String xml = createServiceDocument(1, 50);
+      xml = xml.substring(0, xml.indexOf("/deposit/0/5\""));
+
+      final int[] calls = new int[1];
+      ValidationReport report = new ValidationReport(SwordValidationInfoType.INFO, 
+              ValidationReport.UNLIMITED, false, new ValidationListener()
+      {
+         public boolean issueFound(ValidationIssue issue)
+         {
+            calls[0]++;
+            return false;
+         }
+      });
+      new StreamingUnmarshaller().validate(
+              new ByteArrayInputStream(xml.getBytes("UTF-8")), null, report);
+      assertTrue(report.isStopped());
+      assertEquals(1, calls[0]);
+   }
+}
@@ -75,5 +75,25 @@ public class SwordValidationInfoTest {
         Assert.assertEquals(info.getType(), SwordValidationInfoType.INFO);
     }
 
+    @Test
+    public void emptyNestedItemsTest()
+    {
+        XmlName name = new XmlName(Namespaces.PREFIX_SWORD, "version",
+                                   Namespaces.NS_SWORD);
+        SwordValidationInfo info = new SwordValidationInfo(name);
+
+        Assert.assertFalse(info.getValidationElementInfoIterator().hasNext());
+        Assert.assertFalse(info.getValidationAttributeInfoIterator().hasNext());
+        Assert.assertFalse(info.getUnmarshallElementInfoIterator().hasNext());
+        Assert.assertFalse(info.getUnmarshallAttributeInfoIterator().hasNext());
+
+        info.addValidationInfo(new SwordValidationInfo(name, "Message", SwordValidationInfoType.WARNING));
+        Assert.assertTrue(info.getValidationElementInfoIterator().hasNext());
+        Assert.assertEquals(SwordValidationInfoType.WARNING, info.getType());
+
+        info.clearValidationItems();
+        Assert.assertFalse(info.getValidationElementInfoIterator().hasNext());
+        Assert.assertEquals(SwordValidationInfoType.VALID, info.getType());
+    }
 
 }
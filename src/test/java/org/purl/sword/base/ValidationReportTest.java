@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.*;
+
+public class ValidationReportTest {
+
+    private static final XmlName ROOT = new XmlName("app", "service", Namespaces.NS_APP);
+    private static final XmlName CHILD = new XmlName("app", "collection", Namespaces.NS_APP);
+    private static final XmlName HREF = new XmlName("", "href", "");
+
+    private SwordValidationInfo createInfo()
+    {
+        SwordValidationInfo root = new SwordValidationInfo(ROOT);
+        root.addValidationInfo(new SwordValidationInfo(CHILD, "first warning",
+                SwordValidationInfoType.WARNING));
+
+        SwordValidationInfo child = new SwordValidationInfo(CHILD);
+        child.addAttributeValidationInfo(new SwordValidationInfo(CHILD, HREF,
+                "bad \"href\"", SwordValidationInfoType.ERROR));
+        child.addValidationInfo(new SwordValidationInfo(CHILD, "note",
+                SwordValidationInfoType.INFO));
+        root.addValidationInfo(child);
+
+        root.addValidationInfo(new SwordValidationInfo(CHILD, "second warning",
+                SwordValidationInfoType.WARNING));
+        return root;
+    }
+
+    @Test
+    public void countTest()
+    {
+        ValidationReport report = ValidationReport.create(createInfo());
+        Assert.assertTrue(report.hasErrors());
+        Assert.assertEquals(SwordValidationInfoType.ERROR, report.getHighestType());
+        Assert.assertEquals(1, report.getCount(SwordValidationInfoType.ERROR));
+        Assert.assertEquals(2, report.getCount(SwordValidationInfoType.WARNING));
+        Assert.assertEquals(1, report.getCount(SwordValidationInfoType.INFO));
+
+        List<ValidationIssue> issues = report.getIssues();
+        Assert.assertEquals(4, issues.size());
+        Assert.assertEquals("first warning", issues.get(0).getMessage());
+        Assert.assertEquals("app:service/app:collection", issues.get(1).getPath());
+        Assert.assertEquals(HREF, issues.get(1).getAttribute());
+        Assert.assertEquals("note", issues.get(2).getMessage());
+        Assert.assertFalse(report.isStopped());
+        Assert.assertFalse(report.isTruncated());
+    }
+
+    @Test
+    public void failFastTest()
+    {
+        ValidationReport report = new ValidationReport(SwordValidationInfoType.WARNING,
+                ValidationReport.UNLIMITED, true);
+        Assert.assertFalse(report.add(createInfo()));
+        Assert.assertTrue(report.isStopped());
+        Assert.assertEquals(2, report.getIssues().size());
+        Assert.assertEquals(0, report.getCount(SwordValidationInfoType.INFO));
+        Assert.assertEquals(1, report.getCount(SwordValidationInfoType.WARNING));
+    }
+
+    @Test
+    public void limitTest()
+    {
+        ValidationReport report = new ValidationReport(SwordValidationInfoType.WARNING, 1, false);
+        report.add(createInfo());
+        Assert.assertTrue(report.isTruncated());
+        Assert.assertEquals(1, report.getIssues().size());
+        Assert.assertEquals(2, report.getCount(SwordValidationInfoType.WARNING));
+    }
+
+    @Test
+    public void writeTest() throws Exception
+    {
+        ValidationReport report = ValidationReport.create(createInfo());
+
+        StringWriter text = new StringWriter();
+        report.writeText(text);
+        Assert.assertTrue(text.toString().startsWith("Result: ERROR, INFO: 1, WARNING: 2, ERROR: 1\n"));
+        Assert.assertTrue(text.toString().contains("[ERROR] app:service/app:collection @href - bad \"href\""));
+
+        StringWriter json = new StringWriter();
+        report.writeJson(json);
+        Assert.assertTrue(json.toString().startsWith(
+                "{\"result\":\"ERROR\",\"counts\":{\"INFO\":1,\"WARNING\":2,\"ERROR\":1},"));
+        Assert.assertTrue(json.toString().contains("\"message\":\"bad \\\"href\\\"\""));
+        Assert.assertTrue(json.toString().endsWith("}]}"));
+    }
+
+    @Test
+    public void serviceTest()
+    {
+        Service service = new Service("1.3");
+        Workspace workspace = new Workspace("workspace");
+        Collection collection = new Collection("http://localhost/one");
+        collection.setTitle("one");
+        workspace.addCollection(collection);
+        service.addWorkspace(workspace);
+
+        SwordValidationInfo info = service.validate(new Properties());
+        ValidationReport report = ValidationReport.create(info);
+        Assert.assertEquals(info.getType(), report.getHighestType());
+        Assert.assertFalse(report.getIssues().isEmpty());
+    }
+}
@@ -56,4 +56,67 @@ public class XmlNameTest {
         Assert.assertTrue(name.getNamespace().equals(Namespaces.NS_SWORD));
 
     }
+
+    @Test
+    public void internTest()
+    {
+        XmlName first = XmlName.intern(Namespaces.PREFIX_SWORD, "version", Namespaces.NS_SWORD);
+        XmlName second = XmlName.intern(Namespaces.PREFIX_SWORD, "version", Namespaces.NS_SWORD);
+
+        Assert.assertSame(first, second);
+        Assert.assertSame(SwordVersion.elementName(), first);
+        Assert.assertEquals("sword:version", first.getQualifiedName());
+        Assert.assertNotSame(first, new XmlName(Namespaces.PREFIX_SWORD, "version", Namespaces.NS_SWORD));
+    }
+
+    @Test
+    public void equalsTest()
+    {
+        XmlName name = new XmlName(Namespaces.PREFIX_SWORD, "version", Namespaces.NS_SWORD);
+        XmlName other = new XmlName("s", "version", Namespaces.NS_SWORD);
+
+        Assert.assertEquals(name, other);
+        Assert.assertEquals(name.hashCode(), other.hashCode());
+        Assert.assertFalse(name.equals(new XmlName(Namespaces.PREFIX_ATOM, "version", Namespaces.NS_ATOM)));
+        Assert.assertEquals("version", new XmlName(null, "version", Namespaces.NS_SWORD).getQualifiedName());
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void sharedImmutableTest()
+    {
+        SwordVersion.elementName().setLocalName("other");
+    }
+
+    @Test
+    public void mutableTest()
+    {
+        XmlName name = new XmlName(Namespaces.PREFIX_SWORD, "version", Namespaces.NS_SWORD);
+        name.setPrefix(Namespaces.PREFIX_ATOM);
+        name.setLocalName("title");
+        name.setNamespace(Namespaces.NS_ATOM);
+
+        XmlName expected = XmlName.intern(Namespaces.PREFIX_ATOM, "title", Namespaces.NS_ATOM);
+        Assert.assertEquals("atom:title", name.getQualifiedName());
+        Assert.assertEquals(expected, name);
+        Assert.assertEquals(expected.hashCode(), name.hashCode());
+        Assert.assertNotSame(expected, name);
+        Assert.assertSame(expected, name.intern());
+
+        // the shared instance is not affected by later changes to the name
+        name.setLocalName("summary");
+        Assert.assertEquals("title", expected.getLocalName());
+        Assert.assertSame(expected, XmlName.intern(Namespaces.PREFIX_ATOM, "title", Namespaces.NS_ATOM));
+    }
+
+    @Test
+    public void matchesTest()
+    {
+        nu.xom.Element element = new nu.xom.Element(
+                Namespaces.PREFIX_SWORD + ":" + new String("version"), 
+                new String(Namespaces.NS_SWORD));
+
+        Assert.assertTrue(SwordVersion.elementName().matches(element));
+        Assert.assertFalse(XmlName.intern(Namespaces.PREFIX_ATOM, "version", Namespaces.NS_ATOM).matches(element));
+        Assert.assertFalse(XmlName.intern(Namespaces.PREFIX_SWORD, "verbose", Namespaces.NS_SWORD).matches(element));
+    }
 }
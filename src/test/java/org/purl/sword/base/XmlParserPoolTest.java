@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.base;
+
+import java.io.ByteArrayOutputStream;
+
+import nu.xom.Builder;
+import nu.xom.Document;
+import nu.xom.Element;
+import nu.xom.ParsingException;
+import nu.xom.Serializer;
+
+import org.junit.*;
+
+public class XmlParserPoolTest {
+
+    @Test
+    public void reuseTest() throws Exception
+    {
+        Builder builder = XmlParserPool.getBuilder();
+        Assert.assertSame(builder, XmlParserPool.getBuilder());
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        Serializer serializer = XmlParserPool.getSerializer(first);
+        serializer.write(new Document(new Element("one")));
+        Assert.assertSame(serializer, XmlParserPool.getSerializer(second));
+        serializer.write(new Document(new Element("two")));
+
+        Assert.assertTrue(first.toString("UTF-8").contains("<one"));
+        Assert.assertTrue(second.toString("UTF-8").contains("<two"));
+
+        XmlParserPool.release();
+        Assert.assertNotSame(builder, XmlParserPool.getBuilder());
+    }
+
+    @Test
+    public void externalEntityTest() throws Exception
+    {
+        String xml = "<?xml version=\"1.0\"?>" +
+                     "<!DOCTYPE test [ <!ENTITY ext SYSTEM \"file:///etc/hostname\"> ]>" +
+                     "<test>&ext;</test>";
+
+        try
+        {
+            XmlParserPool.getBuilder().build(xml, null);
+            Assert.fail("Document type declaration was accepted");
+        }
+        catch( ParsingException ex )
+        {
+            UnmarshallException failure = XmlParserPool.parseFailure("failed", ex);
+            Assert.assertTrue(failure instanceof LimitExceededException);
+            Assert.assertEquals(ParserLimits.DOCTYPE, 
+                    ((LimitExceededException) failure).getLimitName());
+        }
+    }
+
+    @Test
+    public void unmarshallTest() throws Exception
+    {
+        ServiceDocument document = new ServiceDocument();
+        document.unmarshall(StreamingUnmarshallerTest.createServiceDocument(2, 3));
+        String xml = document.marshall();
+
+        ServiceDocument copy = new ServiceDocument();
+        copy.unmarshall(xml);
+        Assert.assertEquals(xml, copy.marshall());
+    }
+}
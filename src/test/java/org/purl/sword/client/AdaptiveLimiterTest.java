@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.*;
+
+public class AdaptiveLimiterTest {
+
+	private static final String HOST = "sword.example.org";
+
+	/**
+	 * Send requests that fill the current limit, and report them as 
+	 * successful.
+	 */
+	private void fill(AdaptiveLimiter limiter, long latency) throws InterruptedException {
+		int limit = limiter.getLimit(HOST);
+		long[] started = new long[limit];
+		for (int i = 0; i < limit; i++) {
+			started[i] = limiter.acquire(HOST);
+		}
+		for (int i = 0; i < limit; i++) {
+			limiter.release(HOST, started[i], latency, false);
+		}
+	}
+
+	@Test
+	public void increaseTest() throws InterruptedException {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 4);
+		Assert.assertEquals(1, limiter.getLimit(HOST));
+		for (int i = 0; i < 20; i++) {
+			fill(limiter, 100);
+		}
+		Assert.assertEquals(4, limiter.getLimit(HOST));
+		Assert.assertEquals(1, limiter.getLimit("other.example.org"));
+	}
+
+	@Test
+	public void dropTest() throws InterruptedException {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 8);
+		Thread.sleep(2);
+		long first = limiter.acquire(HOST);
+		long second = limiter.acquire(HOST);
+		limiter.release(HOST, first, -1, true);
+		Assert.assertEquals(4, limiter.getLimit(HOST));
+
+		// the second request was sent before the limit was reduced
+		limiter.release(HOST, second, -1, true);
+		Assert.assertEquals(4, limiter.getLimit(HOST));
+
+		Thread.sleep(2);
+		limiter.release(HOST, limiter.acquire(HOST), -1, true);
+		Assert.assertEquals(2, limiter.getLimit(HOST));
+	}
+
+	@Test
+	public void latencyTest() throws InterruptedException {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 8);
+		fill(limiter, 100);
+		Assert.assertEquals(8, limiter.getLimit(HOST));
+
+		Thread.sleep(2);
+		limiter.release(HOST, limiter.acquire(HOST), 150, false);
+		Assert.assertEquals(8, limiter.getLimit(HOST));
+		limiter.release(HOST, limiter.acquire(HOST), 500, false);
+		Assert.assertEquals(7, limiter.getLimit(HOST));
+	}
+
+	@Test
+	public void waitTest() throws InterruptedException {
+		final AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1);
+		long started = limiter.acquire(HOST);
+
+		final CountDownLatch acquired = new CountDownLatch(1);
+		Thread thread = new Thread() {
+			public void run() {
+				try {
+					limiter.acquire(HOST);
+					acquired.countDown();
+				} catch (InterruptedException e) {
+					// test fails
+				}
+			}
+		};
+		thread.start();
+		Assert.assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+		limiter.release(HOST, started, 10, false);
+		Assert.assertTrue(acquired.await(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.*;
+
+public class BulkManifestTest {
+
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("bulk", "");
+		directory.delete();
+		directory.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		delete(directory);
+	}
+
+	private void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private File write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(content.getBytes("UTF-8"));
+		out.close();
+		return file;
+	}
+
+	@Test
+	public void parseLineTest() {
+		List<String> fields = BulkManifest.parseLine("a.zip,\"http://x/a,b\",,\"say \"\"hi\"\"\"");
+		Assert.assertEquals(4, fields.size());
+		Assert.assertEquals("a.zip", fields.get(0));
+		Assert.assertEquals("http://x/a,b", fields.get(1));
+		Assert.assertEquals("", fields.get(2));
+		Assert.assertEquals("say \"hi\"", fields.get(3));
+	}
+
+	@Test
+	public void readTest() throws IOException {
+		File manifest = write(new File(directory, "manifest.csv"),
+				"# comment\n"
+				+ "file,destination,filetype,packaging,slug,onBehalfOf\n"
+				+ "one.zip\n"
+				+ "\n"
+				+ "sub/two.zip,http://other/deposit,application/x-tar,http://pkg,slug-two,jim\n");
+
+		List<PostMessage> messages = new BulkManifest("http://default/deposit", "application/zip")
+				.read(manifest);
+		Assert.assertEquals(2, messages.size());
+
+		PostMessage one = messages.get(0);
+		Assert.assertEquals(new File(directory, "one.zip").getAbsolutePath(), one.getFilepath());
+		Assert.assertEquals("http://default/deposit", one.getDestination());
+		Assert.assertEquals("application/zip", one.getFiletype());
+		Assert.assertNull(one.getSlug());
+
+		PostMessage two = messages.get(1);
+		Assert.assertEquals(new File(directory, "sub/two.zip").getAbsolutePath(), two.getFilepath());
+		Assert.assertEquals("http://other/deposit", two.getDestination());
+		Assert.assertEquals("application/x-tar", two.getFiletype());
+		Assert.assertEquals("http://pkg", two.getPackaging());
+		Assert.assertEquals("slug-two", two.getSlug());
+		Assert.assertEquals("jim", two.getOnBehalfOf());
+
+		try {
+			new BulkManifest(null, "application/zip").read(manifest);
+			Assert.fail("Expected the missing destination to be reported");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage().indexOf("line 3") > 0);
+		}
+	}
+
+	@Test
+	public void scanTest() throws IOException {
+		write(new File(directory, "b.zip"), "b");
+		write(new File(directory, "a/c.zip"), "c");
+		write(new File(directory, "a.zip"), "a");
+
+		List<PostMessage> messages = new BulkManifest("http://default/deposit", "application/zip")
+				.scan(directory);
+		Assert.assertEquals(3, messages.size());
+		Assert.assertTrue(messages.get(0).getFilepath().endsWith("c.zip"));
+		Assert.assertTrue(messages.get(1).getFilepath().endsWith("a.zip"));
+		Assert.assertTrue(messages.get(2).getFilepath().endsWith("b.zip"));
+	}
+
+	@Test
+	public void journalTest() throws IOException {
+		File file = new File(directory, "bulk.journal");
+		PostMessage one = new PostMessage();
+		one.setFilepath(new File(directory, "one.zip").getPath());
+		one.setDestination("http://default/deposit");
+		PostMessage two = new PostMessage();
+		two.setFilepath(new File(directory, "two.zip").getPath());
+		two.setDestination("http://default/deposit");
+
+		DepositJournal journal = new DepositJournal(file);
+		journal.record(one, 201, "http://default/item/1");
+		journal.record(two, 415, "Unsupported Media Type");
+		journal.close();
+
+		// simulate a run that stopped part way through writing an entry
+		FileOutputStream out = new FileOutputStream(file, true);
+		out.write("202\thttp://default/deposit".getBytes("UTF-8"));
+		out.close();
+
+		journal = new DepositJournal(file);
+		Assert.assertTrue(journal.isCompleted(one));
+		Assert.assertFalse(journal.isCompleted(two));
+		Assert.assertEquals(1, journal.getCompletedCount());
+		journal.record(two, 201, "http://default/item/2");
+		journal.close();
+
+		journal = new DepositJournal(file);
+		Assert.assertTrue(journal.isCompleted(two));
+		Assert.assertEquals(2, journal.getCompletedCount());
+		journal.close();
+	}
+}
@@ -0,0 +1,637 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.httpclient.HttpStatus;
+import org.junit.*;
+import org.purl.sword.base.ChecksumUtils;
+import org.purl.sword.base.DepositResponse;
+import org.purl.sword.base.SWORDErrorDocument;
+import org.purl.sword.base.Service;
+import org.purl.sword.base.ServiceDocument;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ClientTest {
+
+	private HttpServer server;
+
+	private ExecutorService serverExecutor;
+
+	private String url;
+
+	private String depositUrl;
+
+	/** The deposits that were received without credentials. */
+	private AtomicInteger unauthenticated = new AtomicInteger();
+
+	/** The deposits that were received with an Expect header. */
+	private AtomicInteger expectContinue = new AtomicInteger();
+
+	/** Released when the slow request should respond. */
+	private CountDownLatch release = new CountDownLatch(1);
+
+	/** Released when the slow request has been received. */
+	private CountDownLatch received = new CountDownLatch(1);
+
+	/** The number of requests to the unavailable service. */
+	private AtomicInteger unavailable = new AtomicInteger();
+
+	/** The number of times that the cached service document was sent. */
+	private AtomicInteger cachedSent = new AtomicInteger();
+
+	/** The Content-MD5 header of the last deposit. */
+	private volatile String md5;
+
+	@Before
+	public void setUp() throws IOException {
+		final byte[] document = new ServiceDocument(new Service("1.3"))
+				.marshall().getBytes("UTF-8");
+		final String expected = "Basic "
+				+ new String(Base64.encodeBase64("fred:secret".getBytes("UTF-8")), "UTF-8");
+
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 16);
+		serverExecutor = Executors.newFixedThreadPool(4);
+		server.setExecutor(serverExecutor);
+		server.createContext("/servicedocument", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				String auth = exchange.getRequestHeaders().getFirst("Authorization");
+				if (expected.equals(auth)) {
+					exchange.sendResponseHeaders(HttpStatus.SC_OK, document.length);
+					OutputStream out = exchange.getResponseBody();
+					out.write(document);
+					out.close();
+				} else {
+					exchange.getResponseHeaders().add("WWW-Authenticate", 
+							"Basic realm=\"SWORD\"");
+					byte[] body = "Unauthorized".getBytes("UTF-8");
+					exchange.sendResponseHeaders(HttpStatus.SC_UNAUTHORIZED, body.length);
+					OutputStream out = exchange.getResponseBody();
+					out.write(body);
+					out.close();
+				}
+				exchange.close();
+			}
+		});
+		server.createContext("/deposit", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				if ("100-continue".equalsIgnoreCase(
+						exchange.getRequestHeaders().getFirst("Expect"))) {
+					expectContinue.incrementAndGet();
+				}
+				md5 = exchange.getRequestHeaders().getFirst("Content-MD5");
+				if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+					unauthenticated.incrementAndGet();
+				}
+				InputStream in = exchange.getRequestBody();
+				while (in.read() != -1) {
+					// discard the deposit
+				}
+				byte[] body = new SWORDErrorDocument("http://purl.org/net/sword/error/ErrorContent")
+						.marshall().toXML().getBytes("UTF-8");
+				exchange.sendResponseHeaders(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+				exchange.close();
+			}
+		});
+		server.createContext("/slow", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				received.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				exchange.sendResponseHeaders(HttpStatus.SC_OK, document.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(document);
+				out.close();
+				exchange.close();
+			}
+		});
+		server.createContext("/unavailable", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				InputStream in = exchange.getRequestBody();
+				while (in.read() != -1) {
+					// discard the request
+				}
+				byte[] body;
+				if (unavailable.incrementAndGet() < 3) {
+					body = "Unavailable".getBytes("UTF-8");
+					exchange.getResponseHeaders().add("Retry-After", "0");
+					exchange.sendResponseHeaders(HttpStatus.SC_SERVICE_UNAVAILABLE, body.length);
+				} else {
+					body = document;
+					exchange.sendResponseHeaders(HttpStatus.SC_OK, body.length);
+				}
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+				exchange.close();
+			}
+		});
+		server.createContext("/cached", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.getResponseHeaders().add("ETag", "\"v1\"");
+				if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+					// a 304 has no body, so close the connection rather than 
+					// leave the client to guess where the response ends
+					exchange.getResponseHeaders().add("Connection", "close");
+					exchange.sendResponseHeaders(HttpStatus.SC_NOT_MODIFIED, -1);
+				} else {
+					cachedSent.incrementAndGet();
+					exchange.sendResponseHeaders(HttpStatus.SC_OK, document.length);
+					OutputStream out = exchange.getResponseBody();
+					out.write(document);
+					out.close();
+				}
+				exchange.close();
+			}
+		});
+		server.start();
+		url = "http://localhost:" + server.getAddress().getPort() + "/servicedocument";
+		depositUrl = "http://localhost:" + server.getAddress().getPort() + "/deposit";
+	}
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		server.stop(0);
+		serverExecutor.shutdown();
+	}
+
+	@Test
+	public void sharedClientTest() throws Exception {
+		final Client client = new Client(4, 8, 5000);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<ClientResult<ServiceDocument>>> results = 
+				new ArrayList<Future<ClientResult<ServiceDocument>>>();
+			for (int i = 0; i < 20; i++) {
+				final String password = (i % 2 == 0) ? "secret" : "wrong";
+				results.add(executor.submit(new Callable<ClientResult<ServiceDocument>>() {
+					public ClientResult<ServiceDocument> call() throws Exception {
+						return client.retrieveServiceDocument(url, null, "fred", password);
+					}
+				}));
+			}
+
+			for (int i = 0; i < results.size(); i++) {
+				ClientResult<ServiceDocument> result = results.get(i).get();
+				if (i % 2 == 0) {
+					Assert.assertEquals(HttpStatus.SC_OK, result.getStatus().getCode());
+					Assert.assertNotNull(result.getValue());
+					Assert.assertNotNull(result.getValidationInfo());
+				} else {
+					Assert.assertEquals(HttpStatus.SC_UNAUTHORIZED, result.getStatus().getCode());
+					Assert.assertNull(result.getValue());
+				}
+			}
+		} finally {
+			executor.shutdown();
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void legacyStatusTest() throws Exception {
+		Client client = new Client();
+		client.setServer("localhost", server.getAddress().getPort());
+		client.setCredentials("fred", "secret");
+		Assert.assertNotNull(client.getServiceDocument(url));
+		Assert.assertEquals(HttpStatus.SC_OK, client.getStatus().getCode());
+
+		client.setCredentials("fred", "wrong");
+		try {
+			client.getServiceDocument(url);
+			Assert.fail("Expected the request to be refused");
+		} catch (SWORDClientException e) {
+			Assert.assertEquals(HttpStatus.SC_UNAUTHORIZED, client.getStatus().getCode());
+		}
+	}
+
+	@Test
+	public void preemptiveDepositTest() throws Exception {
+		File file = File.createTempFile("sword", ".zip");
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(new byte[4096]);
+			out.close();
+
+			PostMessage message = new PostMessage();
+			message.setDestination(depositUrl);
+			message.setFilepath(file.getAbsolutePath());
+			message.setFiletype("application/zip");
+
+			Client client = new Client();
+			Assert.assertFalse(client.isExpectContinue());
+			client.setCredentials("fred", "secret");
+			client.setExpectContinue(true);
+			ClientResult<DepositResponse> result = client.deposit(message);
+			Assert.assertEquals(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, result.getStatus().getCode());
+			Assert.assertEquals(1, unauthenticated.get());
+			Assert.assertEquals(1, expectContinue.get());
+
+			client.setPreemptiveAuthentication(true);
+			client.setExpectContinue(false);
+			result = client.deposit(message);
+			Assert.assertEquals(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, result.getStatus().getCode());
+			Assert.assertEquals(1, unauthenticated.get());
+			Assert.assertEquals(1, expectContinue.get());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void preemptiveRealmTest() throws Exception {
+		Client client = new Client();
+		client.setCredentials("fred", "secret", "SWORD");
+		try {
+			client.setPreemptiveAuthentication(true);
+			Assert.fail("Expected a realm to be refused with preemptive authentication");
+		} catch (IllegalStateException e) {
+			Assert.assertFalse(client.isPreemptiveAuthentication());
+		}
+
+		client.clearCredentials();
+		client.setPreemptiveAuthentication(true);
+		try {
+			client.setCredentials("fred", "secret", "SWORD");
+			Assert.fail("Expected a realm to be refused with preemptive authentication");
+		} catch (IllegalStateException e) {
+			Assert.assertTrue(client.isPreemptiveAuthentication());
+		}
+		client.setCredentials("fred", "secret");
+	}
+
+	@Test
+	public void challengedDepositTest() throws Exception {
+		byte[] error = new SWORDErrorDocument("http://purl.org/net/sword/error/ErrorContent")
+				.marshall().toXML().getBytes("UTF-8");
+		ChallengeServer challenge = new ChallengeServer(error);
+		Thread thread = new Thread(challenge);
+		thread.setDaemon(true);
+		thread.start();
+		File file = File.createTempFile("sword", ".zip");
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(new byte[65536]);
+			out.close();
+
+			PostMessage message = new PostMessage();
+			message.setDestination(challenge.getUrl());
+			message.setFilepath(file.getAbsolutePath());
+			message.setFiletype("application/zip");
+
+			// the file is sent again after the challenge
+			Client client = new Client();
+			client.setCredentials("fred", "secret");
+			ClientResult<DepositResponse> result = client.deposit(message);
+			Assert.assertEquals(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, result.getStatus().getCode());
+			Assert.assertEquals(2, challenge.requests.get());
+			Assert.assertEquals(2 * file.length(), challenge.received.get());
+
+			// the file is only sent once the server has accepted the credentials
+			challenge.reset();
+			client.setExpectContinue(true);
+			result = client.deposit(message);
+			Assert.assertEquals(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, result.getStatus().getCode());
+			Assert.assertEquals(2, challenge.requests.get());
+			Assert.assertEquals(file.length(), challenge.received.get());
+
+			// the credentials are sent with the first request
+			challenge.reset();
+			client.setExpectContinue(false);
+			client.setPreemptiveAuthentication(true);
+			result = client.deposit(message);
+			Assert.assertEquals(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, result.getStatus().getCode());
+			Assert.assertEquals(1, challenge.requests.get());
+			Assert.assertEquals(file.length(), challenge.received.get());
+		} finally {
+			challenge.close();
+			file.delete();
+		}
+	}
+
+	@Test
+	public void presetChecksumTest() throws Exception {
+		File file = File.createTempFile("sword", ".zip");
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(new byte[16]);
+			out.close();
+
+			PostMessage message = new PostMessage();
+			message.setDestination(depositUrl);
+			message.setFilepath(file.getAbsolutePath());
+			message.setFiletype("application/zip");
+			message.setUseMD5(true);
+
+			Client client = new Client();
+			client.deposit(message);
+			Assert.assertEquals(ChecksumUtils.generateMD5(file.getAbsolutePath()), md5);
+
+			message.setMD5("0123456789abcdef0123456789abcdef");
+			client.deposit(message);
+			Assert.assertEquals("0123456789abcdef0123456789abcdef", md5);
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void asyncClientTest() throws Exception {
+		Client client = new Client(2, 2, 0);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			AsyncClient async = new AsyncClient(client, executor);
+			final CountDownLatch done = new CountDownLatch(3);
+			final List<String> outcomes = Collections.synchronizedList(new ArrayList<String>());
+			ClientCallback<ServiceDocument> callback = new ClientCallback<ServiceDocument>() {
+				public void completed(ClientResult<ServiceDocument> result) {
+					outcomes.add("completed " + result.getStatus().getCode());
+					done.countDown();
+				}
+
+				public void failed(SWORDClientException exception) {
+					outcomes.add("failed");
+					done.countDown();
+				}
+
+				public void cancelled() {
+					outcomes.add("cancelled");
+					done.countDown();
+				}
+			};
+
+			Future<ClientResult<ServiceDocument>> ok = 
+				async.getServiceDocument(url, null, "fred", "secret", callback);
+			Assert.assertNotNull(ok.get(10, TimeUnit.SECONDS).getValue());
+
+			Future<ClientResult<ServiceDocument>> failed = 
+				async.getServiceDocument("http://localhost:1/missing", null, callback);
+			try {
+				failed.get(10, TimeUnit.SECONDS);
+				Assert.fail("Expected the request to fail");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof SWORDClientException);
+			}
+
+			String slow = url.replace("/servicedocument", "/slow");
+			Future<ClientResult<ServiceDocument>> cancelled = 
+				async.getServiceDocument(slow, null, callback);
+			Assert.assertTrue(received.await(10, TimeUnit.SECONDS));
+			Assert.assertTrue(cancelled.cancel(true));
+			try {
+				cancelled.get();
+				Assert.fail("Expected the request to be cancelled");
+			} catch (CancellationException e) {
+				// expected
+			}
+
+			Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+			Assert.assertTrue(outcomes.contains("completed 200"));
+			Assert.assertTrue(outcomes.contains("failed"));
+			Assert.assertTrue(outcomes.contains("cancelled"));
+		} finally {
+			executor.shutdownNow();
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void retryTest() throws Exception {
+		String unavailableUrl = url.replace("/servicedocument", "/unavailable");
+		Client client = new Client();
+
+		ClientResult<ServiceDocument> result = 
+			client.retrieveServiceDocument(unavailableUrl, null, null, null);
+		Assert.assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, result.getStatus().getCode());
+		Assert.assertEquals(1, result.getAttempts());
+
+		client.setRetryPolicy(new RetryPolicy(3, 10, 100));
+		result = client.retrieveServiceDocument(unavailableUrl, null, null, null);
+		Assert.assertEquals(HttpStatus.SC_OK, result.getStatus().getCode());
+		Assert.assertEquals(2, result.getAttempts());
+		Assert.assertEquals(1L, client.getRetryCount());
+		Assert.assertEquals(0L, client.getRetryExhaustedCount());
+
+		// nothing is listening on port 1, so the connection is refused
+		try {
+			client.retrieveServiceDocument("http://localhost:1/missing", null, null, null);
+			Assert.fail("Expected the connection to fail");
+		} catch (SWORDClientException e) {
+			Assert.assertEquals(3L, client.getRetryCount());
+			Assert.assertEquals(1L, client.getRetryExhaustedCount());
+		}
+	}
+
+	@Test
+	public void serviceDocumentCacheTest() throws Exception {
+		String cachedUrl = url.replace("/servicedocument", "/cached");
+		Client client = new Client();
+		client.setServiceDocumentCache(new ServiceDocumentCache());
+
+		ClientResult<ServiceDocument> first = 
+			client.retrieveServiceDocument(cachedUrl, null, null, null);
+		Assert.assertEquals(HttpStatus.SC_OK, first.getStatus().getCode());
+
+		ClientResult<ServiceDocument> second = 
+			client.retrieveServiceDocument(cachedUrl, null, null, null);
+		Assert.assertEquals(HttpStatus.SC_NOT_MODIFIED, second.getStatus().getCode());
+		Assert.assertEquals(1, cachedSent.get());
+
+		// each result has its own copy of the cached document
+		Assert.assertNotNull(client.getServiceDocumentCache()
+				.get(cachedUrl, null, null).getSnapshot());
+		Assert.assertNotSame(first.getValue(), second.getValue());
+		Assert.assertEquals(first.getValue().marshall(), second.getValue().marshall());
+		ClientResult<ServiceDocument> third = 
+			client.retrieveServiceDocument(cachedUrl, null, null, null);
+		Assert.assertNotSame(second.getValue(), third.getValue());
+		Assert.assertEquals(1, cachedSent.get());
+
+		// a different user has a separate entry
+		client.retrieveServiceDocument(cachedUrl, "someone", null, null);
+		Assert.assertEquals(2, cachedSent.get());
+	}
+
+	/**
+	 * A server that challenges a deposit without credentials, and counts the
+	 * bytes of the files that it receives. It does not send a 100 Continue 
+	 * response before the challenge, so a client that waits for one does not
+	 * send the file. Each connection handles a single request.
+	 */
+	private static class ChallengeServer implements Runnable {
+
+		private final ServerSocket socket;
+
+		private final byte[] body;
+
+		/** The number of requests. */
+		private final AtomicInteger requests = new AtomicInteger();
+
+		/** The number of bytes of the request bodies. */
+		private final AtomicLong received = new AtomicLong();
+
+		ChallengeServer(byte[] body) throws IOException {
+			this.socket = new ServerSocket(0, 16, InetAddress.getByName("localhost"));
+			this.body = body;
+		}
+
+		String getUrl() {
+			return "http://localhost:" + socket.getLocalPort() + "/deposit";
+		}
+
+		void reset() {
+			requests.set(0);
+			received.set(0);
+		}
+
+		void close() throws IOException {
+			socket.close();
+		}
+
+		public void run() {
+			while (!socket.isClosed()) {
+				try {
+					Socket connection = socket.accept();
+					try {
+						handle(connection);
+					} finally {
+						connection.close();
+					}
+				} catch (IOException e) {
+					// the server has been closed, or the client went away
+				}
+			}
+		}
+
+		private void handle(Socket connection) throws IOException {
+			connection.setSoTimeout(5000);
+			InputStream in = connection.getInputStream();
+			OutputStream out = connection.getOutputStream();
+			Map<String, String> headers = readHeaders(in);
+			requests.incrementAndGet();
+
+			if (!headers.containsKey("authorization")) {
+				out.write(("HTTP/1.1 401 Unauthorized\r\n"
+						+ "WWW-Authenticate: Basic realm=\"SWORD\"\r\n"
+						+ "Content-Length: 0\r\nConnection: close\r\n\r\n").getBytes("US-ASCII"));
+				out.flush();
+				// count anything that the client sends before it gives up
+				try {
+					while (in.read() != -1) {
+						received.incrementAndGet();
+					}
+				} catch (SocketTimeoutException e) {
+					// the client kept the connection open
+				}
+				return;
+			}
+
+			if ("100-continue".equalsIgnoreCase(headers.get("expect"))) {
+				out.write("HTTP/1.1 100 Continue\r\n\r\n".getBytes("US-ASCII"));
+				out.flush();
+			}
+			long length = Long.parseLong(headers.get("content-length"));
+			for (long i = 0; i < length && in.read() != -1; i++) {
+				received.incrementAndGet();
+			}
+			out.write(("HTTP/1.1 415 Unsupported Media Type\r\n"
+					+ "Content-Type: application/xml\r\n"
+					+ "Content-Length: " + body.length + "\r\n"
+					+ "Connection: close\r\n\r\n").getBytes("US-ASCII"));
+			out.write(body);
+			out.flush();
+		}
+
+		/**
+		 * Read the request line and headers. The header names are returned
+		 * in lower case.
+		 */
+		private static Map<String, String> readHeaders(InputStream in) throws IOException {
+			StringBuilder text = new StringBuilder();
+			int c;
+			while (!text.toString().endsWith("\r\n\r\n") && (c = in.read()) != -1) {
+				text.append((char) c);
+			}
+			Map<String, String> headers = new HashMap<String, String>();
+			String[] lines = text.toString().split("\r\n");
+			for (int i = 1; i < lines.length; i++) {
+				int colon = lines[i].indexOf(':');
+				if (colon > 0) {
+					headers.put(lines[i].substring(0, colon).trim().toLowerCase(),
+							lines[i].substring(colon + 1).trim());
+				}
+			}
+			return headers;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+
+import org.junit.*;
+
+public class DigestCacheTest {
+
+	private File file;
+
+	private File store;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("digest", ".zip");
+		store = File.createTempFile("digest", ".cache");
+		store.delete();
+		write("first");
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+		store.delete();
+	}
+
+	private void write(String content) throws IOException {
+		write(file, content);
+	}
+
+	private static void write(File target, String content) throws IOException {
+		FileOutputStream out = new FileOutputStream(target);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		// leave the file unchanged for long enough to be cached
+		target.setLastModified(System.currentTimeMillis() 
+				- 10 * DigestCache.MODIFIED_RESOLUTION);
+	}
+
+	@Test
+	public void cacheTest() throws IOException, NoSuchAlgorithmException {
+		DigestCache cache = new DigestCache();
+		String md5 = cache.getMD5(file.getPath());
+		Assert.assertEquals("8b04d5e3775d298e78455efc5ca404d5", md5);
+		Assert.assertEquals(md5, cache.getMD5(file.getAbsolutePath()));
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+
+		write("second, which is longer");
+		Assert.assertFalse(md5.equals(cache.getMD5(file.getPath())));
+		Assert.assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void recentlyModifiedTest() throws IOException, NoSuchAlgorithmException {
+		file.setLastModified(System.currentTimeMillis());
+		DigestCache cache = new DigestCache();
+		String md5 = cache.getMD5(file.getPath());
+		Assert.assertEquals(md5, cache.getMD5(file.getPath()));
+		Assert.assertEquals(0, cache.getHitCount());
+		Assert.assertEquals(2, cache.getMissCount());
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void leastRecentlyUsedTest() throws IOException, NoSuchAlgorithmException {
+		File second = File.createTempFile("digest", ".zip");
+		File third = File.createTempFile("digest", ".zip");
+		try {
+			write(second, "second");
+			write(third, "third");
+			DigestCache cache = new DigestCache(2);
+			cache.getMD5(file.getPath());
+			cache.getMD5(second.getPath());
+			cache.getMD5(file.getPath());
+			cache.getMD5(third.getPath());
+			Assert.assertEquals(2, cache.size());
+			Assert.assertEquals(1, cache.getHitCount());
+
+			cache.getMD5(file.getPath());
+			Assert.assertEquals(2, cache.getHitCount());
+			cache.getMD5(second.getPath());
+			Assert.assertEquals(2, cache.getHitCount());
+		} finally {
+			second.delete();
+			third.delete();
+		}
+	}
+
+	@Test
+	public void storeTest() throws IOException, NoSuchAlgorithmException {
+		DigestCache cache = new DigestCache(store);
+		String md5 = cache.getMD5(file.getPath());
+		cache.close();
+
+		cache = new DigestCache(store);
+		Assert.assertEquals(md5, cache.getMD5(file.getPath()));
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(0, cache.getMissCount());
+		cache.close();
+	}
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.util.DateUtil;
+import org.junit.*;
+
+public class RetryPolicyTest {
+
+	@Test
+	public void statusTest() {
+		RetryPolicy policy = new RetryPolicy(3, 100, 1000);
+		Assert.assertTrue(policy.isRetryableStatus(HttpStatus.SC_SERVICE_UNAVAILABLE, false));
+		Assert.assertTrue(policy.isRetryableStatus(429, false));
+		Assert.assertFalse(policy.isRetryableStatus(HttpStatus.SC_BAD_GATEWAY, false));
+		Assert.assertTrue(policy.isRetryableStatus(HttpStatus.SC_BAD_GATEWAY, true));
+		Assert.assertFalse(policy.isRetryableStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR, true));
+		Assert.assertFalse(policy.isRetryableStatus(HttpStatus.SC_UNAUTHORIZED, true));
+
+		Assert.assertTrue(policy.getDelay(1, HttpStatus.SC_SERVICE_UNAVAILABLE, null, false) >= 0);
+		Assert.assertTrue(policy.getDelay(2, HttpStatus.SC_SERVICE_UNAVAILABLE, null, false) >= 0);
+		Assert.assertEquals(RetryPolicy.NO_RETRY, 
+				policy.getDelay(3, HttpStatus.SC_SERVICE_UNAVAILABLE, null, false));
+		Assert.assertEquals(RetryPolicy.NO_RETRY, RetryPolicy.NONE.getDelay(1, 
+				HttpStatus.SC_SERVICE_UNAVAILABLE, null, true));
+	}
+
+	@Test
+	public void exceptionTest() {
+		RetryPolicy policy = new RetryPolicy(3, 100, 1000);
+		IOException connect = new ConnectException("refused");
+		IOException timeout = new SocketTimeoutException("read timed out");
+		Assert.assertTrue(policy.isRetryableException(connect, false));
+		Assert.assertFalse(policy.isRetryableException(timeout, false));
+		Assert.assertTrue(policy.isRetryableException(timeout, true));
+		Assert.assertFalse(policy.isRetryableException(new IOException("other"), true));
+	}
+
+	@Test
+	public void backoffTest() {
+		RetryPolicy policy = new RetryPolicy(10, 100, 1000, 2.0, 0.5);
+		for (int i = 0; i < 20; i++) {
+			long first = policy.getBackoff(1);
+			Assert.assertTrue(first >= 50 && first <= 100);
+			long third = policy.getBackoff(3);
+			Assert.assertTrue(third >= 200 && third <= 400);
+			long capped = policy.getBackoff(9);
+			Assert.assertTrue(capped >= 500 && capped <= 1000);
+		}
+		Assert.assertEquals(400L, new RetryPolicy(5, 100, 1000, 2.0, 0).getBackoff(3));
+	}
+
+	@Test
+	public void retryAfterTest() {
+		long now = System.currentTimeMillis();
+		Assert.assertEquals(RetryPolicy.NO_RETRY, RetryPolicy.parseRetryAfter(null, now));
+		Assert.assertEquals(RetryPolicy.NO_RETRY, RetryPolicy.parseRetryAfter("soon", now));
+		Assert.assertEquals(5000L, RetryPolicy.parseRetryAfter("5", now));
+
+		// HTTP dates only have a resolution of one second
+		now = (now / 1000) * 1000;
+		String date = DateUtil.formatDate(new java.util.Date(now + 30000));
+		Assert.assertEquals(30000L, RetryPolicy.parseRetryAfter(date, now));
+
+		RetryPolicy policy = new RetryPolicy(3, 100, 10000);
+		Assert.assertEquals(5000L, policy.getDelay(1, HttpStatus.SC_SERVICE_UNAVAILABLE, "5", false));
+		Assert.assertEquals(RetryPolicy.NO_RETRY, 
+				policy.getDelay(1, HttpStatus.SC_SERVICE_UNAVAILABLE, "60", false));
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.*;
+
+public class ServiceDocumentCacheTest {
+
+	private static final String URL = "http://localhost/servicedocument";
+
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("services", "");
+		directory.delete();
+	}
+
+	@After
+	public void tearDown() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void evictionTest() {
+		ServiceDocumentCache cache = new ServiceDocumentCache(25);
+		cache.put(URL, "a", null, new byte[10], "\"1\"", null, null);
+		cache.put(URL, "b", null, new byte[10], "\"2\"", null, null);
+		// use a, so that b is the least recently used
+		Assert.assertNotNull(cache.get(URL, "a", null));
+		cache.put(URL, "c", null, new byte[10], "\"3\"", null, null);
+
+		Assert.assertEquals(2, cache.getEntryCount());
+		Assert.assertEquals(20L, cache.getSize());
+		Assert.assertNull(cache.get(URL, "b", null));
+		Assert.assertEquals("\"1\"", cache.get(URL, "a", null).getETag());
+		Assert.assertNull(cache.get(URL, "c", "someone"));
+	}
+
+	@Test
+	public void directoryTest() throws IOException {
+		ServiceDocumentCache cache = new ServiceDocumentCache(directory, 1024);
+		cache.put(URL, "fred", "someone", "<service/>".getBytes("UTF-8"), "\"1\"",
+				"Mon, 19 Oct 2026 10:00:00 GMT", null);
+
+		cache = new ServiceDocumentCache(directory, 1024);
+		ServiceDocumentCache.Entry entry = cache.get(URL, "fred", "someone");
+		Assert.assertNotNull(entry);
+		Assert.assertEquals("<service/>", new String(entry.getContent(), "UTF-8"));
+		Assert.assertEquals("\"1\"", entry.getETag());
+		Assert.assertEquals("Mon, 19 Oct 2026 10:00:00 GMT", entry.getLastModified());
+		Assert.assertNotSame(entry.getContent(), entry.getContent());
+		// the parsed document is not stored, so it is parsed on first use
+		Assert.assertNull(entry.getSnapshot());
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.*;
+
+public class ThrottledFileRequestEntityTest {
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("throttled", ".zip");
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(new byte[100 * 1024]);
+		} finally {
+			out.close();
+		}
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void limiterTest() throws InterruptedException {
+		BandwidthLimiter limiter = new BandwidthLimiter(100 * 1024, 16 * 1024);
+		Assert.assertEquals(0L, limiter.reserve(16 * 1024));
+		// the bucket is empty, so the next 10 KB takes about 100 ms
+		long wait = limiter.reserve(10 * 1024);
+		Assert.assertTrue(wait > 90000000L && wait <= 100000000L);
+	}
+
+	@Test
+	public void throttleTest() throws IOException {
+		List<BandwidthLimiter> limiters = Collections.singletonList(
+				new BandwidthLimiter(200 * 1024, 16 * 1024));
+		final List<TransferProgress> reports = new ArrayList<TransferProgress>();
+		ThrottledFileRequestEntity entity = new ThrottledFileRequestEntity(file,
+				"application/zip", "http://localhost/deposit", limiters,
+				new ProgressListener() {
+					public void progressUpdated(TransferProgress progress) {
+						reports.add(progress);
+					}
+				});
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long start = System.currentTimeMillis();
+		entity.writeRequest(out);
+		long elapsed = System.currentTimeMillis() - start;
+
+		Assert.assertEquals(file.length(), (long) out.size());
+		// 84 KB over the burst at 200 KB/s
+		Assert.assertTrue("Sent too quickly: " + elapsed, elapsed >= 380);
+		// the wait is reported, so that it is not mistaken for a slow server
+		Assert.assertTrue(entity.getThrottledTime() >= 370 
+				&& entity.getThrottledTime() <= elapsed);
+
+		Assert.assertFalse(reports.isEmpty());
+		TransferProgress last = reports.get(reports.size() - 1);
+		Assert.assertTrue(last.isComplete());
+		Assert.assertEquals(file.length(), last.getBytesSent());
+		Assert.assertEquals("http://localhost/deposit", last.getDestination());
+		Assert.assertTrue(last.getAverageRate() < 250 * 1024);
+	}
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2008-2009, Aberystwyth University
+ *
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ * 
+ *  - Redistributions of source code must retain the above 
+ *    copyright notice, this list of conditions and the 
+ *    following disclaimer.
+ *  
+ *  - Redistributions in binary form must reproduce the above copyright 
+ *    notice, this list of conditions and the following disclaimer in 
+ *    the documentation and/or other materials provided with the 
+ *    distribution.
+ *    
+ *  - Neither the name of the Centre for Advanced Software and 
+ *    Intelligent Systems (CASIS) nor the names of its 
+ *    contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR 
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF 
+ * THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF 
+ * SUCH DAMAGE.
+ */
+package org.purl.sword.server;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+import org.purl.sword.base.AtomDocumentRequest;
+import org.purl.sword.base.AtomDocumentResponse;
+import org.purl.sword.base.CollectionCapabilities;
+import org.purl.sword.base.Deposit;
+import org.purl.sword.base.DepositResponse;
+import org.purl.sword.base.SWORDAuthenticationException;
+import org.purl.sword.base.SWORDErrorException;
+import org.purl.sword.base.SWORDException;
+import org.purl.sword.base.ServiceDocument;
+import org.purl.sword.base.ServiceDocumentRequest;
+
+public class CapabilityIndexTest {
+
+    private static final String BASE = "http://localhost/sword";
+
+    private ServiceDocumentRequest createRequest(String username)
+    {
+        ServiceDocumentRequest request = new ServiceDocumentRequest();
+        request.setUsername(username);
+        request.setPassword(username);
+        request.setLocation(BASE + "/servicedocument");
+        return request;
+    }
+
+    @Test
+    public void indexTest()
+    {
+        CapabilityIndex index = new CapabilityIndex(new DummyServer(), 60000);
+
+        CollectionCapabilities capabilities = 
+                index.getCapabilities(BASE + "/deposit/anon", createRequest("fred"));
+        Assert.assertNotNull(capabilities);
+        Assert.assertTrue(capabilities.acceptsMediaType("application/zip"));
+        Assert.assertFalse(capabilities.acceptsMediaType("text/plain"));
+        Assert.assertTrue(capabilities.acceptsPackaging("http://purl.org/net/sword-types/bagit"));
+        Assert.assertFalse(capabilities.acceptsPackaging("http://unknown"));
+
+        Assert.assertNotNull(index.getCapabilities(BASE + "/deposit/fred", createRequest("fred")));
+        Assert.assertNull(index.getCapabilities(BASE + "/deposit/fred", createRequest("jim")));
+        Assert.assertNull(index.getCapabilities(BASE + "/deposit/unknown", createRequest("fred")));
+    }
+
+    @Test
+    public void failedRequestTest()
+    {
+        CapabilityIndex index = new CapabilityIndex(new DummyServer(), 60000);
+
+        // bad credentials, so the deposit is not checked
+        ServiceDocumentRequest request = createRequest("fred");
+        request.setPassword("wrong");
+        Assert.assertNull(index.getCapabilities(BASE + "/deposit/anon", request));
+    }
+
+    @Test
+    public void passwordCheckedTest()
+    {
+        CountingServer server = new CountingServer(0);
+        CapabilityIndex index = new CapabilityIndex(server, 60000);
+        Assert.assertNotNull(index.getCapabilities(BASE + "/deposit/anon", createRequest("fred")));
+
+        // the index for fred is not used for a different password
+        ServiceDocumentRequest request = createRequest("fred");
+        request.setPassword("wrong");
+        Assert.assertNull(index.getCapabilities(BASE + "/deposit/anon", request));
+        Assert.assertEquals(2, server.requests.get());
+
+        Assert.assertNotNull(index.getCapabilities(BASE + "/deposit/anon", createRequest("fred")));
+        Assert.assertNotNull(index.getCapabilities(BASE + "/deposit/anon", createRequest("fred")));
+        Assert.assertEquals(3, server.requests.get());
+    }
+
+    @Test
+    public void leastRecentlyUsedTest()
+    {
+        CountingServer server = new CountingServer(0);
+        CapabilityIndex index = new CapabilityIndex(server, 60000, 2);
+        index.getCapabilities(BASE + "/deposit/anon", createRequest("fred"));
+        index.getCapabilities(BASE + "/deposit/anon", createRequest("jim"));
+        index.getCapabilities(BASE + "/deposit/anon", createRequest("fred"));
+        index.getCapabilities(BASE + "/deposit/anon", createRequest("bob"));
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(3, server.requests.get());
+
+        // jim was removed, but fred was used more recently and is kept
+        index.getCapabilities(BASE + "/deposit/anon", createRequest("fred"));
+        Assert.assertEquals(3, server.requests.get());
+        index.getCapabilities(BASE + "/deposit/anon", createRequest("jim"));
+        Assert.assertEquals(4, server.requests.get());
+    }
+
+    @Test
+    public void concurrentMissesTest() throws Exception
+    {
+        CountingServer server = new CountingServer(200);
+        final CapabilityIndex index = new CapabilityIndex(server, 60000);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger found = new AtomicInteger();
+        Thread[] threads = new Thread[5];
+        for( int i = 0; i < threads.length; i++ )
+        {
+            threads[i] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                        if( index.getCapabilities(BASE + "/deposit/anon", createRequest("fred")) != null )
+                        {
+                            found.incrementAndGet();
+                        }
+                    }
+                    catch( InterruptedException ex )
+                    {
+                        // the test fails on the count
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for( Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        Assert.assertEquals(threads.length, found.get());
+        Assert.assertEquals(1, server.requests.get());
+    }
+
+    /**
+     * Counts the service document requests that are passed to the 
+     * DummyServer, and makes each one take some time. 
+     */
+    private static class CountingServer implements SWORDServer
+    {
+        final AtomicInteger requests = new AtomicInteger();
+
+        private final DummyServer server = new DummyServer();
+
+        private final long delay;
+
+        CountingServer(long delay)
+        {
+            this.delay = delay;
+        }
+
+        public ServiceDocument doServiceDocument(ServiceDocumentRequest sdr)
+        throws SWORDAuthenticationException, SWORDErrorException, SWORDException
+        {
+            requests.incrementAndGet();
+            try
+            {
+                Thread.sleep(delay);
+            }
+            catch( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+            }
+            return server.doServiceDocument(sdr);
+        }
+
+        public DepositResponse doDeposit(Deposit deposit)
+        throws SWORDAuthenticationException, SWORDErrorException, SWORDException
+        {
+            return server.doDeposit(deposit);
+        }
+
+        public AtomDocumentResponse doAtomDocument(AtomDocumentRequest adr)
+        throws SWORDAuthenticationException, SWORDErrorException, SWORDException
+        {
+            return server.doAtomDocument(adr);
+        }
+    }
+}